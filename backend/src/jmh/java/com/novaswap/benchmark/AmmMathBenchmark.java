@@ -0,0 +1,90 @@
+package com.novaswap.benchmark;
+
+import com.novaswap.contract.RouterService;
+import com.novaswap.service.AmmMath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单跳报价运算：BigInteger参考实现、AmmMath的BigInteger入口和无分配入口
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmmMathBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private final BigInteger[] amounts = new BigInteger[SIZE];
+    private final BigInteger[] reservesIn = new BigInteger[SIZE];
+    private final BigInteger[] reservesOut = new BigInteger[SIZE];
+    private final long[] amountsHi = new long[SIZE];
+    private final long[] amountsLo = new long[SIZE];
+    private final long[] reservesInHi = new long[SIZE];
+    private final long[] reservesInLo = new long[SIZE];
+    private final long[] reservesOutHi = new long[SIZE];
+    private final long[] reservesOutLo = new long[SIZE];
+    private final long[] out = new long[2];
+    private final AmmMath.Scratch scratch = new AmmMath.Scratch();
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(42L);
+        for (int i = 0; i < SIZE; i++) {
+            amounts[i] = BigInteger.TEN.pow(15 + random.nextInt(8)).multiply(BigInteger.valueOf(1 + random.nextInt(1000)));
+            reservesIn[i] = SyntheticPools.randomReserve(random);
+            reservesOut[i] = SyntheticPools.randomReserve(random);
+            amountsHi[i] = AmmMath.high(amounts[i]);
+            amountsLo[i] = amounts[i].longValue();
+            reservesInHi[i] = AmmMath.high(reservesIn[i]);
+            reservesInLo[i] = reservesIn[i].longValue();
+            reservesOutHi[i] = AmmMath.high(reservesOut[i]);
+            reservesOutLo[i] = reservesOut[i].longValue();
+        }
+    }
+
+    @Benchmark
+    public BigInteger bigIntegerReference() {
+        int i = cursor++ & (SIZE - 1);
+        return RouterService.getAmountOut(amounts[i], reservesIn[i], reservesOut[i]);
+    }
+
+    @Benchmark
+    public BigInteger ammMathBoxed() {
+        int i = cursor++ & (SIZE - 1);
+        return AmmMath.getAmountOut(amounts[i], reservesIn[i], reservesOut[i], scratch);
+    }
+
+    @Benchmark
+    public void ammMathPrimitive(Blackhole blackhole) {
+        int i = cursor++ & (SIZE - 1);
+        AmmMath.getAmountOut(amountsHi[i], amountsLo[i], reservesInHi[i], reservesInLo[i],
+            reservesOutHi[i], reservesOutLo[i], out, scratch);
+        blackhole.consume(out[1]);
+    }
+
+    @Benchmark
+    public double priceImpact() {
+        int i = cursor++ & (SIZE - 1);
+        return AmmMath.priceImpactPercent(amounts[i].doubleValue(), reservesIn[i].doubleValue(),
+            reservesOut[i].doubleValue(), reservesOut[i].doubleValue() / 1000);
+    }
+}
@@ -0,0 +1,107 @@
+package com.novaswap.benchmark;
+
+import com.novaswap.model.MulticallResult;
+import com.novaswap.service.MulticallDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multicall3.aggregate3返回值解码（MulticallService的解码路径）
+ * 每个结果为getReserves的96字节返回值，每10个结果中有1个失败
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MulticallDecoderBenchmark {
+
+    private static final int WORD = 32;
+    private static final int RETURN_DATA_WORDS = 3;
+
+    @Param({"10", "100", "1000"})
+    public int results;
+
+    private byte[] payload;
+    private String payloadHex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        payload = encodeAggregate3Result(results, new Random(42L));
+        StringBuilder hex = new StringBuilder(2 + payload.length * 2).append("0x");
+        for (byte b : payload) {
+            hex.append(Character.forDigit((b >>> 4) & 0x0f, 16)).append(Character.forDigit(b & 0x0f, 16));
+        }
+        payloadHex = hex.toString();
+    }
+
+    @Benchmark
+    public List<MulticallResult> decodeBytes() {
+        return MulticallDecoder.decodeAggregate3(payload);
+    }
+
+    @Benchmark
+    public List<MulticallResult> decodeHex() {
+        return MulticallDecoder.decodeAggregate3(payloadHex);
+    }
+
+    @Benchmark
+    public BigInteger decodeAndReadReserves() {
+        BigInteger sum = BigInteger.ZERO;
+        for (MulticallResult result : MulticallDecoder.decodeAggregate3(payload)) {
+            BigInteger reserve0 = MulticallDecoder.decodeUint256(result.getReturnData(), 0);
+            if (result.isSuccess() && reserve0 != null) {
+                sum = sum.add(reserve0);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * 按ABI编码 Result[]：offset | length | 各元素偏移 | 各元素 (success, offset=64, bytes)
+     */
+    private static byte[] encodeAggregate3Result(int count, Random random) {
+        int tupleSize = WORD * 3 + RETURN_DATA_WORDS * WORD;
+        int headStart = WORD * 2;
+        byte[] out = new byte[headStart + count * WORD + count * tupleSize];
+
+        writeWord(out, 0, WORD);
+        writeWord(out, WORD, count);
+        for (int i = 0; i < count; i++) {
+            int tupleOffset = count * WORD + i * tupleSize;
+            writeWord(out, headStart + i * WORD, tupleOffset);
+
+            int tupleStart = headStart + tupleOffset;
+            boolean success = i % 10 != 9;
+            writeWord(out, tupleStart, success ? 1 : 0);
+            writeWord(out, tupleStart + WORD, 2 * WORD);
+            writeWord(out, tupleStart + 2 * WORD, RETURN_DATA_WORDS * WORD);
+            for (int w = 0; w < RETURN_DATA_WORDS; w++) {
+                writeWord(out, tupleStart + 3 * WORD + w * WORD, random.nextLong() >>> 1);
+            }
+        }
+        return out;
+    }
+
+    private static void writeWord(byte[] target, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            target[offset + WORD - 1 - i] = (byte) (value >>> (8 * i));
+        }
+    }
+}
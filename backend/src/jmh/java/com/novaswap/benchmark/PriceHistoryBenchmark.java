@@ -0,0 +1,76 @@
+package com.novaswap.benchmark;
+
+import com.novaswap.model.PricePoint;
+import com.novaswap.service.PriceHistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 价格历史区间查询：最近一天（1440个1m点）和全量区间
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceHistoryBenchmark {
+
+    private static final String PAIR = "0x0000000000000000000000000000000010000000";
+    private static final String INTERVAL = "1m";
+
+    @Param({"10000", "100000"})
+    public int points;
+
+    private PriceHistoryService priceHistoryService;
+    private Instant first;
+    private Instant last;
+    private Instant lastDayStart;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        priceHistoryService = new PriceHistoryService();
+        first = Instant.parse("2024-01-01T00:00:00Z");
+        BigDecimal price = BigDecimal.valueOf(1000);
+        for (int i = 0; i < points; i++) {
+            priceHistoryService.addPricePoint(PricePoint.builder()
+                .pairAddress(PAIR)
+                .timestamp(first.plus(i, ChronoUnit.MINUTES))
+                .open(price)
+                .high(price)
+                .low(price)
+                .close(price)
+                .volume(BigDecimal.ONE)
+                .interval(INTERVAL)
+                .build());
+        }
+        last = first.plus(points - 1L, ChronoUnit.MINUTES);
+        lastDayStart = last.minus(1, ChronoUnit.DAYS);
+    }
+
+    @Benchmark
+    public List<PricePoint> lastDay() {
+        return priceHistoryService.getPriceHistory(PAIR, INTERVAL, lastDayStart, last);
+    }
+
+    @Benchmark
+    public List<PricePoint> fullRange() {
+        return priceHistoryService.getPriceHistory(PAIR, INTERVAL, first, last);
+    }
+}
@@ -0,0 +1,133 @@
+package com.novaswap.benchmark;
+
+import com.novaswap.model.RouteInfo;
+import com.novaswap.service.HotRouteService;
+import com.novaswap.service.PoolGraphService;
+import com.novaswap.service.RouteSearchService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 路由搜索：内存池子图上的有界深度搜索，经过RouteSearchService组装RouteInfo的完整报价，
+ * 以及全部查询都是热门交易对时的查表报价；所有查询都能在池子图中找到路径，不会触发链上读取
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RouteSearchBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int pairs;
+
+    private PoolGraphService graph;
+    private RouteSearchService routeSearchService;
+    private RouteSearchService hotRouteSearchService;
+    private String[] tokensIn;
+    private String[] tokensOut;
+    private BigInteger amountIn;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        graph = SyntheticPools.buildGraph(pairs, 42L);
+        // 只有池子图和热门路由表参与报价，其余依赖不会被访问
+        routeSearchService = new RouteSearchService(null, null, graph, null, null, null, new HotRouteService(graph, null, null), null);
+        amountIn = BigInteger.TEN.pow(18);
+
+        Random random = new Random(7L);
+        int tokens = SyntheticPools.tokenCount(pairs);
+        tokensIn = new String[QUERIES];
+        tokensOut = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int a = SyntheticPools.HUBS + random.nextInt(tokens - SyntheticPools.HUBS);
+            int b;
+            do {
+                b = SyntheticPools.HUBS + random.nextInt(tokens - SyntheticPools.HUBS);
+            } while (b == a);
+            tokensIn[i] = SyntheticPools.token(a);
+            tokensOut[i] = SyntheticPools.token(b);
+        }
+
+        HotRouteService hotRouteService = new HotRouteService(graph, null, null);
+        SyntheticPools.setField(hotRouteService, "enabled", true);
+        SyntheticPools.setField(hotRouteService, "maxPairs", QUERIES);
+        SyntheticPools.setField(hotRouteService, "minRequests", 1L);
+        SyntheticPools.setField(hotRouteService, "maxTrackedPairs", QUERIES);
+        SyntheticPools.setField(hotRouteService, "bucketBits", 2);
+        SyntheticPools.setField(hotRouteService, "maxBucketsPerPair", 32);
+        hotRouteSearchService = new RouteSearchService(null, null, graph, null, null, null, hotRouteService, null);
+        warmHotRoutes(hotRouteService);
+    }
+
+    /**
+     * 让全部查询成为热门交易对，并等待后台算完各自的档位
+     */
+    private void warmHotRoutes(HotRouteService hotRouteService) {
+        for (int i = 0; i < QUERIES; i++) {
+            hotRouteService.lookup(tokensIn[i], tokensOut[i], amountIn);
+        }
+        hotRouteService.promote();
+        for (int i = 0; i < QUERIES; i++) {
+            hotRouteService.lookup(tokensIn[i], tokensOut[i], amountIn);
+        }
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (hotRouteService.getHotPairCount() == 0 || hotRouteService.getBucketCount() < hotRouteService.getHotPairCount()) {
+            if (System.currentTimeMillis() > deadline) {
+                // 未预热时hotQuote退化为完整搜索，结果没有意义
+                throw new IllegalStateException("Hot route table not warmed: " + hotRouteService.getHotPairCount()
+                    + " pairs, " + hotRouteService.getBucketCount() + " buckets");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<PoolGraphService.GraphPath> graphSearch() {
+        int i = cursor++ & (QUERIES - 1);
+        return graph.findBestPath(tokensIn[i], tokensOut[i], amountIn);
+    }
+
+    @Benchmark
+    public Optional<PoolGraphService.GraphPath> graphSearchExactOut() {
+        int i = cursor++ & (QUERIES - 1);
+        return graph.findBestPathExactOut(tokensIn[i], tokensOut[i], amountIn);
+    }
+
+    @Benchmark
+    public RouteInfo quote() {
+        int i = cursor++ & (QUERIES - 1);
+        return routeSearchService.findBestRoute(tokensIn[i], tokensOut[i], amountIn, 0.005, Collections.emptyList());
+    }
+
+    @Benchmark
+    public RouteInfo hotQuote() {
+        int i = cursor++ & (QUERIES - 1);
+        return hotRouteSearchService.findBestRoute(tokensIn[i], tokensOut[i], amountIn, 0.005, Collections.emptyList());
+    }
+}
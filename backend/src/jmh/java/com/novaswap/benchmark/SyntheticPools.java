@@ -0,0 +1,92 @@
+package com.novaswap.benchmark;
+
+import com.novaswap.service.PoolGraphService;
+
+import java.lang.reflect.Field;
+import java.math.BigInteger;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 基准测试用的合成池子图
+ * 前HUBS个代币为枢纽且两两相连，其余每个代币至少连到一个枢纽，因此任意两个代币之间都存在3跳以内的路径；
+ * 剩余的pair在随机代币之间生成
+ */
+final class SyntheticPools {
+
+    static final int HUBS = 8;
+
+    private SyntheticPools() {
+    }
+
+    static int tokenCount(int pairs) {
+        return Math.max(HUBS * 2, pairs / 4);
+    }
+
+    static String token(int index) {
+        return String.format("0x%040x", index + 1);
+    }
+
+    static PoolGraphService buildGraph(int pairs, long seed) {
+        PoolGraphService graph = new PoolGraphService();
+        setField(graph, "maxHops", 3);
+        setField(graph, "maxReserveAgeMs", 0L);
+
+        Random random = new Random(seed);
+        int tokens = tokenCount(pairs);
+        Set<Long> created = new HashSet<>();
+        int[] count = {0};
+
+        for (int a = 0; a < HUBS; a++) {
+            for (int b = a + 1; b < HUBS; b++) {
+                addPair(graph, random, created, count, a, b);
+            }
+        }
+        for (int t = HUBS; t < tokens && count[0] < pairs; t++) {
+            addPair(graph, random, created, count, t % HUBS, t);
+        }
+        while (count[0] < pairs) {
+            int a = random.nextInt(tokens);
+            int b = random.nextInt(tokens);
+            if (a != b) {
+                addPair(graph, random, created, count, a, b);
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * 随机储备：1e20 ~ 1e25量级，均在uint112范围内
+     */
+    static BigInteger randomReserve(Random random) {
+        return BigInteger.TEN.pow(20 + random.nextInt(6)).multiply(BigInteger.valueOf(1 + random.nextInt(1000)));
+    }
+
+    private static void addPair(PoolGraphService graph, Random random, Set<Long> created, int[] count, int a, int b) {
+        int lo = Math.min(a, b);
+        int hi = Math.max(a, b);
+        if (!created.add(((long) lo << 32) | hi)) {
+            return;
+        }
+        graph.upsertPool(
+            String.format("0x%040x", 0x10000000L + count[0]),
+            token(lo),
+            token(hi),
+            randomReserve(random),
+            randomReserve(random),
+            1L
+        );
+        count[0]++;
+    }
+
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set " + name, e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.novaswap.benchmark;
+
+import com.novaswap.config.ContractProperties;
+import com.novaswap.service.TransactionBuilderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Router calldata编码
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBuilderBenchmark {
+
+    private static final String RECIPIENT = "0x00000000000000000000000000000000000000aa";
+
+    @Param({"2", "4"})
+    public int pathLength;
+
+    private TransactionBuilderService transactionBuilderService;
+    private List<String> path;
+    private BigInteger amountIn;
+    private BigInteger amountOutMin;
+    private BigInteger deadline;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        ContractProperties contracts = new ContractProperties();
+        contracts.setRouter("0x7a250d5630B4cF539739dF2C5dAcb4c659F2488D");
+        contracts.setWeth("0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2");
+        transactionBuilderService = new TransactionBuilderService(contracts);
+
+        path = new ArrayList<>(pathLength);
+        for (int i = 0; i < pathLength; i++) {
+            path.add(SyntheticPools.token(i));
+        }
+        amountIn = BigInteger.TEN.pow(18);
+        amountOutMin = BigInteger.valueOf(1_234_567_890L);
+        deadline = BigInteger.valueOf(1_900_000_000L);
+    }
+
+    @Benchmark
+    public String swapExactTokensForTokens() {
+        return transactionBuilderService.buildSwapExactTokensForTokens(amountIn, amountOutMin, path, RECIPIENT, deadline);
+    }
+
+    @Benchmark
+    public String addLiquidity() {
+        return transactionBuilderService.buildAddLiquidity(
+            path.get(0), path.get(1), amountIn, amountIn, amountOutMin, amountOutMin, RECIPIENT, deadline);
+    }
+}
@@ -1,8 +1,11 @@
 package com.novaswap.api.controller;
 
 import com.novaswap.api.dto.BalanceRequest;
+import com.novaswap.api.dto.PortfolioRequest;
+import com.novaswap.model.Portfolio;
 import com.novaswap.model.TokenBalance;
 import com.novaswap.service.BalanceService;
+import com.novaswap.service.PortfolioService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -14,6 +17,7 @@ import java.math.BigInteger;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @Tag(name = "Balance", description = "余额查询API")
 @RestController
@@ -22,37 +26,58 @@ import java.util.Map;
 public class BalanceController {
     
     private final BalanceService balanceService;
+    private final PortfolioService portfolioService;
     
     @Operation(summary = "获取ETH余额")
     @GetMapping("/eth/{address}")
-    public ResponseEntity<Map<String, Object>> getEthBalance(@PathVariable String address) {
-        BigInteger balance = balanceService.getEthBalance(address);
-        Map<String, Object> response = new HashMap<>();
-        response.put("address", address);
-        response.put("balance", balance.toString());
-        response.put("balanceInEth", balance.divide(BigInteger.TEN.pow(18)).toString());
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getEthBalance(
+        @PathVariable String address,
+        @RequestParam(required = false) Long chainId
+    ) {
+        return balanceService.getEthBalanceAsync(chainId, address).thenApply(balance -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("address", address);
+            if (chainId != null) {
+                response.put("chainId", chainId);
+            }
+            response.put("balance", balance.toString());
+            response.put("balanceInEth", balance.divide(BigInteger.TEN.pow(18)).toString());
+            return ResponseEntity.ok(response);
+        });
     }
     
     @Operation(summary = "获取单个ERC20代币余额")
     @GetMapping("/token")
-    public ResponseEntity<TokenBalance> getTokenBalance(
+    public CompletableFuture<ResponseEntity<TokenBalance>> getTokenBalance(
         @RequestParam String tokenAddress,
         @RequestParam String userAddress
     ) {
-        return ResponseEntity.ok(balanceService.getTokenInfo(tokenAddress, userAddress));
+        return balanceService.getTokenInfoAsync(tokenAddress, userAddress).thenApply(ResponseEntity::ok);
     }
     
     @Operation(summary = "批量获取多个代币余额")
     @PostMapping("/multiple")
-    public ResponseEntity<List<TokenBalance>> getMultipleBalances(
+    public CompletableFuture<ResponseEntity<List<TokenBalance>>> getMultipleBalances(
         @Valid @RequestBody BalanceRequest request
     ) {
-        return ResponseEntity.ok(
-            balanceService.getMultipleTokenBalances(
-                request.getTokenAddresses(), 
-                request.getUserAddress()
-            )
-        );
+        return balanceService.getMultipleTokenBalancesAsync(
+            request.getChainId(),
+            request.getTokenAddresses(),
+            request.getUserAddress()
+        ).thenApply(ResponseEntity::ok);
+    }
+    
+    @Operation(summary = "跨链余额汇总",
+        description = "各链并行各一次Multicall（含原生币余额），单条链超时或失败时返回其余链的结果并标记partial")
+    @PostMapping("/portfolio")
+    public CompletableFuture<ResponseEntity<Portfolio>> getPortfolio(
+        @Valid @RequestBody PortfolioRequest request
+    ) {
+        return portfolioService.getPortfolioAsync(
+            request.getUserAddress(),
+            request.getTokenAddresses(),
+            request.getChainIds(),
+            request.getChainTimeoutMs()
+        ).thenApply(ResponseEntity::ok);
     }
 }
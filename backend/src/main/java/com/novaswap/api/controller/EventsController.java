@@ -4,6 +4,7 @@ import com.novaswap.model.event.BurnEvent;
 import com.novaswap.model.event.MintEvent;
 import com.novaswap.model.event.SwapEvent;
 import com.novaswap.service.EventListenerService;
+import com.novaswap.service.FactoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -22,11 +23,14 @@ import java.util.Map;
 public class EventsController {
     
     private final EventListenerService eventListenerService;
+    private final FactoryService factoryService;
     
-    @Operation(summary = "获取Swap事件", description = "获取指定池在指定区块范围内的Swap事件")
+    @Operation(summary = "获取Swap事件", description = "获取指定池在指定区块范围内的Swap事件（可传pairAddress，或传tokenA/tokenB由CREATE2推导）")
     @GetMapping("/swap")
     public ResponseEntity<List<SwapEvent>> getSwapEvents(
-        @RequestParam String pairAddress,
+        @RequestParam(required = false) String pairAddress,
+        @RequestParam(required = false) String tokenA,
+        @RequestParam(required = false) String tokenB,
         @RequestParam(required = false) Long fromBlock,
         @RequestParam(required = false) Long toBlock
     ) {
@@ -35,13 +39,15 @@ public class EventsController {
             ? BigInteger.valueOf(toBlock) 
             : eventListenerService.getCurrentBlockNumber();
         
-        return ResponseEntity.ok(eventListenerService.getSwapEvents(pairAddress, from, to));
+        return ResponseEntity.ok(eventListenerService.getSwapEvents(resolvePair(pairAddress, tokenA, tokenB), from, to));
     }
     
     @Operation(summary = "获取Mint事件", description = "获取指定池在指定区块范围内的Mint事件（添加流动性）")
     @GetMapping("/mint")
     public ResponseEntity<List<MintEvent>> getMintEvents(
-        @RequestParam String pairAddress,
+        @RequestParam(required = false) String pairAddress,
+        @RequestParam(required = false) String tokenA,
+        @RequestParam(required = false) String tokenB,
         @RequestParam(required = false) Long fromBlock,
         @RequestParam(required = false) Long toBlock
     ) {
@@ -50,13 +56,15 @@ public class EventsController {
             ? BigInteger.valueOf(toBlock) 
             : eventListenerService.getCurrentBlockNumber();
         
-        return ResponseEntity.ok(eventListenerService.getMintEvents(pairAddress, from, to));
+        return ResponseEntity.ok(eventListenerService.getMintEvents(resolvePair(pairAddress, tokenA, tokenB), from, to));
     }
     
     @Operation(summary = "获取Burn事件", description = "获取指定池在指定区块范围内的Burn事件（移除流动性）")
     @GetMapping("/burn")
     public ResponseEntity<List<BurnEvent>> getBurnEvents(
-        @RequestParam String pairAddress,
+        @RequestParam(required = false) String pairAddress,
+        @RequestParam(required = false) String tokenA,
+        @RequestParam(required = false) String tokenB,
         @RequestParam(required = false) Long fromBlock,
         @RequestParam(required = false) Long toBlock
     ) {
@@ -65,7 +73,7 @@ public class EventsController {
             ? BigInteger.valueOf(toBlock) 
             : eventListenerService.getCurrentBlockNumber();
         
-        return ResponseEntity.ok(eventListenerService.getBurnEvents(pairAddress, from, to));
+        return ResponseEntity.ok(eventListenerService.getBurnEvents(resolvePair(pairAddress, tokenA, tokenB), from, to));
     }
     
     @Operation(summary = "获取当前区块号", description = "获取当前最新的区块号")
@@ -79,4 +87,17 @@ public class EventsController {
         
         return ResponseEntity.ok(response);
     }
+    
+    /**
+     * 未直接给出pairAddress时由代币对推导（本地CREATE2，零RPC）
+     */
+    private String resolvePair(String pairAddress, String tokenA, String tokenB) {
+        if (pairAddress != null && !pairAddress.isBlank()) {
+            return pairAddress;
+        }
+        if (tokenA == null || tokenB == null) {
+            throw new IllegalArgumentException("Either pairAddress or tokenA/tokenB is required");
+        }
+        return factoryService.resolvePairAddress(tokenA, tokenB);
+    }
 }
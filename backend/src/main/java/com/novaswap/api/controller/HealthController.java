@@ -1,8 +1,14 @@
 package com.novaswap.api.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.novaswap.config.CacheSpecProperties;
+import com.novaswap.rpc.ChainClientRegistry;
+import com.novaswap.rpc.HedgedRpcService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -11,6 +17,8 @@ import org.web3j.protocol.Web3j;
 
 import java.time.Instant;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Tag(name = "Health", description = "健康检查API")
@@ -20,6 +28,10 @@ import java.util.Map;
 public class HealthController {
     
     private final Web3j web3j;
+    private final CacheManager cacheManager;
+    private final CacheSpecProperties cacheSpecProperties;
+    private final HedgedRpcService rpcService;
+    private final ChainClientRegistry chainClientRegistry;
     
     @Operation(summary = "健康检查", description = "检查服务状态")
     @GetMapping("/health")
@@ -61,4 +73,51 @@ public class HealthController {
         
         return ResponseEntity.ok(response);
     }
+    
+    @Operation(summary = "缓存统计", description = "各缓存的条目数、命中率和淘汰数")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache == null || !(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache)) {
+                continue;
+            }
+            CacheStats stats = nativeCache.stats();
+            CacheSpecProperties.Spec spec = cacheSpecProperties.specFor(name);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("size", nativeCache.estimatedSize());
+            entry.put("maximumSize", spec.getMaximumSize());
+            entry.put("expireAfterWriteMs", spec.getExpireAfterWriteMs());
+            entry.put("hits", stats.hitCount());
+            entry.put("misses", stats.missCount());
+            entry.put("hitRate", stats.hitRate());
+            entry.put("evictions", stats.evictionCount());
+            entry.put("loads", stats.loadCount());
+            entry.put("averageLoadPenaltyMs", stats.averageLoadPenalty() / 1_000_000.0);
+            response.put(name, entry);
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    @Operation(summary = "RPC节点状态", description = "各RPC节点的请求数、失败数、对冲次数、耗时和熔断状态")
+    @GetMapping("/rpc/endpoints")
+    public ResponseEntity<List<Map<String, Object>>> rpcEndpoints() {
+        return ResponseEntity.ok(rpcService.getEndpointStats());
+    }
+    
+    @Operation(summary = "RPC连接池状态", description = "已创建的各链客户端的连接数、空闲连接、在途/排队请求、新建连接与复用率、协议和gzip响应数")
+    @GetMapping("/rpc/pools")
+    public ResponseEntity<List<Map<String, Object>>> rpcPools() {
+        List<Map<String, Object>> pools = chainClientRegistry.getActiveClients().stream()
+            .map(client -> {
+                Map<String, Object> pool = new LinkedHashMap<>();
+                pool.put("chainId", client.getChainId());
+                pool.put("network", client.getName());
+                pool.putAll(client.getRpcService().getTransportStats());
+                return pool;
+            })
+            .toList();
+        return ResponseEntity.ok(pools);
+    }
 }
@@ -2,6 +2,9 @@ package com.novaswap.api.controller;
 
 import com.novaswap.model.PoolStats;
 import com.novaswap.service.DataAggregationService;
+import com.novaswap.service.FactoryService;
+import com.novaswap.service.PairRegistryService;
+import com.novaswap.service.ReserveMirrorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -19,6 +22,9 @@ import java.util.Map;
 public class PoolStatsController {
     
     private final DataAggregationService dataAggregationService;
+    private final FactoryService factoryService;
+    private final PairRegistryService pairRegistryService;
+    private final ReserveMirrorService reserveMirrorService;
     
     @Operation(summary = "获取池统计信息", description = "获取单个池的TVL、交易量、APY等统计数据")
     @GetMapping("/pool/{pairAddress}")
@@ -26,6 +32,16 @@ public class PoolStatsController {
         return ResponseEntity.ok(dataAggregationService.getPoolStats(pairAddress));
     }
     
+    @Operation(summary = "按代币对获取池统计信息", description = "由代币对本地推导pair地址（CREATE2）后返回池统计数据")
+    @GetMapping("/pool")
+    public ResponseEntity<PoolStats> getPoolStatsByTokens(
+        @RequestParam String tokenA,
+        @RequestParam String tokenB
+    ) {
+        String pairAddress = factoryService.resolvePairAddress(tokenA, tokenB);
+        return ResponseEntity.ok(dataAggregationService.getPoolStats(pairAddress));
+    }
+    
     @Operation(summary = "获取所有池统计", description = "获取所有池的统计数据列表")
     @GetMapping("/pools")
     public ResponseEntity<List<PoolStats>> getAllPoolStats() {
@@ -75,6 +91,19 @@ public class PoolStatsController {
         return ResponseEntity.ok(response);
     }
     
+    @Operation(summary = "获取Pair注册表状态", description = "返回已索引的pair数量、已扫描到的区块和储备镜像进度")
+    @GetMapping("/registry")
+    public ResponseEntity<Map<String, Object>> getRegistryStatus() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("pairCount", pairRegistryService.getPairCount());
+        response.put("lastIndexedBlock", pairRegistryService.getLastIndexedBlock());
+        response.put("mirroredPairs", reserveMirrorService.getPairCount());
+        response.put("mirroredBlock", reserveMirrorService.getMirroredBlock());
+        response.put("mirrorLive", reserveMirrorService.isLive());
+        
+        return ResponseEntity.ok(response);
+    }
+    
     @Operation(summary = "清除统计缓存", description = "清除所有缓存的统计数据")
     @PostMapping("/cache/clear")
     public ResponseEntity<Map<String, String>> clearCache() {
@@ -1,8 +1,10 @@
 package com.novaswap.api.controller;
 
 import com.novaswap.api.dto.PriceHistoryRequest;
+import com.novaswap.contract.PairReadService;
 import com.novaswap.model.PricePoint;
 import com.novaswap.service.PriceHistoryService;
+import com.novaswap.service.ReserveMirrorService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -10,10 +12,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigInteger;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Tag(name = "Price History", description = "价格历史和K线数据API")
 @RestController
@@ -22,6 +26,8 @@ import java.util.Map;
 public class PriceHistoryController {
     
     private final PriceHistoryService priceHistoryService;
+    private final ReserveMirrorService reserveMirrorService;
+    private final PairReadService pairReadService;
     
     @Operation(summary = "获取价格历史", description = "获取指定时间范围和粒度的价格K线数据")
     @PostMapping("/history")
@@ -65,16 +71,34 @@ public class PriceHistoryController {
         return ResponseEntity.ok(response);
     }
     
-    @Operation(summary = "获取最新价格", description = "获取池的当前价格")
+    @Operation(summary = "获取最新价格", description = "获取池的当前价格（reserve1/reserve0），优先读取储备镜像")
     @GetMapping("/{pairAddress}/current")
     public ResponseEntity<Map<String, Object>> getCurrentPrice(
         @PathVariable String pairAddress
     ) {
-        // 实际应从链上查询最新储备
-        // 这里返回模拟数据
+        BigInteger reserve0;
+        BigInteger reserve1;
+        Long blockNumber = null;
+        
+        Optional<ReserveMirrorService.MirroredReserves> mirrored = reserveMirrorService.getLiveReserves(pairAddress);
+        if (mirrored.isPresent()) {
+            reserve0 = mirrored.get().reserve0();
+            reserve1 = mirrored.get().reserve1();
+            blockNumber = mirrored.get().blockNumber();
+        } else {
+            // 镜像未覆盖该池或落后时回退到链上读取
+            PairReadService.Reserves reserves = pairReadService.getReserves(pairAddress);
+            reserve0 = reserves.reserve0();
+            reserve1 = reserves.reserve1();
+        }
+        
         Map<String, Object> response = new HashMap<>();
         response.put("pairAddress", pairAddress);
-        response.put("price", "1000.50");
+        response.put("price", priceHistoryService.getCurrentPrice(pairAddress, reserve0, reserve1).toPlainString());
+        response.put("reserve0", reserve0.toString());
+        response.put("reserve1", reserve1.toString());
+        response.put("blockNumber", blockNumber);
+        response.put("source", mirrored.isPresent() ? "mirror" : "rpc");
         response.put("timestamp", Instant.now().getEpochSecond());
         
         return ResponseEntity.ok(response);
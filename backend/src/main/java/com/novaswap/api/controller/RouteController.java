@@ -1,17 +1,34 @@
 package com.novaswap.api.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaswap.api.dto.BatchExactOutputQuoteRequest;
+import com.novaswap.api.dto.BatchQuoteRequest;
+import com.novaswap.api.dto.ExactOutputRouteRequest;
 import com.novaswap.api.dto.RouteSearchRequest;
+import com.novaswap.model.ExactOutputRouteInfo;
 import com.novaswap.model.RouteInfo;
+import com.novaswap.model.SplitRouteInfo;
+import com.novaswap.rpc.ChainClientRegistry;
+import com.novaswap.service.HotRouteService;
+import com.novaswap.service.QuoteCacheService;
 import com.novaswap.service.RouteSearchService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
 
 @Tag(name = "Route", description = "路由搜索API")
 @RestController
@@ -20,32 +37,155 @@ import java.util.Map;
 public class RouteController {
     
     private final RouteSearchService routeSearchService;
+    private final HotRouteService hotRouteService;
+    private final QuoteCacheService quoteCacheService;
+    private final ObjectMapper objectMapper;
+    private final ChainClientRegistry chainClientRegistry;
     
     @Operation(summary = "搜索最优路由", description = "搜索从tokenIn到tokenOut的最优兑换路由，支持直达和多跳")
     @PostMapping("/search")
-    public ResponseEntity<RouteInfo> searchBestRoute(@Valid @RequestBody RouteSearchRequest request) {
-        RouteInfo route = routeSearchService.findBestRoute(
+    public CompletableFuture<ResponseEntity<RouteInfo>> searchBestRoute(@Valid @RequestBody RouteSearchRequest request) {
+        return findBestRouteCached(request).thenApply(ResponseEntity::ok);
+    }
+    
+    @Operation(summary = "获取兑换预估", description = "预估兑换输出、价格影响和最小接收量")
+    @PostMapping("/quote")
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getSwapQuote(@Valid @RequestBody RouteSearchRequest request) {
+        return findBestRouteCached(request)
+            .thenApply(route -> ResponseEntity.ok(toQuoteResponse(route, request.getSlippageTolerance())));
+    }
+    
+    @Operation(summary = "批量兑换预估",
+        description = "一次请求多个报价：共享的交易对去重后在同一区块批量读取；按请求顺序以NDJSON逐行返回，单个报价失败时该行包含error；仅支持主链")
+    @PostMapping(value = "/quote/batch", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> getSwapQuotes(@Valid @RequestBody BatchQuoteRequest request) {
+        request.getQuotes().forEach(quote -> requirePrimaryChain(quote.getChainId(), "/quote/batch"));
+        List<RouteSearchService.QuoteQuery> queries = request.getQuotes().stream()
+            .map(quote -> new RouteSearchService.QuoteQuery(
+                quote.getTokenIn(),
+                quote.getTokenOut(),
+                quote.getAmountIn(),
+                quote.getSlippageTolerance(),
+                quote.getIntermediateTokens()
+            ))
+            .toList();
+        List<CompletableFuture<RouteInfo>> routes = routeSearchService.findBestRoutes(queries);
+        
+        return streamNdjson(routes, (i, route) -> toQuoteResponse(route, queries.get(i).slippageTolerance()));
+    }
+    
+    @Operation(summary = "exact-output报价", description = "输出数量固定，搜索所需输入最小的路由；amountInMax可直接用于swapTokensForExactTokens")
+    @PostMapping("/exact-out")
+    public CompletableFuture<ResponseEntity<ExactOutputRouteInfo>> searchExactOutputRoute(@Valid @RequestBody ExactOutputRouteRequest request) {
+        return routeSearchService.findBestRouteExactOutAsync(
             request.getTokenIn(),
             request.getTokenOut(),
-            request.getAmountIn(),
+            request.getAmountOut(),
             request.getSlippageTolerance(),
             request.getIntermediateTokens()
-        );
+        ).thenApply(ResponseEntity::ok);
+    }
+    
+    @Operation(summary = "批量exact-output报价", description = "与批量兑换预估相同的批量读取和NDJSON流式返回")
+    @PostMapping(value = "/exact-out/batch", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> searchExactOutputRoutes(@Valid @RequestBody BatchExactOutputQuoteRequest request) {
+        List<RouteSearchService.ExactOutputQuery> queries = request.getQuotes().stream()
+            .map(quote -> new RouteSearchService.ExactOutputQuery(
+                quote.getTokenIn(),
+                quote.getTokenOut(),
+                quote.getAmountOut(),
+                quote.getSlippageTolerance(),
+                quote.getIntermediateTokens()
+            ))
+            .toList();
+        List<CompletableFuture<ExactOutputRouteInfo>> routes = routeSearchService.findBestRoutesExactOut(queries);
         
-        return ResponseEntity.ok(route);
+        return streamNdjson(routes, (i, route) -> objectMapper.convertValue(route, new TypeReference<Map<String, Object>>() {}));
     }
     
-    @Operation(summary = "获取兑换预估", description = "预估兑换输出、价格影响和最小接收量")
-    @PostMapping("/quote")
-    public ResponseEntity<Map<String, Object>> getSwapQuote(@Valid @RequestBody RouteSearchRequest request) {
-        RouteInfo route = routeSearchService.findBestRoute(
+    /**
+     * 按请求顺序逐行输出结果，每行带index；失败的结果只包含index和error
+     */
+    private <T> ResponseEntity<StreamingResponseBody> streamNdjson(
+        List<CompletableFuture<T>> results,
+        BiFunction<Integer, T, Map<String, Object>> toLine
+    ) {
+        StreamingResponseBody body = outputStream -> {
+            for (int i = 0; i < results.size(); i++) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("index", i);
+                try {
+                    line.putAll(toLine.apply(i, results.get(i).join()));
+                } catch (RuntimeException e) {
+                    // 查询失败、被取消或结果转换出错都只影响这一行，其余行照常输出
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    line.put("error", cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName());
+                }
+                outputStream.write(objectMapper.writeValueAsBytes(line));
+                outputStream.write('\n');
+                outputStream.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+    
+    @Operation(summary = "报价缓存统计", description = "routeCache的命中、未命中和按储备变化失效的次数")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Object>> getQuoteCacheStats() {
+        return ResponseEntity.ok(quoteCacheService.getStats());
+    }
+    
+    @Operation(summary = "热门交易对路由表", description = "当前热门交易对及每个交易对已预计算的数量档位数")
+    @GetMapping("/hot")
+    public ResponseEntity<Map<String, Object>> getHotRoutes() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("pairCount", hotRouteService.getHotPairCount());
+        response.put("bucketCount", hotRouteService.getBucketCount());
+        response.put("pairs", hotRouteService.getHotPairs());
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * 报价缓存只覆盖主链，其他链直接按chainId查询；请求线程不等待链上读取
+     */
+    private CompletableFuture<RouteInfo> findBestRouteCached(RouteSearchRequest request) {
+        if (!chainClientRegistry.isPrimary(request.getChainId())) {
+            return routeSearchService.findBestRouteAsync(
+                request.getChainId(),
+                request.getTokenIn(),
+                request.getTokenOut(),
+                request.getAmountIn(),
+                request.getSlippageTolerance(),
+                request.getIntermediateTokens()
+            );
+        }
+        return quoteCacheService.getOrComputeAsync(
             request.getTokenIn(),
             request.getTokenOut(),
             request.getAmountIn(),
             request.getSlippageTolerance(),
-            request.getIntermediateTokens()
+            request.getIntermediateTokens(),
+            () -> routeSearchService.findBestRouteAsync(
+                request.getTokenIn(),
+                request.getTokenOut(),
+                request.getAmountIn(),
+                request.getSlippageTolerance(),
+                request.getIntermediateTokens()
+            )
         );
-        
+    }
+    
+    /**
+     * 批量报价和拆单路由依赖主链的池子图和批量读取，不支持其他链；拒绝而不是静默返回主链报价
+     */
+    private void requirePrimaryChain(Long chainId, String endpoint) {
+        if (!chainClientRegistry.isPrimary(chainId)) {
+            throw new IllegalArgumentException("chainId " + chainId + " is not supported by " + endpoint
+                + ", only the primary chain " + chainClientRegistry.getPrimaryChainId() + " is");
+        }
+    }
+    
+    private Map<String, Object> toQuoteResponse(RouteInfo route, double slippageTolerance) {
         Map<String, Object> response = new HashMap<>();
         response.put("path", route.getPath());
         response.put("amountOut", route.getAmountOut().toString());
@@ -53,7 +193,7 @@ public class RouteController {
         response.put("priceImpact", route.getPriceImpact().toString() + "%");
         response.put("isDirect", route.isDirect());
         response.put("hops", route.getHops());
-        response.put("slippageTolerance", request.getSlippageTolerance() * 100 + "%");
+        response.put("slippageTolerance", slippageTolerance * 100 + "%");
         
         // 判断价格影响是否过高
         boolean highPriceImpact = route.getPriceImpact().doubleValue() > 5.0;
@@ -62,6 +202,19 @@ public class RouteController {
             response.put("warning", "Price impact is higher than 5%, consider reducing trade size");
         }
         
-        return ResponseEntity.ok(response);
+        return response;
+    }
+    
+    @Operation(summary = "拆单路由", description = "把输入分配到直达池和多条两跳路径上，使总输出最大；仅支持主链")
+    @PostMapping("/split")
+    public CompletableFuture<ResponseEntity<SplitRouteInfo>> searchSplitRoute(@Valid @RequestBody RouteSearchRequest request) {
+        requirePrimaryChain(request.getChainId(), "/split");
+        return routeSearchService.findSplitRouteAsync(
+            request.getTokenIn(),
+            request.getTokenOut(),
+            request.getAmountIn(),
+            request.getSlippageTolerance(),
+            request.getIntermediateTokens()
+        ).thenApply(ResponseEntity::ok);
     }
 }
@@ -0,0 +1,14 @@
+package com.novaswap.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchExactOutputQuoteRequest {
+    @NotEmpty(message = "Quotes are required")
+    @Size(max = 500, message = "At most 500 quotes per request")
+    private List<@Valid ExactOutputRouteRequest> quotes;
+}
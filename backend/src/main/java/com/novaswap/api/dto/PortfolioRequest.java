@@ -0,0 +1,21 @@
+package com.novaswap.api.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class PortfolioRequest {
+    @NotBlank(message = "User address is required")
+    private String userAddress;
+    
+    // chainId -> 代币地址；未列出的链只查询原生币余额
+    private Map<Long, List<String>> tokenAddresses;
+    
+    // 为空时查询全部已配置的链
+    private List<Long> chainIds;
+    
+    // 单条链的超时，为空时使用novaswap.portfolio.chainTimeoutMs
+    private Long chainTimeoutMs;
+}
@@ -20,4 +20,6 @@ public class RouteSearchRequest {
     private Double slippageTolerance = 0.005; // 默认0.5%
     
     private List<String> intermediateTokens;
+    
+    private Long chainId; // 为空时使用主链；/quote/batch和/split只支持主链
 }
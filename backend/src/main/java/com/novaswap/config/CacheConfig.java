@@ -1,31 +1,43 @@
 package com.novaswap.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
-import org.springframework.cache.concurrent.ConcurrentMapCache;
-import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.Arrays;
+import java.time.Duration;
+import java.util.List;
 
 /**
  * 缓存配置
- * 使用内存缓存，实际生产环境可替换为Redis
+ * 使用Caffeine内存缓存：每个缓存有条目上限（W-TinyLFU准入/淘汰）和写入后过期时间，并记录命中统计；
+ * 实际生产环境可替换为Redis
  */
 @Configuration
 @EnableCaching
 public class CacheConfig {
-    
+
+    public static final List<String> CACHE_NAMES = List.of("poolStats", "tokenBalances", "priceHistory", "routeCache");
+
     @Bean
-    public CacheManager cacheManager() {
-        SimpleCacheManager cacheManager = new SimpleCacheManager();
-        cacheManager.setCaches(Arrays.asList(
-            new ConcurrentMapCache("poolStats"),
-            new ConcurrentMapCache("tokenBalances"),
-            new ConcurrentMapCache("priceHistory"),
-            new ConcurrentMapCache("routeCache")
-        ));
+    public CacheManager cacheManager(CacheSpecProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(builder(properties.getDefaultSpec()));
+        for (String name : CACHE_NAMES) {
+            cacheManager.registerCustomCache(name, builder(properties.specFor(name)).build());
+        }
         return cacheManager;
     }
+
+    private static Caffeine<Object, Object> builder(CacheSpecProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+            .maximumSize(spec.getMaximumSize())
+            .recordStats();
+        if (spec.getExpireAfterWriteMs() > 0) {
+            builder.expireAfterWrite(Duration.ofMillis(spec.getExpireAfterWriteMs()));
+        }
+        return builder;
+    }
 }
@@ -0,0 +1,71 @@
+package com.novaswap.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Spring缓存的容量与过期配置
+ * 每个缓存单独指定条目上限和写入后过期时间；未在specs中列出的缓存使用defaultSpec
+ */
+@Configuration
+@ConfigurationProperties(prefix = "novaswap.cache")
+public class CacheSpecProperties {
+    // 未单独配置的缓存
+    private Spec defaultSpec = new Spec(10_000, 600_000);
+    // 缓存名 -> 配置
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    public Spec getDefaultSpec() {
+        return defaultSpec;
+    }
+
+    public void setDefaultSpec(Spec defaultSpec) {
+        this.defaultSpec = defaultSpec;
+    }
+
+    public Map<String, Spec> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, Spec> specs) {
+        this.specs = specs;
+    }
+
+    public Spec specFor(String cacheName) {
+        return specs.getOrDefault(cacheName, defaultSpec);
+    }
+
+    public static class Spec {
+        // 条目上限，超出后按W-TinyLFU淘汰
+        private long maximumSize;
+        // 写入后过期时间（毫秒），0表示不按时间过期
+        private long expireAfterWriteMs;
+
+        public Spec() {
+        }
+
+        public Spec(long maximumSize, long expireAfterWriteMs) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWriteMs = expireAfterWriteMs;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public long getExpireAfterWriteMs() {
+            return expireAfterWriteMs;
+        }
+
+        public void setExpireAfterWriteMs(long expireAfterWriteMs) {
+            this.expireAfterWriteMs = expireAfterWriteMs;
+        }
+    }
+}
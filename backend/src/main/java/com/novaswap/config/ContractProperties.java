@@ -3,12 +3,28 @@ package com.novaswap.config;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @Configuration
 @ConfigurationProperties(prefix = "novaswap.contract")
 public class ContractProperties {
+    private String factory;
     private String router;
     private String weth;
     private String multicall;
+    // 默认factory的pair init code hash（用于本地CREATE2计算pair地址）
+    private String initCodeHash;
+    // 其他factory的init code hash，key为factory地址
+    private Map<String, String> initCodeHashes = new HashMap<>();
+
+    public String getFactory() {
+        return factory;
+    }
+
+    public void setFactory(String factory) {
+        this.factory = factory;
+    }
 
     public String getRouter() {
         return router;
@@ -33,4 +49,20 @@ public class ContractProperties {
     public void setMulticall(String multicall) {
         this.multicall = multicall;
     }
+
+    public String getInitCodeHash() {
+        return initCodeHash;
+    }
+
+    public void setInitCodeHash(String initCodeHash) {
+        this.initCodeHash = initCodeHash;
+    }
+
+    public Map<String, String> getInitCodeHashes() {
+        return initCodeHashes;
+    }
+
+    public void setInitCodeHashes(Map<String, String> initCodeHashes) {
+        this.initCodeHashes = initCodeHashes;
+    }
 }
@@ -0,0 +1,113 @@
+package com.novaswap.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 线程模型
+ * spring.threads.virtual.enabled=true时，Tomcat请求线程、RPC传输的I/O线程和后台任务线程都使用虚拟线程，
+ * 阻塞在web3j send()上的请求不再占用平台线程；并发上限由RPC层（novaswap.rpc.maxConcurrentRequests）
+ * 和各后台执行器的容量决定，而不是线程数
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${novaswap.executor.tx.concurrency:4}")
+    private int txConcurrency;
+
+    @Value("${novaswap.executor.tx.queueCapacity:100}")
+    private int txQueueCapacity;
+
+    @Value("${novaswap.executor.bridge.concurrency:16}")
+    private int bridgeConcurrency;
+
+    @Value("${novaswap.executor.bridge.queueCapacity:500}")
+    private int bridgeQueueCapacity;
+
+    /**
+     * Spring MVC异步请求（StreamingResponseBody、CompletableFuture返回值）使用的执行器
+     * 定义了其他Executor后Spring Boot不再自动创建applicationTaskExecutor，这里按相同的线程模型补上
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("task-");
+            executor.setVirtualThreads(true);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setThreadNamePrefix("task-");
+        return executor;
+    }
+
+    /**
+     * OkHttp异步调用的执行线程；在途请求数由Dispatcher按maxConcurrentRequests限制
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService rpcDispatcherExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("rpc-io-", 0).factory());
+        }
+        // 与OkHttp默认相同：按需创建，空闲60秒回收
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            platformThreads("rpc-io-"));
+    }
+
+    /**
+     * 链上交易发送（OnChainTxService）
+     */
+    @Bean
+    public ThreadPoolTaskExecutor txExecutor() {
+        return boundedExecutor("tx-", txConcurrency, txQueueCapacity);
+    }
+
+    /**
+     * 跨链流程编排（CrossChainBridgeService），单个流程包含等待确认和重试
+     */
+    @Bean
+    public ThreadPoolTaskExecutor bridgeExecutor() {
+        return boundedExecutor("bridge-", bridgeConcurrency, bridgeQueueCapacity);
+    }
+
+    /**
+     * 固定并发数和队列长度，队列满时拒绝（TaskRejectedException）
+     */
+    private ThreadPoolTaskExecutor boundedExecutor(String prefix, int concurrency, int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(prefix);
+        if (virtualThreads) {
+            executor.setThreadFactory(Thread.ofVirtual().name(prefix, 0).factory());
+        }
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    private static ThreadFactory platformThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.novaswap.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Multicall分批配置
+ * 公共RPC会拒绝过大的calldata/返回值，eth_call也有gas上限，因此大批量调用需要按数量、字节数和gas估算切分
+ */
+@Configuration
+@ConfigurationProperties(prefix = "novaswap.multicall")
+public class MulticallProperties {
+    // 单批最大调用数
+    private int maxCallsPerBatch = 500;
+    // 单批最大calldata字节数（按ABI编码后估算）
+    private int maxCalldataBytes = 120_000;
+    // 单批最大gas估算
+    private long maxGasPerBatch = 40_000_000L;
+    // 未指定estimatedGas的调用默认按该值估算
+    private long defaultGasPerCall = 60_000L;
+    // 同时在途的批次数
+    private int maxConcurrentBatches = 4;
+
+    public int getMaxCallsPerBatch() {
+        return maxCallsPerBatch;
+    }
+
+    public void setMaxCallsPerBatch(int maxCallsPerBatch) {
+        this.maxCallsPerBatch = maxCallsPerBatch;
+    }
+
+    public int getMaxCalldataBytes() {
+        return maxCalldataBytes;
+    }
+
+    public void setMaxCalldataBytes(int maxCalldataBytes) {
+        this.maxCalldataBytes = maxCalldataBytes;
+    }
+
+    public long getMaxGasPerBatch() {
+        return maxGasPerBatch;
+    }
+
+    public void setMaxGasPerBatch(long maxGasPerBatch) {
+        this.maxGasPerBatch = maxGasPerBatch;
+    }
+
+    public long getDefaultGasPerCall() {
+        return defaultGasPerCall;
+    }
+
+    public void setDefaultGasPerCall(long defaultGasPerCall) {
+        this.defaultGasPerCall = defaultGasPerCall;
+    }
+
+    public int getMaxConcurrentBatches() {
+        return maxConcurrentBatches;
+    }
+
+    public void setMaxConcurrentBatches(int maxConcurrentBatches) {
+        this.maxConcurrentBatches = maxConcurrentBatches;
+    }
+}
@@ -0,0 +1,191 @@
+package com.novaswap.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多链网络配置（novaswap.networks.*）
+ * 每条链有独立的RPC节点、HTTP客户端参数和合约地址，由ChainClientRegistry按chainId构建客户端
+ * 与novaswap.chainId相同的条目，其http参数同样用于主链客户端
+ */
+@Configuration
+@ConfigurationProperties(prefix = "novaswap")
+public class NetworkProperties {
+    // 网络名 -> 配置
+    private Map<String, Chain> networks = new LinkedHashMap<>();
+
+    public Map<String, Chain> getNetworks() {
+        return networks;
+    }
+
+    public void setNetworks(Map<String, Chain> networks) {
+        this.networks = networks;
+    }
+
+    public static class Chain {
+        private long chainId;
+        private String rpcUrl;
+        // 备用节点
+        private List<String> fallbackUrls = new ArrayList<>();
+        private String router;
+        private String weth;
+        private String multicall;
+        // V2 factory；未配置时通过router.factory()读取
+        private String factory;
+        private Http http = new Http();
+
+        public long getChainId() {
+            return chainId;
+        }
+
+        public void setChainId(long chainId) {
+            this.chainId = chainId;
+        }
+
+        public String getRpcUrl() {
+            return rpcUrl;
+        }
+
+        public void setRpcUrl(String rpcUrl) {
+            this.rpcUrl = rpcUrl;
+        }
+
+        public List<String> getFallbackUrls() {
+            return fallbackUrls;
+        }
+
+        public void setFallbackUrls(List<String> fallbackUrls) {
+            this.fallbackUrls = fallbackUrls;
+        }
+
+        public String getRouter() {
+            return router;
+        }
+
+        public void setRouter(String router) {
+            this.router = router;
+        }
+
+        public String getWeth() {
+            return weth;
+        }
+
+        public void setWeth(String weth) {
+            this.weth = weth;
+        }
+
+        public String getMulticall() {
+            return multicall;
+        }
+
+        public void setMulticall(String multicall) {
+            this.multicall = multicall;
+        }
+
+        public String getFactory() {
+            return factory;
+        }
+
+        public void setFactory(String factory) {
+            this.factory = factory;
+        }
+
+        public Http getHttp() {
+            return http;
+        }
+
+        public void setHttp(Http http) {
+            this.http = http;
+        }
+    }
+
+    /**
+     * RPC的HTTP客户端参数（每条链一个OkHttpClient）；数值为0时使用novaswap.rpc中的默认值
+     */
+    public static class Http {
+        public static final long DEFAULT_KEEP_ALIVE_MS = 300_000;
+
+        // 保留的空闲连接数，0表示与maxConcurrentRequests相同（突发结束后不必重新建连）
+        private int maxIdleConnections;
+        // 空闲连接保留时长，0表示使用DEFAULT_KEEP_ALIVE_MS
+        private long keepAliveMs = DEFAULT_KEEP_ALIVE_MS;
+        // 节点支持时通过ALPN使用HTTP/2（单连接多路复用），关闭后只用HTTP/1.1
+        private boolean http2 = true;
+        // 请求gzip压缩的响应（eth_getLogs、multicall等大响应），由OkHttp透明解压
+        private boolean gzip = true;
+        // HTTP/2连接的ping间隔，用于及时发现失效连接；0表示不发送
+        private long pingIntervalMs;
+        private long connectTimeoutMs;
+        private long readTimeoutMs;
+        private int maxConcurrentRequests;
+
+        public int getMaxIdleConnections() {
+            return maxIdleConnections;
+        }
+
+        public void setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+        }
+
+        public long getKeepAliveMs() {
+            return keepAliveMs;
+        }
+
+        public void setKeepAliveMs(long keepAliveMs) {
+            this.keepAliveMs = keepAliveMs;
+        }
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+
+        public boolean isGzip() {
+            return gzip;
+        }
+
+        public void setGzip(boolean gzip) {
+            this.gzip = gzip;
+        }
+
+        public long getPingIntervalMs() {
+            return pingIntervalMs;
+        }
+
+        public void setPingIntervalMs(long pingIntervalMs) {
+            this.pingIntervalMs = pingIntervalMs;
+        }
+
+        public long getConnectTimeoutMs() {
+            return connectTimeoutMs;
+        }
+
+        public void setConnectTimeoutMs(long connectTimeoutMs) {
+            this.connectTimeoutMs = connectTimeoutMs;
+        }
+
+        public long getReadTimeoutMs() {
+            return readTimeoutMs;
+        }
+
+        public void setReadTimeoutMs(long readTimeoutMs) {
+            this.readTimeoutMs = readTimeoutMs;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.novaswap.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RPC传输配置：多节点、对冲请求和故障转移
+ * 主节点为novaswap.rpcUrl，fallbackUrls为备用节点；请求发往当前评分最好的节点，
+ * 超过该节点近期耗时的p95仍未返回时，向下一个节点发送相同请求，先返回的结果生效
+ */
+@Configuration
+@ConfigurationProperties(prefix = "novaswap.rpc")
+public class RpcProperties {
+    // 备用节点
+    private List<String> fallbackUrls = new ArrayList<>();
+    // 单个请求最多发往的节点数（含对冲和故障转移）
+    private int maxAttempts = 3;
+    // 是否发送对冲请求（关闭后只在失败时切换节点）
+    private boolean hedgeEnabled = true;
+    // 对冲延迟取节点近期耗时的该分位数
+    private double hedgePercentile = 0.95;
+    // 对冲延迟的上下限；样本不足时使用hedgeInitialDelayMs
+    private long hedgeMinDelayMs = 50;
+    private long hedgeMaxDelayMs = 2000;
+    private long hedgeInitialDelayMs = 300;
+    // 计算分位数所需的最少样本数
+    private int hedgeMinSamples = 20;
+    // 连续失败该次数后熔断
+    private int failureThreshold = 3;
+    // 熔断时长
+    private long cooldownMs = 30_000;
+    private long connectTimeoutMs = 5_000;
+    private long readTimeoutMs = 30_000;
+    // 每个节点客户端同时在途的HTTP请求数上限，超出的请求在OkHttp中排队（不占线程）
+    private int maxConcurrentRequests = 64;
+    // 并发请求合并为JSON-RPC批量数组（按时间或数量窗口）
+    private boolean batchEnabled = true;
+    private int batchMaxSize = 50;
+    private long batchLingerMs = 2;
+
+    public List<String> getFallbackUrls() {
+        return fallbackUrls;
+    }
+
+    public void setFallbackUrls(List<String> fallbackUrls) {
+        this.fallbackUrls = fallbackUrls;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public boolean isHedgeEnabled() {
+        return hedgeEnabled;
+    }
+
+    public void setHedgeEnabled(boolean hedgeEnabled) {
+        this.hedgeEnabled = hedgeEnabled;
+    }
+
+    public double getHedgePercentile() {
+        return hedgePercentile;
+    }
+
+    public void setHedgePercentile(double hedgePercentile) {
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    public long getHedgeMinDelayMs() {
+        return hedgeMinDelayMs;
+    }
+
+    public void setHedgeMinDelayMs(long hedgeMinDelayMs) {
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+    }
+
+    public long getHedgeMaxDelayMs() {
+        return hedgeMaxDelayMs;
+    }
+
+    public void setHedgeMaxDelayMs(long hedgeMaxDelayMs) {
+        this.hedgeMaxDelayMs = hedgeMaxDelayMs;
+    }
+
+    public long getHedgeInitialDelayMs() {
+        return hedgeInitialDelayMs;
+    }
+
+    public void setHedgeInitialDelayMs(long hedgeInitialDelayMs) {
+        this.hedgeInitialDelayMs = hedgeInitialDelayMs;
+    }
+
+    public int getHedgeMinSamples() {
+        return hedgeMinSamples;
+    }
+
+    public void setHedgeMinSamples(int hedgeMinSamples) {
+        this.hedgeMinSamples = hedgeMinSamples;
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    public void setFailureThreshold(int failureThreshold) {
+        this.failureThreshold = failureThreshold;
+    }
+
+    public long getCooldownMs() {
+        return cooldownMs;
+    }
+
+    public void setCooldownMs(long cooldownMs) {
+        this.cooldownMs = cooldownMs;
+    }
+
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public long getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    public void setReadTimeoutMs(long readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        this.maxConcurrentRequests = maxConcurrentRequests;
+    }
+
+    public boolean isBatchEnabled() {
+        return batchEnabled;
+    }
+
+    public void setBatchEnabled(boolean batchEnabled) {
+        this.batchEnabled = batchEnabled;
+    }
+
+    public int getBatchMaxSize() {
+        return batchMaxSize;
+    }
+
+    public void setBatchMaxSize(int batchMaxSize) {
+        this.batchMaxSize = batchMaxSize;
+    }
+
+    public long getBatchLingerMs() {
+        return batchLingerMs;
+    }
+
+    public void setBatchLingerMs(long batchLingerMs) {
+        this.batchLingerMs = batchLingerMs;
+    }
+}
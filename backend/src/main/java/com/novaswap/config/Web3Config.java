@@ -1,12 +1,15 @@
 package com.novaswap.config;
 
+import com.novaswap.rpc.HedgedRpcService;
+import com.novaswap.rpc.RpcClients;
 import java.math.BigInteger;
+import java.util.concurrent.ExecutorService;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.web3j.crypto.Credentials;
 import org.web3j.protocol.Web3j;
-import org.web3j.protocol.http.HttpService;
 import org.web3j.tx.gas.ContractGasProvider;
 import org.web3j.tx.gas.StaticGasProvider;
 
@@ -28,9 +31,27 @@ public class Web3Config {
     @Value("${novaswap.gasLimit:2_000_000}")
     private BigInteger gasLimit;
 
+    /**
+     * 主节点rpcUrl加上备用节点，按健康评分对冲和故障转移
+     * HTTP客户端参数取novaswap.networks中chainId相同的条目（没有时使用默认值）
+     */
     @Bean
-    public Web3j web3j() {
-        return Web3j.build(new HttpService(rpcUrl));
+    public HedgedRpcService rpcService(
+            RpcProperties rpcProperties,
+            NetworkProperties networkProperties,
+            @Qualifier("rpcDispatcherExecutor") ExecutorService rpcDispatcherExecutor) {
+        NetworkProperties.Http http = networkProperties.getNetworks().values().stream()
+            .filter(chain -> chain.getChainId() == chainId)
+            .map(NetworkProperties.Chain::getHttp)
+            .findFirst()
+            .orElse(null);
+        return RpcClients.createRpcService(
+            rpcUrl, rpcProperties.getFallbackUrls(), http, rpcProperties, rpcDispatcherExecutor);
+    }
+
+    @Bean
+    public Web3j web3j(HedgedRpcService rpcService, RpcProperties rpcProperties) {
+        return RpcClients.createWeb3j(rpcService, rpcProperties);
     }
 
     @Bean
@@ -3,6 +3,8 @@ package com.novaswap.contract;
 import java.io.IOException;
 import java.math.BigInteger;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.web3j.crypto.Credentials;
@@ -23,15 +25,19 @@ public class OnChainTxService {
     private final Credentials credentials;
     private final ContractGasProvider gasProvider;
     private final long chainId;
+    // 有界执行器（ExecutorConfig.txExecutor），阻塞的send()不占用公共ForkJoinPool
+    private final Executor txExecutor;
 
     public OnChainTxService(Web3j web3j,
                            Credentials credentials,
                            ContractGasProvider gasProvider,
-                           @Value("${novaswap.chainId:1}") long chainId) {
+                           @Value("${novaswap.chainId:1}") long chainId,
+                           @Qualifier("txExecutor") Executor txExecutor) {
         this.web3j = web3j;
         this.credentials = credentials;
         this.gasProvider = gasProvider;
         this.chainId = chainId;
+        this.txExecutor = txExecutor;
     }
 
     public CompletableFuture<String> sendRawTransaction(String to, BigInteger value, String data) {
@@ -55,7 +61,7 @@ public class OnChainTxService {
             } catch (IOException e) {
                 throw new RuntimeException("Send tx failed", e);
             }
-        });
+        }, txExecutor);
     }
 
     private BigInteger fetchNonce(String address) throws IOException {
@@ -76,6 +82,6 @@ public class OnChainTxService {
             } catch (IOException e) {
                 throw new RuntimeException("Send ETH failed", e);
             }
-        });
+        }, txExecutor);
     }
 }
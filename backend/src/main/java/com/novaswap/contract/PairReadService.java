@@ -4,6 +4,9 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import com.novaswap.service.EthCallCoalescer;
+import com.novaswap.service.MulticallDecoder;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.TypeReference;
@@ -20,32 +23,46 @@ public class PairReadService {
 
     public record Reserves(BigInteger reserve0, BigInteger reserve1, BigInteger blockTimestampLast) {}
 
+    private static final String GET_RESERVES_DATA = FunctionEncoder.encode(new Function(
+            "getReserves",
+            Collections.emptyList(),
+            Arrays.asList(new TypeReference<Uint112>() {}, new TypeReference<Uint112>() {}, new TypeReference<Uint256>() {})));
+
     private final Web3j web3j;
+    private final EthCallCoalescer callCoalescer;
 
-    public PairReadService(Web3j web3j) {
+    public PairReadService(Web3j web3j, EthCallCoalescer callCoalescer) {
         this.web3j = web3j;
+        this.callCoalescer = callCoalescer;
     }
 
     public Reserves getReserves(String pairAddress) {
-        Function fn = new Function(
-                "getReserves",
-                Collections.emptyList(),
-                Arrays.asList(new TypeReference<Uint112>() {}, new TypeReference<Uint112>() {}, new TypeReference<Uint256>() {}));
-        String data = FunctionEncoder.encode(fn);
-        Transaction callTx = Transaction.createEthCallTransaction(null, pairAddress, data);
-        try {
-            EthCall response = web3j.ethCall(callTx, DefaultBlockParameterName.LATEST).send();
-            if (response.isReverted()) {
-                throw new IllegalStateException("getReserves reverted: " + response.getRevertReason());
-            }
-            var values = org.web3j.abi.FunctionReturnDecoder.decode(response.getValue(), fn.getOutputParameters());
-            BigInteger r0 = (BigInteger) values.get(0).getValue();
-            BigInteger r1 = (BigInteger) values.get(1).getValue();
-            BigInteger ts = (BigInteger) values.get(2).getValue();
-            return new Reserves(r0, r1, ts);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to read reserves", e);
+        return decodeReserves(pairAddress, callCoalescer.call(pairAddress, GET_RESERVES_DATA));
+    }
+
+    /**
+     * 读取指定区块上的储备（同一次报价中的多次读取固定到同一区块）
+     */
+    public Reserves getReserves(String pairAddress, long blockNumber) {
+        return decodeReserves(pairAddress, callCoalescer.call(pairAddress, GET_RESERVES_DATA, blockNumber));
+    }
+
+    /**
+     * 异步读取指定区块上的储备，同一窗口内发出的读取由EthCallCoalescer合并为一次multicall
+     */
+    public CompletableFuture<Reserves> getReservesAsync(String pairAddress, long blockNumber) {
+        return callCoalescer.callAsync(pairAddress, GET_RESERVES_DATA, blockNumber)
+                .thenApply(data -> decodeReserves(pairAddress, data));
+    }
+
+    private static Reserves decodeReserves(String pairAddress, byte[] data) {
+        BigInteger r0 = MulticallDecoder.decodeUint256(data, 0);
+        BigInteger r1 = MulticallDecoder.decodeUint256(data, 1);
+        BigInteger ts = MulticallDecoder.decodeUint256(data, 2);
+        if (r0 == null || r1 == null || ts == null) {
+            throw new IllegalStateException("getReserves returned no data for " + pairAddress);
         }
+        return new Reserves(r0, r1, ts);
     }
 
     public BigInteger getTotalSupply(String pairAddress) {
@@ -103,4 +103,21 @@ public class RouterService {
         BigInteger denominator = reserveIn.multiply(feeDenominator).add(amountInWithFee);
         return numerator.divide(denominator);
     }
+
+    /**
+     * 与UniswapV2Library.getAmountIn一致：amountIn = reserveIn*amountOut*1000 / ((reserveOut-amountOut)*997) + 1
+     */
+    public static BigInteger getAmountIn(BigInteger amountOut, BigInteger reserveIn, BigInteger reserveOut) {
+        if (amountOut.signum() <= 0) {
+            throw new IllegalArgumentException("amountOut must be positive");
+        }
+        if (reserveIn.signum() <= 0 || amountOut.compareTo(reserveOut) >= 0) {
+            throw new IllegalStateException("Insufficient liquidity");
+        }
+        BigInteger feeNumerator = BigInteger.valueOf(997);
+        BigInteger feeDenominator = BigInteger.valueOf(1000);
+        BigInteger numerator = reserveIn.multiply(amountOut).multiply(feeDenominator);
+        BigInteger denominator = reserveOut.subtract(amountOut).multiply(feeNumerator);
+        return numerator.divide(denominator).add(BigInteger.ONE);
+    }
 }
@@ -0,0 +1,32 @@
+package com.novaswap.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * 单条链上的余额
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainPortfolio {
+    private Long chainId;
+    private String network;
+    
+    // ok / timeout / error
+    private String status;
+    private String error;
+    
+    // 原生币余额
+    private BigInteger nativeBalance;
+    private String formattedNativeBalance;
+    
+    private List<TokenBalance> tokens;
+    
+    private long latencyMs;
+}
@@ -0,0 +1,26 @@
+package com.novaswap.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * exact-output路由：输出数量固定，amountIn为所需的最小输入
+ * amountInMax按滑点放大，可直接用于swapTokensForExactTokens
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExactOutputRouteInfo {
+    private List<String> path;
+    private BigInteger amountIn;
+    private BigInteger amountInMax;
+    private BigInteger amountOut;
+    private BigDecimal priceImpact;
+    private BigInteger[] reserves;
+    private boolean isDirect;
+    private int hops;
+}
@@ -29,4 +29,10 @@ public class MulticallRequest {
      */
     @Builder.Default
     private boolean allowFailure = false;
+    
+    /**
+     * 预估gas（用于分批，0表示使用默认估算）
+     */
+    @Builder.Default
+    private long estimatedGas = 0L;
 }
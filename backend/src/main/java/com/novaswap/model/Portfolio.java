@@ -0,0 +1,22 @@
+package com.novaswap.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+/**
+ * 用户在多条链上的余额
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Portfolio {
+    private String userAddress;
+    private List<ChainPortfolio> chains;
+    
+    // 有链超时或失败时为true，chains中对应条目不含余额
+    private boolean partial;
+    
+    private long elapsedMs;
+}
@@ -0,0 +1,22 @@
+package com.novaswap.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+/**
+ * 拆单中的一条路径
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteSplit {
+    private BigInteger amountIn;
+    
+    // 占总输入的百分比
+    private BigDecimal share;
+    
+    private RouteInfo route;
+}
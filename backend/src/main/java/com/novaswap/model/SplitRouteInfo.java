@@ -0,0 +1,31 @@
+package com.novaswap.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * 拆单路由：总输入分散到多条互不共用池子的路径
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SplitRouteInfo {
+    private BigInteger amountIn;
+    private BigInteger amountOut;
+    private BigInteger minAmountOut;
+    
+    // 按各路径输入占比加权的价格影响
+    private BigDecimal priceImpact;
+    
+    // 全部输入走单一最优路径时的输出，用于对比拆单收益
+    private BigInteger singleRouteAmountOut;
+    
+    private List<RouteSplit> splits;
+    
+    // false表示分配超出时间预算提前结束，剩余数量整体分给了当时的最优路径，结果可能不是最优
+    private boolean complete;
+}
@@ -15,4 +15,7 @@ public class TokenBalance {
     private Integer decimals;
     private BigInteger balance;
     private String formattedBalance;
+    
+    // 余额读取失败时的原因，此时balance和formattedBalance为空
+    private String error;
 }
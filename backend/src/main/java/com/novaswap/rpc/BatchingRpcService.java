@@ -0,0 +1,221 @@
+package com.novaswap.rpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON-RPC批量传输
+ * 在很短的时间窗口（lingerMs）或数量窗口（maxBatchSize）内收集并发发出的请求，合并为一个JSON-RPC批量数组，
+ * 通过一次HTTP往返发送，再按id拆分响应完成各自的future。适用于不能走Multicall的调用
+ * （eth_getBalance、eth_getLogs、eth_blockNumber等）。
+ * 批内id重新编号，响应中恢复原始id；节点不支持批量（返回对象而非数组）时退回逐个发送。发送交易的请求不参与合并
+ */
+@Slf4j
+public class BatchingRpcService extends Service {
+
+    private record PendingRequest(ObjectNode request, CompletableFuture<JsonNode> future) {}
+
+    private final HedgedRpcService delegate;
+    private final int maxBatchSize;
+    private final long lingerMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private List<PendingRequest> pending = new ArrayList<>();
+    private boolean flushScheduled;
+
+    public BatchingRpcService(HedgedRpcService delegate, int maxBatchSize, long lingerMs) {
+        super(false);
+        this.delegate = delegate;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.lingerMs = Math.max(0, lingerMs);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rpc-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        JsonNode request = objectMapper.readTree(payload);
+        CompletableFuture<byte[]> response;
+        if (request instanceof ObjectNode object && !isWrite(object)) {
+            response = enqueue(object).thenApply(this::toBytes);
+        } else {
+            // web3j自身的批量请求和交易直接发送
+            response = delegate.executeAsync(payload.getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            return new ByteArrayInputStream(response.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("RPC request failed", e.getCause());
+        }
+    }
+
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        ObjectNode node = objectMapper.valueToTree(request);
+        if (isWrite(node)) {
+            return delegate.sendAsync(request, responseType);
+        }
+        return enqueue(node).thenApply(response -> {
+            try {
+                return objectMapper.treeToValue(response, responseType);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        delegate.close();
+    }
+
+    private CompletableFuture<JsonNode> enqueue(ObjectNode request) {
+        CompletableFuture<JsonNode> future = new CompletableFuture<>();
+        List<PendingRequest> ready = null;
+        synchronized (lock) {
+            pending.add(new PendingRequest(request, future));
+            if (pending.size() >= maxBatchSize) {
+                ready = pending;
+                pending = new ArrayList<>();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                try {
+                    scheduler.schedule(this::flushPending, lingerMs, TimeUnit.MILLISECONDS);
+                } catch (RuntimeException e) {
+                    // 调度器已关闭：立即发送
+                    flushScheduled = false;
+                    ready = pending;
+                    pending = new ArrayList<>();
+                }
+            }
+        }
+        if (ready != null) {
+            send(ready);
+        }
+        return future;
+    }
+
+    private void flushPending() {
+        List<PendingRequest> ready;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            ready = pending;
+            pending = new ArrayList<>();
+        }
+        send(ready);
+    }
+
+    private void send(List<PendingRequest> batch) {
+        if (batch.size() == 1) {
+            sendSingle(batch.get(0));
+            return;
+        }
+
+        ArrayNode payload = objectMapper.createArrayNode();
+        for (int i = 0; i < batch.size(); i++) {
+            ObjectNode request = batch.get(i).request().deepCopy();
+            request.put("id", i);
+            payload.add(request);
+        }
+        log.debug("Sending JSON-RPC batch of {} requests", batch.size());
+
+        executeAsync(payload).whenComplete((body, error) -> {
+            if (error != null) {
+                batch.forEach(item -> item.future().completeExceptionally(error));
+                return;
+            }
+            try {
+                JsonNode response = objectMapper.readTree(body);
+                if (!response.isArray()) {
+                    log.debug("Endpoint rejected JSON-RPC batch, sending {} requests individually", batch.size());
+                    batch.forEach(this::sendSingle);
+                    return;
+                }
+                Map<Integer, JsonNode> byId = new HashMap<>();
+                for (JsonNode item : response) {
+                    JsonNode id = item.get("id");
+                    if (id != null && id.canConvertToInt()) {
+                        byId.put(id.asInt(), item);
+                    }
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingRequest item = batch.get(i);
+                    JsonNode result = byId.get(i);
+                    if (result instanceof ObjectNode object) {
+                        object.set("id", item.request().get("id"));
+                        item.future().complete(object);
+                    } else {
+                        item.future().completeExceptionally(new IOException("Missing response in JSON-RPC batch"));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                batch.forEach(item -> item.future().completeExceptionally(e));
+            }
+        });
+    }
+
+    private void sendSingle(PendingRequest item) {
+        executeAsync(item.request()).whenComplete((body, error) -> {
+            if (error != null) {
+                item.future().completeExceptionally(error);
+                return;
+            }
+            try {
+                item.future().complete(objectMapper.readTree(body));
+            } catch (IOException e) {
+                item.future().completeExceptionally(e);
+            }
+        });
+    }
+
+    private CompletableFuture<byte[]> executeAsync(JsonNode payload) {
+        try {
+            return delegate.executeAsync(objectMapper.writeValueAsBytes(payload));
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private byte[] toBytes(JsonNode node) {
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static boolean isWrite(JsonNode request) {
+        String method = request.path("method").asText("");
+        return method.equals("eth_sendRawTransaction") || method.equals("eth_sendTransaction");
+    }
+}
@@ -0,0 +1,113 @@
+package com.novaswap.rpc;
+
+import com.novaswap.config.NetworkProperties;
+import com.novaswap.service.MulticallDecoder;
+import com.novaswap.service.MulticallService;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 单条链的客户端：web3j、多节点传输、Multicall和合约地址
+ */
+public final class ChainClient {
+
+    // factory() 选择器
+    private static final String FACTORY_CALL = "0xc45a0155";
+
+    private final long chainId;
+    private final String name;
+    private final Web3j web3j;
+    private final HedgedRpcService rpcService;
+    private final MulticallService multicallService;
+    private final NetworkProperties.Chain config;
+    private final AtomicReference<CompletableFuture<String>> factory = new AtomicReference<>();
+
+    public ChainClient(
+            long chainId,
+            String name,
+            Web3j web3j,
+            HedgedRpcService rpcService,
+            MulticallService multicallService,
+            NetworkProperties.Chain config) {
+        this.chainId = chainId;
+        this.name = name;
+        this.web3j = web3j;
+        this.rpcService = rpcService;
+        this.multicallService = multicallService;
+        this.config = config;
+    }
+
+    public long getChainId() {
+        return chainId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Web3j getWeb3j() {
+        return web3j;
+    }
+
+    public HedgedRpcService getRpcService() {
+        return rpcService;
+    }
+
+    public MulticallService getMulticallService() {
+        return multicallService;
+    }
+
+    public NetworkProperties.Chain getConfig() {
+        return config;
+    }
+
+    public String getWeth() {
+        return config.getWeth();
+    }
+
+    /**
+     * V2 factory地址：优先取配置，否则读取一次router.factory()并缓存（失败后下次重新读取）
+     */
+    public CompletableFuture<String> getFactoryAsync() {
+        if (config.getFactory() != null && !config.getFactory().isBlank()) {
+            return CompletableFuture.completedFuture(config.getFactory());
+        }
+        CompletableFuture<String> cached = factory.get();
+        if (cached != null) {
+            return cached;
+        }
+        CompletableFuture<String> created = new CompletableFuture<>();
+        if (!factory.compareAndSet(null, created)) {
+            return factory.get();
+        }
+        web3j.ethCall(Transaction.createEthCallTransaction(null, config.getRouter(), FACTORY_CALL), DefaultBlockParameterName.LATEST)
+            .sendAsync()
+            .thenApply(response -> {
+                if (response.hasError()) {
+                    throw new IllegalStateException("router.factory() failed: " + response.getError().getMessage());
+                }
+                String address = MulticallDecoder.decodeAddress(MulticallDecoder.hexToBytes(response.getValue()), 0);
+                if (address == null) {
+                    throw new IllegalStateException("router.factory() returned no data on chain " + chainId);
+                }
+                return address;
+            })
+            .whenComplete((address, error) -> {
+                if (error != null) {
+                    factory.set(null);
+                    created.completeExceptionally(error);
+                } else {
+                    created.complete(address);
+                }
+            });
+        return created;
+    }
+
+    void shutdown() {
+        web3j.shutdown();
+    }
+}
@@ -0,0 +1,130 @@
+package com.novaswap.rpc;
+
+import com.novaswap.config.MulticallProperties;
+import com.novaswap.config.NetworkProperties;
+import com.novaswap.config.RpcProperties;
+import com.novaswap.config.Web3Config;
+import com.novaswap.service.MulticallService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.web3j.protocol.Web3j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 按chainId提供各条链的客户端
+ * 主链（novaswap.chainId）直接使用容器中的Web3j/MulticallService；其他链按novaswap.networks.*在首次使用时创建，
+ * 每条链有独立的节点列表、连接池、超时和Multicall地址，一个实例即可同时服务全部已配置的链
+ */
+@Slf4j
+@Component
+public class ChainClientRegistry {
+
+    private final long primaryChainId;
+    private final ChainClient primaryClient;
+    private final RpcProperties rpcProperties;
+    private final MulticallProperties multicallProperties;
+    private final ExecutorService rpcDispatcherExecutor;
+
+    // chainId -> 网络名/配置
+    private final Map<Long, Map.Entry<String, NetworkProperties.Chain>> configs = new LinkedHashMap<>();
+    private final Map<Long, ChainClient> clients = new ConcurrentHashMap<>();
+
+    public ChainClientRegistry(
+            Web3j web3j,
+            HedgedRpcService rpcService,
+            MulticallService multicallService,
+            Web3Config web3Config,
+            NetworkProperties networkProperties,
+            RpcProperties rpcProperties,
+            MulticallProperties multicallProperties,
+            @Qualifier("rpcDispatcherExecutor") ExecutorService rpcDispatcherExecutor) {
+        this.primaryChainId = web3Config.getChainId();
+        this.rpcProperties = rpcProperties;
+        this.multicallProperties = multicallProperties;
+        this.rpcDispatcherExecutor = rpcDispatcherExecutor;
+
+        networkProperties.getNetworks().forEach((name, chain) -> configs.put(chain.getChainId(), Map.entry(name, chain)));
+
+        Map.Entry<String, NetworkProperties.Chain> primary = configs.get(primaryChainId);
+        NetworkProperties.Chain primaryConfig = primary != null ? primary.getValue() : new NetworkProperties.Chain();
+        primaryConfig.setChainId(primaryChainId);
+        this.primaryClient = new ChainClient(primaryChainId, primary != null ? primary.getKey() : "primary",
+            web3j, rpcService, multicallService, primaryConfig);
+        clients.put(primaryChainId, primaryClient);
+    }
+
+    public long getPrimaryChainId() {
+        return primaryChainId;
+    }
+
+    public boolean isPrimary(Long chainId) {
+        return chainId == null || chainId == primaryChainId;
+    }
+
+    public ChainClient getPrimaryClient() {
+        return primaryClient;
+    }
+
+    /**
+     * chainId为null时返回主链客户端；未配置的链抛出IllegalArgumentException
+     */
+    public ChainClient getClient(Long chainId) {
+        if (isPrimary(chainId)) {
+            return primaryClient;
+        }
+        return clients.computeIfAbsent(chainId, this::createClient);
+    }
+
+    public boolean isSupported(Long chainId) {
+        return isPrimary(chainId) || configs.containsKey(chainId);
+    }
+
+    /**
+     * 全部已配置的链（主链在前）
+     */
+    public List<Long> getChainIds() {
+        List<Long> chainIds = new ArrayList<>();
+        chainIds.add(primaryChainId);
+        configs.keySet().stream().filter(chainId -> chainId != primaryChainId).forEach(chainIds::add);
+        return chainIds;
+    }
+
+    /**
+     * 已创建的客户端（未使用过的链不在其中）
+     */
+    public List<ChainClient> getActiveClients() {
+        return new ArrayList<>(clients.values());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        clients.values().stream()
+            .filter(client -> client != primaryClient)
+            .forEach(ChainClient::shutdown);
+    }
+
+    private ChainClient createClient(long chainId) {
+        Map.Entry<String, NetworkProperties.Chain> entry = configs.get(chainId);
+        if (entry == null) {
+            throw new IllegalArgumentException("Unsupported network: " + chainId);
+        }
+        NetworkProperties.Chain chain = entry.getValue();
+        if (chain.getRpcUrl() == null || chain.getRpcUrl().isBlank()) {
+            throw new IllegalStateException("No rpcUrl configured for network " + entry.getKey());
+        }
+        HedgedRpcService rpcService = RpcClients.createRpcService(
+            chain.getRpcUrl(), chain.getFallbackUrls(), chain.getHttp(), rpcProperties, rpcDispatcherExecutor);
+        Web3j web3j = RpcClients.createWeb3j(rpcService, rpcProperties);
+        MulticallService multicallService = new MulticallService(web3j, chain.getMulticall(), multicallProperties);
+        log.info("Created RPC client for {} (chainId {})", entry.getKey(), chainId);
+        return new ChainClient(chainId, entry.getKey(), web3j, rpcService, multicallService, chain);
+    }
+}
@@ -0,0 +1,274 @@
+package com.novaswap.rpc;
+
+import com.novaswap.config.RpcProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.web3j.protocol.Service;
+import org.web3j.protocol.core.Request;
+import org.web3j.protocol.core.Response;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多节点web3j传输：按健康评分选节点、对冲请求、故障转移
+ * 请求先发往评分最好的节点；超过该节点近期耗时的p95仍未返回时，向下一个节点发送相同请求，先成功的结果生效，
+ * 其余请求被取消。节点返回网络错误、非2xx，或HTTP 200但带可重试的JSON-RPC错误（限流、落后节点找不到固定区块等，
+ * 见RpcErrorClassifier）时立即切换到下一个节点；所有节点都返回可重试错误时，把最后一个响应体原样交给调用方。
+ * 发送交易的请求不做对冲，只在连接没有建立时切换节点，避免同一笔交易被重复广播
+ */
+@Slf4j
+public class HedgedRpcService extends Service {
+
+    private final List<RpcEndpoint> endpoints;
+    private final RpcTransport transport;
+    private final RpcProperties properties;
+    private final ScheduledExecutorService scheduler;
+
+    public HedgedRpcService(List<String> urls, RpcTransport transport, RpcProperties properties) {
+        super(false);
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("At least one RPC endpoint is required");
+        }
+        this.endpoints = urls.stream().map(RpcEndpoint::new).toList();
+        this.transport = transport;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "rpc-hedge");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        try {
+            return new ByteArrayInputStream(executeAsync(payload.getBytes(StandardCharsets.UTF_8)).join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("RPC request failed", e.getCause());
+        }
+    }
+
+    /**
+     * 异步发送，不阻塞调用线程（web3j默认的sendAsync会占用一个线程等待performIO）
+     */
+    @Override
+    public <T extends Response> CompletableFuture<T> sendAsync(Request request, Class<T> responseType) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(request);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return executeAsync(payload).thenApply(body -> {
+            try {
+                return objectMapper.readValue(body, responseType);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * 发送原始JSON-RPC负载（单个请求或批量数组），以响应体完成
+     */
+    public CompletableFuture<byte[]> executeAsync(byte[] payload) {
+        boolean write = isWrite(payload);
+        Attempt attempt = new Attempt(payload, rankEndpoints(), write);
+        attempt.launchNext();
+        return attempt.result;
+    }
+
+    public List<RpcEndpoint> getEndpoints() {
+        return endpoints;
+    }
+
+    public List<Map<String, Object>> getEndpointStats() {
+        return endpoints.stream().map(RpcEndpoint::getStats).toList();
+    }
+
+    /**
+     * 传输层（连接池）统计
+     */
+    public Map<String, Object> getTransportStats() {
+        return transport.getStats();
+    }
+
+    @Override
+    public void close() throws IOException {
+        scheduler.shutdownNow();
+        transport.close();
+    }
+
+    /**
+     * 可用节点按评分排序在前，熔断中的节点排在最后（所有节点都熔断时仍会尝试）
+     */
+    private List<RpcEndpoint> rankEndpoints() {
+        long now = System.nanoTime();
+        double defaultLatency = properties.getHedgeInitialDelayMs();
+        List<RpcEndpoint> ranked = new ArrayList<>(endpoints);
+        ranked.sort(Comparator
+            .comparing((RpcEndpoint endpoint) -> !endpoint.isAvailable(now))
+            .thenComparingDouble(endpoint -> endpoint.score(defaultLatency)));
+        return ranked;
+    }
+
+    private long hedgeDelayMs(RpcEndpoint endpoint) {
+        long percentile = endpoint.latencyPercentileNanos(properties.getHedgePercentile(), properties.getHedgeMinSamples());
+        long delay = percentile < 0 ? properties.getHedgeInitialDelayMs() : TimeUnit.NANOSECONDS.toMillis(percentile);
+        return Math.max(properties.getHedgeMinDelayMs(), Math.min(properties.getHedgeMaxDelayMs(), delay));
+    }
+
+    private static boolean isWrite(byte[] payload) {
+        String text = new String(payload, StandardCharsets.UTF_8);
+        return text.contains("\"eth_sendRawTransaction\"") || text.contains("\"eth_sendTransaction\"");
+    }
+
+    /**
+     * 一次逻辑请求的全部尝试
+     */
+    private final class Attempt {
+        final byte[] payload;
+        final List<RpcEndpoint> order;
+        final boolean write;
+        final int maxAttempts;
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        final List<CompletableFuture<byte[]>> inflight = new ArrayList<>();
+        int launched;
+        int outstanding;
+        Throwable lastError;
+
+        Attempt(byte[] payload, List<RpcEndpoint> order, boolean write) {
+            this.payload = payload;
+            this.order = order;
+            this.write = write;
+            this.maxAttempts = Math.max(1, Math.min(order.size(), properties.getMaxAttempts()));
+        }
+
+        /**
+         * 向下一个节点发送；没有可用节点且没有在途请求时以最后一个错误结束
+         */
+        void launchNext() {
+            RpcEndpoint endpoint;
+            CompletableFuture<byte[]> future;
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                if (launched >= maxAttempts) {
+                    if (outstanding == 0) {
+                        if (lastError instanceof RetryableResponseException retryable) {
+                            result.complete(retryable.body);
+                        } else {
+                            result.completeExceptionally(lastError != null ? lastError : new IOException("No RPC endpoint available"));
+                        }
+                    }
+                    return;
+                }
+                endpoint = order.get(launched++);
+                outstanding++;
+                long start = System.nanoTime();
+                try {
+                    future = transport.send(endpoint, payload);
+                } catch (RuntimeException e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                inflight.add(future);
+                future.whenComplete((body, error) -> onComplete(endpoint, start, body, error));
+            }
+            scheduleHedge(endpoint);
+        }
+
+        void scheduleHedge(RpcEndpoint endpoint) {
+            if (write || !properties.isHedgeEnabled() || launched >= maxAttempts || result.isDone()) {
+                return;
+            }
+            long delay = hedgeDelayMs(endpoint);
+            try {
+                scheduler.schedule(() -> {
+                    if (!result.isDone()) {
+                        order.get(Math.min(launched, order.size() - 1)).recordHedge();
+                        launchNext();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } catch (RuntimeException e) {
+                // 调度器已关闭：不再对冲
+            }
+        }
+
+        void onComplete(RpcEndpoint endpoint, long start, byte[] body, Throwable error) {
+            if (error == null && !write) {
+                String reason = RpcErrorClassifier.retryableError(objectMapper, body);
+                if (reason != null) {
+                    error = new RetryableResponseException(endpoint.getUrl() + " returned " + reason, body);
+                }
+            }
+            if (error == null) {
+                endpoint.recordSuccess(System.nanoTime() - start);
+                if (result.complete(body)) {
+                    endpoint.recordWin();
+                    cancelOthers();
+                }
+                return;
+            }
+            boolean failover;
+            synchronized (this) {
+                outstanding--;
+                if (result.isDone()) {
+                    // 其他节点已返回，本请求是被取消的
+                    return;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                lastError = cause;
+                failover = !write || cause instanceof ConnectException || cause instanceof UnknownHostException;
+                if (!failover && outstanding == 0) {
+                    result.completeExceptionally(cause);
+                }
+            }
+            endpoint.recordFailure(properties.getFailureThreshold(), properties.getCooldownMs());
+            log.debug("RPC request to {} failed: {}", endpoint.getUrl(), error.getMessage());
+            if (failover) {
+                launchNext();
+            }
+        }
+
+        void cancelOthers() {
+            List<CompletableFuture<byte[]>> snapshot;
+            synchronized (this) {
+                snapshot = new ArrayList<>(inflight);
+            }
+            for (CompletableFuture<byte[]> future : snapshot) {
+                if (!future.isDone()) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * HTTP 200但带可重试JSON-RPC错误的响应，按失败处理并保留响应体
+     */
+    static final class RetryableResponseException extends IOException {
+        final byte[] body;
+
+        RetryableResponseException(String message, byte[] body) {
+            super(message);
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.novaswap.rpc;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于OkHttp异步调用的传输层：请求在OkHttp的dispatcher上执行，不占用调用方线程
+ */
+public class OkHttpRpcTransport implements RpcTransport {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final OkHttpClient client;
+    // 为空时不统计连接事件
+    private final RpcConnectionMetrics metrics;
+
+    public OkHttpRpcTransport(OkHttpClient client) {
+        this(client, null);
+    }
+
+    public OkHttpRpcTransport(OkHttpClient client, RpcConnectionMetrics metrics) {
+        this.client = client;
+        this.metrics = metrics;
+    }
+
+    public OkHttpClient getClient() {
+        return client;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> send(RpcEndpoint endpoint, byte[] payload) {
+        Request request = new Request.Builder()
+            .url(endpoint.getUrl())
+            .post(RequestBody.create(payload, JSON))
+            .build();
+        Call call = client.newCall(request);
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                call.cancel();
+            }
+        });
+
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful()) {
+                        future.completeExceptionally(new IOException(
+                            "HTTP " + response.code() + " from " + endpoint.getUrl()));
+                        return;
+                    }
+                    future.complete(body == null ? new byte[0] : body.bytes());
+                } catch (IOException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", client.connectionPool().connectionCount());
+        stats.put("idleConnections", client.connectionPool().idleConnectionCount());
+        stats.put("runningCalls", client.dispatcher().runningCallsCount());
+        stats.put("queuedCalls", client.dispatcher().queuedCallsCount());
+        stats.put("maxRequests", client.dispatcher().getMaxRequests());
+        stats.put("protocolsOffered", client.protocols().stream().map(Object::toString).toList());
+        if (metrics != null) {
+            stats.putAll(metrics.getStats());
+        }
+        return stats;
+    }
+
+    /**
+     * 只取消本客户端的调用并关闭空闲连接；dispatcher的执行器由各链共用（ExecutorConfig.rpcDispatcherExecutor），不在这里关闭
+     */
+    @Override
+    public void close() {
+        client.dispatcher().cancelAll();
+        client.connectionPool().evictAll();
+    }
+}
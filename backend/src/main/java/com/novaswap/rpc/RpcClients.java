@@ -0,0 +1,95 @@
+package com.novaswap.rpc;
+
+import com.novaswap.config.NetworkProperties;
+import com.novaswap.config.RpcProperties;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.web3j.protocol.Web3j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按节点列表构建web3j客户端：多节点对冲传输，按配置再加一层JSON-RPC批量合并
+ * 每次调用创建独立的OkHttpClient（独立连接池），各条链互不影响
+ */
+public final class RpcClients {
+
+    private RpcClients() {
+    }
+
+    /**
+     * @param primaryUrl 主节点
+     * @param fallbackUrls 备用节点（可为空）
+     * @param http HTTP客户端参数（novaswap.networks.*.http），为空时全部使用默认值
+     * @param dispatcherExecutor 执行HTTP调用的线程（ExecutorConfig.rpcDispatcherExecutor）
+     */
+    public static HedgedRpcService createRpcService(
+            String primaryUrl,
+            List<String> fallbackUrls,
+            NetworkProperties.Http http,
+            RpcProperties rpcProperties,
+            ExecutorService dispatcherExecutor) {
+        List<String> urls = new ArrayList<>();
+        urls.add(primaryUrl);
+        if (fallbackUrls != null) {
+            fallbackUrls.stream()
+                .filter(url -> url != null && !url.isBlank() && !urls.contains(url))
+                .forEach(urls::add);
+        }
+        RpcConnectionMetrics metrics = new RpcConnectionMetrics();
+        OkHttpClient client = createHttpClient(http != null ? http : new NetworkProperties.Http(), rpcProperties,
+            dispatcherExecutor, metrics);
+        return new HedgedRpcService(urls, new OkHttpRpcTransport(client, metrics), rpcProperties);
+    }
+
+    /**
+     * 开启批量合并时，web3j的请求先经过BatchingRpcService再交给多节点传输
+     */
+    public static Web3j createWeb3j(HedgedRpcService rpcService, RpcProperties rpcProperties) {
+        if (rpcProperties.isBatchEnabled()) {
+            return Web3j.build(new BatchingRpcService(
+                rpcService, rpcProperties.getBatchMaxSize(), rpcProperties.getBatchLingerMs()));
+        }
+        return Web3j.build(rpcService);
+    }
+
+    private static OkHttpClient createHttpClient(
+            NetworkProperties.Http http,
+            RpcProperties rpcProperties,
+            ExecutorService dispatcherExecutor,
+            RpcConnectionMetrics metrics) {
+        int maxConcurrentRequests = http.getMaxConcurrentRequests() > 0
+            ? http.getMaxConcurrentRequests()
+            : rpcProperties.getMaxConcurrentRequests();
+        // 在途请求数受RPC容量限制而不是线程数：超出上限的调用在Dispatcher中排队
+        Dispatcher dispatcher = new Dispatcher(dispatcherExecutor);
+        dispatcher.setMaxRequests(maxConcurrentRequests);
+        dispatcher.setMaxRequestsPerHost(maxConcurrentRequests);
+
+        // OkHttp默认只保留5个空闲连接，突发请求结束后多余的连接被关闭，下一次突发又要重新握手
+        int maxIdleConnections = http.getMaxIdleConnections() > 0 ? http.getMaxIdleConnections() : maxConcurrentRequests;
+        // ConnectionPool不接受非正的保留时长
+        long keepAliveMs = http.getKeepAliveMs() > 0 ? http.getKeepAliveMs() : NetworkProperties.Http.DEFAULT_KEEP_ALIVE_MS;
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+            .dispatcher(dispatcher)
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveMs, TimeUnit.MILLISECONDS))
+            .protocols(http.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+            .connectTimeout(http.getConnectTimeoutMs() > 0 ? http.getConnectTimeoutMs() : rpcProperties.getConnectTimeoutMs(),
+                TimeUnit.MILLISECONDS)
+            .readTimeout(http.getReadTimeoutMs() > 0 ? http.getReadTimeoutMs() : rpcProperties.getReadTimeoutMs(),
+                TimeUnit.MILLISECONDS)
+            .pingInterval(Math.max(0, http.getPingIntervalMs()), TimeUnit.MILLISECONDS)
+            .eventListener(metrics);
+        // 未显式设置Accept-Encoding时OkHttp会请求gzip并透明解压；关闭压缩时显式要求identity
+        if (!http.isGzip()) {
+            builder.addInterceptor(chain -> chain.proceed(
+                chain.request().newBuilder().header("Accept-Encoding", "identity").build()));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.novaswap.rpc;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个OkHttpClient的连接统计（所有调用共用一个实例）
+ * 新建连接数与连接获取次数之比反映连接复用情况；响应字节数为线路上（压缩后）的大小
+ */
+public class RpcConnectionMetrics extends EventListener {
+
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder connectFailures = new LongAdder();
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder gzipResponses = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+    private final Map<String, LongAdder> protocols = new ConcurrentHashMap<>();
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connects.increment();
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+        connectFailures.increment();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        acquisitions.increment();
+        protocols.computeIfAbsent(connection.protocol().toString(), p -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void responseHeadersEnd(Call call, Response response) {
+        responses.increment();
+        if ("gzip".equalsIgnoreCase(response.header("Content-Encoding"))) {
+            gzipResponses.increment();
+        }
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        responseBytes.add(byteCount);
+    }
+
+    public Map<String, Object> getStats() {
+        long connectCount = connects.sum();
+        long acquisitionCount = acquisitions.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("newConnections", connectCount);
+        stats.put("connectFailures", connectFailures.sum());
+        stats.put("connectionAcquisitions", acquisitionCount);
+        stats.put("reuseRate", acquisitionCount == 0 ? 0.0 : Math.max(0.0, 1.0 - (double) connectCount / acquisitionCount));
+        Map<String, Long> protocolCounts = new LinkedHashMap<>();
+        protocols.forEach((protocol, count) -> protocolCounts.put(protocol, count.sum()));
+        stats.put("protocols", protocolCounts);
+        stats.put("responses", responses.sum());
+        stats.put("gzipResponses", gzipResponses.sum());
+        stats.put("responseBytes", responseBytes.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,116 @@
+package com.novaswap.rpc;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个RPC节点及其健康状态
+ * 保留最近若干次成功请求的耗时用于计算对冲延迟（p95），并用EWMA维护平均耗时和错误率作为排序依据；
+ * 连续失败达到阈值后熔断一段时间，期间只在其他节点都不可用时才会被选中
+ */
+public final class RpcEndpoint {
+
+    private static final int SAMPLE_SIZE = 256;
+    private static final double LATENCY_ALPHA = 0.2;
+    private static final double ERROR_ALPHA = 0.1;
+
+    private final String url;
+
+    private final long[] samples = new long[SAMPLE_SIZE];
+    private int sampleIndex;
+    private int sampleCount;
+
+    private double ewmaLatencyMs = -1;
+    private double errorRate;
+    private int consecutiveFailures;
+    private long openUntilNanos;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder wins = new LongAdder();
+
+    public RpcEndpoint(String url) {
+        this.url = url;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public synchronized void recordSuccess(long latencyNanos) {
+        requests.increment();
+        samples[sampleIndex] = latencyNanos;
+        sampleIndex = (sampleIndex + 1) % SAMPLE_SIZE;
+        sampleCount = Math.min(sampleCount + 1, SAMPLE_SIZE);
+
+        double latencyMs = latencyNanos / 1_000_000.0;
+        ewmaLatencyMs = ewmaLatencyMs < 0 ? latencyMs : ewmaLatencyMs + LATENCY_ALPHA * (latencyMs - ewmaLatencyMs);
+        errorRate -= ERROR_ALPHA * errorRate;
+        consecutiveFailures = 0;
+        openUntilNanos = 0;
+    }
+
+    /**
+     * 记录一次失败；连续失败达到failureThreshold后熔断cooldownMs
+     */
+    public synchronized void recordFailure(int failureThreshold, long cooldownMs) {
+        requests.increment();
+        failures.increment();
+        errorRate += ERROR_ALPHA * (1 - errorRate);
+        consecutiveFailures++;
+        if (consecutiveFailures >= failureThreshold) {
+            openUntilNanos = System.nanoTime() + cooldownMs * 1_000_000L;
+        }
+    }
+
+    public void recordHedge() {
+        hedges.increment();
+    }
+
+    public void recordWin() {
+        wins.increment();
+    }
+
+    public synchronized boolean isAvailable(long nowNanos) {
+        return openUntilNanos == 0 || nowNanos - openUntilNanos >= 0;
+    }
+
+    /**
+     * 排序分数（越小越好）：平均耗时按错误率放大；还没有样本的节点按defaultLatencyMs估计
+     */
+    public synchronized double score(double defaultLatencyMs) {
+        double latency = ewmaLatencyMs < 0 ? defaultLatencyMs : ewmaLatencyMs;
+        return latency * (1 + 10 * errorRate);
+    }
+
+    /**
+     * 最近成功请求耗时的分位数（纳秒）；样本不足minSamples时返回-1
+     */
+    public synchronized long latencyPercentileNanos(double percentile, int minSamples) {
+        if (sampleCount < Math.max(1, minSamples)) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile * sampleCount) - 1;
+        return sorted[Math.max(0, Math.min(sampleCount - 1, index))];
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("url", url);
+        stats.put("available", isAvailable(System.nanoTime()));
+        stats.put("requests", requests.sum());
+        stats.put("failures", failures.sum());
+        stats.put("hedges", hedges.sum());
+        stats.put("wins", wins.sum());
+        stats.put("ewmaLatencyMs", ewmaLatencyMs < 0 ? null : ewmaLatencyMs);
+        stats.put("errorRate", errorRate);
+        long p95 = latencyPercentileNanos(0.95, 1);
+        stats.put("p95LatencyMs", p95 < 0 ? null : p95 / 1_000_000.0);
+        return stats;
+    }
+}
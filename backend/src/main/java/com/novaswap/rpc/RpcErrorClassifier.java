@@ -0,0 +1,103 @@
+package com.novaswap.rpc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 识别HTTP 200响应体中可以换节点重试的JSON-RPC错误
+ * 包括限流（-32005、429或消息含rate limit）以及落后节点对固定区块读取返回的header not found、missing trie node等；
+ * execution reverted这类与节点无关的错误不在其中，换节点也只会得到同样的结果
+ */
+public final class RpcErrorClassifier {
+
+    private static final byte[] ERROR_MEMBER = "\"error\"".getBytes(StandardCharsets.US_ASCII);
+
+    private static final List<Integer> RETRYABLE_CODES = List.of(-32005, 429);
+
+    private static final List<String> RETRYABLE_MESSAGES = List.of(
+        "header not found",
+        "missing trie node",
+        "unknown block",
+        "block not found",
+        "rate limit",
+        "rate exceeded",
+        "request count exceeded",
+        "too many requests",
+        "timeout",
+        "timed out",
+        "try again"
+    );
+
+    private RpcErrorClassifier() {
+    }
+
+    /**
+     * 响应体（单个响应或批量数组）含可重试错误时返回该错误的描述，否则返回null
+     * 批量数组中任一元素可重试即视为整个响应可重试
+     */
+    public static String retryableError(ObjectMapper objectMapper, byte[] body) {
+        if (body == null || !contains(body, ERROR_MEMBER)) {
+            return null;
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException e) {
+            return null;
+        }
+        if (root == null) {
+            return null;
+        }
+        if (root.isArray()) {
+            for (JsonNode response : root) {
+                String reason = retryableError(response);
+                if (reason != null) {
+                    return reason;
+                }
+            }
+            return null;
+        }
+        return retryableError(root);
+    }
+
+    private static String retryableError(JsonNode response) {
+        JsonNode error = response.get("error");
+        if (error == null || error.isNull()) {
+            return null;
+        }
+        int code = error.path("code").asInt();
+        String message = error.path("message").asText("");
+        if (RETRYABLE_CODES.contains(code) || isRetryableMessage(message)) {
+            return "JSON-RPC error " + code + ": " + message;
+        }
+        return null;
+    }
+
+    static boolean isRetryableMessage(String message) {
+        String lower = message.toLowerCase(Locale.ROOT);
+        for (String retryable : RETRYABLE_MESSAGES) {
+            if (lower.contains(retryable)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,23 @@
+package com.novaswap.rpc;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 向单个节点发送一次JSON-RPC请求（单个请求或批量数组）
+ * 返回的future以HTTP响应体完成；网络错误和非2xx响应以异常完成。调用方取消future时实现应中止请求
+ */
+public interface RpcTransport {
+
+    CompletableFuture<byte[]> send(RpcEndpoint endpoint, byte[] payload);
+
+    /**
+     * 连接池和连接复用统计
+     */
+    default Map<String, Object> getStats() {
+        return Map.of();
+    }
+
+    default void close() {
+    }
+}
@@ -1,11 +1,17 @@
 package com.novaswap.scheduler;
 
 import com.novaswap.service.DataAggregationService;
+import com.novaswap.service.PairRegistryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 /**
  * 定时任务 - 定期更新缓存数据
  */
@@ -15,17 +21,37 @@ import org.springframework.stereotype.Component;
 public class DataUpdateScheduler {
     
     private final DataAggregationService dataAggregationService;
+    private final PairRegistryService pairRegistryService;
+    private final CacheManager cacheManager;
+    
+    @Value("${novaswap.scheduler.poolStatsBatchSize:200}")
+    private int poolStatsBatchSize;
+    
+    // 轮转游标：每次只更新注册表中的一段池子
+    private int poolStatsCursor;
     
     /**
-     * 每10秒更新一次池统计数据
+     * 每10秒更新一次池统计数据（按注册表轮转，每次最多poolStatsBatchSize个池子）
      */
     @Scheduled(fixedRate = 10000)
     public void updatePoolStats() {
         try {
             log.debug("Starting scheduled pool stats update");
-            // 实际应该遍历所有活跃的池
-            // dataAggregationService.updatePoolStats(pairAddress);
-            log.debug("Completed scheduled pool stats update");
+            int total = pairRegistryService.getPairCount();
+            if (total == 0) {
+                log.debug("Pair registry is empty, skipping pool stats update");
+                return;
+            }
+            if (poolStatsCursor >= total) {
+                poolStatsCursor = 0;
+            }
+            
+            List<PairRegistryService.PairRecord> batch = pairRegistryService.getPairs(poolStatsCursor, poolStatsBatchSize);
+            for (PairRegistryService.PairRecord pair : batch) {
+                dataAggregationService.updatePoolStats(pair.pairAddress());
+            }
+            poolStatsCursor += batch.size();
+            log.debug("Completed scheduled pool stats update: {} pools ({}/{})", batch.size(), poolStatsCursor, total);
         } catch (Exception e) {
             log.error("Error during scheduled pool stats update", e);
         }
@@ -33,12 +59,19 @@ public class DataUpdateScheduler {
     
     /**
      * 每小时清理一次过期缓存
+     * Caffeine在读写时顺带清理过期条目，这里处理长时间没有访问的缓存
      */
     @Scheduled(cron = "0 0 * * * ?")
     public void cleanExpiredCache() {
         try {
             log.info("Starting cache cleanup");
-            // 清理逻辑
+            for (String name : cacheManager.getCacheNames()) {
+                Cache cache = cacheManager.getCache(name);
+                if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+                    nativeCache.cleanUp();
+                    log.info("Cache {}: {} entries, {}", name, nativeCache.estimatedSize(), nativeCache.stats());
+                }
+            }
             log.info("Completed cache cleanup");
         } catch (Exception e) {
             log.error("Error during cache cleanup", e);
@@ -4,16 +4,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.FunctionEncoder;
-import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Address;
 import org.web3j.abi.datatypes.Function;
-import org.web3j.abi.datatypes.Type;
 import org.web3j.abi.datatypes.generated.Uint256;
-import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.DefaultBlockParameterName;
-import org.web3j.protocol.core.methods.request.Transaction;
-import org.web3j.protocol.core.methods.response.EthCall;
 
 import java.math.BigInteger;
 import java.util.Arrays;
@@ -26,7 +20,7 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class AllowanceManagementService {
     
-    private final Web3j web3j;
+    private final EthCallCoalescer callCoalescer;
     
     // 无限授权额度
     private static final BigInteger MAX_ALLOWANCE = new BigInteger("ffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffffff", 16);
@@ -43,17 +37,13 @@ public class AllowanceManagementService {
             );
             
             String encodedFunction = FunctionEncoder.encode(function);
-            EthCall response = web3j.ethCall(
-                Transaction.createEthCallTransaction(owner, tokenAddress, encodedFunction),
-                DefaultBlockParameterName.LATEST
-            ).send();
+            byte[] response = callCoalescer.call(tokenAddress, encodedFunction);
             
-            List<Type> result = FunctionReturnDecoder.decode(
-                response.getValue(),
-                function.getOutputParameters()
-            );
-            
-            return (BigInteger) result.get(0).getValue();
+            BigInteger allowance = MulticallDecoder.decodeUint256(response, 0);
+            if (allowance == null) {
+                throw new IllegalStateException("allowance returned no data");
+            }
+            return allowance;
         } catch (Exception e) {
             log.error("Failed to check allowance for token {} from {} to {}", 
                 tokenAddress, owner, spender, e);
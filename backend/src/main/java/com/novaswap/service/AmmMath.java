@@ -0,0 +1,300 @@
+package com.novaswap.service;
+
+import com.novaswap.contract.RouterService;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * 恒定乘积定长整数运算
+ * 数量和储备以两个long（hi/lo，无符号128位）表示，中间结果在调用方提供的32位limb缓冲区（Scratch）内完成乘法和Knuth D除法，
+ * 单跳计算不分配对象；超出128位的输入回退到BigInteger。结果与RouterService.getAmountOut逐位一致
+ */
+public final class AmmMath {
+
+    private static final long MASK = 0xffffffffL;
+    private static final int FEE_NUMERATOR = 997;
+    private static final int FEE_DENOMINATOR = 1000;
+    private static final double TWO_POW_64 = 18446744073709551616.0;
+
+    /**
+     * limb缓冲区（小端序，每个limb为无符号32位），由调用方持有并在多次计算间复用，不能并发使用；
+     * 图搜索使用池化SearchScratch中的实例
+     */
+    public static final class Scratch {
+        final int[] amountInWithFee = new int[5];
+        final int[] numerator = new int[9];
+        final int[] denominator = new int[6];
+        final int[] quotient = new int[9];
+        final int[] un = new int[10];
+        final int[] vn = new int[6];
+        final long[] result = new long[2];
+    }
+
+    private AmmMath() {
+    }
+
+    /**
+     * 与RouterService.getAmountOut语义相同：amountOut = amountIn*997*reserveOut / (reserveIn*1000 + amountIn*997)
+     * 单次计算使用临时缓冲区；循环内多次计算应使用带Scratch的重载
+     */
+    public static BigInteger getAmountOut(BigInteger amountIn, BigInteger reserveIn, BigInteger reserveOut) {
+        return getAmountOut(amountIn, reserveIn, reserveOut, new Scratch());
+    }
+
+    public static BigInteger getAmountOut(BigInteger amountIn, BigInteger reserveIn, BigInteger reserveOut, Scratch scratch) {
+        if (amountIn.signum() <= 0) {
+            throw new IllegalArgumentException("amountIn must be positive");
+        }
+        if (!fits128(amountIn) || !fits128(reserveIn) || !fits128(reserveOut)) {
+            return RouterService.getAmountOut(amountIn, reserveIn, reserveOut);
+        }
+        long[] out = scratch.result;
+        getAmountOut(high(amountIn), amountIn.longValue(), high(reserveIn), reserveIn.longValue(),
+            high(reserveOut), reserveOut.longValue(), out, scratch);
+        return toBigInteger(out[0], out[1]);
+    }
+
+    /**
+     * 无分配版本：所有参数为无符号128位(hi, lo)，结果写入out[0]=hi、out[1]=lo，中间结果使用s的缓冲区
+     * 结果不超过reserveOut，因此总能放进128位
+     */
+    public static void getAmountOut(
+        long amountInHi, long amountInLo,
+        long reserveInHi, long reserveInLo,
+        long reserveOutHi, long reserveOutLo,
+        long[] out,
+        Scratch s
+    ) {
+        // amountInWithFee = amountIn * 997（最多5个limb）
+        int[] fee = s.amountInWithFee;
+        load(amountInHi, amountInLo, fee);
+        fee[4] = 0;
+        multiplySmall(fee, 5, FEE_NUMERATOR);
+
+        // numerator = amountInWithFee * reserveOut（最多9个limb）
+        int[] num = s.numerator;
+        Arrays.fill(num, 0);
+        int reserveOutLimbs = limbLength(reserveOutHi, reserveOutLo);
+        for (int j = 0; j < reserveOutLimbs; j++) {
+            long b = limb(reserveOutHi, reserveOutLo, j);
+            if (b == 0) {
+                continue;
+            }
+            long carry = 0;
+            for (int i = 0; i < 5; i++) {
+                long t = (fee[i] & MASK) * b + (num[i + j] & MASK) + carry;
+                num[i + j] = (int) t;
+                carry = t >>> 32;
+            }
+            num[j + 5] = (int) carry;
+        }
+
+        // denominator = reserveIn * 1000 + amountInWithFee（最多6个limb）
+        int[] den = s.denominator;
+        load(reserveInHi, reserveInLo, den);
+        den[4] = 0;
+        den[5] = 0;
+        multiplySmall(den, 6, FEE_DENOMINATOR);
+        long carry = 0;
+        for (int i = 0; i < 6; i++) {
+            long t = (den[i] & MASK) + (i < 5 ? fee[i] & MASK : 0) + carry;
+            den[i] = (int) t;
+            carry = t >>> 32;
+        }
+
+        int m = trimmedLength(num, 9);
+        int n = trimmedLength(den, 6);
+        if (n == 0) {
+            throw new ArithmeticException("BigInteger divide by zero");
+        }
+
+        int[] q = s.quotient;
+        Arrays.fill(q, 0);
+        if (m >= n) {
+            divide(num, m, den, n, q, s.un, s.vn);
+        }
+        out[0] = ((q[3] & MASK) << 32) | (q[2] & MASK);
+        out[1] = ((q[1] & MASK) << 32) | (q[0] & MASK);
+    }
+
+    /**
+     * 价格影响（百分比），双精度计算：(1 - 交易后价格/交易前价格) * 100
+     * 交易后价格/交易前价格 = (reserveOut - amountOut) * reserveIn / ((reserveIn + amountIn) * reserveOut)
+     */
+    public static double priceImpactPercent(double amountIn, double reserveIn, double reserveOut, double amountOut) {
+        if (reserveIn <= 0 || reserveOut <= 0) {
+            return 0;
+        }
+        double ratio = ((reserveOut - amountOut) / reserveOut) * (reserveIn / (reserveIn + amountIn));
+        return Math.abs(1 - ratio) * 100;
+    }
+
+    public static double priceImpactPercent(BigInteger amountIn, BigInteger reserveIn, BigInteger reserveOut, BigInteger amountOut) {
+        return priceImpactPercent(amountIn.doubleValue(), reserveIn.doubleValue(), reserveOut.doubleValue(), amountOut.doubleValue());
+    }
+
+    /**
+     * 无符号128位(hi, lo)转为double
+     */
+    public static double toDouble(long hi, long lo) {
+        double low = (lo >>> 1) * 2.0 + (lo & 1);
+        return (hi >>> 1) * 2.0 * TWO_POW_64 + (hi & 1) * TWO_POW_64 + low;
+    }
+
+    public static boolean fits128(BigInteger value) {
+        return value.signum() >= 0 && value.bitLength() <= 128;
+    }
+
+    /**
+     * 取BigInteger的高64位（调用方需先用fits128检查）
+     */
+    public static long high(BigInteger value) {
+        return value.bitLength() <= 64 ? 0 : value.shiftRight(64).longValue();
+    }
+
+    public static BigInteger toBigInteger(long hi, long lo) {
+        if (hi == 0 && lo >= 0) {
+            return BigInteger.valueOf(lo);
+        }
+        byte[] bytes = new byte[17];
+        for (int i = 0; i < 8; i++) {
+            bytes[1 + i] = (byte) (hi >>> (56 - 8 * i));
+            bytes[9 + i] = (byte) (lo >>> (56 - 8 * i));
+        }
+        return new BigInteger(bytes);
+    }
+
+    /**
+     * 比较两个无符号128位数
+     */
+    public static int compare(long aHi, long aLo, long bHi, long bLo) {
+        int c = Long.compareUnsigned(aHi, bHi);
+        return c != 0 ? c : Long.compareUnsigned(aLo, bLo);
+    }
+
+    private static void load(long hi, long lo, int[] target) {
+        target[0] = (int) lo;
+        target[1] = (int) (lo >>> 32);
+        target[2] = (int) hi;
+        target[3] = (int) (hi >>> 32);
+    }
+
+    private static long limb(long hi, long lo, int index) {
+        return switch (index) {
+            case 0 -> lo & MASK;
+            case 1 -> lo >>> 32;
+            case 2 -> hi & MASK;
+            default -> hi >>> 32;
+        };
+    }
+
+    private static int limbLength(long hi, long lo) {
+        if (hi != 0) {
+            return (hi >>> 32) != 0 ? 4 : 3;
+        }
+        if (lo != 0) {
+            return (lo >>> 32) != 0 ? 2 : 1;
+        }
+        return 0;
+    }
+
+    private static void multiplySmall(int[] value, int length, int factor) {
+        long carry = 0;
+        for (int i = 0; i < length; i++) {
+            long t = (value[i] & MASK) * factor + carry;
+            value[i] = (int) t;
+            carry = t >>> 32;
+        }
+    }
+
+    private static int trimmedLength(int[] value, int length) {
+        while (length > 0 && value[length - 1] == 0) {
+            length--;
+        }
+        return length;
+    }
+
+    /**
+     * Knuth算法D：q = u / v，u有m个limb，v有n个limb（v[n-1] != 0，m >= n）
+     * un/vn为规格化后的工作区，长度至少m+1 / n
+     */
+    private static void divide(int[] u, int m, int[] v, int n, int[] q, int[] un, int[] vn) {
+        if (n == 1) {
+            long divisor = v[0] & MASK;
+            long remainder = 0;
+            for (int j = m - 1; j >= 0; j--) {
+                long dividend = (remainder << 32) | (u[j] & MASK);
+                long quotient = divideUnsigned(dividend, divisor);
+                q[j] = (int) quotient;
+                remainder = dividend - quotient * divisor;
+            }
+            return;
+        }
+
+        int shift = Integer.numberOfLeadingZeros(v[n - 1]);
+        for (int i = n - 1; i > 0; i--) {
+            vn[i] = (v[i] << shift) | (shift == 0 ? 0 : v[i - 1] >>> (32 - shift));
+        }
+        vn[0] = v[0] << shift;
+        un[m] = shift == 0 ? 0 : u[m - 1] >>> (32 - shift);
+        for (int i = m - 1; i > 0; i--) {
+            un[i] = (u[i] << shift) | (shift == 0 ? 0 : u[i - 1] >>> (32 - shift));
+        }
+        un[0] = u[0] << shift;
+
+        long vTop = vn[n - 1] & MASK;
+        long vNext = vn[n - 2] & MASK;
+        for (int j = m - n; j >= 0; j--) {
+            long dividend = ((un[j + n] & MASK) << 32) | (un[j + n - 1] & MASK);
+            long qhat = divideUnsigned(dividend, vTop);
+            long rhat = dividend - qhat * vTop;
+            while (qhat > MASK
+                || Long.compareUnsigned(qhat * vNext, (rhat << 32) | (un[j + n - 2] & MASK)) > 0) {
+                qhat--;
+                rhat += vTop;
+                if (rhat > MASK) {
+                    break;
+                }
+            }
+
+            // 乘后相减
+            long borrow = 0;
+            long t;
+            for (int i = 0; i < n; i++) {
+                long product = qhat * (vn[i] & MASK);
+                t = (un[i + j] & MASK) - borrow - (product & MASK);
+                un[i + j] = (int) t;
+                borrow = (product >>> 32) - (t >> 32);
+            }
+            t = (un[j + n] & MASK) - borrow;
+            un[j + n] = (int) t;
+
+            q[j] = (int) qhat;
+            if (t < 0) {
+                // 估商大了1，加回
+                q[j]--;
+                long carry = 0;
+                for (int i = 0; i < n; i++) {
+                    t = (un[i + j] & MASK) + (vn[i] & MASK) + carry;
+                    un[i + j] = (int) t;
+                    carry = t >>> 32;
+                }
+                un[j + n] += (int) carry;
+            }
+        }
+    }
+
+    /**
+     * 无符号64位除以小于2^32的正数
+     * 不用Long.divideUnsigned：JDK 17在被除数最高位为1时会退回BigInteger
+     */
+    private static long divideUnsigned(long dividend, long divisor) {
+        if (dividend >= 0) {
+            return dividend / divisor;
+        }
+        long quotient = ((dividend >>> 1) / divisor) << 1;
+        long remainder = dividend - quotient * divisor;
+        return Long.compareUnsigned(remainder, divisor) >= 0 ? quotient + 1 : quotient;
+    }
+}
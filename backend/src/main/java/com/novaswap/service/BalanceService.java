@@ -1,22 +1,17 @@
 package com.novaswap.service;
 
 import com.novaswap.model.TokenBalance;
+import com.novaswap.rpc.ChainClientRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.FunctionEncoder;
-import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Address;
 import org.web3j.abi.datatypes.Function;
-import org.web3j.abi.datatypes.Type;
-import org.web3j.abi.datatypes.Utf8String;
 import org.web3j.abi.datatypes.generated.Uint256;
-import org.web3j.abi.datatypes.generated.Uint8;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.core.DefaultBlockParameterName;
-import org.web3j.protocol.core.methods.request.Transaction;
-import org.web3j.protocol.core.methods.response.EthCall;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -24,7 +19,16 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * 余额查询
+ * 各方法以异步版本为主，组合Multicall/RPC的future而不阻塞调用线程；同步版本只是等待异步结果
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
@@ -32,206 +36,208 @@ public class BalanceService {
     
     private final Web3j web3j;
     private final MulticallService multicallService;
+    private final EthCallCoalescer callCoalescer;
+    private final TokenMetadataService tokenMetadataService;
+    private final ChainClientRegistry chainClientRegistry;
     
     /**
      * 获取ETH余额
      */
     public BigInteger getEthBalance(String address) {
-        try {
-            return web3j.ethGetBalance(address, DefaultBlockParameterName.LATEST)
-                .send()
-                .getBalance();
-        } catch (Exception e) {
-            log.error("Failed to get ETH balance for {}", address, e);
-            throw new RuntimeException("Failed to get ETH balance", e);
-        }
+        return await(getEthBalanceAsync(null, address));
+    }
+    
+    /**
+     * 获取指定链的原生币余额，chainId为空时查询主链
+     */
+    public BigInteger getEthBalance(Long chainId, String address) {
+        return await(getEthBalanceAsync(chainId, address));
+    }
+    
+    public CompletableFuture<BigInteger> getEthBalanceAsync(Long chainId, String address) {
+        Web3j chainWeb3j = chainClientRegistry.isPrimary(chainId) ? web3j : chainClientRegistry.getClient(chainId).getWeb3j();
+        return chainWeb3j.ethGetBalance(address, DefaultBlockParameterName.LATEST)
+            .sendAsync()
+            .thenApply(response -> {
+                if (response.hasError()) {
+                    throw new IllegalStateException(response.getError().getMessage());
+                }
+                return response.getBalance();
+            })
+            .exceptionally(e -> {
+                log.error("Failed to get ETH balance for {}", address, e);
+                throw new RuntimeException("Failed to get ETH balance", unwrap(e));
+            });
     }
     
     /**
      * 获取ERC20代币余额
      */
     public BigInteger getTokenBalance(String tokenAddress, String userAddress) {
-        try {
-            Function function = new Function(
-                "balanceOf",
-                Arrays.asList(new Address(userAddress)),
-                Arrays.asList(new TypeReference<Uint256>() {})
-            );
-            
-            String encodedFunction = FunctionEncoder.encode(function);
-            EthCall response = web3j.ethCall(
-                Transaction.createEthCallTransaction(userAddress, tokenAddress, encodedFunction),
-                DefaultBlockParameterName.LATEST
-            ).send();
-            
-            List<Type> result = FunctionReturnDecoder.decode(
-                response.getValue(),
-                function.getOutputParameters()
-            );
-            
-            return (BigInteger) result.get(0).getValue();
-        } catch (Exception e) {
-            log.error("Failed to get token balance for {} at {}", userAddress, tokenAddress, e);
-            throw new RuntimeException("Failed to get token balance", e);
-        }
+        return await(getTokenBalanceAsync(tokenAddress, userAddress));
+    }
+    
+    public CompletableFuture<BigInteger> getTokenBalanceAsync(String tokenAddress, String userAddress) {
+        Function function = new Function(
+            "balanceOf",
+            Arrays.asList(new Address(userAddress)),
+            Arrays.asList(new TypeReference<Uint256>() {})
+        );
+        
+        String encodedFunction = FunctionEncoder.encode(function);
+        return callCoalescer.callAsync(tokenAddress, encodedFunction)
+            .thenApply(response -> {
+                BigInteger balance = MulticallDecoder.decodeUint256(response, 0);
+                if (balance == null) {
+                    throw new IllegalStateException("balanceOf returned no data");
+                }
+                return balance;
+            })
+            .exceptionally(e -> {
+                log.error("Failed to get token balance for {} at {}", userAddress, tokenAddress, e);
+                throw new RuntimeException("Failed to get token balance", unwrap(e));
+            });
     }
     
     /**
      * 获取代币信息（名称、符号、精度）
      */
     public TokenBalance getTokenInfo(String tokenAddress, String userAddress) {
-        try {
-            String name = getTokenName(tokenAddress);
-            String symbol = getTokenSymbol(tokenAddress);
-            int decimals = getTokenDecimals(tokenAddress);
-            BigInteger balance = getTokenBalance(tokenAddress, userAddress);
-            
-            String formattedBalance = formatBalance(balance, decimals);
-            
-            return new TokenBalance(tokenAddress, symbol, name, decimals, balance, formattedBalance);
-        } catch (Exception e) {
-            log.error("Failed to get token info for {}", tokenAddress, e);
-            throw new RuntimeException("Failed to get token info", e);
-        }
+        return await(getTokenInfoAsync(tokenAddress, userAddress));
+    }
+    
+    /**
+     * 余额和元数据并行读取；元数据读取失败时使用默认值
+     */
+    public CompletableFuture<TokenBalance> getTokenInfoAsync(String tokenAddress, String userAddress) {
+        CompletableFuture<TokenMetadataService.TokenMetadata> metadataFuture = tokenMetadataService
+            .getMetadataAsync(List.of(tokenAddress))
+            .thenApply(metadata -> metadata.get(tokenAddress.toLowerCase(Locale.ROOT)))
+            .exceptionally(e -> {
+                log.warn("Failed to load token metadata for {}: {}", tokenAddress, unwrap(e).getMessage());
+                return null;
+            });
+        return getTokenBalanceAsync(tokenAddress, userAddress)
+            .thenCombine(metadataFuture, (balance, metadata) -> toTokenBalance(tokenAddress, metadata, balance))
+            .exceptionally(e -> {
+                log.error("Failed to get token info for {}", tokenAddress, e);
+                throw new RuntimeException("Failed to get token info", unwrap(e));
+            });
     }
     
     /**
      * 批量获取多个代币的余额（使用Multicall优化）
      */
     public List<TokenBalance> getMultipleTokenBalances(List<String> tokenAddresses, String userAddress) {
-        try {
-            log.debug("Getting balances for {} tokens using Multicall", tokenAddresses.size());
-            
-            // 使用Multicall批量获取余额
-            List<BigInteger> balances = multicallService.getBalances(tokenAddresses, userAddress).join();
-            
-            List<TokenBalance> results = new ArrayList<>();
-            for (int i = 0; i < tokenAddresses.size(); i++) {
-                String tokenAddress = tokenAddresses.get(i);
-                BigInteger balance = balances.get(i);
-                
-                try {
-                    // 获取代币信息（这里可以进一步优化为Multicall）
-                    String name = getTokenName(tokenAddress);
-                    String symbol = getTokenSymbol(tokenAddress);
-                    int decimals = getTokenDecimals(tokenAddress);
-                    String formattedBalance = formatBalance(balance, decimals);
-                    
-                    results.add(new TokenBalance(tokenAddress, symbol, name, decimals, balance, formattedBalance));
-                } catch (Exception e) {
-                    log.warn("Failed to get token info for {}, using defaults", tokenAddress);
-                    results.add(new TokenBalance(tokenAddress, "???", "Unknown", 18, balance, 
-                            formatBalance(balance, 18)));
+        return await(getMultipleTokenBalancesAsync(null, tokenAddresses, userAddress));
+    }
+    
+    /**
+     * 批量获取指定链上多个代币的余额，chainId为空时查询主链
+     */
+    public List<TokenBalance> getMultipleTokenBalances(Long chainId, List<String> tokenAddresses, String userAddress) {
+        return await(getMultipleTokenBalancesAsync(chainId, tokenAddresses, userAddress));
+    }
+    
+    /**
+     * 余额和元数据并行各一次Multicall；已知代币的元数据直接来自本地存储
+     * 主链Multicall失败时降级到逐个查询；其他链没有降级方案，直接失败
+     */
+    public CompletableFuture<List<TokenBalance>> getMultipleTokenBalancesAsync(
+        Long chainId,
+        List<String> tokenAddresses,
+        String userAddress
+    ) {
+        boolean primary = chainClientRegistry.isPrimary(chainId);
+        MulticallService chainMulticall = primary ? multicallService : chainClientRegistry.getClient(chainId).getMulticallService();
+        long metadataChainId = primary ? chainClientRegistry.getPrimaryChainId() : chainId;
+        log.debug("Getting balances for {} tokens using Multicall", tokenAddresses.size());
+        
+        CompletableFuture<Map<String, TokenMetadataService.TokenMetadata>> metadataFuture = tokenMetadataService
+            .getMetadataAsync(metadataChainId, tokenAddresses)
+            .exceptionally(e -> {
+                log.warn("Failed to load token metadata, using defaults: {}", unwrap(e).getMessage());
+                return Map.of();
+            });
+        CompletableFuture<List<TokenBalance>> balances = chainMulticall.getBalances(tokenAddresses, userAddress)
+            .thenCombine(metadataFuture, (values, metadata) -> {
+                List<TokenBalance> results = new ArrayList<>();
+                for (int i = 0; i < tokenAddresses.size(); i++) {
+                    String tokenAddress = tokenAddresses.get(i);
+                    results.add(toTokenBalance(tokenAddress, metadata.get(tokenAddress.toLowerCase(Locale.ROOT)), values.get(i)));
                 }
-            }
-            
-            return results;
-        } catch (Exception e) {
+                return results;
+            });
+        
+        if (!primary) {
+            return balances.exceptionally(e -> {
+                log.error("Failed to get token balances on chain {}", chainId, e);
+                throw new RuntimeException("Failed to get token balances", unwrap(e));
+            });
+        }
+        return balances.exceptionallyCompose(e -> {
             log.error("Multicall failed, falling back to sequential queries", e);
             // 降级到逐个查询
             return getMultipleTokenBalancesSequential(tokenAddresses, userAddress);
-        }
+        });
     }
     
     /**
-     * 批量获取多个代币的余额（顺序查询，降级方案）
+     * 批量获取多个代币的余额（逐个查询，降级方案）
+     * 各代币的读取同时发出，由EthCallCoalescer合并；单个代币失败时跳过
      */
-    private List<TokenBalance> getMultipleTokenBalancesSequential(List<String> tokenAddresses, String userAddress) {
-        List<TokenBalance> balances = new ArrayList<>();
-        
-        for (String tokenAddress : tokenAddresses) {
-            try {
-                TokenBalance balance = getTokenInfo(tokenAddress, userAddress);
-                balances.add(balance);
-            } catch (Exception e) {
+    private CompletableFuture<List<TokenBalance>> getMultipleTokenBalancesSequential(List<String> tokenAddresses, String userAddress) {
+        List<CompletableFuture<TokenBalance>> balances = tokenAddresses.stream()
+            .map(tokenAddress -> getTokenInfoAsync(tokenAddress, userAddress).exceptionally(e -> {
                 log.warn("Failed to get balance for token {}, skipping", tokenAddress);
-            }
-        }
+                return null;
+            }))
+            .toList();
         
-        return balances;
+        return CompletableFuture.allOf(balances.toArray(CompletableFuture[]::new))
+            .thenApply(ignored -> balances.stream().map(CompletableFuture::join).filter(Objects::nonNull).toList());
     }
     
-    private String getTokenName(String tokenAddress) {
-        try {
-            Function function = new Function(
-                "name",
-                Arrays.asList(),
-                Arrays.asList(new TypeReference<Utf8String>() {})
-            );
-            
-            String encodedFunction = FunctionEncoder.encode(function);
-            EthCall response = web3j.ethCall(
-                Transaction.createEthCallTransaction(null, tokenAddress, encodedFunction),
-                DefaultBlockParameterName.LATEST
-            ).send();
-            
-            List<Type> result = FunctionReturnDecoder.decode(
-                response.getValue(),
-                function.getOutputParameters()
-            );
-            
-            return (String) result.get(0).getValue();
-        } catch (Exception e) {
-            log.warn("Failed to get token name for {}", tokenAddress);
-            return "Unknown";
+    /**
+     * 元数据读取失败时使用默认值（18位精度）
+     */
+    TokenBalance toTokenBalance(String tokenAddress, TokenMetadataService.TokenMetadata metadata, BigInteger balance) {
+        if (metadata == null) {
+            log.warn("Failed to get token info for {}, using defaults", tokenAddress);
+            return new TokenBalance(tokenAddress, "???", "Unknown", 18, balance, formatBalance(balance, 18), null);
         }
+        return new TokenBalance(tokenAddress, metadata.symbol(), metadata.name(), metadata.decimals(), balance,
+                formatBalance(balance, metadata.decimals()), null);
     }
     
-    private String getTokenSymbol(String tokenAddress) {
-        try {
-            Function function = new Function(
-                "symbol",
-                Arrays.asList(),
-                Arrays.asList(new TypeReference<Utf8String>() {})
-            );
-            
-            String encodedFunction = FunctionEncoder.encode(function);
-            EthCall response = web3j.ethCall(
-                Transaction.createEthCallTransaction(null, tokenAddress, encodedFunction),
-                DefaultBlockParameterName.LATEST
-            ).send();
-            
-            List<Type> result = FunctionReturnDecoder.decode(
-                response.getValue(),
-                function.getOutputParameters()
-            );
-            
-            return (String) result.get(0).getValue();
-        } catch (Exception e) {
-            log.warn("Failed to get token symbol for {}", tokenAddress);
-            return "???";
+    /**
+     * 余额读取失败的代币：不显示为0，只带元数据和失败原因
+     */
+    TokenBalance failedTokenBalance(String tokenAddress, TokenMetadataService.TokenMetadata metadata, String error) {
+        if (metadata == null) {
+            return new TokenBalance(tokenAddress, "???", "Unknown", 18, null, null, error);
         }
+        return new TokenBalance(tokenAddress, metadata.symbol(), metadata.name(), metadata.decimals(), null, null, error);
     }
     
-    private int getTokenDecimals(String tokenAddress) {
+    String formatBalance(BigInteger balance, int decimals) {
+        BigDecimal balanceDecimal = new BigDecimal(balance);
+        BigDecimal divisor = BigDecimal.TEN.pow(decimals);
+        return balanceDecimal.divide(divisor, 6, RoundingMode.DOWN).stripTrailingZeros().toPlainString();
+    }
+    
+    /**
+     * 等待future完成，失败时抛出原始的RuntimeException而不是CompletionException
+     */
+    private static <T> T await(CompletableFuture<T> future) {
         try {
-            Function function = new Function(
-                "decimals",
-                Arrays.asList(),
-                Arrays.asList(new TypeReference<Uint8>() {})
-            );
-            
-            String encodedFunction = FunctionEncoder.encode(function);
-            EthCall response = web3j.ethCall(
-                Transaction.createEthCallTransaction(null, tokenAddress, encodedFunction),
-                DefaultBlockParameterName.LATEST
-            ).send();
-            
-            List<Type> result = FunctionReturnDecoder.decode(
-                response.getValue(),
-                function.getOutputParameters()
-            );
-            
-            return ((BigInteger) result.get(0).getValue()).intValue();
-        } catch (Exception e) {
-            log.warn("Failed to get token decimals for {}", tokenAddress);
-            return 18;
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
         }
     }
     
-    private String formatBalance(BigInteger balance, int decimals) {
-        BigDecimal balanceDecimal = new BigDecimal(balance);
-        BigDecimal divisor = BigDecimal.TEN.pow(decimals);
-        return balanceDecimal.divide(divisor, 6, RoundingMode.DOWN).stripTrailingZeros().toPlainString();
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 }
@@ -0,0 +1,73 @@
+package com.novaswap.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * 链头跟踪服务
+ * 定期轮询最新区块号，读请求据此固定到同一区块；新区块到达时通知监听者
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChainHeadService {
+
+    private final Web3j web3j;
+
+    private final AtomicLong headBlock = new AtomicLong();
+    private final List<LongConsumer> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 获取当前链头区块号；尚未获取到时同步查询一次，仍失败返回0
+     */
+    public long getHeadBlock() {
+        long current = headBlock.get();
+        return current > 0 ? current : refresh();
+    }
+
+    /**
+     * 注册新区块监听（参数为新的链头区块号）
+     */
+    public void addNewHeadListener(LongConsumer listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(fixedDelayString = "${novaswap.head.pollIntervalMs:1000}")
+    public void pollHead() {
+        refresh();
+    }
+
+    /**
+     * 推进链头（只前进不后退）
+     */
+    public void advance(long blockNumber) {
+        long previous = headBlock.getAndAccumulate(blockNumber, Math::max);
+        if (blockNumber <= previous) {
+            return;
+        }
+        for (LongConsumer listener : listeners) {
+            try {
+                listener.accept(blockNumber);
+            } catch (Exception e) {
+                log.error("New head listener failed at block {}", blockNumber, e);
+            }
+        }
+    }
+
+    private long refresh() {
+        try {
+            advance(web3j.ethBlockNumber().send().getBlockNumber().longValue());
+        } catch (Exception e) {
+            log.warn("Failed to poll head block: {}", e.getMessage());
+        }
+        return headBlock.get();
+    }
+}
@@ -1,9 +1,10 @@
 package com.novaswap.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.novaswap.model.PoolStats;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -12,8 +13,6 @@ import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 数据聚合服务 - 计算TVL、APY、交易量等统计数据
@@ -23,10 +22,13 @@ import java.util.concurrent.ConcurrentHashMap;
 @RequiredArgsConstructor
 public class DataAggregationService {
     
-    private final EventListenerService eventListenerService;
+    // 池统计只存放在poolStats缓存中（条目上限和过期时间见novaswap.cache.specs.poolStats），排行也从这里读取
+    private static final String POOL_STATS_CACHE = "poolStats";
     
-    // 内存存储（实际生产环境应使用数据库）
-    private final Map<String, PoolStats> poolStatsCache = new ConcurrentHashMap<>();
+    private final EventListenerService eventListenerService;
+    private final PairRegistryService pairRegistryService;
+    private final ReserveMirrorService reserveMirrorService;
+    private final CacheManager cacheManager;
     
     /**
      * 计算池的TVL (Total Value Locked)
@@ -86,16 +88,13 @@ public class DataAggregationService {
     }
     
     /**
-     * 获取池统计信息
+     * 获取池统计信息（同一pair并发请求只计算一次）
      */
-    @Cacheable(value = "poolStats", key = "#pairAddress", unless = "#result == null")
     public PoolStats getPoolStats(String pairAddress) {
-        PoolStats cached = poolStatsCache.get(pairAddress);
-        if (cached != null) {
-            log.debug("Returning cached pool stats for {}", pairAddress);
-            return cached;
-        }
-        
+        return (PoolStats) poolStatsCache().get(pairAddress, key -> loadPoolStats(pairAddress));
+    }
+    
+    private PoolStats loadPoolStats(String pairAddress) {
         // 实际应从数据库或链上查询
         PoolStats stats = PoolStats.builder()
             .pairAddress(pairAddress)
@@ -106,8 +105,7 @@ public class DataAggregationService {
             .txCount24h(150L)
             .lpCount(50L)
             .build();
-        
-        poolStatsCache.put(pairAddress, stats);
+        fillReserves(stats);
         return stats;
     }
     
@@ -115,7 +113,7 @@ public class DataAggregationService {
      * 获取热门池列表（按TVL排序）
      */
     public List<PoolStats> getTopPoolsByTVL(int limit) {
-        return poolStatsCache.values().stream()
+        return poolStats().stream()
             .sorted(Comparator.comparing(PoolStats::getTvlUsd).reversed())
             .limit(limit)
             .toList();
@@ -125,7 +123,7 @@ public class DataAggregationService {
      * 获取热门池列表（按24h交易量排序）
      */
     public List<PoolStats> getTopPoolsByVolume(int limit) {
-        return poolStatsCache.values().stream()
+        return poolStats().stream()
             .sorted(Comparator.comparing(PoolStats::getVolume24hUsd).reversed())
             .limit(limit)
             .toList();
@@ -135,7 +133,7 @@ public class DataAggregationService {
      * 获取所有池统计
      */
     public List<PoolStats> getAllPoolStats() {
-        return new ArrayList<>(poolStatsCache.values());
+        return new ArrayList<>(poolStats());
     }
     
     /**
@@ -144,23 +142,52 @@ public class DataAggregationService {
     public void updatePoolStats(String pairAddress) {
         try {
             // 这里应该：
-            // 1. 获取最新的储备数据
+            // 1. 获取最新的储备数据（来自储备镜像，无RPC）
             // 2. 计算24h交易量
             // 3. 计算TVL
             // 4. 计算APY
             // 5. 更新缓存
+            PoolStats stats = (PoolStats) poolStatsCache().getIfPresent(pairAddress);
+            if (stats != null) {
+                fillReserves(stats);
+            }
             
-            log.info("Pool stats updated for {}", pairAddress);
+            log.debug("Pool stats updated for {}", pairAddress);
         } catch (Exception e) {
             log.error("Failed to update pool stats for {}", pairAddress, e);
         }
     }
     
+    /**
+     * 用注册表和储备镜像填充token与储备字段
+     */
+    private void fillReserves(PoolStats stats) {
+        pairRegistryService.getPair(stats.getPairAddress()).ifPresent(pair -> {
+            stats.setToken0(pair.token0());
+            stats.setToken1(pair.token1());
+        });
+        reserveMirrorService.getReserves(stats.getPairAddress()).ifPresent(reserves -> {
+            stats.setReserve0(reserves.reserve0());
+            stats.setReserve1(reserves.reserve1());
+        });
+    }
+    
     /**
      * 清除缓存
      */
     public void clearCache() {
-        poolStatsCache.clear();
+        poolStatsCache().invalidateAll();
         log.info("Pool stats cache cleared");
     }
+    
+    private List<PoolStats> poolStats() {
+        return poolStatsCache().asMap().values().stream()
+            .map(PoolStats.class::cast)
+            .toList();
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> poolStatsCache() {
+        return (Cache<Object, Object>) cacheManager.getCache(POOL_STATS_CACHE).getNativeCache();
+    }
 }
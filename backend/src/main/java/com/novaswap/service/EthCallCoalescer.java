@@ -0,0 +1,224 @@
+package com.novaswap.service;
+
+import com.novaswap.config.Web3Config;
+import com.novaswap.model.MulticallRequest;
+import com.novaswap.model.MulticallResult;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.DefaultBlockParameterName;
+import org.web3j.protocol.core.methods.request.Transaction;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * eth_call微批合并器
+ * 在很短的时间窗口（默认2ms）或数量窗口（默认200个）内收集并发的只读调用，
+ * 合并为一次Multicall3.aggregate3发送，再逐个完成调用方的future。
+ * 每个调用固定到当前链头区块，并经过按区块分代的RpcReadCache，同一区块内相同的读取只发一次
+ */
+@Slf4j
+@Service
+public class EthCallCoalescer {
+
+    private record PendingCall(String target, byte[] callData, long blockNumber, CompletableFuture<byte[]> future) {}
+
+    private final Web3j web3j;
+    private final MulticallService multicallService;
+    private final ChainHeadService chainHeadService;
+    private final RpcReadCache readCache;
+    private final long chainId;
+    private final ScheduledExecutorService scheduler;
+
+    private final Object lock = new Object();
+    private List<PendingCall> pending = new ArrayList<>();
+    private boolean flushScheduled;
+
+    @Value("${novaswap.multicall.coalesce.enabled:true}")
+    private boolean enabled;
+
+    @Value("${novaswap.multicall.coalesce.lingerMs:2}")
+    private long lingerMs;
+
+    @Value("${novaswap.multicall.coalesce.maxBatchSize:200}")
+    private int maxBatchSize;
+
+    public EthCallCoalescer(
+            Web3j web3j,
+            MulticallService multicallService,
+            ChainHeadService chainHeadService,
+            RpcReadCache readCache,
+            Web3Config web3Config) {
+        this.web3j = web3j;
+        this.multicallService = multicallService;
+        this.chainHeadService = chainHeadService;
+        this.readCache = readCache;
+        this.chainId = web3Config.getChainId();
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "eth-call-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交只读调用（固定到当前链头），返回原始返回数据；调用revert时future以IllegalStateException失败
+     */
+    public CompletableFuture<byte[]> callAsync(String target, String encodedFunction) {
+        return callAsync(target, encodedFunction, chainHeadService.getHeadBlock());
+    }
+
+    /**
+     * 在指定区块上提交只读调用；blockNumber <= 0 时使用latest且不缓存
+     * 同一次计算中的多次读取传入同一区块号即可保证状态一致
+     */
+    public CompletableFuture<byte[]> callAsync(String target, String encodedFunction, long blockNumber) {
+        if (blockNumber <= 0) {
+            return load(target, encodedFunction, 0L);
+        }
+        return readCache.getOrLoad(chainId, target, encodedFunction, blockNumber,
+                () -> load(target, encodedFunction, blockNumber));
+    }
+
+    private CompletableFuture<byte[]> load(String target, String encodedFunction, long blockNumber) {
+        if (!enabled) {
+            return callDirect(target, encodedFunction, blockNumber);
+        }
+
+        byte[] callData = Numeric.hexStringToByteArray(encodedFunction);
+        PendingCall call = new PendingCall(target, callData, blockNumber, new CompletableFuture<>());
+        List<PendingCall> ready = null;
+        synchronized (lock) {
+            pending.add(call);
+            if (pending.size() >= maxBatchSize) {
+                ready = takePending();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                scheduler.schedule(this::flushPending, lingerMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (ready != null) {
+            dispatch(ready);
+        }
+        return call.future();
+    }
+
+    /**
+     * 同步版本，供现有阻塞式服务方法使用
+     */
+    public byte[] call(String target, String encodedFunction) {
+        return call(target, encodedFunction, chainHeadService.getHeadBlock());
+    }
+
+    public byte[] call(String target, String encodedFunction, long blockNumber) {
+        try {
+            return callAsync(target, encodedFunction, blockNumber).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private void flushPending() {
+        List<PendingCall> ready;
+        synchronized (lock) {
+            ready = takePending();
+        }
+        if (!ready.isEmpty()) {
+            dispatch(ready);
+        }
+    }
+
+    /**
+     * 取出当前窗口内的调用（需持有lock）
+     */
+    private List<PendingCall> takePending() {
+        List<PendingCall> ready = pending;
+        pending = new ArrayList<>();
+        flushScheduled = false;
+        return ready;
+    }
+
+    /**
+     * 按区块分组发送（通常同一窗口内只有一个区块）
+     */
+    private void dispatch(List<PendingCall> batch) {
+        Map<Long, List<PendingCall>> byBlock = new LinkedHashMap<>();
+        for (PendingCall call : batch) {
+            byBlock.computeIfAbsent(call.blockNumber(), b -> new ArrayList<>()).add(call);
+        }
+        byBlock.forEach((blockNumber, calls) -> dispatchAtBlock(calls, blockNumber));
+    }
+
+    private void dispatchAtBlock(List<PendingCall> batch, long blockNumber) {
+        List<MulticallRequest> requests = new ArrayList<>(batch.size());
+        for (PendingCall call : batch) {
+            requests.add(MulticallRequest.builder()
+                    .target(call.target())
+                    .callData(call.callData())
+                    .allowFailure(true)
+                    .build());
+        }
+
+        log.debug("Flushing {} coalesced eth_call(s) at block {}", batch.size(), blockNumber);
+        multicallService.aggregate3(requests, blockParameter(blockNumber)).whenComplete((results, error) -> {
+            if (error != null) {
+                batch.forEach(call -> call.future().completeExceptionally(error));
+                return;
+            }
+            if (results.size() != batch.size()) {
+                IllegalStateException failure = new IllegalStateException("Multicall batch failed");
+                batch.forEach(call -> call.future().completeExceptionally(failure));
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                MulticallResult result = results.get(i);
+                if (result.isSuccess()) {
+                    batch.get(i).future().complete(result.getReturnData());
+                } else {
+                    batch.get(i).future().completeExceptionally(
+                            new IllegalStateException("eth_call reverted: " + result.getError()));
+                }
+            }
+        });
+    }
+
+    private CompletableFuture<byte[]> callDirect(String target, String encodedFunction, long blockNumber) {
+        return web3j.ethCall(
+                Transaction.createEthCallTransaction(null, target, encodedFunction),
+                blockParameter(blockNumber)
+        ).sendAsync().thenApply(response -> {
+            if (response.hasError() || response.isReverted()) {
+                throw new IllegalStateException("eth_call reverted: " + response.getRevertReason());
+            }
+            return Numeric.hexStringToByteArray(response.getValue());
+        });
+    }
+
+    private static DefaultBlockParameter blockParameter(long blockNumber) {
+        return blockNumber > 0
+                ? DefaultBlockParameter.valueOf(BigInteger.valueOf(blockNumber))
+                : DefaultBlockParameterName.LATEST;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+        scheduler.shutdown();
+    }
+}
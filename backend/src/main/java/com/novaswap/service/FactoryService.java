@@ -1,22 +1,23 @@
 package com.novaswap.service;
 
+import com.novaswap.config.ContractProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.FunctionEncoder;
-import org.web3j.abi.FunctionReturnDecoder;
 import org.web3j.abi.TypeReference;
 import org.web3j.abi.datatypes.Address;
 import org.web3j.abi.datatypes.Function;
-import org.web3j.abi.datatypes.Type;
-import org.web3j.protocol.Web3j;
-import org.web3j.protocol.core.DefaultBlockParameterName;
-import org.web3j.protocol.core.methods.request.Transaction;
-import org.web3j.protocol.core.methods.response.EthCall;
+import org.web3j.crypto.Hash;
+import org.web3j.utils.Numeric;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 工厂服务 - 用于获取交易对地址
@@ -26,7 +27,71 @@ import java.util.List;
 @RequiredArgsConstructor
 public class FactoryService {
     
-    private final Web3j web3j;
+    private static final byte CREATE2_PREFIX = (byte) 0xff;
+    
+    private final EthCallCoalescer callCoalescer;
+    private final ContractProperties contractProperties;
+    
+    @Value("${novaswap.contract.pairAddressCacheSize:10000}")
+    private int pairAddressCacheSize;
+    
+    // 已计算的pair地址（LRU，有上限），key = factory|token0|token1
+    private final Map<String, String> pairAddressCache = Collections.synchronizedMap(
+        new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > pairAddressCacheSize;
+            }
+        }
+    );
+    
+    /**
+     * 解析pair地址：factory配置了init code hash时本地CREATE2计算（零RPC），否则回退到链上getPair
+     * 注意：本地计算不检查pair是否已部署，读取未部署地址的储备会失败
+     */
+    public String resolvePairAddress(String factoryAddress, String tokenA, String tokenB) {
+        String initCodeHash = getInitCodeHash(factoryAddress);
+        if (initCodeHash == null) {
+            return getPairAddress(factoryAddress, tokenA, tokenB);
+        }
+        return calculatePairAddress(factoryAddress, tokenA, tokenB, initCodeHash);
+    }
+    
+    /**
+     * 异步解析pair地址：本地可计算时直接完成，否则getPair经EthCallCoalescer与其他读取合并
+     */
+    public CompletableFuture<String> resolvePairAddressAsync(String factoryAddress, String tokenA, String tokenB) {
+        String initCodeHash = getInitCodeHash(factoryAddress);
+        if (initCodeHash == null) {
+            return getPairAddressAsync(factoryAddress, tokenA, tokenB);
+        }
+        return CompletableFuture.completedFuture(calculatePairAddress(factoryAddress, tokenA, tokenB, initCodeHash));
+    }
+    
+    /**
+     * 使用默认factory解析pair地址
+     */
+    public String resolvePairAddress(String tokenA, String tokenB) {
+        return resolvePairAddress(contractProperties.getFactory(), tokenA, tokenB);
+    }
+    
+    /**
+     * 获取factory的init code hash；未配置时返回null
+     */
+    public String getInitCodeHash(String factoryAddress) {
+        if (factoryAddress == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : contractProperties.getInitCodeHashes().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(factoryAddress)) {
+                return entry.getValue();
+            }
+        }
+        if (factoryAddress.equalsIgnoreCase(contractProperties.getFactory())) {
+            return contractProperties.getInitCodeHash();
+        }
+        return null;
+    }
     
     /**
      * 通过Factory合约获取pair地址
@@ -34,40 +99,46 @@ public class FactoryService {
      */
     public String getPairAddress(String factoryAddress, String tokenA, String tokenB) {
         try {
-            Function function = new Function(
-                "getPair",
-                Arrays.asList(new Address(tokenA), new Address(tokenB)),
-                Collections.singletonList(new TypeReference<Address>() {})
-            );
-            
-            String encodedFunction = FunctionEncoder.encode(function);
-            EthCall response = web3j.ethCall(
-                Transaction.createEthCallTransaction(null, factoryAddress, encodedFunction),
-                DefaultBlockParameterName.LATEST
-            ).send();
-            
-            List<Type> result = FunctionReturnDecoder.decode(
-                response.getValue(),
-                function.getOutputParameters()
-            );
-            
-            String pairAddress = (String) result.get(0).getValue();
-            
-            // 检查是否为零地址（表示pair不存在）
-            if (pairAddress.equals("0x0000000000000000000000000000000000000000")) {
-                throw new RuntimeException("Pair does not exist for tokens: " + tokenA + " and " + tokenB);
-            }
-            
-            return pairAddress;
+            byte[] response = callCoalescer.call(factoryAddress, encodeGetPair(tokenA, tokenB));
+            return decodePairAddress(response, tokenA, tokenB);
         } catch (Exception e) {
             log.error("Failed to get pair address for {} and {}", tokenA, tokenB, e);
             throw new RuntimeException("Failed to get pair address", e);
         }
     }
     
+    /**
+     * 异步通过Factory合约获取pair地址
+     */
+    public CompletableFuture<String> getPairAddressAsync(String factoryAddress, String tokenA, String tokenB) {
+        return callCoalescer.callAsync(factoryAddress, encodeGetPair(tokenA, tokenB))
+            .thenApply(response -> decodePairAddress(response, tokenA, tokenB));
+    }
+    
+    static String encodeGetPair(String tokenA, String tokenB) {
+        Function function = new Function(
+            "getPair",
+            Arrays.asList(new Address(tokenA), new Address(tokenB)),
+            Collections.singletonList(new TypeReference<Address>() {})
+        );
+        return FunctionEncoder.encode(function);
+    }
+    
+    static String decodePairAddress(byte[] response, String tokenA, String tokenB) {
+        String pairAddress = MulticallDecoder.decodeAddress(response, 0);
+        
+        // 检查是否为零地址（表示pair不存在）
+        if (pairAddress == null || pairAddress.equals("0x0000000000000000000000000000000000000000")) {
+            throw new RuntimeException("Pair does not exist for tokens: " + tokenA + " and " + tokenB);
+        }
+        
+        return pairAddress;
+    }
+    
     /**
      * 计算pair地址（使用CREATE2确定性部署）
      * 这是一个辅助方法，可以在不调用链上合约的情况下计算pair地址
+     * address = keccak256(0xff ++ factory ++ keccak256(token0 ++ token1) ++ initCodeHash)[12:]
      */
     public String calculatePairAddress(
         String factoryAddress,
@@ -82,11 +153,37 @@ public class FactoryService {
             tokenB = temp;
         }
         
-        // 使用CREATE2公式计算地址
-        // address = keccak256(0xff ++ factory ++ salt ++ keccak256(initCode))[12:]
-        // 这里需要实现具体的计算逻辑
+        String cacheKey = (factoryAddress + "|" + tokenA + "|" + tokenB).toLowerCase(Locale.ROOT);
+        String cached = pairAddressCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+        
+        byte[] factory = toFixedBytes(factoryAddress, 20);
+        byte[] codeHash = toFixedBytes(initCodeHash, 32);
         
-        log.warn("calculatePairAddress is not yet implemented, falling back to getPairAddress");
-        throw new UnsupportedOperationException("calculatePairAddress not implemented");
+        byte[] tokens = new byte[40];
+        System.arraycopy(toFixedBytes(tokenA, 20), 0, tokens, 0, 20);
+        System.arraycopy(toFixedBytes(tokenB, 20), 0, tokens, 20, 20);
+        byte[] salt = Hash.sha3(tokens);
+        
+        byte[] preimage = new byte[1 + 20 + 32 + 32];
+        preimage[0] = CREATE2_PREFIX;
+        System.arraycopy(factory, 0, preimage, 1, 20);
+        System.arraycopy(salt, 0, preimage, 21, 32);
+        System.arraycopy(codeHash, 0, preimage, 53, 32);
+        byte[] hash = Hash.sha3(preimage);
+        
+        String pairAddress = Numeric.toHexString(Arrays.copyOfRange(hash, 12, 32));
+        pairAddressCache.put(cacheKey, pairAddress);
+        return pairAddress;
+    }
+    
+    private static byte[] toFixedBytes(String hex, int length) {
+        byte[] bytes = Numeric.hexStringToByteArray(hex);
+        if (bytes.length != length) {
+            throw new IllegalArgumentException("Expected " + length + " bytes but got " + bytes.length + ": " + hex);
+        }
+        return bytes;
     }
 }
@@ -0,0 +1,319 @@
+package com.novaswap.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * 热门交易对的预计算路由表
+ * 按报价请求量选出热门交易对，为每个交易对按对数间隔的数量档位保存最优路径；
+ * 报价时只需查档位并用当前储备沿路径重算输出。相关池子的储备变化（Sync事件）后在后台重新搜索
+ */
+@Slf4j
+@Service
+public class HotRouteService {
+
+    /**
+     * 某个数量档位上的最优路径（pairs[i]连接tokens[i]和tokens[i+1]）
+     */
+    public record HotRoute(List<String> tokens, List<String> pairs, long computedAt) {}
+
+    private static final Pattern ADDRESS = Pattern.compile("^0x[0-9a-f]{40}$");
+
+    private static final class HotPair {
+        final String tokenIn;
+        final String tokenOut;
+        final Map<Integer, HotRoute> buckets = new ConcurrentHashMap<>();
+        // 已提交后台计算、尚未完成的档位
+        final Set<Integer> computing = ConcurrentHashMap.newKeySet();
+
+        HotPair(String tokenIn, String tokenOut) {
+            this.tokenIn = tokenIn;
+            this.tokenOut = tokenOut;
+        }
+    }
+
+    private final PoolGraphService poolGraphService;
+    private final ReserveMirrorService reserveMirrorService;
+    private final PairRegistryService pairRegistryService;
+    private final ExecutorService executor;
+
+    // key = tokenIn|tokenOut（有方向，小写地址）；条目数不超过maxTrackedPairs
+    private final Map<String, LongAdder> traffic = new ConcurrentHashMap<>();
+    private final Map<String, HotPair> hotPairs = new ConcurrentHashMap<>();
+    private final Set<String> dirtyPairs = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean rescoreScheduled = new AtomicBoolean();
+
+    @Value("${novaswap.route.hot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${novaswap.route.hot.maxPairs:50}")
+    private int maxPairs;
+
+    @Value("${novaswap.route.hot.minRequests:20}")
+    private long minRequests;
+
+    @Value("${novaswap.route.hot.maxTrackedPairs:10000}")
+    private int maxTrackedPairs;
+
+    @Value("${novaswap.route.hot.bucketBits:2}")
+    private int bucketBits;
+
+    @Value("${novaswap.route.hot.maxBucketsPerPair:32}")
+    private int maxBucketsPerPair;
+
+    public HotRouteService(
+            PoolGraphService poolGraphService,
+            ReserveMirrorService reserveMirrorService,
+            PairRegistryService pairRegistryService) {
+        this.poolGraphService = poolGraphService;
+        this.reserveMirrorService = reserveMirrorService;
+        this.pairRegistryService = pairRegistryService;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "hot-route");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            reserveMirrorService.addReserveListener((block, changedPairs) -> onReservesChanged(changedPairs));
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 查表报价：热门交易对命中已计算的档位时，用当前储备沿该路径计算输出
+     * 未命中时返回empty，由调用方走完整搜索；热门交易对的新档位在后台补算
+     */
+    public Optional<PoolGraphService.GraphPath> lookup(String tokenIn, String tokenOut, BigInteger amountIn) {
+        if (!enabled || amountIn == null || amountIn.signum() <= 0) {
+            return Optional.empty();
+        }
+        String in = normalize(tokenIn);
+        String out = normalize(tokenOut);
+        if (in == null || out == null || in.equals(out)) {
+            return Optional.empty();
+        }
+        String key = pairKey(in, out);
+        countRequest(key);
+
+        HotPair hotPair = hotPairs.get(key);
+        if (hotPair == null) {
+            return Optional.empty();
+        }
+        int bucket = bucketOf(amountIn);
+        HotRoute route = hotPair.buckets.get(bucket);
+        if (route == null) {
+            if (hotPair.buckets.size() < maxBucketsPerPair && hotPair.computing.add(bucket)) {
+                executor.execute(() -> {
+                    computeBucket(hotPair, bucket);
+                    hotPair.computing.remove(bucket);
+                });
+            }
+            return Optional.empty();
+        }
+        Optional<PoolGraphService.GraphPath> path = poolGraphService.evaluatePath(route.tokens(), route.pairs(), amountIn);
+        if (path.isEmpty()) {
+            // 路径上的池子失效（储备过期或为空），下次储备变化时重新搜索
+            hotPair.buckets.remove(bucket);
+        }
+        return path;
+    }
+
+    /**
+     * 统计表已满时本窗口不再接纳新的交易对
+     */
+    private void countRequest(String key) {
+        LongAdder adder = traffic.get(key);
+        if (adder == null) {
+            if (traffic.size() >= maxTrackedPairs) {
+                return;
+            }
+            adder = traffic.computeIfAbsent(key, k -> new LongAdder());
+        }
+        adder.increment();
+    }
+
+    /**
+     * 按上一个窗口的请求量重新选出热门交易对，计数随后清零
+     * 已是热门的交易对只要窗口内仍有请求就保留，避免在阈值附近反复进出；保留的交易对同时全部重新评分
+     */
+    @Scheduled(fixedDelayString = "${novaswap.route.hot.promoteIntervalMs:10000}")
+    public void promote() {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        traffic.forEach((key, adder) -> counts.put(key, adder.sumThenReset()));
+
+        List<String> selected = counts.entrySet().stream()
+            .filter(entry -> entry.getValue() >= minRequests || (entry.getValue() > 0 && hotPairs.containsKey(entry.getKey())))
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+            .limit(maxPairs)
+            .map(Map.Entry::getKey)
+            .toList();
+
+        hotPairs.keySet().retainAll(selected);
+        // 只保留热门交易对的计数器，统计表每个窗口最多从maxPairs条开始
+        traffic.keySet().retainAll(selected);
+        for (String key : selected) {
+            hotPairs.computeIfAbsent(key, k -> {
+                String[] tokens = k.split("\\|");
+                return new HotPair(tokens[0], tokens[1]);
+            });
+        }
+        if (!hotPairs.isEmpty()) {
+            dirtyPairs.addAll(hotPairs.keySet());
+            if (rescoreScheduled.compareAndSet(false, true)) {
+                executor.execute(this::rescore);
+            }
+            log.debug("Hot route table: {} pairs, {} buckets", hotPairs.size(), getBucketCount());
+        }
+    }
+
+    public int getHotPairCount() {
+        return hotPairs.size();
+    }
+
+    public int getBucketCount() {
+        int count = 0;
+        for (HotPair hotPair : hotPairs.values()) {
+            count += hotPair.buckets.size();
+        }
+        return count;
+    }
+
+    /**
+     * 热门交易对及其已计算的档位数
+     */
+    public Map<String, Integer> getHotPairs() {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        hotPairs.forEach((key, hotPair) -> result.put(key, hotPair.buckets.size()));
+        return result;
+    }
+
+    /**
+     * 储备变化的池子在某个档位的路径上，或与交易对的起止代币相连（可能出现更优路径）时，该交易对需要重新评分
+     */
+    private void onReservesChanged(Set<String> changedPairs) {
+        if (hotPairs.isEmpty()) {
+            return;
+        }
+        for (HotPair hotPair : hotPairs.values()) {
+            if (affectedBy(hotPair, changedPairs)) {
+                dirtyPairs.add(pairKey(hotPair.tokenIn, hotPair.tokenOut));
+            }
+        }
+        if (!dirtyPairs.isEmpty() && rescoreScheduled.compareAndSet(false, true)) {
+            executor.execute(this::rescore);
+        }
+    }
+
+    private boolean affectedBy(HotPair hotPair, Set<String> changedPairs) {
+        for (HotRoute route : hotPair.buckets.values()) {
+            for (String pair : route.pairs()) {
+                if (changedPairs.contains(pair)) {
+                    return true;
+                }
+            }
+        }
+        for (String pair : changedPairs) {
+            Optional<PairRegistryService.PairRecord> record = pairRegistryService.getPair(pair);
+            if (record.isPresent() && (touches(record.get(), hotPair.tokenIn) || touches(record.get(), hotPair.tokenOut))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean touches(PairRegistryService.PairRecord record, String token) {
+        return record.token0().equalsIgnoreCase(token) || record.token1().equalsIgnoreCase(token);
+    }
+
+    private void rescore() {
+        rescoreScheduled.set(false);
+        List<String> keys = new ArrayList<>(dirtyPairs);
+        dirtyPairs.removeAll(keys);
+        for (String key : keys) {
+            HotPair hotPair = hotPairs.get(key);
+            if (hotPair == null) {
+                continue;
+            }
+            for (Integer bucket : new ArrayList<>(hotPair.buckets.keySet())) {
+                computeBucket(hotPair, bucket);
+            }
+        }
+    }
+
+    private void computeBucket(HotPair hotPair, int bucket) {
+        try {
+            Optional<PoolGraphService.GraphPath> path = poolGraphService.findBestPath(
+                hotPair.tokenIn, hotPair.tokenOut, representativeAmount(bucket));
+            if (path.isPresent()) {
+                hotPair.buckets.put(bucket, new HotRoute(path.get().tokens(), path.get().pairs(), System.currentTimeMillis()));
+            } else {
+                hotPair.buckets.remove(bucket);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Hot route computation failed for {} -> {}: {}", hotPair.tokenIn, hotPair.tokenOut, e.getMessage());
+        }
+    }
+
+    /**
+     * 档位b覆盖[2^(b*bucketBits), 2^((b+1)*bucketBits))，相邻档位相差2^bucketBits倍
+     */
+    private int bucketOf(BigInteger amountIn) {
+        return (amountIn.bitLength() - 1) / Math.max(1, bucketBits);
+    }
+
+    /**
+     * 档位的代表数量取区间的几何中点
+     */
+    private BigInteger representativeAmount(int bucket) {
+        int bits = Math.max(1, bucketBits);
+        BigInteger low = BigInteger.ONE.shiftLeft(bucket * bits);
+        BigInteger high = BigInteger.ONE.shiftLeft((bucket + 1) * bits);
+        return low.multiply(high).sqrt();
+    }
+
+    private static String pairKey(String tokenIn, String tokenOut) {
+        return (tokenIn + "|" + tokenOut).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 去空白转小写；不是合法地址时返回null，不计入统计
+     */
+    private static String normalize(String address) {
+        if (address == null) {
+            return null;
+        }
+        String normalized = address.trim().toLowerCase(Locale.ROOT);
+        return ADDRESS.matcher(normalized).matches() ? normalized : null;
+    }
+}
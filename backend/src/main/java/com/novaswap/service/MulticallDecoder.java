@@ -0,0 +1,259 @@
+package com.novaswap.service;
+
+import com.novaswap.model.MulticallResult;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Multicall3返回值解码器
+ * 直接按ABI偏移表遍历返回数据，不经过Web3j的反射式类型系统；每个结果只分配一次returnData数组
+ */
+public final class MulticallDecoder {
+
+    private static final int WORD = 32;
+
+    // Error(string) 选择器
+    private static final int ERROR_STRING_SELECTOR = 0x08c379a0;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private MulticallDecoder() {
+    }
+
+    /**
+     * 解码 aggregate3 / tryAggregate 返回的 Result[]
+     * struct Result { bool success; bytes returnData; }
+     */
+    public static List<MulticallResult> decodeAggregate3(String encodedResult) {
+        return decodeAggregate3(hexToBytes(encodedResult));
+    }
+
+    public static List<MulticallResult> decodeAggregate3(byte[] data) {
+        int arrayStart = readOffset(data, 0, 0);
+        int length = readLength(data, arrayStart);
+        int headStart = arrayStart + WORD;
+
+        List<MulticallResult> results = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            int tupleStart = readOffset(data, headStart + i * WORD, headStart);
+            boolean success = !isZeroWord(data, tupleStart);
+            int bytesStart = readOffset(data, tupleStart + WORD, tupleStart);
+            byte[] returnData = readBytes(data, bytesStart);
+
+            results.add(MulticallResult.builder()
+                    .success(success)
+                    .returnData(returnData)
+                    .error(success ? null : decodeRevertReason(returnData))
+                    .build());
+        }
+        return results;
+    }
+
+    /**
+     * 解码 aggregate 返回的 (uint256 blockNumber, bytes[] returnData)，只返回returnData部分
+     */
+    public static List<byte[]> decodeAggregate(String encodedResult) {
+        return decodeAggregate(hexToBytes(encodedResult));
+    }
+
+    public static List<byte[]> decodeAggregate(byte[] data) {
+        int arrayStart = readOffset(data, WORD, 0);
+        int length = readLength(data, arrayStart);
+        int headStart = arrayStart + WORD;
+
+        List<byte[]> results = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            int bytesStart = readOffset(data, headStart + i * WORD, headStart);
+            results.add(readBytes(data, bytesStart));
+        }
+        return results;
+    }
+
+    /**
+     * 读取 aggregate 返回的区块号
+     */
+    public static BigInteger decodeAggregateBlockNumber(byte[] data) {
+        return decodeUint256(data, 0);
+    }
+
+    /**
+     * 读取第index个32字节字为uint256；数据不足时返回null
+     */
+    public static BigInteger decodeUint256(byte[] returnData, int index) {
+        int offset = index * WORD;
+        if (returnData == null || returnData.length < offset + WORD) {
+            return null;
+        }
+        return new BigInteger(1, returnData, offset, WORD);
+    }
+
+    /**
+     * 读取第index个32字节字为地址（小写0x前缀）；数据不足时返回null
+     */
+    public static String decodeAddress(byte[] returnData, int index) {
+        int offset = index * WORD;
+        if (returnData == null || returnData.length < offset + WORD) {
+            return null;
+        }
+        char[] out = new char[42];
+        out[0] = '0';
+        out[1] = 'x';
+        for (int i = 0; i < 20; i++) {
+            int b = returnData[offset + 12 + i] & 0xff;
+            out[2 + i * 2] = HEX[b >>> 4];
+            out[3 + i * 2] = HEX[b & 0x0f];
+        }
+        return new String(out);
+    }
+
+    /**
+     * 解码返回string的调用（name()/symbol()）；兼容返回bytes32的非标准代币（如MKR），右侧补零部分去掉
+     * 数据为空或无法解析时返回null
+     */
+    public static String decodeString(byte[] returnData) {
+        if (returnData == null || returnData.length < WORD) {
+            return null;
+        }
+        if (returnData.length == WORD) {
+            int end = WORD;
+            while (end > 0 && returnData[end - 1] == 0) {
+                end--;
+            }
+            return new String(returnData, 0, end, StandardCharsets.UTF_8);
+        }
+        try {
+            int stringStart = readOffset(returnData, 0, 0);
+            return new String(readBytes(returnData, stringStart), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析 Error(string) 形式的revert原因；不是该格式时返回十六进制原始数据
+     */
+    public static String decodeRevertReason(byte[] returnData) {
+        if (returnData == null || returnData.length == 0) {
+            return "execution reverted";
+        }
+        if (returnData.length >= 4 + 2 * WORD && readSelector(returnData) == ERROR_STRING_SELECTOR) {
+            try {
+                byte[] payload = Arrays.copyOfRange(returnData, 4, returnData.length);
+                int stringStart = readOffset(payload, 0, 0);
+                byte[] message = readBytes(payload, stringStart);
+                return new String(message, StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                // 格式不合法时退回原始数据
+            }
+        }
+        return toHex(returnData);
+    }
+
+    /**
+     * 十六进制字符串转字节数组（允许0x前缀）
+     */
+    public static byte[] hexToBytes(String hex) {
+        if (hex == null) {
+            throw new IllegalArgumentException("Empty multicall result");
+        }
+        int start = hex.startsWith("0x") || hex.startsWith("0X") ? 2 : 0;
+        int digits = hex.length() - start;
+        if ((digits & 1) != 0) {
+            throw new IllegalArgumentException("Odd-length hex string");
+        }
+        byte[] out = new byte[digits / 2];
+        for (int i = 0; i < out.length; i++) {
+            int hi = Character.digit(hex.charAt(start + i * 2), 16);
+            int lo = Character.digit(hex.charAt(start + i * 2 + 1), 16);
+            if (hi < 0 || lo < 0) {
+                throw new IllegalArgumentException("Invalid hex character at " + (start + i * 2));
+            }
+            out[i] = (byte) ((hi << 4) | lo);
+        }
+        return out;
+    }
+
+    private static String toHex(byte[] data) {
+        char[] out = new char[2 + data.length * 2];
+        out[0] = '0';
+        out[1] = 'x';
+        for (int i = 0; i < data.length; i++) {
+            int b = data[i] & 0xff;
+            out[2 + i * 2] = HEX[b >>> 4];
+            out[3 + i * 2] = HEX[b & 0x0f];
+        }
+        return new String(out);
+    }
+
+    private static int readSelector(byte[] data) {
+        return ((data[0] & 0xff) << 24) | ((data[1] & 0xff) << 16) | ((data[2] & 0xff) << 8) | (data[3] & 0xff);
+    }
+
+    /**
+     * 读取偏移量字（相对base）并校验不越界
+     */
+    private static int readOffset(byte[] data, int position, int base) {
+        long absolute = base + readWord(data, position);
+        if (absolute > data.length - WORD) {
+            throw new IllegalArgumentException("ABI offset out of bounds at " + position);
+        }
+        return (int) absolute;
+    }
+
+    /**
+     * 读取数组长度，并校验头部偏移表能放进剩余数据
+     */
+    private static int readLength(byte[] data, int position) {
+        long length = readWord(data, position);
+        if (length > (data.length - position - WORD) / WORD) {
+            throw new IllegalArgumentException("ABI length out of bounds at " + position);
+        }
+        return (int) length;
+    }
+
+    private static byte[] readBytes(byte[] data, int position) {
+        long length = readWord(data, position);
+        int start = position + WORD;
+        if (length > data.length - start) {
+            throw new IllegalArgumentException("ABI bytes out of bounds at " + position);
+        }
+        return Arrays.copyOfRange(data, start, start + (int) length);
+    }
+
+    /**
+     * 读取用作偏移量/长度的32字节字；高28字节必须为零
+     */
+    private static long readWord(byte[] data, int position) {
+        checkWord(data, position);
+        for (int i = position; i < position + WORD - 4; i++) {
+            if (data[i] != 0) {
+                throw new IllegalArgumentException("ABI value too large at " + position);
+            }
+        }
+        long value = 0;
+        for (int i = position + WORD - 4; i < position + WORD; i++) {
+            value = (value << 8) | (data[i] & 0xff);
+        }
+        return value;
+    }
+
+    private static void checkWord(byte[] data, int position) {
+        if (position < 0 || position > data.length - WORD) {
+            throw new IllegalArgumentException("ABI word out of bounds at " + position);
+        }
+    }
+
+    private static boolean isZeroWord(byte[] data, int position) {
+        checkWord(data, position);
+        for (int i = position; i < position + WORD; i++) {
+            if (data[i] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
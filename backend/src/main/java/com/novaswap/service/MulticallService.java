@@ -1,9 +1,11 @@
 package com.novaswap.service;
 
 import com.novaswap.config.ContractProperties;
+import com.novaswap.config.MulticallProperties;
 import com.novaswap.model.MulticallRequest;
 import com.novaswap.model.MulticallResult;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.web3j.abi.FunctionEncoder;
 import org.web3j.abi.FunctionReturnDecoder;
@@ -12,6 +14,7 @@ import org.web3j.abi.datatypes.*;
 import org.web3j.abi.datatypes.generated.Bytes32;
 import org.web3j.abi.datatypes.generated.Uint256;
 import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
 import org.web3j.protocol.core.DefaultBlockParameterName;
 import org.web3j.protocol.core.methods.request.Transaction;
 import org.web3j.protocol.core.methods.response.EthCall;
@@ -23,6 +26,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -35,20 +39,152 @@ import java.util.stream.Collectors;
 public class MulticallService {
 
     private final Web3j web3j;
+    private final MulticallProperties properties;
+    private final String multicallAddress;
+    
+    // Call3编码的固定开销：偏移量 + target + allowFailure + bytes偏移 + bytes长度
+    private static final int CALL3_ENCODING_OVERHEAD = 5 * 32;
     
     // Multicall3合约地址（所有EVM链通用地址）
     private static final String MULTICALL3_ADDRESS = "0xcA11bde05977b3631167028862bE2a173976CA11";
 
-    public MulticallService(Web3j web3j, ContractProperties contracts) {
+    @Autowired
+    public MulticallService(Web3j web3j, ContractProperties contracts, MulticallProperties properties) {
+        this(web3j, contracts.getMulticall(), properties);
+    }
+
+    /**
+     * 其他链的实例（由ChainClientRegistry创建）；multicallAddress未配置时使用Multicall3通用地址
+     */
+    public MulticallService(Web3j web3j, String multicallAddress, MulticallProperties properties) {
         this.web3j = web3j;
+        this.properties = properties;
+        this.multicallAddress = multicallAddress != null && multicallAddress.matches("^0x[a-fA-F0-9]{40}$")
+                ? multicallAddress
+                : MULTICALL3_ADDRESS;
     }
 
     /**
      * 执行批量调用（aggregate3）
+     * 超过单批限制时自动切分，有界并发发送并按原顺序拼接结果；任一批失败则整体返回空列表（与单批失败一致）
      * @param calls 调用列表
      * @return 调用结果列表
      */
     public CompletableFuture<List<MulticallResult>> aggregate3(List<MulticallRequest> calls) {
+        return aggregate3(calls, DefaultBlockParameterName.LATEST);
+    }
+
+    /**
+     * 在指定区块上执行aggregate3（所有批次固定到同一区块，保证读取结果一致）
+     */
+    public CompletableFuture<List<MulticallResult>> aggregate3(List<MulticallRequest> calls, DefaultBlockParameter block) {
+        List<List<MulticallRequest>> chunks = partition(calls);
+        if (chunks.size() <= 1) {
+            return executeAggregate3(calls, block);
+        }
+        log.debug("Splitting aggregate3 of {} calls into {} batches", calls.size(), chunks.size());
+        return dispatchChunks(chunks, block);
+    }
+
+    /**
+     * 按调用数、calldata字节数和gas估算切分
+     */
+    private List<List<MulticallRequest>> partition(List<MulticallRequest> calls) {
+        List<List<MulticallRequest>> chunks = new ArrayList<>();
+        int start = 0;
+        int bytes = 0;
+        long gas = 0;
+        for (int i = 0; i < calls.size(); i++) {
+            MulticallRequest call = calls.get(i);
+            int callBytes = encodedSize(call);
+            long callGas = call.getEstimatedGas() > 0 ? call.getEstimatedGas() : properties.getDefaultGasPerCall();
+            int count = i - start;
+            boolean full = count >= properties.getMaxCallsPerBatch()
+                    || bytes + callBytes > properties.getMaxCalldataBytes()
+                    || gas + callGas > properties.getMaxGasPerBatch();
+            if (full && count > 0) {
+                chunks.add(calls.subList(start, i));
+                start = i;
+                bytes = 0;
+                gas = 0;
+            }
+            bytes += callBytes;
+            gas += callGas;
+        }
+        if (start < calls.size()) {
+            chunks.add(calls.subList(start, calls.size()));
+        }
+        return chunks;
+    }
+
+    private static int encodedSize(MulticallRequest call) {
+        int dataLength = call.getCallData() == null ? 0 : call.getCallData().length;
+        return CALL3_ENCODING_OVERHEAD + (dataLength + 31) / 32 * 32;
+    }
+
+    /**
+     * 有界并发发送各批次：最多maxConcurrentBatches个在途，每完成一批再发下一批
+     */
+    private CompletableFuture<List<MulticallResult>> dispatchChunks(
+            List<List<MulticallRequest>> chunks,
+            DefaultBlockParameter block) {
+        @SuppressWarnings("unchecked")
+        List<MulticallResult>[] parts = new List[chunks.size()];
+        CompletableFuture<List<MulticallResult>> done = new CompletableFuture<>();
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(chunks.size());
+
+        Runnable[] launcher = new Runnable[1];
+        launcher[0] = () -> {
+            int index = next.getAndIncrement();
+            if (index >= chunks.size() || done.isDone()) {
+                return;
+            }
+            List<MulticallRequest> chunk = chunks.get(index);
+            executeAggregate3(chunk, block).whenComplete((results, error) -> {
+                if (error != null) {
+                    done.completeExceptionally(error);
+                    return;
+                }
+                if (results.size() != chunk.size()) {
+                    log.error("aggregate3 batch {} of {} failed", index + 1, chunks.size());
+                    done.complete(Collections.emptyList());
+                    return;
+                }
+                parts[index] = results;
+                if (remaining.decrementAndGet() == 0) {
+                    done.complete(concat(parts));
+                } else {
+                    launcher[0].run();
+                }
+            });
+        };
+
+        int lanes = Math.max(1, Math.min(properties.getMaxConcurrentBatches(), chunks.size()));
+        for (int i = 0; i < lanes; i++) {
+            launcher[0].run();
+        }
+        return done;
+    }
+
+    private static List<MulticallResult> concat(List<MulticallResult>[] parts) {
+        int total = 0;
+        for (List<MulticallResult> part : parts) {
+            total += part.size();
+        }
+        List<MulticallResult> merged = new ArrayList<>(total);
+        for (List<MulticallResult> part : parts) {
+            merged.addAll(part);
+        }
+        return merged;
+    }
+
+    /**
+     * 单批执行aggregate3
+     */
+    private CompletableFuture<List<MulticallResult>> executeAggregate3(
+            List<MulticallRequest> calls,
+            DefaultBlockParameter block) {
         log.debug("Executing aggregate3 with {} calls", calls.size());
 
         try {
@@ -73,8 +209,8 @@ public class MulticallService {
             String encodedFunction = FunctionEncoder.encode(function);
             
             return web3j.ethCall(
-                    Transaction.createEthCallTransaction(null, MULTICALL3_ADDRESS, encodedFunction),
-                    DefaultBlockParameterName.LATEST
+                    Transaction.createEthCallTransaction(null, multicallAddress, encodedFunction),
+                    block
             ).sendAsync().thenApply(ethCall -> {
                 if (ethCall.hasError()) {
                     log.error("Multicall aggregate3 failed: {}", ethCall.getError().getMessage());
@@ -123,7 +259,7 @@ public class MulticallService {
             String encodedFunction = FunctionEncoder.encode(function);
             
             return web3j.ethCall(
-                    Transaction.createEthCallTransaction(null, MULTICALL3_ADDRESS, encodedFunction),
+                    Transaction.createEthCallTransaction(null, multicallAddress, encodedFunction),
                     DefaultBlockParameterName.LATEST
             ).sendAsync().thenApply(ethCall -> {
                 if (ethCall.hasError()) {
@@ -132,7 +268,12 @@ public class MulticallService {
                 }
 
                 String result = ethCall.getValue();
-                return decodeAggregateResult(result);
+                List<byte[]> decoded = decodeAggregateResult(result);
+                if (decoded.size() != calls.size()) {
+                    log.error("aggregate returned {} results, expected {}", decoded.size(), calls.size());
+                    return Collections.emptyList();
+                }
+                return decoded;
             });
 
         } catch (Exception e) {
@@ -168,32 +309,65 @@ public class MulticallService {
 
         return aggregate3(calls).thenApply(results -> 
             results.stream()
-                    .map(result -> {
-                        if (!result.isSuccess() || result.getReturnData() == null) {
-                            return BigInteger.ZERO;
-                        }
-                        try {
-                            @SuppressWarnings("rawtypes")
-                            List<Type> decoded = FunctionReturnDecoder.decode(
-                                    Numeric.toHexString(result.getReturnData()),
-                                    balanceOfFunction.getOutputParameters()
-                            );
-                            return decoded.isEmpty() ? BigInteger.ZERO : (BigInteger) decoded.get(0).getValue();
-                        } catch (Exception e) {
-                            log.warn("Failed to decode balance", e);
-                            return BigInteger.ZERO;
-                        }
-                    })
+                    .map(MulticallService::decodeSingleUint256)
                     .collect(Collectors.toList())
         );
     }
 
+    /**
+     * 原生币余额和代币余额合并为一次调用：原生币通过Multicall3.getEthBalance读取
+     * @return 第一个元素为原生币余额，其后与tokenAddresses一一对应；balanceOf调用失败的代币为null。
+     *         Multicall本身失败时为空列表
+     */
+    public CompletableFuture<List<BigInteger>> getBalancesWithNative(List<String> tokenAddresses, String accountAddress) {
+        Function getEthBalanceFunction = new Function(
+                "getEthBalance",
+                Collections.singletonList(new Address(accountAddress)),
+                Collections.singletonList(new TypeReference<Uint256>() {})
+        );
+        Function balanceOfFunction = new Function(
+                "balanceOf",
+                Collections.singletonList(new Address(accountAddress)),
+                Collections.singletonList(new TypeReference<Uint256>() {})
+        );
+        byte[] balanceOfData = Numeric.hexStringToByteArray(FunctionEncoder.encode(balanceOfFunction));
+
+        List<MulticallRequest> calls = new ArrayList<>(tokenAddresses.size() + 1);
+        calls.add(MulticallRequest.builder()
+                .target(multicallAddress)
+                .callData(Numeric.hexStringToByteArray(FunctionEncoder.encode(getEthBalanceFunction)))
+                .allowFailure(false)
+                .build());
+        tokenAddresses.forEach(token -> calls.add(MulticallRequest.builder()
+                .target(token)
+                .callData(balanceOfData)
+                .allowFailure(true)
+                .build()));
+
+        return aggregate3(calls).thenApply(results -> {
+            List<BigInteger> balances = new ArrayList<>(results.size());
+            results.forEach(result -> balances.add(decodeUint256OrNull(result)));
+            return balances;
+        });
+    }
+
     /**
      * 批量获取池储备量
      * @param pairAddresses 交易对地址列表
      * @return 储备量列表（每个元素包含[reserve0, reserve1, blockTimestamp]）
      */
     public CompletableFuture<List<List<BigInteger>>> getReserves(List<String> pairAddresses) {
+        return getReserves(pairAddresses, DefaultBlockParameterName.LATEST);
+    }
+
+    /**
+     * 在指定区块上批量获取储备（用于建立一致的储备快照）
+     */
+    public CompletableFuture<List<List<BigInteger>>> getReserves(List<String> pairAddresses, long blockNumber) {
+        return getReserves(pairAddresses, DefaultBlockParameter.valueOf(BigInteger.valueOf(blockNumber)));
+    }
+
+    private CompletableFuture<List<List<BigInteger>>> getReserves(List<String> pairAddresses, DefaultBlockParameter block) {
         log.debug("Getting reserves for {} pairs", pairAddresses.size());
 
         // 构建getReserves调用
@@ -216,30 +390,17 @@ public class MulticallService {
                         .build())
                 .collect(Collectors.toList());
 
-        return aggregate3(calls).thenApply(results -> 
+        return aggregate3(calls, block).thenApply(results -> 
             results.stream()
                     .map(result -> {
-                        if (!result.isSuccess() || result.getReturnData() == null) {
-                            return Arrays.asList(BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO);
-                        }
-                        try {
-                            @SuppressWarnings("rawtypes")
-                            List<Type> decoded = FunctionReturnDecoder.decode(
-                                    Numeric.toHexString(result.getReturnData()),
-                                    getReservesFunction.getOutputParameters()
-                            );
-                            if (decoded.size() < 3) {
-                                return Arrays.asList(BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO);
-                            }
-                            return Arrays.asList(
-                                    (BigInteger) decoded.get(0).getValue(),
-                                    (BigInteger) decoded.get(1).getValue(),
-                                    (BigInteger) decoded.get(2).getValue()
-                            );
-                        } catch (Exception e) {
-                            log.warn("Failed to decode reserves", e);
+                        byte[] data = result.isSuccess() ? result.getReturnData() : null;
+                        BigInteger reserve0 = MulticallDecoder.decodeUint256(data, 0);
+                        BigInteger reserve1 = MulticallDecoder.decodeUint256(data, 1);
+                        BigInteger timestamp = MulticallDecoder.decodeUint256(data, 2);
+                        if (reserve0 == null || reserve1 == null || timestamp == null) {
                             return Arrays.asList(BigInteger.ZERO, BigInteger.ZERO, BigInteger.ZERO);
                         }
+                        return Arrays.asList(reserve0, reserve1, timestamp);
                     })
                     .collect(Collectors.toList())
         );
@@ -277,22 +438,7 @@ public class MulticallService {
 
         return aggregate3(calls).thenApply(results -> 
             results.stream()
-                    .map(result -> {
-                        if (!result.isSuccess() || result.getReturnData() == null) {
-                            return BigInteger.ZERO;
-                        }
-                        try {
-                            @SuppressWarnings("rawtypes")
-                            List<Type> decoded = FunctionReturnDecoder.decode(
-                                    Numeric.toHexString(result.getReturnData()),
-                                    allowanceFunction.getOutputParameters()
-                            );
-                            return decoded.isEmpty() ? BigInteger.ZERO : (BigInteger) decoded.get(0).getValue();
-                        } catch (Exception e) {
-                            log.warn("Failed to decode allowance", e);
-                            return BigInteger.ZERO;
-                        }
-                    })
+                    .map(MulticallService::decodeSingleUint256)
                     .collect(Collectors.toList())
         );
     }
@@ -311,7 +457,7 @@ public class MulticallService {
         String encodedFunction = FunctionEncoder.encode(function);
         
         return web3j.ethCall(
-                Transaction.createEthCallTransaction(null, MULTICALL3_ADDRESS, encodedFunction),
+                Transaction.createEthCallTransaction(null, multicallAddress, encodedFunction),
                 DefaultBlockParameterName.LATEST
         ).sendAsync().thenApply(ethCall -> {
             try {
@@ -333,24 +479,16 @@ public class MulticallService {
 
     /**
      * 解码aggregate3返回结果
+     * aggregate3返回: Result[] memory returnData
+     * struct Result { bool success; bytes returnData; }
      */
     private List<MulticallResult> decodeAggregate3Result(String encodedResult, int expectedSize) {
         try {
-            // aggregate3返回: Result[] memory returnData
-            // struct Result { bool success; bytes returnData; }
-            // 由于Web3j的限制，这里使用手动解析
-            
-            List<MulticallResult> results = new ArrayList<>();
-            
-            // 简化处理：返回空结果或基于expectedSize创建默认结果
-            // 实际使用中建议使用专门的ABI解析库或改用aggregate方法
-            for (int i = 0; i < expectedSize; i++) {
-                results.add(MulticallResult.builder()
-                        .success(true)
-                        .returnData(new byte[0])
-                        .build());
+            List<MulticallResult> results = MulticallDecoder.decodeAggregate3(encodedResult);
+            if (results.size() != expectedSize) {
+                log.error("aggregate3 returned {} results, expected {}", results.size(), expectedSize);
+                return Collections.emptyList();
             }
-            
             return results;
         } catch (Exception e) {
             log.error("Error decoding aggregate3 result", e);
@@ -360,23 +498,39 @@ public class MulticallService {
 
     /**
      * 解码aggregate返回结果
+     * aggregate返回: (uint256 blockNumber, bytes[] returnData)
      */
     private List<byte[]> decodeAggregateResult(String encodedResult) {
         try {
-            // 简化处理：返回空列表
-            // 实际使用中建议使用aggregate3方法而非aggregate
-            return Collections.emptyList();
-                    
+            return MulticallDecoder.decodeAggregate(encodedResult);
         } catch (Exception e) {
             log.error("Error decoding aggregate result", e);
             return Collections.emptyList();
         }
     }
 
+    /**
+     * 解码单个uint256返回值（余额/授权额度），失败或数据不足时返回0
+     */
+    private static BigInteger decodeSingleUint256(MulticallResult result) {
+        if (!result.isSuccess()) {
+            return BigInteger.ZERO;
+        }
+        BigInteger value = MulticallDecoder.decodeUint256(result.getReturnData(), 0);
+        return value != null ? value : BigInteger.ZERO;
+    }
+
+    /**
+     * 解码单个uint256返回值，调用失败或数据不足时返回null
+     */
+    private static BigInteger decodeUint256OrNull(MulticallResult result) {
+        return result.isSuccess() ? MulticallDecoder.decodeUint256(result.getReturnData(), 0) : null;
+    }
+
     /**
      * 获取Multicall3合约地址
      */
     public String getMulticall3Address() {
-        return MULTICALL3_ADDRESS;
+        return multicallAddress;
     }
 }
@@ -0,0 +1,322 @@
+package com.novaswap.service;
+
+import com.novaswap.config.ContractProperties;
+import com.novaswap.config.Web3Config;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Pair注册表
+ * 增量扫描factory的PairCreated事件，把(pair, token0, token1, createdBlock)追加写入本地CSV，
+ * 并用检查点文件记录已扫描到的区块，重启后从检查点继续；池子图、统计和定时任务以此作为完整的池子集合
+ */
+@Slf4j
+@Service
+public class PairRegistryService {
+
+    /**
+     * 注册表中的一个交易对（token0/token1为pair合约中的实际顺序）
+     */
+    public record PairRecord(String pairAddress, String token0, String token1, long createdBlock) {}
+
+    // PairCreated(address indexed token0, address indexed token1, address pair, uint)
+    private static final Event PAIR_CREATED_EVENT = new Event("PairCreated",
+        Arrays.asList(
+            new TypeReference<Address>(true) {},
+            new TypeReference<Address>(true) {},
+            new TypeReference<Address>() {},
+            new TypeReference<Uint256>() {}
+        )
+    );
+    private static final String PAIR_CREATED_TOPIC = EventEncoder.encode(PAIR_CREATED_EVENT);
+
+    private final Web3j web3j;
+    private final ChainHeadService chainHeadService;
+    private final PoolGraphService poolGraphService;
+    private final ContractProperties contractProperties;
+    private final long chainId;
+
+    private final Map<String, PairRecord> pairsByAddress = new ConcurrentHashMap<>();
+    // 按创建顺序保存，写入仅发生在同步线程
+    private final List<PairRecord> pairs = Collections.synchronizedList(new ArrayList<>());
+    private final List<Consumer<PairRecord>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean syncing = new AtomicBoolean();
+
+    private volatile long lastIndexedBlock;
+    private Path pairsFile;
+    private Path checkpointFile;
+
+    @Value("${novaswap.registry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${novaswap.registry.dataDir:data}")
+    private String dataDir;
+
+    @Value("${novaswap.registry.startBlock:0}")
+    private long startBlock;
+
+    @Value("${novaswap.registry.confirmations:2}")
+    private long confirmations;
+
+    @Value("${novaswap.registry.maxBlockRange:5000}")
+    private long maxBlockRange;
+
+    @Value("${novaswap.registry.maxBlocksPerRun:500000}")
+    private long maxBlocksPerRun;
+
+    public PairRegistryService(
+            Web3j web3j,
+            ChainHeadService chainHeadService,
+            PoolGraphService poolGraphService,
+            ContractProperties contractProperties,
+            Web3Config web3Config) {
+        this.web3j = web3j;
+        this.chainHeadService = chainHeadService;
+        this.poolGraphService = poolGraphService;
+        this.contractProperties = contractProperties;
+        this.chainId = web3Config.getChainId();
+    }
+
+    /**
+     * 启动时加载本地注册表和检查点
+     */
+    @PostConstruct
+    public void load() {
+        String factory = contractProperties.getFactory().toLowerCase(Locale.ROOT);
+        Path dir = Paths.get(dataDir);
+        pairsFile = dir.resolve("pair-registry-" + chainId + "-" + factory + ".csv");
+        checkpointFile = dir.resolve("pair-registry-" + chainId + "-" + factory + ".checkpoint");
+        lastIndexedBlock = startBlock - 1;
+
+        try {
+            if (Files.exists(pairsFile)) {
+                try (var lines = Files.lines(pairsFile, StandardCharsets.UTF_8)) {
+                    lines.map(PairRegistryService::parseLine)
+                        .flatMap(Optional::stream)
+                        .forEach(this::register);
+                }
+            }
+            if (Files.exists(checkpointFile)) {
+                lastIndexedBlock = Long.parseLong(Files.readString(checkpointFile, StandardCharsets.UTF_8).trim());
+            }
+            log.info("Pair registry loaded: {} pairs, indexed up to block {}", pairs.size(), lastIndexedBlock);
+        } catch (IOException | NumberFormatException e) {
+            log.error("Failed to load pair registry from {}", dir, e);
+        }
+    }
+
+    /**
+     * 增量同步：从检查点扫描到 链头 - confirmations，区块范围过大被节点拒绝时自动减半
+     */
+    @Scheduled(fixedDelayString = "${novaswap.registry.pollIntervalMs:5000}")
+    public void sync() {
+        if (!enabled || !syncing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long target = chainHeadService.getHeadBlock() - confirmations;
+            long from = lastIndexedBlock + 1;
+            long limit = Math.min(target, from + maxBlocksPerRun - 1);
+            long range = maxBlockRange;
+
+            while (from <= limit) {
+                long to = Math.min(limit, from + range - 1);
+                List<PairRecord> created;
+                try {
+                    created = fetchPairCreated(from, to);
+                } catch (Exception e) {
+                    if (range > 1) {
+                        range = Math.max(1, range / 2);
+                        log.debug("PairCreated query {}-{} failed, retrying with range {}: {}", from, to, range, e.getMessage());
+                        continue;
+                    }
+                    throw e;
+                }
+
+                append(created);
+                writeCheckpoint(to);
+                from = to + 1;
+                range = Math.min(maxBlockRange, range * 2);
+            }
+        } catch (Exception e) {
+            log.warn("Pair registry sync stopped at block {}: {}", lastIndexedBlock, e.getMessage());
+        } finally {
+            syncing.set(false);
+        }
+    }
+
+    /**
+     * 注册新pair监听（只回调注册之后新增的pair，已有pair通过getPairs获取）
+     */
+    public void addPairListener(Consumer<PairRecord> listener) {
+        listeners.add(listener);
+    }
+
+    public Optional<PairRecord> getPair(String pairAddress) {
+        return Optional.ofNullable(pairsByAddress.get(normalize(pairAddress)));
+    }
+
+    /**
+     * 全部pair的快照（按创建顺序）
+     */
+    public List<PairRecord> getPairs() {
+        synchronized (pairs) {
+            return new ArrayList<>(pairs);
+        }
+    }
+
+    /**
+     * 按创建顺序分页读取
+     */
+    public List<PairRecord> getPairs(int offset, int limit) {
+        synchronized (pairs) {
+            int from = Math.min(Math.max(offset, 0), pairs.size());
+            int to = Math.min(from + Math.max(limit, 0), pairs.size());
+            return new ArrayList<>(pairs.subList(from, to));
+        }
+    }
+
+    public int getPairCount() {
+        return pairs.size();
+    }
+
+    public long getLastIndexedBlock() {
+        return lastIndexedBlock;
+    }
+
+    private List<PairRecord> fetchPairCreated(long fromBlock, long toBlock) throws IOException {
+        EthFilter filter = new EthFilter(
+            DefaultBlockParameter.valueOf(BigInteger.valueOf(fromBlock)),
+            DefaultBlockParameter.valueOf(BigInteger.valueOf(toBlock)),
+            contractProperties.getFactory()
+        );
+        filter.addSingleTopic(PAIR_CREATED_TOPIC);
+
+        EthLog ethLog = web3j.ethGetLogs(filter).send();
+        if (ethLog.hasError()) {
+            throw new IOException(ethLog.getError().getMessage());
+        }
+
+        List<PairRecord> created = new ArrayList<>();
+        for (EthLog.LogResult<?> logResult : ethLog.getLogs()) {
+            Log eventLog = (Log) logResult.get();
+            List<String> topics = eventLog.getTopics();
+            String pair = MulticallDecoder.decodeAddress(MulticallDecoder.hexToBytes(eventLog.getData()), 0);
+            if (topics.size() < 3 || pair == null) {
+                log.warn("Skipping malformed PairCreated log in tx {}", eventLog.getTransactionHash());
+                continue;
+            }
+            created.add(new PairRecord(
+                pair,
+                topicToAddress(topics.get(1)),
+                topicToAddress(topics.get(2)),
+                eventLog.getBlockNumber().longValue()
+            ));
+        }
+        return created;
+    }
+
+    /**
+     * 先落盘再更新内存，保证内存中的pair都已持久化；检查点之后的重复扫描会被去重
+     */
+    private void append(List<PairRecord> created) throws IOException {
+        List<PairRecord> fresh = new ArrayList<>(created.size());
+        List<String> lines = new ArrayList<>(created.size());
+        for (PairRecord record : created) {
+            if (!pairsByAddress.containsKey(record.pairAddress())) {
+                fresh.add(record);
+                lines.add(toLine(record));
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        Files.createDirectories(pairsFile.getParent());
+        Files.write(pairsFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fresh.forEach(this::register);
+        log.info("Indexed {} new pair(s), total {}", fresh.size(), pairs.size());
+    }
+
+    private void writeCheckpoint(long blockNumber) throws IOException {
+        Files.createDirectories(checkpointFile.getParent());
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        Files.writeString(temp, Long.toString(blockNumber), StandardCharsets.UTF_8);
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastIndexedBlock = blockNumber;
+    }
+
+    private void register(PairRecord record) {
+        if (pairsByAddress.putIfAbsent(record.pairAddress(), record) != null) {
+            return;
+        }
+        pairs.add(record);
+        poolGraphService.registerPool(record.pairAddress(), record.token0(), record.token1());
+        for (Consumer<PairRecord> listener : listeners) {
+            try {
+                listener.accept(record);
+            } catch (Exception e) {
+                log.error("Pair listener failed for {}", record.pairAddress(), e);
+            }
+        }
+    }
+
+    private static String toLine(PairRecord record) {
+        return record.pairAddress() + "," + record.token0() + "," + record.token1() + "," + record.createdBlock();
+    }
+
+    private static Optional<PairRecord> parseLine(String line) {
+        String[] parts = line.split(",");
+        if (parts.length != 4) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new PairRecord(
+                normalize(parts[0]), normalize(parts[1]), normalize(parts[2]), Long.parseLong(parts[3].trim())
+            ));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String topicToAddress(String topic) {
+        return "0x" + topic.substring(topic.length() - 40).toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalize(String address) {
+        return address == null ? null : address.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,850 @@
+package com.novaswap.service;
+
+import com.novaswap.contract.RouterService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 常驻内存的池子图
+ * 代币为节点、交易对为边，边上保存最新储备；路由搜索在内存中完成有界深度（3-4跳）的DFS，
+ * 不产生任何RPC调用
+ */
+@Slf4j
+@Service
+public class PoolGraphService {
+
+    private static final int MAX_SUPPORTED_HOPS = 4;
+    private static final Pool[] NO_POOLS = new Pool[0];
+
+    /**
+     * 池子状态快照（整体替换，保证reserve0/reserve1来自同一次读取）
+     * 同时保存储备的无符号128位(hi, lo)形式供搜索直接使用；hi为-1表示超出范围，搜索时跳过
+     */
+    public record PoolState(
+        BigInteger reserve0,
+        BigInteger reserve1,
+        long blockNumber,
+        long updatedAt,
+        long reserve0Hi,
+        long reserve0Lo,
+        long reserve1Hi,
+        long reserve1Lo
+    ) {
+        public PoolState(BigInteger reserve0, BigInteger reserve1, long blockNumber, long updatedAt) {
+            this(reserve0, reserve1, blockNumber, updatedAt,
+                highOrInvalid(reserve0), reserve0.longValue(), highOrInvalid(reserve1), reserve1.longValue());
+        }
+
+        boolean searchable() {
+            return reserve0Hi >= 0 && reserve1Hi >= 0
+                && (reserve0Hi | reserve0Lo) != 0 && (reserve1Hi | reserve1Lo) != 0;
+        }
+
+        private static long highOrInvalid(BigInteger value) {
+            return value.signum() >= 0 && value.bitLength() <= 127 ? AmmMath.high(value) : -1;
+        }
+    }
+
+    /**
+     * 内存搜索得到的路径
+     * hopReserves[i] = {reserveIn, reserveOut}，与第i跳方向一致
+     */
+    public record GraphPath(List<String> tokens, List<String> pairs, List<BigInteger[]> hopReserves, BigInteger amountOut) {
+        public int hops() {
+            return pairs.size();
+        }
+    }
+
+    /**
+     * 搜索剪枝用的工作区：每个到达过的代币按深度记录到达数量，槽位按代币id登记，用完归还复用
+     * stamps与generation不一致的代币视为本次搜索尚未到达，免去每次清零；
+     * 不用ThreadLocal：请求运行在虚拟线程上，线程本地的缓冲区每个请求都会重新分配
+     */
+    static final class SearchScratch {
+        private static final int STRIDE = MAX_SUPPORTED_HOPS + 1;
+
+        private int generation;
+        private int[] stamps = new int[0];
+        private int[] slots = new int[0];
+        private int used;
+
+        // slot * STRIDE + depth；正向搜索的hi为-1表示该深度尚未到达，反向搜索以null表示
+        long[] bestHi = new long[16 * STRIDE];
+        long[] bestLo = new long[16 * STRIDE];
+        BigInteger[] bestAmounts = new BigInteger[16 * STRIDE];
+        // 逐跳定长运算的limb缓冲区
+        final AmmMath.Scratch math = new AmmMath.Scratch();
+
+        void begin(int tokenCount) {
+            if (stamps.length < tokenCount) {
+                int capacity = Math.max(tokenCount, stamps.length * 2);
+                stamps = new int[capacity];
+                slots = new int[capacity];
+                generation = 0;
+            }
+            used = 0;
+            if (++generation == 0) {
+                Arrays.fill(stamps, 0);
+                generation = 1;
+            }
+        }
+
+        /**
+         * 代币在工作区中的起始下标；搜索开始后才加入的代币返回-1（不参与剪枝）
+         */
+        int offset(int token) {
+            if (token >= stamps.length) {
+                return -1;
+            }
+            if (stamps[token] != generation) {
+                stamps[token] = generation;
+                slots[token] = used++;
+                int end = used * STRIDE;
+                if (bestHi.length < end) {
+                    int capacity = Math.max(end, bestHi.length * 2);
+                    bestHi = Arrays.copyOf(bestHi, capacity);
+                    bestLo = Arrays.copyOf(bestLo, capacity);
+                    bestAmounts = Arrays.copyOf(bestAmounts, capacity);
+                }
+                int base = end - STRIDE;
+                Arrays.fill(bestHi, base, end, -1L);
+                Arrays.fill(bestAmounts, base, end, null);
+                return base;
+            }
+            return slots[token] * STRIDE;
+        }
+    }
+
+    static final class Pool {
+        final String pairAddress;
+        final int token0;
+        final int token1;
+        volatile PoolState state;
+        // 储备由ReserveMirrorService按Sync事件维护
+        volatile boolean mirrored;
+
+        Pool(String pairAddress, int token0, int token1, PoolState state) {
+            this.pairAddress = pairAddress;
+            this.token0 = token0;
+            this.token1 = token1;
+            this.state = state;
+        }
+
+        int other(int token) {
+            return token == token0 ? token1 : token0;
+        }
+    }
+
+    private final Map<String, Integer> tokenIds = new ConcurrentHashMap<>();
+    private final Map<String, Pool> poolsByAddress = new ConcurrentHashMap<>();
+    private final Map<Long, Pool> poolsByTokens = new ConcurrentHashMap<>();
+    private final Object structureLock = new Object();
+    private final Queue<SearchScratch> scratchPool = new ConcurrentLinkedQueue<>();
+
+    // 以下结构仅在structureLock内修改，读取方无锁
+    private volatile String[] tokenAddresses = new String[0];
+    private volatile AtomicReferenceArray<Pool[]> adjacency = new AtomicReferenceArray<>(1024);
+
+    // 储备镜像是否跟上链头；被镜像的池子只在镜像跟上时参与搜索，不受maxReserveAgeMs限制
+    private volatile BooleanSupplier mirrorLive = () -> false;
+
+    @Value("${novaswap.route.maxHops:3}")
+    private int maxHops;
+
+    @Value("${novaswap.route.graph.maxReserveAgeMs:15000}")
+    private long maxReserveAgeMs;
+
+    /**
+     * 写入或更新池子（token0/token1必须是pair合约中的实际顺序）
+     * 带区块号的更新不会被更旧区块的数据覆盖
+     */
+    public void upsertPool(
+        String pairAddress,
+        String token0,
+        String token1,
+        BigInteger reserve0,
+        BigInteger reserve1,
+        long blockNumber
+    ) {
+        String key = normalize(pairAddress);
+        PoolState state = new PoolState(reserve0, reserve1, blockNumber, System.currentTimeMillis());
+
+        Pool pool = poolsByAddress.get(key);
+        if (pool == null) {
+            synchronized (structureLock) {
+                pool = poolsByAddress.get(key);
+                if (pool == null) {
+                    addPool(new Pool(key, internToken(token0), internToken(token1), state));
+                    return;
+                }
+            }
+        }
+
+        PoolState current = pool.state;
+        if (current != null && blockNumber > 0 && current.blockNumber() > blockNumber) {
+            return;
+        }
+        pool.state = state;
+    }
+
+    /**
+     * 写入由储备镜像维护的池子（储备没有变化时不会再次写入，是否可用由镜像是否跟上链头决定）
+     */
+    public void upsertMirroredPool(
+        String pairAddress,
+        String token0,
+        String token1,
+        BigInteger reserve0,
+        BigInteger reserve1,
+        long blockNumber
+    ) {
+        upsertPool(pairAddress, token0, token1, reserve0, reserve1, blockNumber);
+        poolsByAddress.get(normalize(pairAddress)).mirrored = true;
+    }
+
+    /**
+     * 链重组回滚时由储备镜像覆盖写入分叉点上的储备（不做区块号单调检查）；储备为零表示该区块上pair尚无流动性
+     */
+    public void resetMirroredPool(String pairAddress, BigInteger reserve0, BigInteger reserve1, long blockNumber) {
+        Pool pool = poolsByAddress.get(normalize(pairAddress));
+        if (pool == null) {
+            return;
+        }
+        pool.state = reserve0.signum() == 0 && reserve1.signum() == 0
+            ? null
+            : new PoolState(reserve0, reserve1, blockNumber, System.currentTimeMillis());
+    }
+
+    /**
+     * 由储备镜像注册其是否跟上链头（与链头相差不超过一个区块）；未注册时被镜像的池子不参与搜索
+     */
+    public void setMirrorLiveness(BooleanSupplier mirrorLive) {
+        this.mirrorLive = mirrorLive;
+    }
+
+    /**
+     * 只登记池子拓扑（来自pair注册表），储备由后续upsertPool写入；无储备的边在搜索时跳过
+     */
+    public void registerPool(String pairAddress, String token0, String token1) {
+        String key = normalize(pairAddress);
+        if (poolsByAddress.containsKey(key)) {
+            return;
+        }
+        synchronized (structureLock) {
+            if (!poolsByAddress.containsKey(key)) {
+                addPool(new Pool(key, internToken(token0), internToken(token1), null));
+            }
+        }
+    }
+
+    /**
+     * 查找输出最大的路径（exact-input）
+     */
+    public Optional<GraphPath> findBestPath(String tokenIn, String tokenOut, BigInteger amountIn) {
+        Integer from = tokenIds.get(normalize(tokenIn));
+        Integer to = tokenIds.get(normalize(tokenOut));
+        if (from == null || to == null || from.equals(to) || amountIn == null || amountIn.signum() <= 0) {
+            return Optional.empty();
+        }
+        if (!AmmMath.fits128(amountIn)) {
+            // 超过128位的输入由调用方走BigInteger路径
+            return Optional.empty();
+        }
+
+        int depthLimit = Math.max(1, Math.min(maxHops, MAX_SUPPORTED_HOPS));
+        long minUpdatedAt = maxReserveAgeMs > 0 ? System.currentTimeMillis() - maxReserveAgeMs : Long.MIN_VALUE;
+
+        String[] names = tokenAddresses;
+        SearchScratch scratch = borrowScratch(names.length);
+        try {
+            Search search = new Search(to, depthLimit, minUpdatedAt, mirrorLive.getAsBoolean(), scratch);
+            search.tokens[0] = from;
+            search.amountHi[0] = AmmMath.high(amountIn);
+            search.amountLo[0] = amountIn.longValue();
+            search.expand(from, 0);
+            return Optional.ofNullable(search.toPath(names));
+        } finally {
+            scratchPool.offer(scratch);
+        }
+    }
+
+    /**
+     * 查找所需输入最小的路径（exact-output），从tokenOut反向逐跳计算getAmountIn
+     * 返回路径的amountOut即请求的输出数量，各跳输入由调用方按hopReserves正向还原
+     */
+    public Optional<GraphPath> findBestPathExactOut(String tokenIn, String tokenOut, BigInteger amountOut) {
+        Integer from = tokenIds.get(normalize(tokenIn));
+        Integer to = tokenIds.get(normalize(tokenOut));
+        if (from == null || to == null || from.equals(to) || amountOut == null || amountOut.signum() <= 0) {
+            return Optional.empty();
+        }
+
+        int depthLimit = Math.max(1, Math.min(maxHops, MAX_SUPPORTED_HOPS));
+        long minUpdatedAt = maxReserveAgeMs > 0 ? System.currentTimeMillis() - maxReserveAgeMs : Long.MIN_VALUE;
+
+        String[] names = tokenAddresses;
+        SearchScratch scratch = borrowScratch(names.length);
+        try {
+            ReverseSearch search = new ReverseSearch(from, depthLimit, minUpdatedAt, mirrorLive.getAsBoolean(), scratch);
+            search.tokens[0] = to;
+            search.amounts[0] = amountOut;
+            search.expand(to, 0);
+            return Optional.ofNullable(search.toPath(names, amountOut));
+        } finally {
+            scratchPool.offer(scratch);
+        }
+    }
+
+    /**
+     * 列出直达池和全部两跳路径（经过任一共同邻居代币），按amountIn全额的输出降序，最多返回maxPaths条
+     * 不同的两跳路径中间代币不同，因此返回的路径两两不共用池子，可以独立分配拆单数量
+     */
+    public List<GraphPath> findCandidatePaths(String tokenIn, String tokenOut, BigInteger amountIn, int maxPaths) {
+        Integer from = tokenIds.get(normalize(tokenIn));
+        Integer to = tokenIds.get(normalize(tokenOut));
+        if (from == null || to == null || from.equals(to) || amountIn == null || amountIn.signum() <= 0 || maxPaths <= 0) {
+            return List.of();
+        }
+
+        long minUpdatedAt = maxReserveAgeMs > 0 ? System.currentTimeMillis() - maxReserveAgeMs : Long.MIN_VALUE;
+        boolean mirrorCurrent = mirrorLive.getAsBoolean();
+        String[] names = tokenAddresses;
+        List<GraphPath> candidates = new ArrayList<>();
+        AmmMath.Scratch math = new AmmMath.Scratch();
+
+        Pool direct = poolBetween(from, to);
+        if (direct != null) {
+            PoolState state = direct.state;
+            if (usable(direct, state, minUpdatedAt, mirrorCurrent)) {
+                BigInteger[] reserves = orient(direct, state, from);
+                candidates.add(new GraphPath(List.of(names[from], names[to]), List.of(direct.pairAddress),
+                    List.<BigInteger[]>of(reserves), AmmMath.getAmountOut(amountIn, reserves[0], reserves[1], math)));
+            }
+        }
+
+        // 从度数较小的一端求共同邻居
+        Pool[] fromEdges = edgesOf(from);
+        Pool[] toEdges = edgesOf(to);
+        boolean scanFrom = fromEdges.length <= toEdges.length;
+        for (Pool near : scanFrom ? fromEdges : toEdges) {
+            int mid = near.other(scanFrom ? from : to);
+            if (mid == from || mid == to) {
+                continue;
+            }
+            Pool far = poolBetween(mid, scanFrom ? to : from);
+            if (far == null) {
+                continue;
+            }
+            Pool first = scanFrom ? near : far;
+            Pool second = scanFrom ? far : near;
+            PoolState firstState = first.state;
+            PoolState secondState = second.state;
+            if (!usable(first, firstState, minUpdatedAt, mirrorCurrent)
+                || !usable(second, secondState, minUpdatedAt, mirrorCurrent)) {
+                continue;
+            }
+            BigInteger[] firstReserves = orient(first, firstState, from);
+            BigInteger[] secondReserves = orient(second, secondState, mid);
+            BigInteger amountMid = AmmMath.getAmountOut(amountIn, firstReserves[0], firstReserves[1], math);
+            BigInteger amountOut = amountMid.signum() > 0
+                ? AmmMath.getAmountOut(amountMid, secondReserves[0], secondReserves[1], math)
+                : BigInteger.ZERO;
+            candidates.add(new GraphPath(List.of(names[from], names[mid], names[to]),
+                List.of(first.pairAddress, second.pairAddress),
+                List.of(firstReserves, secondReserves), amountOut));
+        }
+
+        candidates.removeIf(path -> path.amountOut().signum() <= 0);
+        candidates.sort((a, b) -> b.amountOut().compareTo(a.amountOut()));
+        return candidates.size() > maxPaths ? new ArrayList<>(candidates.subList(0, maxPaths)) : candidates;
+    }
+
+    /**
+     * 用当前储备重新计算一条已知路径的输出；任一池子不存在、无储备或储备过期时返回empty
+     */
+    public Optional<GraphPath> evaluatePath(List<String> tokens, List<String> pairs, BigInteger amountIn) {
+        if (amountIn == null || amountIn.signum() <= 0 || tokens.size() != pairs.size() + 1) {
+            return Optional.empty();
+        }
+        long minUpdatedAt = maxReserveAgeMs > 0 ? System.currentTimeMillis() - maxReserveAgeMs : Long.MIN_VALUE;
+        boolean mirrorCurrent = mirrorLive.getAsBoolean();
+
+        List<BigInteger[]> hopReserves = new ArrayList<>(pairs.size());
+        AmmMath.Scratch math = new AmmMath.Scratch();
+        BigInteger amount = amountIn;
+        for (int i = 0; i < pairs.size(); i++) {
+            Pool pool = poolsByAddress.get(normalize(pairs.get(i)));
+            Integer tokenIn = tokenIds.get(normalize(tokens.get(i)));
+            if (pool == null || tokenIn == null || (pool.token0 != tokenIn && pool.token1 != tokenIn)) {
+                return Optional.empty();
+            }
+            PoolState state = pool.state;
+            if (!usable(pool, state, minUpdatedAt, mirrorCurrent)) {
+                return Optional.empty();
+            }
+            BigInteger[] reserves = orient(pool, state, tokenIn);
+            hopReserves.add(reserves);
+            amount = AmmMath.getAmountOut(amount, reserves[0], reserves[1], math);
+            if (amount.signum() <= 0) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new GraphPath(tokens, pairs, hopReserves, amount));
+    }
+
+    public int getTokenCount() {
+        return tokenIds.size();
+    }
+
+    public int getPoolCount() {
+        return poolsByAddress.size();
+    }
+
+    /**
+     * 两个代币之间的池子地址（仅查内存拓扑）
+     */
+    public Optional<String> findPairAddress(String tokenA, String tokenB) {
+        Integer a = tokenIds.get(normalize(tokenA));
+        Integer b = tokenIds.get(normalize(tokenB));
+        if (a == null || b == null) {
+            return Optional.empty();
+        }
+        Pool pool = poolBetween(a, b);
+        return pool == null ? Optional.empty() : Optional.of(pool.pairAddress);
+    }
+
+    /**
+     * 池子的储备是否由储备镜像维护
+     */
+    public boolean isMirrored(String pairAddress) {
+        Pool pool = poolsByAddress.get(normalize(pairAddress));
+        return pool != null && pool.mirrored;
+    }
+
+    public Optional<PoolState> getPoolState(String pairAddress) {
+        Pool pool = poolsByAddress.get(normalize(pairAddress));
+        return pool == null ? Optional.empty() : Optional.ofNullable(pool.state);
+    }
+
+    private static boolean usable(Pool pool, PoolState state, long minUpdatedAt, boolean mirrorCurrent) {
+        return state != null && state.reserve0().signum() > 0 && state.reserve1().signum() > 0
+            && (pool.mirrored ? mirrorCurrent : state.updatedAt() >= minUpdatedAt);
+    }
+
+    private static BigInteger[] orient(Pool pool, PoolState state, int tokenIn) {
+        return pool.token0 == tokenIn
+            ? new BigInteger[]{state.reserve0(), state.reserve1()}
+            : new BigInteger[]{state.reserve1(), state.reserve0()};
+    }
+
+    private void addPool(Pool pool) {
+        AtomicReferenceArray<Pool[]> adj = ensureCapacity(Math.max(pool.token0, pool.token1) + 1);
+        appendEdge(adj, pool.token0, pool);
+        appendEdge(adj, pool.token1, pool);
+        poolsByTokens.put(tokenPairKey(pool.token0, pool.token1), pool);
+        poolsByAddress.put(pool.pairAddress, pool);
+    }
+
+    private void appendEdge(AtomicReferenceArray<Pool[]> adj, int token, Pool pool) {
+        Pool[] current = adj.get(token);
+        Pool[] next = current == null ? new Pool[1] : Arrays.copyOf(current, current.length + 1);
+        next[next.length - 1] = pool;
+        adj.set(token, next);
+    }
+
+    private AtomicReferenceArray<Pool[]> ensureCapacity(int size) {
+        AtomicReferenceArray<Pool[]> current = adjacency;
+        if (current.length() >= size) {
+            return current;
+        }
+        int capacity = current.length();
+        while (capacity < size) {
+            capacity <<= 1;
+        }
+        AtomicReferenceArray<Pool[]> grown = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < current.length(); i++) {
+            grown.set(i, current.get(i));
+        }
+        adjacency = grown;
+        return grown;
+    }
+
+    private int internToken(String token) {
+        String key = normalize(token);
+        Integer id = tokenIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        String[] current = tokenAddresses;
+        String[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = key;
+        tokenAddresses = next;
+        tokenIds.put(key, current.length);
+        return current.length;
+    }
+
+    private Pool[] edgesOf(int token) {
+        AtomicReferenceArray<Pool[]> adj = adjacency;
+        if (token >= adj.length()) {
+            return NO_POOLS;
+        }
+        Pool[] edges = adj.get(token);
+        return edges == null ? NO_POOLS : edges;
+    }
+
+    private Pool poolBetween(int tokenA, int tokenB) {
+        return poolsByTokens.get(tokenPairKey(tokenA, tokenB));
+    }
+
+    private static long tokenPairKey(int tokenA, int tokenB) {
+        int lo = Math.min(tokenA, tokenB);
+        int hi = Math.max(tokenA, tokenB);
+        return ((long) lo << 32) | (hi & 0xffffffffL);
+    }
+
+    private SearchScratch borrowScratch(int tokenCount) {
+        SearchScratch scratch = scratchPool.poll();
+        if (scratch == null) {
+            scratch = new SearchScratch();
+        }
+        scratch.begin(tokenCount);
+        return scratch;
+    }
+
+    static String normalize(String address) {
+        return address == null ? null : address.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 单次搜索的状态
+     * 剪枝：不重复经过同一代币；以更少跳数到达同一代币且数量不小于当前值时剪掉当前分支；
+     * 剩余两跳时从目标代币的邻居反向求交集，避免展开枢纽代币的全部边
+     * 数量以无符号128位(hi, lo)保存在按深度索引的数组中，逐跳计算不分配对象
+     */
+    private final class Search {
+        final int target;
+        final int maxDepth;
+        final long minUpdatedAt;
+        final boolean mirrorCurrent;
+
+        final int[] tokens;
+        final long[] amountHi;
+        final long[] amountLo;
+        final Pool[] hops;
+        final PoolState[] states;
+        final SearchScratch scratch;
+        final long[] out = new long[2];
+
+        boolean found;
+        long bestHi;
+        long bestLo;
+        int[] bestTokens;
+        Pool[] bestHops;
+        PoolState[] bestStates;
+        int bestDepth;
+
+        Search(int target, int maxDepth, long minUpdatedAt, boolean mirrorCurrent, SearchScratch scratch) {
+            this.target = target;
+            this.maxDepth = maxDepth;
+            this.minUpdatedAt = minUpdatedAt;
+            this.mirrorCurrent = mirrorCurrent;
+            this.scratch = scratch;
+            this.tokens = new int[maxDepth + 1];
+            this.amountHi = new long[maxDepth + 1];
+            this.amountLo = new long[maxDepth + 1];
+            this.hops = new Pool[maxDepth];
+            this.states = new PoolState[maxDepth];
+        }
+
+        void expand(int token, int depth) {
+            Pool direct = poolBetween(token, target);
+            if (direct != null) {
+                step(direct, token, depth);
+            }
+
+            int remaining = maxDepth - depth;
+            if (remaining <= 1) {
+                return;
+            }
+
+            Pool[] own = edgesOf(token);
+            Pool[] intoTarget = edgesOf(target);
+            if (remaining == 2 && intoTarget.length < own.length) {
+                for (Pool last : intoTarget) {
+                    int mid = last.other(target);
+                    if (mid == token) {
+                        continue;
+                    }
+                    Pool first = poolBetween(token, mid);
+                    if (first != null) {
+                        step(first, token, depth);
+                    }
+                }
+            } else {
+                for (Pool pool : own) {
+                    if (pool.other(token) != target) {
+                        step(pool, token, depth);
+                    }
+                }
+            }
+        }
+
+        private void step(Pool pool, int token, int depth) {
+            PoolState state = pool.state;
+            if (state == null || !state.searchable()
+                || (pool.mirrored ? !mirrorCurrent : state.updatedAt() < minUpdatedAt)) {
+                return;
+            }
+
+            int next = pool.other(token);
+            for (int i = 0; i <= depth; i++) {
+                if (tokens[i] == next) {
+                    return;
+                }
+            }
+
+            if (pool.token0 == token) {
+                AmmMath.getAmountOut(amountHi[depth], amountLo[depth],
+                    state.reserve0Hi(), state.reserve0Lo(), state.reserve1Hi(), state.reserve1Lo(), out, scratch.math);
+            } else {
+                AmmMath.getAmountOut(amountHi[depth], amountLo[depth],
+                    state.reserve1Hi(), state.reserve1Lo(), state.reserve0Hi(), state.reserve0Lo(), out, scratch.math);
+            }
+            long outHi = out[0];
+            long outLo = out[1];
+            if ((outHi | outLo) == 0) {
+                return;
+            }
+
+            hops[depth] = pool;
+            states[depth] = state;
+            tokens[depth + 1] = next;
+            amountHi[depth + 1] = outHi;
+            amountLo[depth + 1] = outLo;
+
+            if (next == target) {
+                if (!found || AmmMath.compare(outHi, outLo, bestHi, bestLo) > 0) {
+                    record(depth + 1);
+                }
+                return;
+            }
+
+            if (depth + 1 < maxDepth && !dominated(next, depth + 1, outHi, outLo)) {
+                expand(next, depth + 1);
+            }
+        }
+
+        /**
+         * 工作区中offset + d为第d跳到达该代币的最大数量；hi为-1表示尚未到达
+         */
+        private boolean dominated(int token, int depth, long hi, long lo) {
+            int offset = scratch.offset(token);
+            if (offset < 0) {
+                return false;
+            }
+            long[] bestHi = scratch.bestHi;
+            long[] bestLo = scratch.bestLo;
+            for (int d = 1; d <= depth; d++) {
+                if (bestHi[offset + d] >= 0 && AmmMath.compare(bestHi[offset + d], bestLo[offset + d], hi, lo) >= 0) {
+                    return true;
+                }
+            }
+            bestHi[offset + depth] = hi;
+            bestLo[offset + depth] = lo;
+            return false;
+        }
+
+        private void record(int depth) {
+            found = true;
+            bestHi = amountHi[depth];
+            bestLo = amountLo[depth];
+            bestDepth = depth;
+            bestTokens = Arrays.copyOf(tokens, depth + 1);
+            bestHops = Arrays.copyOf(hops, depth);
+            bestStates = Arrays.copyOf(states, depth);
+        }
+
+        GraphPath toPath(String[] names) {
+            if (!found) {
+                return null;
+            }
+            List<String> pathTokens = new ArrayList<>(bestDepth + 1);
+            for (int token : bestTokens) {
+                pathTokens.add(names[token]);
+            }
+            List<String> pairs = new ArrayList<>(bestDepth);
+            List<BigInteger[]> hopReserves = new ArrayList<>(bestDepth);
+            for (int i = 0; i < bestDepth; i++) {
+                Pool pool = bestHops[i];
+                PoolState state = bestStates[i];
+                pairs.add(pool.pairAddress);
+                hopReserves.add(pool.token0 == bestTokens[i]
+                    ? new BigInteger[]{state.reserve0(), state.reserve1()}
+                    : new BigInteger[]{state.reserve1(), state.reserve0()});
+            }
+            return new GraphPath(pathTokens, pairs, hopReserves, AmmMath.toBigInteger(bestHi, bestLo));
+        }
+    }
+
+    /**
+     * exact-output的反向搜索：tokens[d]为从目标代币往回第d个代币，amounts[d]为在该代币上需要的数量
+     * 剪枝规则与正向搜索对称：以更少跳数到达同一代币且所需数量不大于当前值时剪掉当前分支
+     * 反向计算的所需输入可能超过128位，因此使用BigInteger
+     */
+    private final class ReverseSearch {
+        final int source;
+        final int maxDepth;
+        final long minUpdatedAt;
+        final boolean mirrorCurrent;
+
+        final int[] tokens;
+        final BigInteger[] amounts;
+        final Pool[] hops;
+        final PoolState[] states;
+        final SearchScratch scratch;
+
+        BigInteger best;
+        int[] bestTokens;
+        Pool[] bestHops;
+        PoolState[] bestStates;
+        int bestDepth;
+
+        ReverseSearch(int source, int maxDepth, long minUpdatedAt, boolean mirrorCurrent, SearchScratch scratch) {
+            this.source = source;
+            this.maxDepth = maxDepth;
+            this.minUpdatedAt = minUpdatedAt;
+            this.mirrorCurrent = mirrorCurrent;
+            this.scratch = scratch;
+            this.tokens = new int[maxDepth + 1];
+            this.amounts = new BigInteger[maxDepth + 1];
+            this.hops = new Pool[maxDepth];
+            this.states = new PoolState[maxDepth];
+        }
+
+        void expand(int token, int depth) {
+            Pool direct = poolBetween(token, source);
+            if (direct != null) {
+                step(direct, token, depth);
+            }
+
+            int remaining = maxDepth - depth;
+            if (remaining <= 1) {
+                return;
+            }
+
+            Pool[] own = edgesOf(token);
+            Pool[] fromSource = edgesOf(source);
+            if (remaining == 2 && fromSource.length < own.length) {
+                for (Pool first : fromSource) {
+                    int mid = first.other(source);
+                    if (mid == token) {
+                        continue;
+                    }
+                    Pool last = poolBetween(mid, token);
+                    if (last != null) {
+                        step(last, token, depth);
+                    }
+                }
+            } else {
+                for (Pool pool : own) {
+                    if (pool.other(token) != source) {
+                        step(pool, token, depth);
+                    }
+                }
+            }
+        }
+
+        private void step(Pool pool, int token, int depth) {
+            PoolState state = pool.state;
+            if (!usable(pool, state, minUpdatedAt, mirrorCurrent)) {
+                return;
+            }
+
+            int prev = pool.other(token);
+            for (int i = 0; i <= depth; i++) {
+                if (tokens[i] == prev) {
+                    return;
+                }
+            }
+
+            BigInteger[] reserves = orient(pool, state, prev);
+            if (amounts[depth].compareTo(reserves[1]) >= 0) {
+                return;
+            }
+            BigInteger amountIn = RouterService.getAmountIn(amounts[depth], reserves[0], reserves[1]);
+
+            hops[depth] = pool;
+            states[depth] = state;
+            tokens[depth + 1] = prev;
+            amounts[depth + 1] = amountIn;
+
+            if (prev == source) {
+                if (best == null || amountIn.compareTo(best) < 0) {
+                    record(depth + 1);
+                }
+                return;
+            }
+
+            if (depth + 1 < maxDepth && !dominated(prev, depth + 1, amountIn)) {
+                expand(prev, depth + 1);
+            }
+        }
+
+        private boolean dominated(int token, int depth, BigInteger amount) {
+            int offset = scratch.offset(token);
+            if (offset < 0) {
+                return false;
+            }
+            BigInteger[] bestAmounts = scratch.bestAmounts;
+            for (int d = 1; d <= depth; d++) {
+                if (bestAmounts[offset + d] != null && bestAmounts[offset + d].compareTo(amount) <= 0) {
+                    return true;
+                }
+            }
+            bestAmounts[offset + depth] = amount;
+            return false;
+        }
+
+        private void record(int depth) {
+            best = amounts[depth];
+            bestDepth = depth;
+            bestTokens = Arrays.copyOf(tokens, depth + 1);
+            bestHops = Arrays.copyOf(hops, depth);
+            bestStates = Arrays.copyOf(states, depth);
+        }
+
+        /**
+         * 反转为从tokenIn到tokenOut的正向路径
+         */
+        GraphPath toPath(String[] names, BigInteger amountOut) {
+            if (best == null) {
+                return null;
+            }
+            List<String> pathTokens = new ArrayList<>(bestDepth + 1);
+            for (int i = bestDepth; i >= 0; i--) {
+                pathTokens.add(names[bestTokens[i]]);
+            }
+            List<String> pairs = new ArrayList<>(bestDepth);
+            List<BigInteger[]> hopReserves = new ArrayList<>(bestDepth);
+            for (int i = bestDepth - 1; i >= 0; i--) {
+                pairs.add(bestHops[i].pairAddress);
+                hopReserves.add(orient(bestHops[i], bestStates[i], bestTokens[i + 1]));
+            }
+            return new GraphPath(pathTokens, pairs, hopReserves, amountOut);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.novaswap.service;
+
+import com.novaswap.model.ChainPortfolio;
+import com.novaswap.model.Portfolio;
+import com.novaswap.model.TokenBalance;
+import com.novaswap.rpc.ChainClient;
+import com.novaswap.rpc.ChainClientRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 跨链余额汇总
+ * 每条链一次Multicall（原生币余额 + 全部代币余额），各链并行发出并各自带超时，
+ * 总耗时取决于最慢的一条链而不是各链之和；超时或失败的链在结果中标记状态，不影响其他链
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PortfolioService {
+    
+    private final ChainClientRegistry chainClientRegistry;
+    private final BalanceService balanceService;
+    private final TokenMetadataService tokenMetadataService;
+    
+    @Value("${novaswap.portfolio.chainTimeoutMs:3000}")
+    private long defaultChainTimeoutMs;
+    
+    /**
+     * @param tokenAddresses chainId -> 代币地址（可为空）
+     * @param chainIds 要查询的链，为空时查询全部已配置的链
+     * @param chainTimeoutMs 单条链的超时，为空时使用默认值
+     */
+    public CompletableFuture<Portfolio> getPortfolioAsync(
+        String userAddress,
+        Map<Long, List<String>> tokenAddresses,
+        List<Long> chainIds,
+        Long chainTimeoutMs
+    ) {
+        long start = System.nanoTime();
+        long timeoutMs = chainTimeoutMs != null && chainTimeoutMs > 0 ? chainTimeoutMs : defaultChainTimeoutMs;
+        List<Long> targets = chainIds != null && !chainIds.isEmpty() ? chainIds : chainClientRegistry.getChainIds();
+        
+        List<CompletableFuture<ChainPortfolio>> chains = new ArrayList<>(targets.size());
+        for (Long chainId : targets) {
+            List<String> tokens = tokenAddresses != null ? tokenAddresses.getOrDefault(chainId, List.of()) : List.of();
+            chains.add(getChainPortfolio(chainId, userAddress, tokens, timeoutMs));
+        }
+        
+        return CompletableFuture.allOf(chains.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            List<ChainPortfolio> results = chains.stream().map(CompletableFuture::join).toList();
+            boolean partial = results.stream().anyMatch(chain -> !"ok".equals(chain.getStatus()));
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.debug("Portfolio for {} across {} chains in {}ms (partial: {})", userAddress, results.size(), elapsedMs, partial);
+            return new Portfolio(userAddress, results, partial, elapsedMs);
+        });
+    }
+    
+    /**
+     * 单条链：余额一次Multicall，元数据（多数已在本地）并行读取；从不以异常完成
+     */
+    private CompletableFuture<ChainPortfolio> getChainPortfolio(Long chainId, String userAddress, List<String> tokens, long timeoutMs) {
+        long start = System.nanoTime();
+        ChainClient client;
+        try {
+            client = chainClientRegistry.getClient(chainId);
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(failed(chainId, null, "error", e.getMessage(), start));
+        }
+        
+        CompletableFuture<List<BigInteger>> balancesFuture;
+        try {
+            balancesFuture = client.getMulticallService().getBalancesWithNative(tokens, userAddress);
+        } catch (RuntimeException e) {
+            balancesFuture = CompletableFuture.failedFuture(e);
+        }
+        // 元数据超时不影响余额，使用默认值
+        CompletableFuture<Map<String, TokenMetadataService.TokenMetadata>> metadataFuture = tokens.isEmpty()
+            ? CompletableFuture.completedFuture(Map.of())
+            : tokenMetadataService.getMetadataAsync(client.getChainId(), tokens)
+                .completeOnTimeout(Map.of(), timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> Map.of());
+        
+        return balancesFuture
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .thenCombine(metadataFuture, (balances, metadata) -> {
+                // Multicall失败时返回空列表
+                if (balances.size() != tokens.size() + 1 || balances.get(0) == null) {
+                    throw new RuntimeException("Multicall balance query failed: got " + balances.size()
+                        + " results, expected " + (tokens.size() + 1));
+                }
+                List<TokenBalance> tokenBalances = new ArrayList<>(tokens.size());
+                for (int i = 0; i < tokens.size(); i++) {
+                    String token = tokens.get(i);
+                    TokenMetadataService.TokenMetadata tokenMetadata = metadata.get(token.toLowerCase(Locale.ROOT));
+                    BigInteger balance = balances.get(i + 1);
+                    tokenBalances.add(balance != null
+                        ? balanceService.toTokenBalance(token, tokenMetadata, balance)
+                        : balanceService.failedTokenBalance(token, tokenMetadata, "balanceOf call failed"));
+                }
+                BigInteger nativeBalance = balances.get(0);
+                return ChainPortfolio.builder()
+                    .chainId(client.getChainId())
+                    .network(client.getName())
+                    .status("ok")
+                    .nativeBalance(nativeBalance)
+                    .formattedNativeBalance(balanceService.formatBalance(nativeBalance, 18))
+                    .tokens(tokenBalances)
+                    .latencyMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .build();
+            })
+            .exceptionally(e -> {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (cause instanceof TimeoutException) {
+                    log.warn("Portfolio query on {} timed out after {}ms", client.getName(), timeoutMs);
+                    return failed(client.getChainId(), client.getName(), "timeout", "Timed out after " + timeoutMs + "ms", start);
+                }
+                log.warn("Portfolio query on {} failed: {}", client.getName(), cause.getMessage());
+                return failed(client.getChainId(), client.getName(), "error", cause.getMessage(), start);
+            });
+    }
+    
+    private static ChainPortfolio failed(Long chainId, String network, String status, String error, long start) {
+        return ChainPortfolio.builder()
+            .chainId(chainId)
+            .network(network)
+            .status(status)
+            .error(error)
+            .tokens(List.of())
+            .latencyMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+            .build();
+    }
+}
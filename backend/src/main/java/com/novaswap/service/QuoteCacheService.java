@@ -0,0 +1,249 @@
+package com.novaswap.service;
+
+import com.novaswap.config.Web3Config;
+import com.novaswap.model.RouteInfo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 报价缓存（routeCache）
+ * 同一区块内、或储备镜像在线且路径上的池子没有变化时，相同的报价请求直接返回缓存结果；
+ * 失效由Sync事件驱动：路径上任一池子的储备变化即删除对应条目，不依赖定时过期
+ */
+@Slf4j
+@Service
+public class QuoteCacheService {
+
+    public static final String CACHE_NAME = "routeCache";
+
+    /**
+     * 缓存键：slippage和中间代币会影响结果，一并作为键的一部分
+     */
+    public record QuoteKey(
+        long chainId,
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {}
+
+    /**
+     * 缓存值：version为计算时储备所在的区块；mirrorBacked表示路径上的池子都由储备镜像维护，
+     * 可以跨区块复用，否则只在version区块内有效；rewindEpoch为计算前镜像的回滚计数，之后发生过重组回滚即失效
+     */
+    public record CachedQuote(RouteInfo route, List<String> pairs, long version, boolean mirrorBacked, long rewindEpoch) {}
+
+    private final CacheManager cacheManager;
+    private final ReserveMirrorService reserveMirrorService;
+    private final ChainHeadService chainHeadService;
+    private final PoolGraphService poolGraphService;
+    private final long chainId;
+
+    // pair -> 以该pair为路径一部分的缓存键
+    private final Map<String, Set<QuoteKey>> keysByPair = new ConcurrentHashMap<>();
+    // pair -> 储备最近一次变化所在的区块（由镜像回调维护）
+    private final Map<String, Long> lastChangedBlock = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    @Value("${novaswap.route.cache.enabled:true}")
+    private boolean enabled;
+
+    public QuoteCacheService(
+            CacheManager cacheManager,
+            ReserveMirrorService reserveMirrorService,
+            ChainHeadService chainHeadService,
+            PoolGraphService poolGraphService,
+            Web3Config web3Config) {
+        this.cacheManager = cacheManager;
+        this.reserveMirrorService = reserveMirrorService;
+        this.chainHeadService = chainHeadService;
+        this.poolGraphService = poolGraphService;
+        this.chainId = web3Config.getChainId();
+    }
+
+    @PostConstruct
+    public void start() {
+        reserveMirrorService.addReserveListener(this::onReservesChanged);
+    }
+
+    /**
+     * 命中有效缓存时返回已完成的future，否则异步计算，完成后写入缓存
+     */
+    public CompletableFuture<RouteInfo> getOrComputeAsync(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<String> intermediateTokens,
+        Supplier<CompletableFuture<RouteInfo>> compute
+    ) {
+        Cache cache = enabled ? cacheManager.getCache(CACHE_NAME) : null;
+        if (cache == null) {
+            return compute.get();
+        }
+
+        QuoteKey key = new QuoteKey(chainId, normalize(tokenIn), normalize(tokenOut), amountIn, slippageTolerance,
+            intermediateTokens == null ? List.of() : intermediateTokens.stream().map(QuoteCacheService::normalize).toList());
+        CachedQuote cached = cache.get(key, CachedQuote.class);
+        if (cached != null && isValid(cached)) {
+            hits.increment();
+            return CompletableFuture.completedFuture(cached.route());
+        }
+        misses.increment();
+
+        // 先取版本再计算：计算期间发生的储备变化会使新条目失效，而不会被漏掉
+        // 重组回滚会把储备改回分叉点（低于version），按区块比较发现不了，另由回滚计数判断
+        long rewindEpoch = reserveMirrorService.getRewindEpoch();
+        boolean mirrorLive = reserveMirrorService.isLive();
+        long version = mirrorLive ? reserveMirrorService.getMirroredBlock() : chainHeadService.getHeadBlock();
+        return compute.get().thenApply(route -> {
+            store(cache, key, route, mirrorLive, version, rewindEpoch);
+            return route;
+        });
+    }
+
+    private void store(Cache cache, QuoteKey key, RouteInfo route, boolean mirrorLive, long version, long rewindEpoch) {
+        // 计算开始时正在回滚，或计算期间发生过回滚：结果可能基于被回滚的储备，不缓存
+        if ((rewindEpoch & 1) != 0 || reserveMirrorService.getRewindEpoch() != rewindEpoch) {
+            return;
+        }
+        Optional<List<String>> pairs = pairsOf(route.getPath());
+        if (pairs.isEmpty()) {
+            return;
+        }
+        boolean mirrorBacked = mirrorLive;
+        for (String pair : pairs.get()) {
+            if (reserveMirrorService.getReserves(pair).isEmpty()) {
+                mirrorBacked = false;
+                break;
+            }
+        }
+        if (!mirrorBacked && mirrorLive) {
+            version = chainHeadService.getHeadBlock();
+        }
+
+        cache.put(key, new CachedQuote(route, pairs.get(), version, mirrorBacked, rewindEpoch));
+        for (String pair : pairs.get()) {
+            keysByPair.computeIfAbsent(pair, p -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", total == 0 ? 0.0 : (double) hitCount / total);
+        stats.put("invalidations", invalidations.sum());
+        stats.put("indexedPairs", keysByPair.size());
+        return stats;
+    }
+
+    /**
+     * routeCache按容量和过期时间淘汰的条目不会通知这里，定期从pair索引中删除已不在缓存中的键
+     */
+    @Scheduled(fixedDelayString = "${novaswap.route.cache.pruneIntervalMs:60000}")
+    public void pruneIndex() {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null || keysByPair.isEmpty()) {
+            return;
+        }
+        // 直接查底层map，不计入缓存命中统计
+        Map<?, ?> entries = cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache
+            ? nativeCache.asMap()
+            : null;
+        int removed = 0;
+        for (Map.Entry<String, Set<QuoteKey>> entry : keysByPair.entrySet()) {
+            Set<QuoteKey> keys = entry.getValue();
+            int before = keys.size();
+            keys.removeIf(key -> entries != null ? !entries.containsKey(key) : cache.get(key) == null);
+            removed += before - keys.size();
+            if (keys.isEmpty()) {
+                keysByPair.remove(entry.getKey(), keys);
+            }
+        }
+        if (removed > 0) {
+            log.debug("Pruned {} expired quote keys, {} pairs indexed", removed, keysByPair.size());
+        }
+    }
+
+    private boolean isValid(CachedQuote cached) {
+        if (cached.rewindEpoch() != reserveMirrorService.getRewindEpoch()) {
+            return false;
+        }
+        if (!cached.mirrorBacked()) {
+            return chainHeadService.getHeadBlock() == cached.version();
+        }
+        if (!reserveMirrorService.isLive()) {
+            return false;
+        }
+        for (String pair : cached.pairs()) {
+            if (lastChangedBlock.getOrDefault(pair, 0L) > cached.version()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 储备变化的pair：记录变化区块，并删除路径经过它的全部缓存条目
+     */
+    private void onReservesChanged(long block, Set<String> changedPairs) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        for (String pair : changedPairs) {
+            lastChangedBlock.put(pair, block);
+            Set<QuoteKey> keys = keysByPair.remove(pair);
+            if (keys == null || cache == null) {
+                continue;
+            }
+            for (QuoteKey key : keys) {
+                cache.evict(key);
+            }
+            invalidations.add(keys.size());
+        }
+    }
+
+    /**
+     * 路径经过的pair地址；任一跳不在内存池子图中时返回empty（该报价不缓存）
+     */
+    private Optional<List<String>> pairsOf(List<String> path) {
+        List<String> pairs = new ArrayList<>(path.size() - 1);
+        for (int i = 0; i + 1 < path.size(); i++) {
+            Optional<String> pair = poolGraphService.findPairAddress(path.get(i), path.get(i + 1));
+            if (pair.isEmpty()) {
+                return Optional.empty();
+            }
+            pairs.add(pair.get());
+        }
+        return Optional.of(pairs);
+    }
+
+    private static String normalize(String address) {
+        return address == null ? null : address.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,428 @@
+package com.novaswap.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.generated.Uint112;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthBlock;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * 储备镜像
+ * 先用multicall在某个区块上为注册表中的全部pair建立getReserves快照，之后每个新区块用一次eth_getLogs
+ * 拉取Sync(uint112,uint112)事件增量更新；报价、TVL和当前价格直接读内存，滞后不超过一个区块
+ * 每段已处理区块记录其区块哈希，下一段的parentHash对不上时视为链重组：回退到分叉点，
+ * 在分叉点上重新读取分叉后变化过的pair，再重放新链上的Sync日志
+ */
+@Slf4j
+@Service
+public class ReserveMirrorService {
+
+    /**
+     * 镜像中的储备（reserve0/reserve1对应pair合约中的token0/token1）
+     */
+    public record MirroredReserves(BigInteger reserve0, BigInteger reserve1, long blockNumber) {}
+
+    // Sync(uint112 reserve0, uint112 reserve1)
+    private static final Event SYNC_EVENT = new Event("Sync",
+        Arrays.asList(
+            new TypeReference<Uint112>() {},
+            new TypeReference<Uint112>() {}
+        )
+    );
+    private static final String SYNC_TOPIC = EventEncoder.encode(SYNC_EVENT);
+
+    private final Web3j web3j;
+    private final ChainHeadService chainHeadService;
+    private final PairRegistryService pairRegistryService;
+    private final PoolGraphService poolGraphService;
+    private final MulticallService multicallService;
+    private final ExecutorService executor;
+
+    private final Map<String, MirroredReserves> reserves = new ConcurrentHashMap<>();
+    private final Queue<PairRegistryService.PairRecord> newPairs = new ConcurrentLinkedQueue<>();
+    private final List<BiConsumer<Long, Set<String>>> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean catchUpScheduled = new AtomicBoolean();
+    // 已处理区块段的末块 -> 区块哈希，只保留最近reorgDepth段，用于检测重组并定位分叉点
+    private final NavigableMap<Long, String> appliedHashes = new ConcurrentSkipListMap<>();
+
+    // 已处理到的区块；0表示尚未建立快照
+    private volatile long mirroredBlock;
+    // 回滚开始和结束时各加一，奇数表示正在回滚；据此缓存的结果在值变化后失效
+    private final AtomicLong rewindEpoch = new AtomicLong();
+
+    @Value("${novaswap.mirror.enabled:true}")
+    private boolean enabled;
+
+    @Value("${novaswap.mirror.maxBlockRange:100}")
+    private long maxBlockRange;
+
+    @Value("${novaswap.mirror.snapshotBatchSize:2000}")
+    private int snapshotBatchSize;
+
+    @Value("${novaswap.mirror.reorgDepth:64}")
+    private int reorgDepth;
+
+    public ReserveMirrorService(
+            Web3j web3j,
+            ChainHeadService chainHeadService,
+            PairRegistryService pairRegistryService,
+            PoolGraphService poolGraphService,
+            MulticallService multicallService) {
+        this.web3j = web3j;
+        this.chainHeadService = chainHeadService;
+        this.pairRegistryService = pairRegistryService;
+        this.poolGraphService = poolGraphService;
+        this.multicallService = multicallService;
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "reserve-mirror");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        poolGraphService.setMirrorLiveness(this::isLive);
+        pairRegistryService.addPairListener(newPairs::add);
+        chainHeadService.addNewHeadListener(head -> scheduleCatchUp());
+    }
+
+    /**
+     * 注册储备变化监听，参数为(已处理到的区块, 本次储备发生变化的pair集合)
+     */
+    public void addReserveListener(BiConsumer<Long, Set<String>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 读取镜像储备（不论镜像是否落后）
+     */
+    public Optional<MirroredReserves> getReserves(String pairAddress) {
+        return Optional.ofNullable(reserves.get(normalize(pairAddress)));
+    }
+
+    /**
+     * 仅在镜像与链头相差不超过一个区块时返回储备，否则调用方应回退到链上读取
+     */
+    public Optional<MirroredReserves> getLiveReserves(String pairAddress) {
+        return isLive() ? getReserves(pairAddress) : Optional.empty();
+    }
+
+    public boolean isLive() {
+        long mirrored = mirroredBlock;
+        return mirrored > 0 && chainHeadService.getHeadBlock() - mirrored <= 1;
+    }
+
+    public long getMirroredBlock() {
+        return mirroredBlock;
+    }
+
+    /**
+     * 链重组回滚计数：每次回滚开始和结束时各加一，奇数表示正在回滚
+     */
+    public long getRewindEpoch() {
+        return rewindEpoch.get();
+    }
+
+    public int getPairCount() {
+        return reserves.size();
+    }
+
+    private void scheduleCatchUp() {
+        if (catchUpScheduled.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                catchUpScheduled.set(false);
+                catchUp();
+            });
+        }
+    }
+
+    /**
+     * 追到链头：首次运行建立快照，之后补新注册的pair，再按区块范围处理Sync日志
+     */
+    private void catchUp() {
+        try {
+            long head = chainHeadService.getHeadBlock();
+            if (head <= 0) {
+                return;
+            }
+
+            if (mirroredBlock == 0) {
+                newPairs.clear();
+                appliedHashes.clear();
+                EthBlock.Block headBlock = getBlock(head);
+                Set<String> loaded = snapshot(pairRegistryService.getPairs(), head);
+                recordHash(head, headBlock.getHash());
+                mirroredBlock = head;
+                log.info("Reserve mirror initialized at block {} with {} pairs", head, loaded.size());
+                notifyListeners(head, loaded);
+                return;
+            }
+
+            List<PairRegistryService.PairRecord> added = new ArrayList<>();
+            PairRegistryService.PairRecord record;
+            while ((record = newPairs.poll()) != null) {
+                added.add(record);
+            }
+            if (!added.isEmpty()) {
+                notifyListeners(mirroredBlock, snapshot(added, mirroredBlock));
+            }
+
+            long from = mirroredBlock + 1;
+            boolean rewound = false;
+            while (from <= head) {
+                long to = Math.min(head, from + maxBlockRange - 1);
+                EthBlock.Block first = getBlock(from);
+                if (!first.getParentHash().equalsIgnoreCase(appliedHashes.get(mirroredBlock))) {
+                    // 每次追赶最多回退一次，节点之间视图不一致时留给下一个区块再判断
+                    if (rewound) {
+                        throw new IOException("Block " + from + " does not extend block " + mirroredBlock + " after rewind");
+                    }
+                    rewound = true;
+                    rewind();
+                    if (mirroredBlock == 0) {
+                        scheduleCatchUp();
+                        return;
+                    }
+                    from = mirroredBlock + 1;
+                    continue;
+                }
+                EthBlock.Block last = from == to ? first : getBlock(to);
+                Set<String> changed = applySyncLogs(from, to, last.getHash());
+                recordHash(to, last.getHash());
+                mirroredBlock = to;
+                notifyListeners(to, changed);
+                from = to + 1;
+            }
+        } catch (Exception e) {
+            log.warn("Reserve mirror stopped at block {}: {}", mirroredBlock, e.getMessage());
+        }
+    }
+
+    /**
+     * 链重组：从最近记录的区块段往回找仍在当前链上的区块作为分叉点，
+     * 在分叉点上重新读取分叉后更新过的pair并覆盖镜像，mirroredBlock回退到分叉点后由调用方重放Sync日志
+     * 超出记录深度时清空镜像，下一次追赶重新建立快照
+     */
+    private void rewind() throws IOException {
+        rewindEpoch.incrementAndGet();
+        try {
+            rewindToFork();
+        } finally {
+            rewindEpoch.incrementAndGet();
+        }
+    }
+
+    private void rewindToFork() throws IOException {
+        long forkBlock = 0;
+        for (Map.Entry<Long, String> entry : appliedHashes.descendingMap().entrySet()) {
+            if (getBlock(entry.getKey()).getHash().equalsIgnoreCase(entry.getValue())) {
+                forkBlock = entry.getKey();
+                break;
+            }
+        }
+        if (forkBlock == 0) {
+            log.warn("Reorg deeper than {} recorded ranges below block {}, rebuilding reserve mirror", reorgDepth, mirroredBlock);
+            mirroredBlock = 0;
+            appliedHashes.clear();
+            return;
+        }
+
+        List<String> affected = new ArrayList<>();
+        for (Map.Entry<String, MirroredReserves> entry : reserves.entrySet()) {
+            if (entry.getValue().blockNumber() > forkBlock) {
+                affected.add(entry.getKey());
+            }
+        }
+        log.warn("Reorg detected after block {}, rewinding reserve mirror from block {} and re-reading {} pairs",
+            forkBlock, mirroredBlock, affected.size());
+        // 先回退mirroredBlock，重放完成之前isLive为false，报价回退到链上读取
+        mirroredBlock = forkBlock;
+        appliedHashes.tailMap(forkBlock, false).clear();
+
+        try {
+            for (int start = 0; start < affected.size(); start += snapshotBatchSize) {
+                List<String> batch = affected.subList(start, Math.min(affected.size(), start + snapshotBatchSize));
+                List<List<BigInteger>> results = multicallService.getReserves(batch, forkBlock).join();
+                if (results.size() != batch.size()) {
+                    throw new IllegalStateException("Reserve re-read after reorg failed at block " + forkBlock);
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    BigInteger reserve0 = results.get(i).get(0);
+                    BigInteger reserve1 = results.get(i).get(1);
+                    if (reserve0.signum() == 0 && reserve1.signum() == 0) {
+                        // 分叉点上还没有流动性：移除，等待新链上的Sync
+                        reserves.remove(batch.get(i));
+                    } else {
+                        reserves.put(batch.get(i), new MirroredReserves(reserve0, reserve1, forkBlock));
+                    }
+                    poolGraphService.resetMirroredPool(batch.get(i), reserve0, reserve1, forkBlock);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 部分pair仍是旧链上的储备，只能整体重建
+            mirroredBlock = 0;
+            appliedHashes.clear();
+            throw e;
+        }
+
+        notifyListeners(forkBlock, new LinkedHashSet<>(affected));
+    }
+
+    private EthBlock.Block getBlock(long blockNumber) throws IOException {
+        EthBlock ethBlock = web3j.ethGetBlockByNumber(DefaultBlockParameter.valueOf(BigInteger.valueOf(blockNumber)), false).send();
+        if (ethBlock.hasError() || ethBlock.getBlock() == null) {
+            throw new IOException("Block " + blockNumber + " not available"
+                + (ethBlock.hasError() ? ": " + ethBlock.getError().getMessage() : ""));
+        }
+        return ethBlock.getBlock();
+    }
+
+    private void recordHash(long blockNumber, String hash) {
+        appliedHashes.put(blockNumber, hash);
+        while (appliedHashes.size() > reorgDepth) {
+            appliedHashes.pollFirstEntry();
+        }
+    }
+
+    /**
+     * 在指定区块上用multicall读取一批pair的储备；区块上尚未部署的pair会被跳过，等待其第一条Sync日志
+     */
+    private Set<String> snapshot(List<PairRegistryService.PairRecord> pairs, long blockNumber) {
+        Set<String> loaded = new LinkedHashSet<>();
+        for (int start = 0; start < pairs.size(); start += snapshotBatchSize) {
+            List<PairRegistryService.PairRecord> batch = pairs.subList(start, Math.min(pairs.size(), start + snapshotBatchSize));
+            List<String> addresses = batch.stream().map(PairRegistryService.PairRecord::pairAddress).toList();
+            List<List<BigInteger>> results = multicallService.getReserves(addresses, blockNumber).join();
+            if (results.size() != batch.size()) {
+                throw new IllegalStateException("Reserve snapshot batch failed at block " + blockNumber);
+            }
+
+            for (int i = 0; i < batch.size(); i++) {
+                BigInteger reserve0 = results.get(i).get(0);
+                BigInteger reserve1 = results.get(i).get(1);
+                if (reserve0.signum() == 0 && reserve1.signum() == 0) {
+                    continue;
+                }
+                PairRegistryService.PairRecord pair = batch.get(i);
+                if (update(pair, reserve0, reserve1, blockNumber)) {
+                    loaded.add(pair.pairAddress());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 拉取区块范围内所有Sync日志（不按地址过滤，一次请求覆盖全部pair），只保留注册表中的pair
+     * 同一pair在范围内多次Sync时以最后一条为准（日志按区块和logIndex有序返回）
+     * 末块日志的blockHash与范围末块哈希不一致说明读取期间发生了重组，整段放弃，下次重试
+     */
+    private Set<String> applySyncLogs(long fromBlock, long toBlock, String toBlockHash) throws IOException {
+        EthFilter filter = new EthFilter(
+            DefaultBlockParameter.valueOf(BigInteger.valueOf(fromBlock)),
+            DefaultBlockParameter.valueOf(BigInteger.valueOf(toBlock)),
+            List.of()
+        );
+        filter.addSingleTopic(SYNC_TOPIC);
+
+        EthLog ethLog = web3j.ethGetLogs(filter).send();
+        if (ethLog.hasError()) {
+            throw new IOException(ethLog.getError().getMessage());
+        }
+
+        for (EthLog.LogResult<?> logResult : ethLog.getLogs()) {
+            Log eventLog = (Log) logResult.get();
+            if (eventLog.getBlockNumber().longValue() == toBlock && !toBlockHash.equalsIgnoreCase(eventLog.getBlockHash())) {
+                throw new IOException("Block " + toBlock + " changed while reading Sync logs");
+            }
+        }
+
+        Set<String> changed = new LinkedHashSet<>();
+        for (EthLog.LogResult<?> logResult : ethLog.getLogs()) {
+            Log eventLog = (Log) logResult.get();
+            Optional<PairRegistryService.PairRecord> pair = pairRegistryService.getPair(eventLog.getAddress());
+            if (pair.isEmpty()) {
+                continue;
+            }
+            byte[] data = MulticallDecoder.hexToBytes(eventLog.getData());
+            BigInteger reserve0 = MulticallDecoder.decodeUint256(data, 0);
+            BigInteger reserve1 = MulticallDecoder.decodeUint256(data, 1);
+            if (reserve0 == null || reserve1 == null) {
+                continue;
+            }
+            if (update(pair.get(), reserve0, reserve1, eventLog.getBlockNumber().longValue())) {
+                changed.add(pair.get().pairAddress());
+            }
+        }
+        return changed;
+    }
+
+    private boolean update(PairRegistryService.PairRecord pair, BigInteger reserve0, BigInteger reserve1, long blockNumber) {
+        MirroredReserves next = new MirroredReserves(reserve0, reserve1, blockNumber);
+        MirroredReserves merged = reserves.merge(pair.pairAddress(), next,
+            (current, incoming) -> incoming.blockNumber() >= current.blockNumber() ? incoming : current);
+        if (merged != next) {
+            return false;
+        }
+        poolGraphService.upsertMirroredPool(pair.pairAddress(), pair.token0(), pair.token1(), reserve0, reserve1, blockNumber);
+        return true;
+    }
+
+    private void notifyListeners(long blockNumber, Set<String> changed) {
+        if (changed.isEmpty()) {
+            return;
+        }
+        for (BiConsumer<Long, Set<String>> listener : listeners) {
+            try {
+                listener.accept(blockNumber, changed);
+            } catch (Exception e) {
+                log.error("Reserve listener failed at block {}", blockNumber, e);
+            }
+        }
+    }
+
+    private static String normalize(String address) {
+        return address == null ? null : address.toLowerCase(Locale.ROOT);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,17 +1,29 @@
 package com.novaswap.service;
 
 import com.novaswap.contract.PairReadService;
+import com.novaswap.contract.RouterService;
+import com.novaswap.model.ExactOutputRouteInfo;
+import com.novaswap.model.MulticallRequest;
+import com.novaswap.model.MulticallResult;
 import com.novaswap.model.PoolReserve;
 import com.novaswap.model.RouteInfo;
+import com.novaswap.model.RouteSplit;
+import com.novaswap.model.SplitRouteInfo;
+import com.novaswap.rpc.ChainClient;
+import com.novaswap.rpc.ChainClientRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.web3j.utils.Numeric;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -20,12 +32,24 @@ public class RouteSearchService {
     
     private final PairReadService pairReadService;
     private final FactoryService factoryService;
+    private final PoolGraphService poolGraphService;
+    private final ChainHeadService chainHeadService;
+    private final ReserveMirrorService reserveMirrorService;
+    private final MulticallService multicallService;
+    private final HotRouteService hotRouteService;
+    private final ChainClientRegistry chainClientRegistry;
     
     @Value("${novaswap.contract.factory:0x5C69bEe701ef814a2B6a3EDD4B1652CB9cc5aA6f}")
     private String factoryAddress;
     
-    private static final BigInteger FEE_NUMERATOR = BigInteger.valueOf(997);
-    private static final BigInteger FEE_DENOMINATOR = BigInteger.valueOf(1000);
+    @Value("${novaswap.route.split.maxPaths:20}")
+    private int splitMaxPaths;
+    
+    @Value("${novaswap.route.split.chunks:50}")
+    private int splitChunks;
+    
+    @Value("${novaswap.route.split.timeBudgetMs:50}")
+    private long splitTimeBudgetMs;
     
     /**
      * 搜索最优路由（直达 或 多跳）
@@ -37,15 +61,459 @@ public class RouteSearchService {
         double slippageTolerance,
         List<String> intermediateTokens
     ) {
+        return await(findBestRouteAsync(tokenIn, tokenOut, amountIn, slippageTolerance, intermediateTokens));
+    }
+    
+    /**
+     * 异步搜索最优路由：热门路由表和池子图命中时立即完成，否则在链上读取到达后完成，不阻塞调用线程
+     */
+    public CompletableFuture<RouteInfo> findBestRouteAsync(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {
+        // 热门交易对直接查预计算的路由表，只重算该路径的输出
+        RouteInfo hotRoute = findHotRoute(tokenIn, tokenOut, amountIn, slippageTolerance);
+        if (hotRoute != null) {
+            log.debug("Best route found in hot route table: {} hops, output: {}", hotRoute.getHops(), hotRoute.getAmountOut());
+            return CompletableFuture.completedFuture(hotRoute);
+        }
+        
+        // 优先在常驻内存的池子图中搜索（零RPC）
+        RouteInfo residentRoute = findResidentRoute(tokenIn, tokenOut, amountIn, slippageTolerance);
+        if (residentRoute != null) {
+            log.info("Best route found in pool graph: {} hops, output: {}", residentRoute.getHops(), residentRoute.getAmountOut());
+            return CompletableFuture.completedFuture(residentRoute);
+        }
+        
+        // 本次报价的所有链上读取固定到同一区块；所有候选的读取先全部发出，由EthCallCoalescer合并为一次multicall
+        PoolLoader loader = new PoolLoader(chainHeadService.getHeadBlock());
+        
         // 尝试直接路由
-        RouteInfo directRoute = findDirectRoute(tokenIn, tokenOut, amountIn, slippageTolerance);
+        CompletableFuture<RouteInfo> directFuture = findDirectRoute(tokenIn, tokenOut, amountIn, slippageTolerance, loader);
         
         // 尝试多跳路由
-        List<RouteInfo> multiHopRoutes = findMultiHopRoutes(
-            tokenIn, tokenOut, amountIn, slippageTolerance, intermediateTokens
+        CompletableFuture<List<RouteInfo>> multiHopFuture = findMultiHopRoutes(
+            tokenIn, tokenOut, amountIn, slippageTolerance, intermediateTokens, loader
         );
         
-        // 选择输出最大的路由
+        return directFuture.thenCombine(multiHopFuture, (directRoute, multiHopRoutes) -> {
+            RouteInfo bestRoute = selectBestRoute(directRoute, multiHopRoutes);
+            log.info("Best route found: {} hops, output: {}", bestRoute.getHops(), bestRoute.getAmountOut());
+            return bestRoute;
+        });
+    }
+    
+    /**
+     * 在指定链上异步搜索最优路由，chainId为空或为主链时与findBestRouteAsync相同
+     * 其他链没有常驻池子图和热门路由表：候选为直达和经每个中间代币（含该链WETH）的两跳路径，
+     * 先用一次multicall查询全部pair地址，再用一次multicall读取储备
+     */
+    public CompletableFuture<RouteInfo> findBestRouteAsync(
+        Long chainId,
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {
+        if (chainClientRegistry.isPrimary(chainId)) {
+            return findBestRouteAsync(tokenIn, tokenOut, amountIn, slippageTolerance, intermediateTokens);
+        }
+        ChainClient client = chainClientRegistry.getClient(chainId);
+        
+        List<String> intermediates = new ArrayList<>();
+        if (intermediateTokens != null) {
+            intermediates.addAll(intermediateTokens);
+        }
+        if (client.getWeth() != null && !client.getWeth().isBlank()) {
+            intermediates.add(client.getWeth());
+        }
+        Set<String> seen = new HashSet<>();
+        List<List<String>> paths = new ArrayList<>();
+        paths.add(List.of(tokenIn, tokenOut));
+        for (String intermediate : intermediates) {
+            if (intermediate.equalsIgnoreCase(tokenIn) || intermediate.equalsIgnoreCase(tokenOut)
+                    || !seen.add(intermediate.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            paths.add(List.of(tokenIn, intermediate, tokenOut));
+        }
+        
+        // 去重后的交易对：key为按地址排序的"token0:token1"
+        Map<String, String[]> hopTokens = new LinkedHashMap<>();
+        for (List<String> path : paths) {
+            for (int i = 0; i + 1 < path.size(); i++) {
+                String[] sorted = sortTokens(path.get(i), path.get(i + 1));
+                hopTokens.putIfAbsent(sorted[0] + ":" + sorted[1], sorted);
+            }
+        }
+        List<String> keys = new ArrayList<>(hopTokens.keySet());
+        MulticallService chainMulticall = client.getMulticallService();
+        
+        return client.getFactoryAsync()
+            .thenCompose(factory -> chainMulticall.aggregate3(keys.stream()
+                .map(key -> MulticallRequest.builder()
+                    .target(factory)
+                    .callData(Numeric.hexStringToByteArray(
+                        FactoryService.encodeGetPair(hopTokens.get(key)[0], hopTokens.get(key)[1])))
+                    .allowFailure(true)
+                    .build())
+                .toList()))
+            .thenCompose(pairResults -> {
+                // aggregate3失败时返回空列表，与主链读取失败一样直接报错，而不是越界
+                if (pairResults.size() != keys.size()) {
+                    throw new RuntimeException("Failed to query pairs on chain " + chainId
+                        + ": expected " + keys.size() + " multicall results, got " + pairResults.size());
+                }
+                List<String> pairKeys = new ArrayList<>();
+                List<String> pairAddresses = new ArrayList<>();
+                for (int i = 0; i < keys.size(); i++) {
+                    MulticallResult result = pairResults.get(i);
+                    if (!result.isSuccess()) {
+                        continue;
+                    }
+                    String[] tokens = hopTokens.get(keys.get(i));
+                    try {
+                        pairAddresses.add(FactoryService.decodePairAddress(result.getReturnData(), tokens[0], tokens[1]));
+                        pairKeys.add(keys.get(i));
+                    } catch (RuntimeException e) {
+                        log.debug("Pair not found on chain {}: {}", chainId, e.getMessage());
+                    }
+                }
+                if (pairAddresses.isEmpty()) {
+                    return CompletableFuture.completedFuture(Map.<String, BigInteger[]>of());
+                }
+                return chainMulticall.getReserves(pairAddresses).thenApply(reserves -> {
+                    if (reserves.size() != pairKeys.size()) {
+                        throw new RuntimeException("Failed to read reserves on chain " + chainId
+                            + ": expected " + pairKeys.size() + " multicall results, got " + reserves.size());
+                    }
+                    Map<String, BigInteger[]> reservesByKey = new HashMap<>();
+                    for (int i = 0; i < pairKeys.size(); i++) {
+                        reservesByKey.put(pairKeys.get(i), new BigInteger[]{reserves.get(i).get(0), reserves.get(i).get(1)});
+                    }
+                    return reservesByKey;
+                });
+            })
+            .thenApply(reservesByKey -> {
+                RouteInfo bestRoute = selectBestPath(paths, reservesByKey, tokenIn, tokenOut, amountIn, slippageTolerance);
+                log.info("Best route found on chain {}: {} hops, output: {}", chainId, bestRoute.getHops(), bestRoute.getAmountOut());
+                return bestRoute;
+            });
+    }
+    
+    /**
+     * 按已读取的储备（token0为地址较小者）计算各候选路径，取输出最大者
+     */
+    private RouteInfo selectBestPath(
+        List<List<String>> paths,
+        Map<String, BigInteger[]> reservesByKey,
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance
+    ) {
+        RouteInfo bestRoute = null;
+        for (List<String> path : paths) {
+            List<BigInteger[]> hops = new ArrayList<>();
+            for (int i = 0; i + 1 < path.size(); i++) {
+                String[] sorted = sortTokens(path.get(i), path.get(i + 1));
+                BigInteger[] reserves = reservesByKey.get(sorted[0] + ":" + sorted[1]);
+                if (reserves == null || reserves[0].signum() == 0 || reserves[1].signum() == 0) {
+                    break;
+                }
+                // 转成(输入, 输出)方向
+                boolean inIsToken0 = path.get(i).toLowerCase(Locale.ROOT).equals(sorted[0]);
+                hops.add(inIsToken0 ? reserves : new BigInteger[]{reserves[1], reserves[0]});
+            }
+            if (hops.size() != path.size() - 1) {
+                continue;
+            }
+            RouteInfo route = buildRoute(path, hops, tokenIn, tokenOut, amountIn, slippageTolerance);
+            if (bestRoute == null || route.getAmountOut().compareTo(bestRoute.getAmountOut()) > 0) {
+                bestRoute = route;
+            }
+        }
+        
+        if (bestRoute == null || bestRoute.getAmountOut().equals(BigInteger.ZERO)) {
+            throw new RuntimeException("No available route found");
+        }
+        return bestRoute;
+    }
+    
+    private static String[] sortTokens(String tokenA, String tokenB) {
+        String a = tokenA.toLowerCase(Locale.ROOT);
+        String b = tokenB.toLowerCase(Locale.ROOT);
+        return a.compareTo(b) < 0 ? new String[]{a, b} : new String[]{b, a};
+    }
+    
+    /**
+     * 批量报价：常驻池子图能给出路由的请求立即完成；其余请求涉及的交易对去重后，
+     * 在同一区块上通过一次MulticallService.getReserves读取，全部报价基于同一储备快照计算
+     * 返回的future与queries一一对应；单个报价失败只影响对应的future
+     */
+    public List<CompletableFuture<RouteInfo>> findBestRoutes(List<QuoteQuery> queries) {
+        List<CompletableFuture<RouteInfo>> results = new ArrayList<>(queries.size());
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            QuoteQuery query = queries.get(i);
+            RouteInfo residentRoute = null;
+            try {
+                residentRoute = findHotRoute(query.tokenIn(), query.tokenOut(), query.amountIn(), query.slippageTolerance());
+                if (residentRoute == null) {
+                    residentRoute = findResidentRoute(query.tokenIn(), query.tokenOut(), query.amountIn(), query.slippageTolerance());
+                }
+            } catch (RuntimeException e) {
+                log.debug("Resident route failed for quote {}: {}", i, e.getMessage());
+            }
+            results.add(residentRoute != null ? CompletableFuture.completedFuture(residentRoute) : null);
+            if (residentRoute == null) {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+        
+        PoolLoader loader = new PoolLoader(chainHeadService.getHeadBlock());
+        List<String[]> tokenPairs = new ArrayList<>();
+        for (int i : pending) {
+            QuoteQuery query = queries.get(i);
+            addCandidatePairs(tokenPairs, query.tokenIn(), query.tokenOut(), query.intermediateTokens());
+        }
+        int pairCount = loader.preload(tokenPairs);
+        log.debug("Batch quote: {} of {} quotes need chain reads over {} pairs", pending.size(), queries.size(), pairCount);
+        
+        for (int i : pending) {
+            QuoteQuery query = queries.get(i);
+            CompletableFuture<RouteInfo> directFuture = findDirectRoute(
+                query.tokenIn(), query.tokenOut(), query.amountIn(), query.slippageTolerance(), loader
+            );
+            CompletableFuture<List<RouteInfo>> multiHopFuture = findMultiHopRoutes(
+                query.tokenIn(), query.tokenOut(), query.amountIn(), query.slippageTolerance(),
+                query.intermediateTokens(), loader
+            );
+            results.set(i, directFuture.thenCombine(multiHopFuture, this::selectBestRoute));
+        }
+        return results;
+    }
+    
+    /**
+     * 直达和经过每个中间代币的两跳路径所涉及的交易对
+     */
+    private static void addCandidatePairs(List<String[]> tokenPairs, String tokenIn, String tokenOut, List<String> intermediateTokens) {
+        tokenPairs.add(new String[]{tokenIn, tokenOut});
+        if (intermediateTokens != null) {
+            for (String intermediateToken : intermediateTokens) {
+                tokenPairs.add(new String[]{tokenIn, intermediateToken});
+                tokenPairs.add(new String[]{intermediateToken, tokenOut});
+            }
+        }
+    }
+    
+    /**
+     * 搜索exact-output路由：输出数量固定，选择所需输入最小的路径
+     * 候选集合和储备来源与findBestRoute相同：先查内存池子图，否则在固定区块上批量读取直达和中间代币路径
+     */
+    public ExactOutputRouteInfo findBestRouteExactOut(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountOut,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {
+        return await(findBestRouteExactOutAsync(tokenIn, tokenOut, amountOut, slippageTolerance, intermediateTokens));
+    }
+    
+    /**
+     * 异步搜索exact-output路由（不阻塞调用线程）
+     */
+    public CompletableFuture<ExactOutputRouteInfo> findBestRouteExactOutAsync(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountOut,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {
+        ExactOutputRouteInfo residentRoute = findResidentRouteExactOut(tokenIn, tokenOut, amountOut, slippageTolerance);
+        if (residentRoute != null) {
+            log.info("Best exact-output route found in pool graph: {} hops, input: {}", residentRoute.getHops(), residentRoute.getAmountIn());
+            return CompletableFuture.completedFuture(residentRoute);
+        }
+        
+        PoolLoader loader = new PoolLoader(chainHeadService.getHeadBlock());
+        return findLoadedRouteExactOut(tokenIn, tokenOut, amountOut, slippageTolerance, intermediateTokens, loader)
+            .thenApply(bestRoute -> {
+                log.info("Best exact-output route found: {} hops, input: {}", bestRoute.getHops(), bestRoute.getAmountIn());
+                return bestRoute;
+            });
+    }
+    
+    /**
+     * 批量exact-output报价，与findBestRoutes相同：共享交易对去重后在同一区块一次读取
+     */
+    public List<CompletableFuture<ExactOutputRouteInfo>> findBestRoutesExactOut(List<ExactOutputQuery> queries) {
+        List<CompletableFuture<ExactOutputRouteInfo>> results = new ArrayList<>(queries.size());
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            ExactOutputQuery query = queries.get(i);
+            ExactOutputRouteInfo residentRoute = null;
+            try {
+                residentRoute = findResidentRouteExactOut(query.tokenIn(), query.tokenOut(), query.amountOut(), query.slippageTolerance());
+            } catch (RuntimeException e) {
+                log.debug("Resident exact-output route failed for quote {}: {}", i, e.getMessage());
+            }
+            results.add(residentRoute != null ? CompletableFuture.completedFuture(residentRoute) : null);
+            if (residentRoute == null) {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+        
+        PoolLoader loader = new PoolLoader(chainHeadService.getHeadBlock());
+        List<String[]> tokenPairs = new ArrayList<>();
+        for (int i : pending) {
+            ExactOutputQuery query = queries.get(i);
+            addCandidatePairs(tokenPairs, query.tokenIn(), query.tokenOut(), query.intermediateTokens());
+        }
+        int pairCount = loader.preload(tokenPairs);
+        log.debug("Batch exact-output quote: {} of {} quotes need chain reads over {} pairs", pending.size(), queries.size(), pairCount);
+        
+        for (int i : pending) {
+            ExactOutputQuery query = queries.get(i);
+            results.set(i, findLoadedRouteExactOut(
+                query.tokenIn(), query.tokenOut(), query.amountOut(), query.slippageTolerance(),
+                query.intermediateTokens(), loader
+            ));
+        }
+        return results;
+    }
+    
+    private ExactOutputRouteInfo findResidentRouteExactOut(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountOut,
+        double slippageTolerance
+    ) {
+        Optional<PoolGraphService.GraphPath> found = poolGraphService.findBestPathExactOut(tokenIn, tokenOut, amountOut);
+        if (found.isEmpty() || mirrorFellBehind(found.get())) {
+            return null;
+        }
+        PoolGraphService.GraphPath graphPath = found.get();
+        return buildExactOutRoute(graphPath.tokens(), graphPath.hopReserves(), tokenIn, tokenOut, amountOut, slippageTolerance);
+    }
+    
+    /**
+     * 在加载器提供的储备上并发评估直达和两跳候选，选择所需输入最小的路径
+     */
+    private CompletableFuture<ExactOutputRouteInfo> findLoadedRouteExactOut(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountOut,
+        double slippageTolerance,
+        List<String> intermediateTokens,
+        PoolLoader loader
+    ) {
+        List<List<String>> paths = new ArrayList<>();
+        paths.add(Arrays.asList(tokenIn, tokenOut));
+        if (intermediateTokens != null) {
+            for (String intermediateToken : intermediateTokens) {
+                if (!intermediateToken.equalsIgnoreCase(tokenIn) && !intermediateToken.equalsIgnoreCase(tokenOut)) {
+                    paths.add(Arrays.asList(tokenIn, intermediateToken, tokenOut));
+                }
+            }
+        }
+        
+        List<CompletableFuture<ExactOutputRouteInfo>> candidates = new ArrayList<>(paths.size());
+        for (List<String> path : paths) {
+            candidates.add(loadHops(path, loader)
+                .thenApply(hops -> buildExactOutRoute(path, hops, tokenIn, tokenOut, amountOut, slippageTolerance))
+                .exceptionally(e -> {
+                    log.debug("Exact-output route via {} failed: {}", path, rootMessage(e));
+                    return null;
+                }));
+        }
+        
+        return CompletableFuture.allOf(candidates.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            ExactOutputRouteInfo bestRoute = null;
+            for (CompletableFuture<ExactOutputRouteInfo> candidate : candidates) {
+                ExactOutputRouteInfo route = candidate.join();
+                if (route != null && (bestRoute == null || route.getAmountIn().compareTo(bestRoute.getAmountIn()) < 0)) {
+                    bestRoute = route;
+                }
+            }
+            if (bestRoute == null) {
+                throw new RuntimeException("No available route found");
+            }
+            return bestRoute;
+        });
+    }
+    
+    /**
+     * 按路径顺序加载各跳储备（{reserveIn, reserveOut}）
+     */
+    private CompletableFuture<List<BigInteger[]>> loadHops(List<String> path, PoolLoader loader) {
+        CompletableFuture<List<BigInteger[]>> hops = CompletableFuture.completedFuture(new ArrayList<>());
+        for (int i = 0; i + 1 < path.size(); i++) {
+            hops = hops.thenCombine(loader.load(path.get(i), path.get(i + 1)), (list, reserves) -> {
+                list.add(new BigInteger[]{reserves.getReserve0(), reserves.getReserve1()});
+                return list;
+            });
+        }
+        return hops;
+    }
+    
+    /**
+     * 从输出端反向逐跳计算所需输入，再正向累计价格影响
+     */
+    private ExactOutputRouteInfo buildExactOutRoute(
+        List<String> tokens,
+        List<BigInteger[]> hops,
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountOut,
+        double slippageTolerance
+    ) {
+        List<String> path = new ArrayList<>(tokens);
+        path.set(0, tokenIn);
+        path.set(path.size() - 1, tokenOut);
+        
+        BigInteger[] amounts = new BigInteger[hops.size() + 1];
+        amounts[hops.size()] = amountOut;
+        for (int i = hops.size() - 1; i >= 0; i--) {
+            amounts[i] = RouterService.getAmountIn(amounts[i + 1], hops.get(i)[0], hops.get(i)[1]);
+        }
+        
+        BigDecimal totalPriceImpact = BigDecimal.ZERO;
+        BigInteger[] reserveArray = new BigInteger[hops.size() * 2];
+        for (int i = 0; i < hops.size(); i++) {
+            BigInteger[] hopReserves = hops.get(i);
+            totalPriceImpact = totalPriceImpact.add(
+                calculatePriceImpact(amounts[i], hopReserves[0], hopReserves[1])
+            );
+            reserveArray[i * 2] = hopReserves[0];
+            reserveArray[i * 2 + 1] = hopReserves[1];
+        }
+        
+        BigInteger amountIn = amounts[0];
+        BigInteger amountInMax = new BigDecimal(amountIn)
+            .multiply(BigDecimal.ONE.add(BigDecimal.valueOf(slippageTolerance)))
+            .setScale(0, RoundingMode.CEILING)
+            .toBigInteger();
+        
+        return new ExactOutputRouteInfo(path, amountIn, amountInMax, amountOut, totalPriceImpact, reserveArray,
+            hops.size() == 1, hops.size());
+    }
+    
+    /**
+     * 选择输出最大的路由
+     */
+    private RouteInfo selectBestRoute(RouteInfo directRoute, List<RouteInfo> multiHopRoutes) {
         RouteInfo bestRoute = directRoute;
         for (RouteInfo route : multiHopRoutes) {
             if (route != null && route.getAmountOut().compareTo(bestRoute.getAmountOut()) > 0) {
@@ -56,24 +524,218 @@ public class RouteSearchService {
         if (bestRoute.getAmountOut().equals(BigInteger.ZERO)) {
             throw new RuntimeException("No available route found");
         }
-        
-        log.info("Best route found: {} hops, output: {}", bestRoute.getHops(), bestRoute.getAmountOut());
         return bestRoute;
     }
     
+    /**
+     * 拆单路由：把amountIn分配到直达池和多条两跳路径上，使总输出最大
+     * 候选路径优先取自内存池子图，图中没有时按findBestRoute的方式在固定区块上批量读取直达和中间代币路径
+     */
+    public SplitRouteInfo findSplitRoute(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {
+        return await(findSplitRouteAsync(tokenIn, tokenOut, amountIn, slippageTolerance, intermediateTokens));
+    }
+    
+    /**
+     * 异步拆单路由：需要链上读取时在读取完成后再分配，不阻塞调用线程
+     */
+    public CompletableFuture<SplitRouteInfo> findSplitRouteAsync(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {
+        long deadline = System.nanoTime() + splitTimeBudgetMs * 1_000_000L;
+        
+        List<List<String>> candidatePaths = new ArrayList<>();
+        List<List<BigInteger[]>> candidateHops = new ArrayList<>();
+        List<PoolGraphService.GraphPath> graphPaths = poolGraphService.findCandidatePaths(tokenIn, tokenOut, amountIn, splitMaxPaths);
+        if (graphPaths.stream().noneMatch(this::mirrorFellBehind)) {
+            for (PoolGraphService.GraphPath graphPath : graphPaths) {
+                candidatePaths.add(graphPath.tokens());
+                candidateHops.add(graphPath.hopReserves());
+            }
+        }
+        
+        if (!candidatePaths.isEmpty()) {
+            return CompletableFuture.completedFuture(
+                allocateSplit(tokenIn, tokenOut, amountIn, slippageTolerance, candidatePaths, candidateHops, deadline)
+            );
+        }
+        
+        PoolLoader loader = new PoolLoader(chainHeadService.getHeadBlock());
+        CompletableFuture<RouteInfo> directFuture = findDirectRoute(tokenIn, tokenOut, amountIn, slippageTolerance, loader);
+        CompletableFuture<List<RouteInfo>> multiHopFuture = findMultiHopRoutes(
+            tokenIn, tokenOut, amountIn, slippageTolerance, intermediateTokens, loader
+        );
+        
+        return directFuture.thenCombine(multiHopFuture, (directRoute, multiHopRoutes) -> {
+            List<RouteInfo> routes = new ArrayList<>();
+            routes.add(directRoute);
+            routes.addAll(multiHopRoutes);
+            routes.removeIf(route -> route.getAmountOut().signum() <= 0);
+            routes.sort((a, b) -> b.getAmountOut().compareTo(a.getAmountOut()));
+            for (RouteInfo route : routes.subList(0, Math.min(routes.size(), splitMaxPaths))) {
+                List<BigInteger[]> hops = new ArrayList<>(route.getHops());
+                for (int i = 0; i < route.getHops(); i++) {
+                    hops.add(new BigInteger[]{route.getReserves()[i * 2], route.getReserves()[i * 2 + 1]});
+                }
+                candidatePaths.add(route.getPath());
+                candidateHops.add(hops);
+            }
+            if (candidatePaths.isEmpty()) {
+                throw new RuntimeException("No available route found");
+            }
+            // 读取耗时不计入分配预算
+            return allocateSplit(tokenIn, tokenOut, amountIn, slippageTolerance, candidatePaths, candidateHops,
+                System.nanoTime() + splitTimeBudgetMs * 1_000_000L);
+        });
+    }
+    
+    /**
+     * 在候选路径（按单路径输出降序）上分配amountIn并组装拆单结果；不如单一最优路径时整笔走第一条路径
+     */
+    private SplitRouteInfo allocateSplit(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<List<String>> candidatePaths,
+        List<List<BigInteger[]>> candidateHops,
+        long deadline
+    ) {
+        SplitAllocator.Allocation allocation = SplitAllocator.allocate(candidateHops, amountIn, splitChunks, deadline);
+        if (!allocation.complete()) {
+            log.warn("Split allocation exceeded {} ms budget over {} paths", splitTimeBudgetMs, candidatePaths.size());
+        }
+        
+        // 候选已按单路径输出降序排列，第一条即单一最优路径
+        BigInteger singleRouteAmountOut = SplitAllocator.pathOutput(candidateHops.get(0), amountIn);
+        BigInteger[] allocations = allocation.allocations();
+        if (allocation.amountOut().compareTo(singleRouteAmountOut) < 0) {
+            allocations = new BigInteger[candidateHops.size()];
+            Arrays.fill(allocations, BigInteger.ZERO);
+            allocations[0] = amountIn;
+        }
+        
+        List<RouteSplit> splits = new ArrayList<>();
+        BigInteger amountOut = BigInteger.ZERO;
+        BigDecimal priceImpact = BigDecimal.ZERO;
+        BigDecimal total = new BigDecimal(amountIn);
+        for (int i = 0; i < allocations.length; i++) {
+            if (allocations[i].signum() <= 0) {
+                continue;
+            }
+            RouteInfo route = buildRoute(candidatePaths.get(i), candidateHops.get(i), tokenIn, tokenOut,
+                allocations[i], slippageTolerance);
+            BigDecimal weight = new BigDecimal(allocations[i]).divide(total, 18, RoundingMode.HALF_UP);
+            splits.add(new RouteSplit(allocations[i], weight.multiply(BigDecimal.valueOf(100)).setScale(2, RoundingMode.HALF_UP), route));
+            amountOut = amountOut.add(route.getAmountOut());
+            priceImpact = priceImpact.add(route.getPriceImpact().multiply(weight));
+        }
+        
+        log.info("Split route found: {} of {} paths used, output: {} (single route: {})",
+            splits.size(), candidatePaths.size(), amountOut, singleRouteAmountOut);
+        return new SplitRouteInfo(amountIn, amountOut, applySlippage(amountOut, slippageTolerance),
+            priceImpact.setScale(6, RoundingMode.HALF_UP), singleRouteAmountOut, splits, allocation.complete());
+    }
+    
+    /**
+     * 在热门交易对路由表中查找（未命中返回null）
+     */
+    private RouteInfo findHotRoute(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance
+    ) {
+        Optional<PoolGraphService.GraphPath> hotPath = hotRouteService.lookup(tokenIn, tokenOut, amountIn);
+        if (hotPath.isEmpty() || mirrorFellBehind(hotPath.get())) {
+            return null;
+        }
+        return buildRoute(hotPath.get().tokens(), hotPath.get().hopReserves(), tokenIn, tokenOut, amountIn, slippageTolerance);
+    }
+    
+    /**
+     * 在内存池子图中查找最优路由（有界深度，不访问链上）
+     */
+    private RouteInfo findResidentRoute(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance
+    ) {
+        Optional<PoolGraphService.GraphPath> found = poolGraphService.findBestPath(tokenIn, tokenOut, amountIn);
+        if (found.isEmpty()) {
+            return null;
+        }
+        
+        PoolGraphService.GraphPath graphPath = found.get();
+        if (mirrorFellBehind(graphPath)) {
+            return null;
+        }
+        return buildRoute(graphPath.tokens(), graphPath.hopReserves(), tokenIn, tokenOut, amountIn, slippageTolerance);
+    }
+    
+    /**
+     * 路径用到镜像储备但镜像已不在链头（搜索期间开始了重组回滚或落后于新区块）时放弃内存结果，回退到链上读取
+     */
+    private boolean mirrorFellBehind(PoolGraphService.GraphPath graphPath) {
+        return graphPath.pairs().stream().anyMatch(poolGraphService::isMirrored) && !reserveMirrorService.isLive();
+    }
+    
+    /**
+     * 按各跳储备组装RouteInfo（路径首尾保留调用方传入的代币地址写法）
+     */
+    private RouteInfo buildRoute(
+        List<String> tokens,
+        List<BigInteger[]> hops,
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance
+    ) {
+        List<String> path = new ArrayList<>(tokens);
+        path.set(0, tokenIn);
+        path.set(path.size() - 1, tokenOut);
+        
+        BigDecimal totalPriceImpact = BigDecimal.ZERO;
+        BigInteger[] reserveArray = new BigInteger[hops.size() * 2];
+        BigInteger hopAmountIn = amountIn;
+        for (int i = 0; i < hops.size(); i++) {
+            BigInteger[] hopReserves = hops.get(i);
+            totalPriceImpact = totalPriceImpact.add(
+                calculatePriceImpact(hopAmountIn, hopReserves[0], hopReserves[1])
+            );
+            reserveArray[i * 2] = hopReserves[0];
+            reserveArray[i * 2 + 1] = hopReserves[1];
+            hopAmountIn = calculateAmountOut(hopAmountIn, hopReserves[0], hopReserves[1]);
+        }
+        
+        BigInteger amountOut = hopAmountIn;
+        BigInteger minAmountOut = applySlippage(amountOut, slippageTolerance);
+        
+        return new RouteInfo(path, amountOut, minAmountOut, totalPriceImpact, reserveArray,
+            hops.size() == 1, hops.size());
+    }
+    
     /**
      * 查找直达路由
      */
-    private RouteInfo findDirectRoute(
+    private CompletableFuture<RouteInfo> findDirectRoute(
         String tokenIn, 
         String tokenOut, 
         BigInteger amountIn,
-        double slippageTolerance
+        double slippageTolerance,
+        PoolLoader loader
     ) {
-        try {
-            String pairAddress = factoryService.getPairAddress(factoryAddress, tokenIn, tokenOut);
-            PoolReserve reserves = getPoolReserves(pairAddress, tokenIn, tokenOut);
-            
+        return loader.load(tokenIn, tokenOut).thenApply(reserves -> {
             BigInteger amountOut = calculateAmountOut(
                 amountIn, 
                 reserves.getReserve0(), 
@@ -92,8 +754,8 @@ public class RouteSearchService {
             BigInteger[] reserveArray = {reserves.getReserve0(), reserves.getReserve1()};
             
             return new RouteInfo(path, amountOut, minAmountOut, priceImpact, reserveArray, true, 1);
-        } catch (Exception e) {
-            log.warn("Direct route not available: {}", e.getMessage());
+        }).exceptionally(e -> {
+            log.warn("Direct route not available: {}", rootMessage(e));
             return new RouteInfo(
                 Arrays.asList(tokenIn, tokenOut), 
                 BigInteger.ZERO, 
@@ -103,84 +765,95 @@ public class RouteSearchService {
                 true, 
                 1
             );
-        }
+        });
     }
     
     /**
      * 查找多跳路由
+     * 所有候选并发求值：每个候选在它需要的两个池子储备到达后立即计算
      */
-    private List<RouteInfo> findMultiHopRoutes(
+    private CompletableFuture<List<RouteInfo>> findMultiHopRoutes(
         String tokenIn,
         String tokenOut,
         BigInteger amountIn,
         double slippageTolerance,
-        List<String> intermediateTokens
+        List<String> intermediateTokens,
+        PoolLoader loader
     ) {
-        List<RouteInfo> routes = new ArrayList<>();
-        
         if (intermediateTokens == null || intermediateTokens.isEmpty()) {
-            return routes;
+            return CompletableFuture.completedFuture(new ArrayList<>());
         }
         
         // 尝试通过每个中间代币的路由
+        List<CompletableFuture<RouteInfo>> candidates = new ArrayList<>(intermediateTokens.size());
         for (String intermediateToken : intermediateTokens) {
-            try {
-                RouteInfo route = findTwoHopRoute(
-                    tokenIn, intermediateToken, tokenOut, amountIn, slippageTolerance
-                );
+            if (intermediateToken.equalsIgnoreCase(tokenIn) || intermediateToken.equalsIgnoreCase(tokenOut)) {
+                continue;
+            }
+            candidates.add(findTwoHopRoute(
+                tokenIn, intermediateToken, tokenOut, amountIn, slippageTolerance, loader
+            ).exceptionally(e -> {
+                log.debug("Two-hop route via {} failed: {}", intermediateToken, rootMessage(e));
+                return null;
+            }));
+        }
+        
+        return CompletableFuture.allOf(candidates.toArray(new CompletableFuture[0])).thenApply(ignored -> {
+            List<RouteInfo> routes = new ArrayList<>();
+            for (CompletableFuture<RouteInfo> candidate : candidates) {
+                RouteInfo route = candidate.join();
                 if (route != null && route.getAmountOut().compareTo(BigInteger.ZERO) > 0) {
                     routes.add(route);
                 }
-            } catch (Exception e) {
-                log.debug("Two-hop route via {} failed: {}", intermediateToken, e.getMessage());
             }
-        }
-        
-        return routes;
+            return routes;
+        });
     }
     
     /**
      * 查找两跳路由
      */
-    private RouteInfo findTwoHopRoute(
+    private CompletableFuture<RouteInfo> findTwoHopRoute(
         String tokenIn,
         String tokenIntermediate,
         String tokenOut,
         BigInteger amountIn,
-        double slippageTolerance
+        double slippageTolerance,
+        PoolLoader loader
     ) {
-        // 第一跳
-        String pair1 = factoryService.getPairAddress(factoryAddress, tokenIn, tokenIntermediate);
-        PoolReserve reserves1 = getPoolReserves(pair1, tokenIn, tokenIntermediate);
-        BigInteger amountIntermediate = calculateAmountOut(
-            amountIn, reserves1.getReserve0(), reserves1.getReserve1()
-        );
-        
-        // 第二跳
-        String pair2 = factoryService.getPairAddress(factoryAddress, tokenIntermediate, tokenOut);
-        PoolReserve reserves2 = getPoolReserves(pair2, tokenIntermediate, tokenOut);
-        BigInteger amountOut = calculateAmountOut(
-            amountIntermediate, reserves2.getReserve0(), reserves2.getReserve1()
-        );
-        
-        // 计算总体价格影响
-        BigDecimal priceImpact1 = calculatePriceImpact(
-            amountIn, reserves1.getReserve0(), reserves1.getReserve1()
-        );
-        BigDecimal priceImpact2 = calculatePriceImpact(
-            amountIntermediate, reserves2.getReserve0(), reserves2.getReserve1()
+        return loader.load(tokenIn, tokenIntermediate).thenCombine(
+            loader.load(tokenIntermediate, tokenOut),
+            (reserves1, reserves2) -> {
+                // 第一跳
+                BigInteger amountIntermediate = calculateAmountOut(
+                    amountIn, reserves1.getReserve0(), reserves1.getReserve1()
+                );
+                
+                // 第二跳
+                BigInteger amountOut = calculateAmountOut(
+                    amountIntermediate, reserves2.getReserve0(), reserves2.getReserve1()
+                );
+                
+                // 计算总体价格影响
+                BigDecimal priceImpact1 = calculatePriceImpact(
+                    amountIn, reserves1.getReserve0(), reserves1.getReserve1()
+                );
+                BigDecimal priceImpact2 = calculatePriceImpact(
+                    amountIntermediate, reserves2.getReserve0(), reserves2.getReserve1()
+                );
+                BigDecimal totalPriceImpact = priceImpact1.add(priceImpact2);
+                
+                BigInteger minAmountOut = applySlippage(amountOut, slippageTolerance);
+                
+                List<String> path = Arrays.asList(tokenIn, tokenIntermediate, tokenOut);
+                BigInteger[] reserveArray = {
+                    reserves1.getReserve0(), reserves1.getReserve1(),
+                    reserves2.getReserve0(), reserves2.getReserve1()
+                };
+                
+                return new RouteInfo(path, amountOut, minAmountOut, totalPriceImpact, reserveArray, false, 2);
+            }
         );
-        BigDecimal totalPriceImpact = priceImpact1.add(priceImpact2);
-        
-        BigInteger minAmountOut = applySlippage(amountOut, slippageTolerance);
-        
-        List<String> path = Arrays.asList(tokenIn, tokenIntermediate, tokenOut);
-        BigInteger[] reserveArray = {
-            reserves1.getReserve0(), reserves1.getReserve1(),
-            reserves2.getReserve0(), reserves2.getReserve1()
-        };
-        
-        return new RouteInfo(path, amountOut, minAmountOut, totalPriceImpact, reserveArray, false, 2);
     }
     
     /**
@@ -200,15 +873,12 @@ public class RouteSearchService {
             throw new RuntimeException("Insufficient liquidity");
         }
         
-        BigInteger amountInWithFee = amountIn.multiply(FEE_NUMERATOR);
-        BigInteger numerator = amountInWithFee.multiply(reserveOut);
-        BigInteger denominator = reserveIn.multiply(FEE_DENOMINATOR).add(amountInWithFee);
-        
-        return numerator.divide(denominator);
+        return AmmMath.getAmountOut(amountIn, reserveIn, reserveOut);
     }
     
     /**
-     * 计算价格影响
+     * 计算价格影响（百分比，保留6位小数）
+     * 只用于展示，按双精度计算，不再做18位BigDecimal除法
      */
     private BigDecimal calculatePriceImpact(
         BigInteger amountIn,
@@ -219,26 +889,9 @@ public class RouteSearchService {
             return BigDecimal.ZERO;
         }
         
-        // 交易前价格
-        BigDecimal priceBefore = new BigDecimal(reserveOut).divide(
-            new BigDecimal(reserveIn), 18, RoundingMode.HALF_UP
-        );
-        
-        // 交易后储备
-        BigInteger newReserveIn = reserveIn.add(amountIn);
         BigInteger amountOut = calculateAmountOut(amountIn, reserveIn, reserveOut);
-        BigInteger newReserveOut = reserveOut.subtract(amountOut);
-        
-        // 交易后价格
-        BigDecimal priceAfter = new BigDecimal(newReserveOut).divide(
-            new BigDecimal(newReserveIn), 18, RoundingMode.HALF_UP
-        );
-        
-        // 价格影响 = (priceAfter - priceBefore) / priceBefore * 100
-        return priceAfter.subtract(priceBefore)
-            .divide(priceBefore, 6, RoundingMode.HALF_UP)
-            .multiply(BigDecimal.valueOf(100))
-            .abs();
+        double impact = AmmMath.priceImpactPercent(amountIn, reserveIn, reserveOut, amountOut);
+        return BigDecimal.valueOf(impact).setScale(6, RoundingMode.HALF_UP);
     }
     
     /**
@@ -255,18 +908,185 @@ public class RouteSearchService {
     }
     
     /**
-     * 获取池储备
+     * 等待future完成，失败时抛出原始的RuntimeException而不是CompletionException
      */
-    private PoolReserve getPoolReserves(String pairAddress, String token0, String token1) {
-        PairReadService.Reserves reserves = pairReadService.getReserves(pairAddress);
-        
-        return new PoolReserve(
-            pairAddress,
-            token0,
-            token1,
-            reserves.reserve0(),
-            reserves.reserve1(),
-            BigInteger.ZERO // totalSupply可以单独查询
-        );
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+    
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        return cause.getMessage();
+    }
+    
+    /**
+     * 批量报价中的单个请求
+     */
+    public record QuoteQuery(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountIn,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {}
+    
+    /**
+     * 批量exact-output报价中的单个请求
+     */
+    public record ExactOutputQuery(
+        String tokenIn,
+        String tokenOut,
+        BigInteger amountOut,
+        double slippageTolerance,
+        List<String> intermediateTokens
+    ) {}
+    
+    private record LoadedPool(String pairAddress, PairReadService.Reserves reserves) {}
+    
+    /**
+     * 单次报价的池子加载器
+     * 同一交易对只加载一次；pair地址本地计算（或getPair），储备优先读镜像，否则在固定区块上异步读取
+     * pair合约中token0为地址较小者，返回值按调用方的tokenIn -> tokenOut方向排列
+     */
+    private final class PoolLoader {
+        private final long blockNumber;
+        private final Map<String, CompletableFuture<LoadedPool>> pools = new ConcurrentHashMap<>();
+        
+        PoolLoader(long blockNumber) {
+            this.blockNumber = blockNumber;
+        }
+        
+        CompletableFuture<PoolReserve> load(String tokenIn, String tokenOut) {
+            boolean inIsToken0 = tokenIn.compareToIgnoreCase(tokenOut) < 0;
+            String token0 = inIsToken0 ? tokenIn : tokenOut;
+            String token1 = inIsToken0 ? tokenOut : tokenIn;
+            String key = (token0 + "|" + token1).toLowerCase(Locale.ROOT);
+            
+            CompletableFuture<LoadedPool> pool = pools.computeIfAbsent(key, k -> {
+                try {
+                    return factoryService.resolvePairAddressAsync(factoryAddress, token0, token1)
+                        .thenCompose(pair -> loadReserves(pair, token0, token1)
+                            .thenApply(reserves -> new LoadedPool(pair, reserves)));
+                } catch (RuntimeException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            });
+            
+            return pool.thenApply(loaded -> new PoolReserve(
+                loaded.pairAddress(),
+                tokenIn,
+                tokenOut,
+                inIsToken0 ? loaded.reserves().reserve0() : loaded.reserves().reserve1(),
+                inIsToken0 ? loaded.reserves().reserve1() : loaded.reserves().reserve0(),
+                BigInteger.ZERO // totalSupply可以单独查询
+            ));
+        }
+        
+        /**
+         * 预先加载一组交易对：去重后解析全部pair地址，镜像未覆盖的池子通过一次MulticallService.getReserves读取
+         * 之后对这些交易对的load直接复用结果；返回本次新加入的交易对数量
+         */
+        int preload(List<String[]> tokenPairs) {
+            Map<String, CompletableFuture<LoadedPool>> added = new LinkedHashMap<>();
+            Map<String, String[]> sortedTokens = new HashMap<>();
+            for (String[] tokens : tokenPairs) {
+                if (tokens[0].equalsIgnoreCase(tokens[1])) {
+                    continue;
+                }
+                boolean ordered = tokens[0].compareToIgnoreCase(tokens[1]) < 0;
+                String token0 = ordered ? tokens[0] : tokens[1];
+                String token1 = ordered ? tokens[1] : tokens[0];
+                String key = (token0 + "|" + token1).toLowerCase(Locale.ROOT);
+                if (!pools.containsKey(key) && !added.containsKey(key)) {
+                    added.put(key, new CompletableFuture<>());
+                    sortedTokens.put(key, new String[]{token0, token1});
+                }
+            }
+            if (added.isEmpty()) {
+                return 0;
+            }
+            pools.putAll(added);
+            
+            Map<String, CompletableFuture<String>> addresses = new LinkedHashMap<>();
+            for (String key : added.keySet()) {
+                String[] tokens = sortedTokens.get(key);
+                CompletableFuture<String> address;
+                try {
+                    address = factoryService.resolvePairAddressAsync(factoryAddress, tokens[0], tokens[1]);
+                } catch (RuntimeException e) {
+                    address = CompletableFuture.failedFuture(e);
+                }
+                addresses.put(key, address);
+            }
+            
+            CompletableFuture.allOf(addresses.values().toArray(new CompletableFuture[0]))
+                .handle((ignored, error) -> readSnapshot(added, sortedTokens, addresses))
+                .thenCompose(snapshot -> snapshot)
+                .whenComplete((ignored, error) -> {
+                    // 任何未预期的异常都不能让报价一直挂起
+                    if (error != null) {
+                        added.values().forEach(pool -> pool.completeExceptionally(error));
+                    }
+                });
+            return added.size();
+        }
+        
+        private CompletableFuture<Void> readSnapshot(
+            Map<String, CompletableFuture<LoadedPool>> added,
+            Map<String, String[]> sortedTokens,
+            Map<String, CompletableFuture<String>> addresses
+        ) {
+            List<String> keys = new ArrayList<>();
+            List<String> pairAddresses = new ArrayList<>();
+            for (Map.Entry<String, CompletableFuture<String>> entry : addresses.entrySet()) {
+                CompletableFuture<LoadedPool> pool = added.get(entry.getKey());
+                if (entry.getValue().isCompletedExceptionally()) {
+                    entry.getValue().whenComplete((address, e) -> pool.completeExceptionally(e));
+                    continue;
+                }
+                String pairAddress = entry.getValue().join();
+                Optional<ReserveMirrorService.MirroredReserves> mirrored = reserveMirrorService.getLiveReserves(pairAddress);
+                if (mirrored.isPresent()) {
+                    pool.complete(new LoadedPool(pairAddress, new PairReadService.Reserves(
+                        mirrored.get().reserve0(), mirrored.get().reserve1(), BigInteger.ZERO
+                    )));
+                } else {
+                    keys.add(entry.getKey());
+                    pairAddresses.add(pairAddress);
+                }
+            }
+            if (pairAddresses.isEmpty()) {
+                return CompletableFuture.completedFuture(null);
+            }
+            
+            return multicallService.getReserves(pairAddresses, blockNumber).thenAccept(reserves -> {
+                for (int i = 0; i < keys.size(); i++) {
+                    String[] tokens = sortedTokens.get(keys.get(i));
+                    List<BigInteger> r = reserves.get(i);
+                    if (r.get(0).signum() > 0 && r.get(1).signum() > 0) {
+                        poolGraphService.upsertPool(pairAddresses.get(i), tokens[0], tokens[1], r.get(0), r.get(1), blockNumber);
+                    }
+                    added.get(keys.get(i)).complete(new LoadedPool(pairAddresses.get(i),
+                        new PairReadService.Reserves(r.get(0), r.get(1), r.get(2))));
+                }
+            });
+        }
+        
+        private CompletableFuture<PairReadService.Reserves> loadReserves(String pairAddress, String token0, String token1) {
+            Optional<ReserveMirrorService.MirroredReserves> mirrored = reserveMirrorService.getLiveReserves(pairAddress);
+            if (mirrored.isPresent()) {
+                return CompletableFuture.completedFuture(new PairReadService.Reserves(
+                    mirrored.get().reserve0(), mirrored.get().reserve1(), BigInteger.ZERO
+                ));
+            }
+            return pairReadService.getReservesAsync(pairAddress, blockNumber).thenApply(r -> {
+                poolGraphService.upsertPool(pairAddress, token0, token1, r.reserve0(), r.reserve1(), blockNumber);
+                return r;
+            });
+        }
     }
 }
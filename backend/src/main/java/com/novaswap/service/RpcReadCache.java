@@ -0,0 +1,112 @@
+package com.novaswap.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按区块分代的只读调用缓存
+ * key = (chainId, target, calldata)，外层按区块号分代；新链头到达时整代淘汰旧区块。
+ * 缓存的是future，同一区块内相同的并发读取只会发出一次
+ */
+@Slf4j
+@Service
+public class RpcReadCache {
+
+    private record Key(long chainId, String target, String callData) {}
+
+    private final ConcurrentSkipListMap<Long, Map<Key, CompletableFuture<byte[]>>> generations = new ConcurrentSkipListMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Value("${novaswap.cache.rpc.retainBlocks:2}")
+    private int retainBlocks;
+
+    @Value("${novaswap.cache.rpc.maxEntriesPerBlock:50000}")
+    private int maxEntriesPerBlock;
+
+    public RpcReadCache(ChainHeadService chainHeadService) {
+        chainHeadService.addNewHeadListener(this::evictBefore);
+    }
+
+    /**
+     * 读取缓存，未命中时调用loader加载；加载失败的条目会被移除以便重试
+     */
+    public CompletableFuture<byte[]> getOrLoad(
+            long chainId,
+            String target,
+            String callData,
+            long blockNumber,
+            Supplier<CompletableFuture<byte[]>> loader) {
+
+        Map<Key, CompletableFuture<byte[]>> generation =
+                generations.computeIfAbsent(blockNumber, b -> new ConcurrentHashMap<>());
+        Key key = new Key(chainId, target.toLowerCase(Locale.ROOT), callData);
+
+        CompletableFuture<byte[]> cached = generation.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+        if (generation.size() >= maxEntriesPerBlock) {
+            return loader.get();
+        }
+
+        CompletableFuture<byte[]> placeholder = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = generation.putIfAbsent(key, placeholder);
+        if (existing != null) {
+            return existing;
+        }
+
+        CompletableFuture<byte[]> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((value, error) -> {
+            if (error != null) {
+                generation.remove(key, placeholder);
+                placeholder.completeExceptionally(error);
+            } else {
+                placeholder.complete(value);
+            }
+        });
+        return placeholder;
+    }
+
+    /**
+     * 淘汰早于 headBlock - retainBlocks + 1 的整代缓存
+     */
+    public void evictBefore(long headBlock) {
+        ConcurrentNavigableMap<Long, Map<Key, CompletableFuture<byte[]>>> stale =
+                generations.headMap(headBlock - Math.max(1, retainBlocks) + 1);
+        if (!stale.isEmpty()) {
+            log.debug("Evicting {} block generation(s) before {}", stale.size(), headBlock);
+            stale.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int getGenerationCount() {
+        return generations.size();
+    }
+}
@@ -0,0 +1,109 @@
+package com.novaswap.service;
+
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * 拆单数量分配
+ * 将amountIn等分为若干份，每一份分给当前边际输出最大的路径。各路径两两不共用池子，
+ * 单条路径的输出关于输入是凹函数，因此逐份贪心分配即为该粒度下的最优解（等价于边际价格均衡）
+ */
+public final class SplitAllocator {
+
+    private SplitAllocator() {
+    }
+
+    /**
+     * 分配结果：allocations[i]为第i条路径的输入数量，outputs[i]为对应输出
+     */
+    public record Allocation(BigInteger[] allocations, BigInteger[] outputs, BigInteger amountOut, boolean complete) {}
+
+    /**
+     * @param paths 每条路径各跳的{reserveIn, reserveOut}
+     * @param amountIn 总输入
+     * @param chunks 分份数（越大越精细）
+     * @param deadlineNanos System.nanoTime()截止时间；超时后剩余数量整体分给当前边际输出最大的路径
+     */
+    public static Allocation allocate(List<List<BigInteger[]>> paths, BigInteger amountIn, int chunks, long deadlineNanos) {
+        int count = paths.size();
+        BigInteger[] allocations = new BigInteger[count];
+        BigInteger[] outputs = new BigInteger[count];
+        for (int i = 0; i < count; i++) {
+            allocations[i] = BigInteger.ZERO;
+            outputs[i] = BigInteger.ZERO;
+        }
+        if (count == 0 || amountIn.signum() <= 0) {
+            return new Allocation(allocations, outputs, BigInteger.ZERO, true);
+        }
+
+        int parts = Math.max(1, chunks);
+        BigInteger chunk = amountIn.divide(BigInteger.valueOf(parts));
+        if (chunk.signum() == 0) {
+            chunk = amountIn;
+            parts = 1;
+        }
+        BigInteger remaining = amountIn;
+
+        // 每条路径再加一份后的输出；只有被选中的路径需要重新计算
+        BigInteger[] next = new BigInteger[count];
+        AmmMath.Scratch math = new AmmMath.Scratch();
+        BigInteger nextChunk = null;
+        boolean complete = true;
+        for (int part = 0; part < parts; part++) {
+            boolean last = part == parts - 1;
+            if (!last && System.nanoTime() > deadlineNanos) {
+                last = true;
+                complete = false;
+            }
+            BigInteger step = last ? remaining : chunk;
+            if (!step.equals(nextChunk)) {
+                for (int i = 0; i < count; i++) {
+                    next[i] = pathOutput(paths.get(i), allocations[i].add(step), math);
+                }
+                nextChunk = step;
+            }
+
+            int best = 0;
+            BigInteger bestGain = null;
+            for (int i = 0; i < count; i++) {
+                BigInteger gain = next[i].subtract(outputs[i]);
+                if (bestGain == null || gain.compareTo(bestGain) > 0) {
+                    best = i;
+                    bestGain = gain;
+                }
+            }
+
+            allocations[best] = allocations[best].add(step);
+            outputs[best] = next[best];
+            remaining = remaining.subtract(step);
+            if (last) {
+                break;
+            }
+            next[best] = pathOutput(paths.get(best), allocations[best].add(step), math);
+        }
+
+        BigInteger amountOut = BigInteger.ZERO;
+        for (BigInteger output : outputs) {
+            amountOut = amountOut.add(output);
+        }
+        return new Allocation(allocations, outputs, amountOut, complete);
+    }
+
+    /**
+     * 沿路径逐跳计算输出
+     */
+    public static BigInteger pathOutput(List<BigInteger[]> hops, BigInteger amountIn) {
+        return pathOutput(hops, amountIn, new AmmMath.Scratch());
+    }
+
+    static BigInteger pathOutput(List<BigInteger[]> hops, BigInteger amountIn, AmmMath.Scratch math) {
+        BigInteger amount = amountIn;
+        for (BigInteger[] reserves : hops) {
+            if (amount.signum() <= 0) {
+                return BigInteger.ZERO;
+            }
+            amount = AmmMath.getAmountOut(amount, reserves[0], reserves[1], math);
+        }
+        return amount;
+    }
+}
@@ -0,0 +1,302 @@
+package com.novaswap.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaswap.config.ContractProperties;
+import com.novaswap.model.MulticallRequest;
+import com.novaswap.model.MulticallResult;
+import com.novaswap.rpc.ChainClientRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 代币元数据（name/symbol/decimals）存储
+ * 元数据部署后不会变化：未知代币按批用一次multicall读取，结果追加写入本地文件（每行一个JSON，每条链一个文件），
+ * 主链启动时加载，其他链在首次查询时加载。name或symbol读取失败时以占位值只保存在内存中，重启后重新读取
+ */
+@Slf4j
+@Service
+public class TokenMetadataService {
+
+    public record TokenMetadata(String address, String name, String symbol, int decimals) {}
+
+    // name() / symbol() / decimals() 选择器
+    private static final byte[] NAME_CALL = Numeric.hexStringToByteArray("0x06fdde03");
+    private static final byte[] SYMBOL_CALL = Numeric.hexStringToByteArray("0x95d89b41");
+    private static final byte[] DECIMALS_CALL = Numeric.hexStringToByteArray("0x313ce567");
+
+    private static final String UNKNOWN_NAME = "Unknown";
+    private static final String UNKNOWN_SYMBOL = "???";
+
+    private final ChainClientRegistry chainClientRegistry;
+    private final ContractProperties contractProperties;
+    private final ObjectMapper objectMapper;
+
+    // chainId -> (小写地址 -> 元数据)
+    private final Map<Long, Map<String, TokenMetadata>> stores = new ConcurrentHashMap<>();
+    // 正在读取的代币（key = chainId:地址），并发请求同一代币时共用一次multicall
+    private final Map<String, CompletableFuture<Optional<TokenMetadata>>> inflight = new ConcurrentHashMap<>();
+
+    @Value("${novaswap.tokens.dataDir:data}")
+    private String dataDir;
+
+    @Value("${novaswap.tokens.warmup:}")
+    private List<String> warmupTokens;
+
+    public TokenMetadataService(
+            ChainClientRegistry chainClientRegistry,
+            ContractProperties contractProperties,
+            ObjectMapper objectMapper) {
+        this.chainClientRegistry = chainClientRegistry;
+        this.contractProperties = contractProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 启动时加载本地元数据，并在后台预取配置的常用代币
+     */
+    @PostConstruct
+    public void load() {
+        long chainId = chainClientRegistry.getPrimaryChainId();
+        log.info("Token metadata loaded: {} tokens", store(chainId).size());
+
+        List<String> warmup = new ArrayList<>();
+        if (warmupTokens != null) {
+            warmupTokens.stream().map(String::trim).filter(token -> !token.isEmpty()).forEach(warmup::add);
+        }
+        if (contractProperties.getWeth() != null && contractProperties.getWeth().startsWith("0x")
+                && contractProperties.getWeth().length() == 42) {
+            warmup.add(contractProperties.getWeth());
+        }
+        if (!warmup.isEmpty()) {
+            getMetadataAsync(chainId, warmup).exceptionally(e -> {
+                log.warn("Token metadata warm-up failed: {}", e.getMessage());
+                return Map.of();
+            });
+        }
+    }
+
+    /**
+     * 单个代币的元数据；读取失败时返回empty
+     */
+    public Optional<TokenMetadata> getMetadata(String tokenAddress) {
+        return Optional.ofNullable(getMetadata(List.of(tokenAddress)).get(normalize(tokenAddress)));
+    }
+
+    /**
+     * 批量获取元数据，key为小写地址；读取失败的代币不在结果中
+     */
+    public Map<String, TokenMetadata> getMetadata(List<String> tokenAddresses) {
+        return getMetadataAsync(tokenAddresses).join();
+    }
+
+    public CompletableFuture<Map<String, TokenMetadata>> getMetadataAsync(List<String> tokenAddresses) {
+        return getMetadataAsync(chainClientRegistry.getPrimaryChainId(), tokenAddresses);
+    }
+
+    /**
+     * 已缓存的直接返回，其余代币合并为一次multicall（每个代币3个调用）
+     */
+    public CompletableFuture<Map<String, TokenMetadata>> getMetadataAsync(long chainId, List<String> tokenAddresses) {
+        Map<String, TokenMetadata> metadata = store(chainId);
+        Map<String, TokenMetadata> result = new HashMap<>();
+        Map<String, CompletableFuture<Optional<TokenMetadata>>> pending = new HashMap<>();
+        List<String> toFetch = new ArrayList<>();
+
+        for (String token : new LinkedHashSet<>(tokenAddresses)) {
+            String address = normalize(token);
+            TokenMetadata known = metadata.get(address);
+            if (known != null) {
+                result.put(address, known);
+                continue;
+            }
+            if (pending.containsKey(address)) {
+                continue;
+            }
+            CompletableFuture<Optional<TokenMetadata>> created = new CompletableFuture<>();
+            CompletableFuture<Optional<TokenMetadata>> existing = inflight.putIfAbsent(chainId + ":" + address, created);
+            if (existing != null) {
+                pending.put(address, existing);
+            } else {
+                pending.put(address, created);
+                toFetch.add(address);
+            }
+        }
+        if (pending.isEmpty()) {
+            return CompletableFuture.completedFuture(result);
+        }
+
+        if (!toFetch.isEmpty()) {
+            CompletableFuture<Map<String, TokenMetadata>> fetching;
+            try {
+                fetching = fetch(chainId, toFetch);
+            } catch (RuntimeException e) {
+                fetching = CompletableFuture.failedFuture(e);
+            }
+            fetching.whenComplete((fetched, error) -> {
+                for (String address : toFetch) {
+                    CompletableFuture<Optional<TokenMetadata>> future = inflight.remove(chainId + ":" + address);
+                    if (future == null) {
+                        continue;
+                    }
+                    if (error != null) {
+                        future.completeExceptionally(error);
+                    } else {
+                        future.complete(Optional.ofNullable(fetched.get(address)));
+                    }
+                }
+            });
+        }
+
+        return CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+            .thenApply(ignored -> {
+                pending.forEach((address, future) -> future.join().ifPresent(token -> result.put(address, token)));
+                return result;
+            });
+    }
+
+    public int getCachedCount() {
+        return store(chainClientRegistry.getPrimaryChainId()).size();
+    }
+
+    private CompletableFuture<Map<String, TokenMetadata>> fetch(long chainId, List<String> addresses) {
+        List<MulticallRequest> calls = new ArrayList<>(addresses.size() * 3);
+        for (String address : addresses) {
+            calls.add(MulticallRequest.builder().target(address).callData(NAME_CALL).allowFailure(true).build());
+            calls.add(MulticallRequest.builder().target(address).callData(SYMBOL_CALL).allowFailure(true).build());
+            calls.add(MulticallRequest.builder().target(address).callData(DECIMALS_CALL).allowFailure(true).build());
+        }
+        log.debug("Fetching metadata for {} tokens via multicall", addresses.size());
+
+        Map<String, TokenMetadata> metadata = store(chainId);
+        MulticallService multicallService = chainClientRegistry.getClient(chainId).getMulticallService();
+        return multicallService.aggregate3(calls).thenApply(results -> {
+            Map<String, TokenMetadata> fetched = new HashMap<>();
+            // multicall整体失败时返回空列表：本批代币都算读取失败，只返回期间已被其他请求缓存的
+            if (results.size() != calls.size()) {
+                log.warn("Token metadata multicall returned {} results for {} calls", results.size(), calls.size());
+                for (String address : addresses) {
+                    TokenMetadata known = metadata.get(address);
+                    if (known != null) {
+                        fetched.put(address, known);
+                    }
+                }
+                return fetched;
+            }
+            List<TokenMetadata> fresh = new ArrayList<>();
+            for (int i = 0; i < addresses.size(); i++) {
+                String address = addresses.get(i);
+                BigInteger decimals = results.get(i * 3 + 2).isSuccess()
+                    ? MulticallDecoder.decodeUint256(results.get(i * 3 + 2).getReturnData(), 0)
+                    : null;
+                // decimals()失败说明不是ERC20（或尚未部署），不写入存储，下次仍会重新读取
+                if (decimals == null || decimals.bitLength() > 8) {
+                    log.warn("Failed to read decimals for token {}", address);
+                    continue;
+                }
+                String name = decodeText(results.get(i * 3));
+                String symbol = decodeText(results.get(i * 3 + 1));
+                TokenMetadata token = new TokenMetadata(
+                    address,
+                    name != null ? name : UNKNOWN_NAME,
+                    symbol != null ? symbol : UNKNOWN_SYMBOL,
+                    decimals.intValue());
+                fetched.put(address, token);
+                // 占位值可能只是节点的临时失败，不写入文件
+                if (metadata.putIfAbsent(address, token) == null && name != null && symbol != null) {
+                    fresh.add(token);
+                }
+            }
+            persist(chainId, fresh);
+            return fetched;
+        });
+    }
+
+    /**
+     * 某条链的元数据，首次访问时从本地文件加载
+     */
+    private Map<String, TokenMetadata> store(long chainId) {
+        return stores.computeIfAbsent(chainId, id -> {
+            Map<String, TokenMetadata> metadata = new ConcurrentHashMap<>();
+            Path metadataFile = metadataFile(id);
+            if (Files.exists(metadataFile)) {
+                try (var lines = Files.lines(metadataFile, StandardCharsets.UTF_8)) {
+                    lines.map(this::parseLine)
+                        .flatMap(Optional::stream)
+                        .forEach(token -> metadata.put(token.address(), token));
+                } catch (IOException e) {
+                    log.error("Failed to load token metadata from {}", metadataFile, e);
+                }
+            }
+            return metadata;
+        });
+    }
+
+    private Path metadataFile(long chainId) {
+        return Paths.get(dataDir).resolve("token-metadata-" + chainId + ".jsonl");
+    }
+
+    private synchronized void persist(long chainId, List<TokenMetadata> tokens) {
+        if (tokens.isEmpty()) {
+            return;
+        }
+        Path metadataFile = metadataFile(chainId);
+        try {
+            List<String> lines = new ArrayList<>(tokens.size());
+            for (TokenMetadata token : tokens) {
+                lines.add(objectMapper.writeValueAsString(token));
+            }
+            Files.createDirectories(metadataFile.toAbsolutePath().getParent());
+            Files.write(metadataFile, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.error("Failed to persist token metadata to {}", metadataFile, e);
+        }
+    }
+
+    private Optional<TokenMetadata> parseLine(String line) {
+        if (line.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            TokenMetadata token = objectMapper.readValue(line, TokenMetadata.class);
+            return Optional.of(new TokenMetadata(normalize(token.address()), token.name(), token.symbol(), token.decimals()));
+        } catch (IOException e) {
+            log.warn("Skipping malformed token metadata line: {}", line);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * 调用失败或返回值无法解码时返回null
+     */
+    private static String decodeText(MulticallResult result) {
+        if (!result.isSuccess()) {
+            return null;
+        }
+        String text = MulticallDecoder.decodeString(result.getReturnData());
+        return text == null || text.isEmpty() ? null : text;
+    }
+
+    private static String normalize(String address) {
+        return address.toLowerCase(Locale.ROOT);
+    }
+}
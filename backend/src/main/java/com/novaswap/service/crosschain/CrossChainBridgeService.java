@@ -2,12 +2,14 @@ package com.novaswap.service.crosschain;
 
 import com.novaswap.model.crosschain.CrossChainRoute;
 import com.novaswap.model.crosschain.CrossChainTransaction;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * 跨链桥接主服务
@@ -15,13 +17,27 @@ import java.util.concurrent.CompletableFuture;
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class CrossChainBridgeService {
 
     private final CrossChainRouteService routeService;
     private final CrossChainFeeService feeService;
     private final CrossChainTransactionService transactionService;
     private final ZetaChainService zetaChainService;
+    // 有界执行器（ExecutorConfig.bridgeExecutor）：流程中的等待和重试不占用公共ForkJoinPool
+    private final Executor bridgeExecutor;
+
+    public CrossChainBridgeService(
+            CrossChainRouteService routeService,
+            CrossChainFeeService feeService,
+            CrossChainTransactionService transactionService,
+            ZetaChainService zetaChainService,
+            @Qualifier("bridgeExecutor") Executor bridgeExecutor) {
+        this.routeService = routeService;
+        this.feeService = feeService;
+        this.transactionService = transactionService;
+        this.zetaChainService = zetaChainService;
+        this.bridgeExecutor = bridgeExecutor;
+    }
     
     private static final int MAX_RETRY_ATTEMPTS = 3;
     private static final long RETRY_DELAY_MS = 5000;
@@ -55,18 +71,23 @@ public class CrossChainBridgeService {
         
         log.info("Starting cross-chain swap for transaction: {}", transaction.getTransactionId());
         
-        // 异步执行跨链流程
-        CompletableFuture.runAsync(() -> {
-            try {
-                executeSwapFlow(transaction, route, slippagePercent);
-            } catch (Exception e) {
-                log.error("Error executing cross-chain swap: {}", e.getMessage(), e);
-                transactionService.failTransaction(
-                        transaction.getTransactionId(),
-                        "Execution error: " + e.getMessage()
-                );
-            }
-        });
+        // 异步执行跨链流程；执行器已满时直接拒绝，不无限排队
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    executeSwapFlow(transaction, route, slippagePercent);
+                } catch (Exception e) {
+                    log.error("Error executing cross-chain swap: {}", e.getMessage(), e);
+                    transactionService.failTransaction(
+                            transaction.getTransactionId(),
+                            "Execution error: " + e.getMessage()
+                    );
+                }
+            }, bridgeExecutor);
+        } catch (RejectedExecutionException e) {
+            transactionService.failTransaction(transaction.getTransactionId(), "Too many cross-chain swaps in progress");
+            throw new IllegalStateException("Too many cross-chain swaps in progress, try again later");
+        }
         
         return transaction.getTransactionId();
     }
@@ -285,23 +306,28 @@ public class CrossChainBridgeService {
         transactionService.retryTransaction(transactionId);
         
         // 重新执行交易（简化版本）
-        CompletableFuture.runAsync(() -> {
-            try {
-                // 从桥接步骤重试
-                CompletableFuture<String> messageFuture = zetaChainService.sendCrossChainMessage(
-                        transaction.getSourceChainId(),
-                        transaction.getTargetChainId(),
-                        "" // 需要重建桥接数据
-                );
-                String messageId = messageFuture.join();
-                transactionService.updateBridgeMessageId(transactionId, messageId);
-                
-            } catch (Exception e) {
-                log.error("Retry failed for transaction {}: {}",
-                        transactionId, e.getMessage());
-                transactionService.failTransaction(transactionId, "Retry failed: " + e.getMessage());
-            }
-        });
+        try {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    // 从桥接步骤重试
+                    CompletableFuture<String> messageFuture = zetaChainService.sendCrossChainMessage(
+                            transaction.getSourceChainId(),
+                            transaction.getTargetChainId(),
+                            "" // 需要重建桥接数据
+                    );
+                    String messageId = messageFuture.join();
+                    transactionService.updateBridgeMessageId(transactionId, messageId);
+                    
+                } catch (Exception e) {
+                    log.error("Retry failed for transaction {}: {}",
+                            transactionId, e.getMessage());
+                    transactionService.failTransaction(transactionId, "Retry failed: " + e.getMessage());
+                }
+            }, bridgeExecutor);
+        } catch (RejectedExecutionException e) {
+            transactionService.failTransaction(transactionId, "Too many cross-chain swaps in progress");
+            throw new IllegalStateException("Too many cross-chain swaps in progress, try again later");
+        }
     }
 
     /**
@@ -0,0 +1,190 @@
+package com.novaswap.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaswap.api.dto.BatchQuoteRequest;
+import com.novaswap.api.dto.RouteSearchRequest;
+import com.novaswap.exception.GlobalExceptionHandler;
+import com.novaswap.model.RouteInfo;
+import com.novaswap.model.SplitRouteInfo;
+import com.novaswap.rpc.ChainClientRegistry;
+import com.novaswap.service.RouteSearchService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 批量报价的NDJSON输出：任何一行出错都只写index和error，其余行照常输出；
+ * 只支持主链的端点收到其他链的chainId时返回400；exact-output和拆单路由异步返回
+ */
+class RouteControllerTest {
+
+    private static final long PRIMARY_CHAIN_ID = 1L;
+    private static final long ARBITRUM = 42161L;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RouteSearchService routeSearchService;
+    private RouteController controller;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        routeSearchService = mock(RouteSearchService.class);
+        ChainClientRegistry chainClientRegistry = mock(ChainClientRegistry.class);
+        when(chainClientRegistry.getPrimaryChainId()).thenReturn(PRIMARY_CHAIN_ID);
+        when(chainClientRegistry.isPrimary(any())).thenAnswer(invocation -> {
+            Long chainId = invocation.getArgument(0);
+            return chainId == null || chainId == PRIMARY_CHAIN_ID;
+        });
+        controller = new RouteController(routeSearchService, null, null, objectMapper, chainClientRegistry);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @Test
+    void writesErrorLineForEveryKindOfFailure() throws Exception {
+        RouteInfo route = new RouteInfo(List.of("0xa", "0xb"), BigInteger.valueOf(990), BigInteger.valueOf(985),
+            new BigDecimal("0.1"), new BigInteger[]{BigInteger.TEN, BigInteger.TEN}, true, 1);
+        CompletableFuture<RouteInfo> cancelled = new CompletableFuture<>();
+        cancelled.cancel(true);
+        // amountOut为空，转换成报价时抛出NullPointerException
+        RouteInfo broken = new RouteInfo();
+
+        when(routeSearchService.findBestRoutes(anyList())).thenReturn(List.of(
+            CompletableFuture.completedFuture(route),
+            CompletableFuture.failedFuture(new RuntimeException("No available route found")),
+            cancelled,
+            CompletableFuture.completedFuture(broken),
+            CompletableFuture.completedFuture(route)
+        ));
+
+        List<JsonNode> lines = stream(controller.getSwapQuotes(batch(5)));
+
+        assertEquals(5, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i, lines.get(i).get("index").asInt());
+        }
+        assertEquals("990", lines.get(0).get("amountOut").asText());
+        assertFalse(lines.get(0).has("error"));
+        assertEquals("No available route found", lines.get(1).get("error").asText());
+        assertEquals("CancellationException", lines.get(2).get("error").asText());
+        assertTrue(lines.get(3).has("error"));
+        assertFalse(lines.get(3).has("amountOut"));
+        assertEquals("990", lines.get(4).get("amountOut").asText());
+    }
+
+    @Test
+    void rejectsNonPrimaryChainInBatchQuote() throws Exception {
+        String body = "{\"quotes\":[" + quoteJson(null) + "," + quoteJson(ARBITRUM) + "]}";
+
+        mockMvc.perform(post("/api/route/quote/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.type").value("INVALID_ARGUMENT"));
+        verifyNoInteractions(routeSearchService);
+    }
+
+    @Test
+    void rejectsNonPrimaryChainInSplitRoute() throws Exception {
+        mockMvc.perform(post("/api/route/split").contentType(MediaType.APPLICATION_JSON).content(quoteJson(ARBITRUM)))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.type").value("INVALID_ARGUMENT"));
+        verifyNoInteractions(routeSearchService);
+    }
+
+    @Test
+    void acceptsExplicitPrimaryChainInBatchQuote() throws Exception {
+        when(routeSearchService.findBestRoutes(anyList())).thenReturn(List.of(
+            CompletableFuture.failedFuture(new RuntimeException("No available route found"))));
+
+        mockMvc.perform(post("/api/route/quote/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"quotes\":[" + quoteJson(PRIMARY_CHAIN_ID) + "]}"))
+            .andExpect(status().isOk());
+        verify(routeSearchService).findBestRoutes(anyList());
+    }
+
+    @Test
+    void returnsSplitRouteWhenSearchCompletes() throws Exception {
+        CompletableFuture<SplitRouteInfo> pending = new CompletableFuture<>();
+        when(routeSearchService.findSplitRouteAsync(any(), any(), any(), anyDouble(), any())).thenReturn(pending);
+
+        MvcResult result = mockMvc.perform(post("/api/route/split").contentType(MediaType.APPLICATION_JSON).content(quoteJson(null)))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        // 请求线程已经返回，搜索完成后才写出响应
+        pending.complete(new SplitRouteInfo(BigInteger.valueOf(1000), BigInteger.valueOf(990), BigInteger.valueOf(985),
+            new BigDecimal("0.1"), BigInteger.valueOf(980), List.of(), true));
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.amountOut").value(990))
+            .andExpect(jsonPath("$.complete").value(true));
+    }
+
+    @Test
+    void reportsExactOutputSearchFailureAsynchronously() throws Exception {
+        when(routeSearchService.findBestRouteExactOutAsync(any(), any(), any(), anyDouble(), any()))
+            .thenReturn(CompletableFuture.supplyAsync(() -> {
+                throw new RuntimeException("No available route found");
+            }));
+
+        MvcResult result = mockMvc.perform(post("/api/route/exact-out").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tokenIn\":\"0xa\",\"tokenOut\":\"0xb\",\"amountOut\":1000}"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isInternalServerError())
+            .andExpect(jsonPath("$.type").value("NO_ROUTE_FOUND"));
+    }
+
+    private static String quoteJson(Long chainId) {
+        return "{\"tokenIn\":\"0xa\",\"tokenOut\":\"0xb\",\"amountIn\":1000"
+            + (chainId != null ? ",\"chainId\":" + chainId : "") + "}";
+    }
+
+    private List<JsonNode> stream(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static BatchQuoteRequest batch(int size) {
+        List<RouteSearchRequest> quotes = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            RouteSearchRequest quote = new RouteSearchRequest();
+            quote.setTokenIn("0xa");
+            quote.setTokenOut("0xb");
+            quote.setAmountIn(BigInteger.valueOf(1000));
+            quotes.add(quote);
+        }
+        BatchQuoteRequest request = new BatchQuoteRequest();
+        request.setQuotes(quotes);
+        return request;
+    }
+}
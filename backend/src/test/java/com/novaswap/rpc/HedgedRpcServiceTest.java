@@ -0,0 +1,231 @@
+package com.novaswap.rpc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaswap.config.RpcProperties;
+import com.sun.net.httpserver.HttpServer;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用JDK自带的HttpServer在本地模拟RPC节点，验证故障转移、对冲和JSON-RPC错误切换
+ */
+class HedgedRpcServiceTest {
+
+    private static final String REQUEST = "{\"jsonrpc\":\"2.0\",\"id\":1,\"method\":\"eth_blockNumber\",\"params\":[]}";
+    private static final String RESULT = "{\"jsonrpc\":\"2.0\",\"id\":1,\"result\":\"0x10\"}";
+    private static final String HEADER_NOT_FOUND = "{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32000,\"message\":\"header not found\"}}";
+    private static final String RATE_LIMITED = "{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":429,\"message\":\"Too Many Requests\"}}";
+    private static final String REVERTED = "{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":3,\"message\":\"execution reverted\"}}";
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private ExecutorService serverExecutor;
+    private OkHttpClient client;
+    private HedgedRpcService rpcService;
+
+    @BeforeEach
+    void setUp() {
+        serverExecutor = Executors.newCachedThreadPool();
+        client = new OkHttpClient.Builder().readTimeout(10, TimeUnit.SECONDS).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (rpcService != null) {
+            rpcService.close();
+        }
+        servers.forEach(server -> server.stop(0));
+        serverExecutor.shutdownNow();
+        client.dispatcher().executorService().shutdownNow();
+        client.connectionPool().evictAll();
+    }
+
+    @Test
+    void failsOverFromDownEndpoint() throws Exception {
+        String down = downUrl();
+        AtomicInteger hits = new AtomicInteger();
+        String healthy = stub(0, RESULT, hits);
+        rpcService = create(List.of(down, healthy), properties());
+
+        byte[] body = rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(RESULT, text(body));
+        assertEquals(1, hits.get());
+        Map<String, Object> downStats = rpcService.getEndpointStats().get(0);
+        assertEquals(1L, downStats.get("failures"));
+    }
+
+    @Test
+    void failsWhenAllEndpointsAreDown() throws Exception {
+        rpcService = create(List.of(downUrl(), downUrl()), properties());
+
+        Exception error = assertThrows(Exception.class,
+            () -> rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IOException.class, error.getCause());
+    }
+
+    @Test
+    void hedgesSlowEndpoint() throws Exception {
+        AtomicInteger slowHits = new AtomicInteger();
+        AtomicInteger fastHits = new AtomicInteger();
+        String slow = stub(3_000, RESULT, slowHits);
+        String fast = stub(0, RESULT, fastHits);
+        RpcProperties properties = properties();
+        properties.setHedgeInitialDelayMs(100);
+        rpcService = create(List.of(slow, fast), properties);
+
+        long start = System.nanoTime();
+        byte[] body = rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(RESULT, text(body));
+        assertTrue(elapsedMs < 2_000, "hedged request should not wait for the slow endpoint, took " + elapsedMs + "ms");
+        assertEquals(1, slowHits.get());
+        assertEquals(1, fastHits.get());
+        Map<String, Object> fastStats = rpcService.getEndpointStats().get(1);
+        assertEquals(1L, fastStats.get("hedges"));
+        assertEquals(1L, fastStats.get("wins"));
+    }
+
+    @Test
+    void doesNotHedgeWhenDisabled() throws Exception {
+        AtomicInteger fastHits = new AtomicInteger();
+        String slow = stub(300, RESULT, new AtomicInteger());
+        String fast = stub(0, RESULT, fastHits);
+        RpcProperties properties = properties();
+        properties.setHedgeEnabled(false);
+        rpcService = create(List.of(slow, fast), properties);
+
+        assertEquals(RESULT, text(rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS)));
+        assertEquals(0, fastHits.get());
+    }
+
+    @Test
+    void failsOverOnRetryableJsonRpcError() throws Exception {
+        AtomicInteger laggingHits = new AtomicInteger();
+        AtomicInteger healthyHits = new AtomicInteger();
+        String lagging = stub(0, HEADER_NOT_FOUND, laggingHits);
+        String healthy = stub(0, RESULT, healthyHits);
+        rpcService = create(List.of(lagging, healthy), properties());
+
+        byte[] body = rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS);
+
+        assertEquals(RESULT, text(body));
+        assertEquals(1, laggingHits.get());
+        assertEquals(1, healthyHits.get());
+        assertEquals(1L, rpcService.getEndpointStats().get(0).get("failures"));
+    }
+
+    @Test
+    void failsOverOnRateLimitError() throws Exception {
+        String limited = stub(0, RATE_LIMITED, new AtomicInteger());
+        String healthy = stub(0, RESULT, new AtomicInteger());
+        rpcService = create(List.of(limited, healthy), properties());
+
+        assertEquals(RESULT, text(rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void returnsLastErrorBodyWhenEveryEndpointFails() throws Exception {
+        String first = stub(0, HEADER_NOT_FOUND, new AtomicInteger());
+        String second = stub(0, RATE_LIMITED, new AtomicInteger());
+        rpcService = create(List.of(first, second), properties());
+
+        assertEquals(RATE_LIMITED, text(rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS)));
+    }
+
+    @Test
+    void returnsNonRetryableJsonRpcErrorWithoutFailover() throws Exception {
+        AtomicInteger otherHits = new AtomicInteger();
+        String reverting = stub(0, REVERTED, new AtomicInteger());
+        String other = stub(0, RESULT, otherHits);
+        rpcService = create(List.of(reverting, other), properties());
+
+        assertEquals(REVERTED, text(rpcService.executeAsync(bytes(REQUEST)).get(5, TimeUnit.SECONDS)));
+        assertEquals(0, otherHits.get());
+    }
+
+    @Test
+    void classifiesBatchResponses() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        String batch = "[" + RESULT + "," + HEADER_NOT_FOUND.replace("\"id\":1", "\"id\":2") + "]";
+
+        assertNotNull(RpcErrorClassifier.retryableError(objectMapper, bytes(batch)));
+        assertNull(RpcErrorClassifier.retryableError(objectMapper, bytes("[" + RESULT + "," + REVERTED + "]")));
+        assertNull(RpcErrorClassifier.retryableError(objectMapper, bytes(RESULT)));
+        assertNotNull(RpcErrorClassifier.retryableError(objectMapper,
+            bytes("{\"jsonrpc\":\"2.0\",\"id\":1,\"error\":{\"code\":-32000,\"message\":\"missing trie node abc (path )\"}}")));
+    }
+
+    private HedgedRpcService create(List<String> urls, RpcProperties properties) {
+        return new HedgedRpcService(urls, new OkHttpRpcTransport(client), properties);
+    }
+
+    private static RpcProperties properties() {
+        RpcProperties properties = new RpcProperties();
+        properties.setHedgeMinDelayMs(50);
+        properties.setHedgeInitialDelayMs(1_000);
+        return properties;
+    }
+
+    /**
+     * 启动一个本地节点：等待delayMs后以HTTP 200返回固定响应体
+     */
+    private String stub(long delayMs, String response, AtomicInteger hits) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            hits.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(delayMs);
+                byte[] body = bytes(response);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException | IOException e) {
+                // 请求已被对冲取消
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * 一个没有进程监听的本地端口
+     */
+    private static String downUrl() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://127.0.0.1:" + socket.getLocalPort() + "/";
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] body) {
+        return new String(body, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,32 @@
+package com.novaswap.rpc;
+
+import com.novaswap.config.NetworkProperties;
+import com.novaswap.config.RpcProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HTTP参数为0或负数时使用默认值，而不是把非法值交给OkHttp
+ */
+class RpcClientsTest {
+
+    @Test
+    void usesDefaultsForNonPositiveHttpSettings() throws Exception {
+        NetworkProperties.Http http = new NetworkProperties.Http();
+        http.setKeepAliveMs(0);
+        http.setPingIntervalMs(-1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            HedgedRpcService rpcService = assertDoesNotThrow(() -> RpcClients.createRpcService(
+                "http://localhost:8545", List.of(), http, new RpcProperties(), executor));
+            rpcService.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
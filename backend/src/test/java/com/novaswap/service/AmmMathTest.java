@@ -0,0 +1,182 @@
+package com.novaswap.service;
+
+import com.novaswap.contract.RouterService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * AmmMath与RouterService的BigInteger实现逐位对照
+ */
+class AmmMathTest {
+
+    private static final BigInteger TWO_POW_112 = BigInteger.ONE.shiftLeft(112);
+    private static final BigInteger TWO_POW_128 = BigInteger.ONE.shiftLeft(128);
+    private static final BigInteger UINT112_MAX = TWO_POW_112.subtract(BigInteger.ONE);
+    private static final BigInteger UINT128_MAX = TWO_POW_128.subtract(BigInteger.ONE);
+
+    @Test
+    void rejectsZeroInputLikeRouterService() {
+        assertThrows(IllegalArgumentException.class,
+            () -> RouterService.getAmountOut(BigInteger.ZERO, BigInteger.TEN, BigInteger.TEN));
+        assertThrows(IllegalArgumentException.class,
+            () -> AmmMath.getAmountOut(BigInteger.ZERO, BigInteger.TEN, BigInteger.TEN));
+    }
+
+    @Test
+    void matchesRouterServiceOnBoundaryValues() {
+        List<BigInteger> values = boundaryValues();
+        for (BigInteger amountIn : values) {
+            if (amountIn.signum() == 0) {
+                continue;
+            }
+            for (BigInteger reserveIn : values) {
+                for (BigInteger reserveOut : values) {
+                    assertSameAmountOut(amountIn, reserveIn, reserveOut);
+                }
+            }
+        }
+    }
+
+    @Test
+    void matchesRouterServiceOnRandomInputs() {
+        Random random = new Random(20260101L);
+        for (int i = 0; i < 200_000; i++) {
+            BigInteger amountIn = randomPositive(random, 1 + random.nextInt(128));
+            BigInteger reserveIn = randomPositive(random, 1 + random.nextInt(112));
+            BigInteger reserveOut = randomPositive(random, 1 + random.nextInt(112));
+            assertSameAmountOut(amountIn, reserveIn, reserveOut);
+        }
+    }
+
+    @Test
+    void matchesRouterServiceNearUint112Reserves() {
+        Random random = new Random(112L);
+        for (int i = 0; i < 50_000; i++) {
+            BigInteger reserveIn = UINT112_MAX.subtract(BigInteger.valueOf(random.nextInt(1 << 20)));
+            BigInteger reserveOut = UINT112_MAX.subtract(BigInteger.valueOf(random.nextInt(1 << 20)));
+            BigInteger amountIn = randomPositive(random, 1 + random.nextInt(128));
+            assertSameAmountOut(amountIn, reserveIn, reserveOut);
+            assertSameAmountOut(BigInteger.ONE, reserveIn, reserveOut);
+            assertSameAmountOut(UINT128_MAX, reserveIn, reserveOut);
+        }
+    }
+
+    @Test
+    void fallsBackToBigIntegerBeyond128Bits() {
+        Random random = new Random(129L);
+        for (int i = 0; i < 10_000; i++) {
+            BigInteger amountIn = TWO_POW_128.add(randomPositive(random, 1 + random.nextInt(128)));
+            BigInteger reserveIn = randomPositive(random, 1 + random.nextInt(160));
+            BigInteger reserveOut = TWO_POW_128.add(randomPositive(random, 1 + random.nextInt(64)));
+            assertSameAmountOut(amountIn, reserveIn, reserveOut);
+            assertSameAmountOut(BigInteger.ONE, TWO_POW_128, reserveOut);
+        }
+    }
+
+    @Test
+    void amountInRoundTripsThroughAmountOut() {
+        // getAmountIn的输入足以换出目标数量，少1 wei时换出的不会更多
+        Random random = new Random(7L);
+        for (int i = 0; i < 50_000; i++) {
+            BigInteger reserveIn = randomPositive(random, 20 + random.nextInt(93));
+            BigInteger reserveOut = randomPositive(random, 20 + random.nextInt(93));
+            BigInteger amountOut = randomBelow(random, reserveOut);
+            if (amountOut.signum() == 0) {
+                continue;
+            }
+            BigInteger amountIn = RouterService.getAmountIn(amountOut, reserveIn, reserveOut);
+
+            assertTrue(AmmMath.getAmountOut(amountIn, reserveIn, reserveOut).compareTo(amountOut) >= 0);
+            BigInteger smaller = amountIn.subtract(BigInteger.ONE);
+            if (smaller.signum() > 0) {
+                assertTrue(AmmMath.getAmountOut(smaller, reserveIn, reserveOut).compareTo(amountOut) <= 0);
+            }
+        }
+    }
+
+    @Test
+    void rejectsAmountInBeyondReserves() {
+        assertThrows(IllegalArgumentException.class,
+            () -> RouterService.getAmountIn(BigInteger.ZERO, BigInteger.TEN, BigInteger.TEN));
+        assertThrows(IllegalStateException.class,
+            () -> RouterService.getAmountIn(BigInteger.TEN, BigInteger.TEN, BigInteger.TEN));
+        assertThrows(IllegalStateException.class,
+            () -> RouterService.getAmountIn(BigInteger.ONE, BigInteger.ZERO, BigInteger.TEN));
+    }
+
+    @Test
+    void primitiveOverloadMatchesBigIntegerOverload() {
+        Random random = new Random(64L);
+        long[] out = new long[2];
+        AmmMath.Scratch scratch = new AmmMath.Scratch();
+        for (int i = 0; i < 50_000; i++) {
+            BigInteger amountIn = randomPositive(random, 1 + random.nextInt(128));
+            BigInteger reserveIn = randomPositive(random, 1 + random.nextInt(112));
+            BigInteger reserveOut = randomPositive(random, 1 + random.nextInt(112));
+
+            AmmMath.getAmountOut(AmmMath.high(amountIn), amountIn.longValue(),
+                AmmMath.high(reserveIn), reserveIn.longValue(),
+                AmmMath.high(reserveOut), reserveOut.longValue(), out, scratch);
+
+            assertEquals(RouterService.getAmountOut(amountIn, reserveIn, reserveOut), AmmMath.toBigInteger(out[0], out[1]));
+        }
+    }
+
+    @Test
+    void convertsUnsigned128BitValues() {
+        for (BigInteger value : boundaryValues()) {
+            if (!AmmMath.fits128(value)) {
+                continue;
+            }
+            assertEquals(value, AmmMath.toBigInteger(AmmMath.high(value), value.longValue()));
+            double expected = value.doubleValue();
+            assertEquals(expected, AmmMath.toDouble(AmmMath.high(value), value.longValue()), Math.ulp(expected) * 2);
+        }
+        assertFalse(AmmMath.fits128(TWO_POW_128));
+        assertFalse(AmmMath.fits128(BigInteger.ONE.negate()));
+    }
+
+    private static void assertSameAmountOut(BigInteger amountIn, BigInteger reserveIn, BigInteger reserveOut) {
+        BigInteger expected;
+        try {
+            expected = RouterService.getAmountOut(amountIn, reserveIn, reserveOut);
+        } catch (ArithmeticException e) {
+            assertThrows(ArithmeticException.class, () -> AmmMath.getAmountOut(amountIn, reserveIn, reserveOut));
+            return;
+        }
+        assertEquals(expected, AmmMath.getAmountOut(amountIn, reserveIn, reserveOut),
+            () -> "amountIn=" + amountIn + " reserveIn=" + reserveIn + " reserveOut=" + reserveOut);
+    }
+
+    private static List<BigInteger> boundaryValues() {
+        List<BigInteger> values = new ArrayList<>();
+        values.add(BigInteger.ZERO);
+        values.add(BigInteger.ONE);
+        values.add(BigInteger.TWO);
+        values.add(BigInteger.valueOf(997));
+        values.add(BigInteger.valueOf(1000));
+        for (int bits : new int[]{31, 32, 63, 64, 95, 96, 111, 112, 127, 128}) {
+            BigInteger power = BigInteger.ONE.shiftLeft(bits);
+            values.add(power.subtract(BigInteger.ONE));
+            values.add(power);
+            values.add(power.add(BigInteger.ONE));
+        }
+        return values;
+    }
+
+    private static BigInteger randomPositive(Random random, int bits) {
+        BigInteger value = new BigInteger(bits, random);
+        return value.signum() == 0 ? BigInteger.ONE : value;
+    }
+
+    private static BigInteger randomBelow(Random random, BigInteger bound) {
+        BigInteger value = new BigInteger(bound.bitLength(), random);
+        return value.compareTo(bound) < 0 ? value : value.mod(bound);
+    }
+}
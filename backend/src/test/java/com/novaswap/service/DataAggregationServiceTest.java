@@ -0,0 +1,69 @@
+package com.novaswap.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.novaswap.config.CacheConfig;
+import com.novaswap.config.CacheSpecProperties;
+import com.novaswap.model.PoolStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 池统计只保存在有上限的poolStats缓存中，排行从同一个缓存读取
+ */
+class DataAggregationServiceTest {
+
+    private static final int MAX_POOLS = 3;
+
+    private CacheManager cacheManager;
+    private DataAggregationService dataAggregationService;
+
+    @BeforeEach
+    void setUp() {
+        CacheSpecProperties properties = new CacheSpecProperties();
+        properties.getSpecs().put("poolStats", new CacheSpecProperties.Spec(MAX_POOLS, 0));
+        cacheManager = new CacheConfig().cacheManager(properties);
+        dataAggregationService = new DataAggregationService(
+            mock(EventListenerService.class), mock(PairRegistryService.class), mock(ReserveMirrorService.class), cacheManager);
+    }
+
+    @Test
+    void keepsPoolStatsWithinCacheBound() {
+        for (int i = 0; i < 50; i++) {
+            dataAggregationService.getPoolStats(pair(i));
+        }
+        nativeCache().cleanUp();
+
+        assertTrue(dataAggregationService.getAllPoolStats().size() <= MAX_POOLS);
+        assertTrue(dataAggregationService.getTopPoolsByTVL(100).size() <= MAX_POOLS);
+        assertTrue(dataAggregationService.getTopPoolsByVolume(100).size() <= MAX_POOLS);
+    }
+
+    @Test
+    void ranksFromCachedStats() {
+        PoolStats small = dataAggregationService.getPoolStats(pair(0));
+        PoolStats large = dataAggregationService.getPoolStats(pair(1));
+        large.setTvlUsd(small.getTvlUsd().multiply(BigDecimal.TEN));
+
+        assertSame(small, dataAggregationService.getPoolStats(pair(0)));
+        assertEquals(List.of(large, small), dataAggregationService.getTopPoolsByTVL(2));
+        assertEquals(List.of(large), dataAggregationService.getTopPoolsByTVL(1));
+
+        dataAggregationService.clearCache();
+        assertTrue(dataAggregationService.getTopPoolsByVolume(10).isEmpty());
+    }
+
+    private Cache<?, ?> nativeCache() {
+        return (Cache<?, ?>) cacheManager.getCache("poolStats").getNativeCache();
+    }
+
+    private static String pair(int index) {
+        return String.format("0x%040x", 0x1000 + index);
+    }
+}
@@ -0,0 +1,48 @@
+package com.novaswap.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FactoryServiceTest {
+
+    // Uniswap V2 主网工厂及其pair的init code hash
+    private static final String FACTORY = "0x5C69bEe701ef814a2B6a3EDD4B1652CB9cc5aA6f";
+    private static final String INIT_CODE_HASH = "0x96e8ac4277198ff8b6f785478aa9a39f403cb768dd02cbee326c3e7da348845f";
+
+    private static final String WETH = "0xC02aaA39b223FE8D0A0e5C4F27eAD9083C756Cc2";
+    private static final String USDC = "0xA0b86991c6218b36c1d19D4a2e9Eb0cE3606eB48";
+    private static final String DAI = "0x6B175474E89094C44Da98b954EedeAC495271d0F";
+
+    private final FactoryService factoryService = new FactoryService(null, null);
+
+    @Test
+    void calculatesWethUsdcPair() {
+        String expected = "0xB4e16d0168e52d35CaCD2c6185b44281Ec28C9Dc";
+
+        assertTrue(expected.equalsIgnoreCase(factoryService.calculatePairAddress(FACTORY, WETH, USDC, INIT_CODE_HASH)));
+        assertTrue(expected.equalsIgnoreCase(factoryService.calculatePairAddress(FACTORY, USDC, WETH, INIT_CODE_HASH)));
+    }
+
+    @Test
+    void calculatesWethDaiPair() {
+        String expected = "0xA478c2975Ab1Ea89e8196811F51A7B7Ade33Eb11";
+
+        assertTrue(expected.equalsIgnoreCase(factoryService.calculatePairAddress(FACTORY, WETH, DAI, INIT_CODE_HASH)));
+        assertTrue(expected.equalsIgnoreCase(factoryService.calculatePairAddress(FACTORY, DAI, WETH, INIT_CODE_HASH)));
+    }
+
+    @Test
+    void ignoresAddressCase() {
+        assertEquals(
+            factoryService.calculatePairAddress(FACTORY, WETH, USDC, INIT_CODE_HASH),
+            factoryService.calculatePairAddress(FACTORY.toLowerCase(), USDC.toLowerCase(), WETH.toUpperCase().replace("0X", "0x"), INIT_CODE_HASH)
+        );
+    }
+
+    @Test
+    void rejectsMalformedInitCodeHash() {
+        assertThrows(IllegalArgumentException.class,
+            () -> factoryService.calculatePairAddress(FACTORY, WETH, USDC, "0x1234"));
+    }
+}
@@ -0,0 +1,241 @@
+package com.novaswap.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 热门路由表：档位划分、热门晋升和储备变化后的重新评分
+ */
+class HotRouteServiceTest {
+
+    private static final int MIN_REQUESTS = 5;
+    private static final String TOKEN_IN = token(0);
+    private static final String TOKEN_MID = token(1);
+    private static final String TOKEN_OUT = token(2);
+    private static final String DIRECT_PAIR = pair(0);
+    private static final String FIRST_LEG = pair(1);
+    private static final String SECOND_LEG = pair(2);
+
+    private PoolGraphService poolGraphService;
+    private ReserveMirrorService reserveMirrorService;
+    private HotRouteService hotRouteService;
+
+    @BeforeEach
+    void setUp() {
+        poolGraphService = new PoolGraphService();
+        ReflectionTestUtils.setField(poolGraphService, "maxHops", 3);
+        reserveMirrorService = mock(ReserveMirrorService.class);
+        hotRouteService = new HotRouteService(poolGraphService, reserveMirrorService, mock(PairRegistryService.class));
+        ReflectionTestUtils.setField(hotRouteService, "enabled", true);
+        ReflectionTestUtils.setField(hotRouteService, "maxPairs", 50);
+        ReflectionTestUtils.setField(hotRouteService, "minRequests", (long) MIN_REQUESTS);
+        ReflectionTestUtils.setField(hotRouteService, "maxTrackedPairs", 10_000);
+        ReflectionTestUtils.setField(hotRouteService, "bucketBits", 2);
+        ReflectionTestUtils.setField(hotRouteService, "maxBucketsPerPair", 32);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hotRouteService.stop();
+    }
+
+    @Test
+    void mapsAmountsToBucketsAtEdges() {
+        // bucketBits=2：档位b覆盖[4^b, 4^(b+1))
+        assertEquals(0, bucketOf(BigInteger.ONE));
+        assertEquals(0, bucketOf(BigInteger.valueOf(3)));
+        assertEquals(1, bucketOf(BigInteger.valueOf(4)));
+        assertEquals(1, bucketOf(BigInteger.valueOf(15)));
+        assertEquals(2, bucketOf(BigInteger.valueOf(16)));
+        BigInteger edge = BigInteger.ONE.shiftLeft(60);
+        assertEquals(29, bucketOf(edge.subtract(BigInteger.ONE)));
+        assertEquals(30, bucketOf(edge));
+
+        ReflectionTestUtils.setField(hotRouteService, "bucketBits", 3);
+        assertEquals(0, bucketOf(BigInteger.valueOf(7)));
+        assertEquals(1, bucketOf(BigInteger.valueOf(8)));
+    }
+
+    @Test
+    void representativeAmountFallsInsideItsBucket() {
+        for (int bucket = 0; bucket < 40; bucket++) {
+            BigInteger amount = ReflectionTestUtils.invokeMethod(hotRouteService, "representativeAmount", bucket);
+            assertEquals(bucket, bucketOf(amount));
+        }
+    }
+
+    @Test
+    void promotesPairAfterTrafficThreshold() throws Exception {
+        addDirectPool("1000000000000", "1000000000000");
+        BigInteger amountIn = BigInteger.valueOf(1_000_000);
+
+        for (int i = 0; i < MIN_REQUESTS - 1; i++) {
+            assertTrue(hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn).isEmpty());
+        }
+        hotRouteService.promote();
+        assertEquals(0, hotRouteService.getHotPairCount());
+
+        for (int i = 0; i < MIN_REQUESTS; i++) {
+            hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn);
+        }
+        hotRouteService.promote();
+        assertEquals(Map.of(TOKEN_IN + "|" + TOKEN_OUT, 0), hotRouteService.getHotPairs());
+
+        // 首次未命中时后台补算该档位
+        assertTrue(hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn).isEmpty());
+        await(() -> hotRouteService.getBucketCount() == 1);
+        Optional<PoolGraphService.GraphPath> path = hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn);
+        assertTrue(path.isPresent());
+        assertEquals(List.of(DIRECT_PAIR), path.get().pairs());
+        assertEquals(poolGraphService.findBestPath(TOKEN_IN, TOKEN_OUT, amountIn).orElseThrow().amountOut(), path.get().amountOut());
+
+        // 已是热门的交易对只要窗口内仍有请求就保留，没有请求则移出
+        hotRouteService.promote();
+        assertEquals(1, hotRouteService.getHotPairCount());
+        hotRouteService.promote();
+        assertEquals(0, hotRouteService.getHotPairCount());
+    }
+
+    @Test
+    void recomputesHotPathWhenItsPoolChanges() throws Exception {
+        addDirectPool("1000000000000", "1000000000000");
+        addPool(FIRST_LEG, TOKEN_IN, TOKEN_MID, "1000000000000", "1000000000000");
+        addPool(SECOND_LEG, TOKEN_MID, TOKEN_OUT, "1000000000000", "1000000000000");
+        BiConsumer<Long, Set<String>> listener = reserveListener();
+        BigInteger amountIn = BigInteger.valueOf(1_000_000);
+        makeHot(amountIn);
+        assertEquals(List.of(DIRECT_PAIR), hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn).orElseThrow().pairs());
+
+        // 直达池被抽干后两跳路径更优
+        addDirectPool("1000000", "1000000");
+        listener.accept(2L, Set.of(DIRECT_PAIR));
+
+        await(() -> hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn)
+            .map(path -> path.pairs().equals(List.of(FIRST_LEG, SECOND_LEG)))
+            .orElse(false));
+    }
+
+    @Test
+    void ignoresChangesToUnrelatedPools() throws Exception {
+        addDirectPool("1000000000000", "1000000000000");
+        BiConsumer<Long, Set<String>> listener = reserveListener();
+        BigInteger amountIn = BigInteger.valueOf(1_000_000);
+        makeHot(amountIn);
+        long computedAt = hotRoutes().values().iterator().next().computedAt();
+
+        Thread.sleep(5);
+        listener.accept(2L, Set.of(pair(99)));
+        Thread.sleep(100);
+
+        assertEquals(computedAt, hotRoutes().values().iterator().next().computedAt());
+    }
+
+    @Test
+    void normalizesTokenAddresses() {
+        String upperIn = "  " + TOKEN_IN.toUpperCase(Locale.ROOT).replace("0X", "0x") + " ";
+        for (int i = 0; i < MIN_REQUESTS; i++) {
+            hotRouteService.lookup(i % 2 == 0 ? TOKEN_IN : upperIn, TOKEN_OUT, BigInteger.TEN);
+        }
+        hotRouteService.lookup("not-an-address", TOKEN_OUT, BigInteger.TEN);
+        hotRouteService.lookup(TOKEN_IN, TOKEN_IN, BigInteger.TEN);
+
+        assertEquals(Set.of(TOKEN_IN + "|" + TOKEN_OUT), traffic().keySet());
+        hotRouteService.promote();
+        assertEquals(1, hotRouteService.getHotPairCount());
+    }
+
+    @Test
+    void capsTrackedPairs() {
+        ReflectionTestUtils.setField(hotRouteService, "maxTrackedPairs", 2);
+        ReflectionTestUtils.setField(hotRouteService, "maxPairs", 1);
+        for (int i = 0; i < MIN_REQUESTS; i++) {
+            for (int t = 0; t < 4; t++) {
+                hotRouteService.lookup(TOKEN_IN, token(10 + t), BigInteger.TEN);
+            }
+        }
+        assertEquals(Set.of(TOKEN_IN + "|" + token(10), TOKEN_IN + "|" + token(11)), traffic().keySet());
+
+        // 窗口结束后只保留热门交易对的计数器，新交易对重新可以计数
+        hotRouteService.promote();
+        assertEquals(1, hotRouteService.getHotPairCount());
+        assertEquals(1, traffic().size());
+        hotRouteService.lookup(TOKEN_IN, token(13), BigInteger.TEN);
+        assertTrue(traffic().containsKey(TOKEN_IN + "|" + token(13)));
+    }
+
+    private void makeHot(BigInteger amountIn) throws InterruptedException {
+        for (int i = 0; i < MIN_REQUESTS; i++) {
+            hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn);
+        }
+        hotRouteService.promote();
+        hotRouteService.lookup(TOKEN_IN, TOKEN_OUT, amountIn);
+        await(() -> hotRouteService.getBucketCount() == 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BiConsumer<Long, Set<String>> reserveListener() {
+        hotRouteService.start();
+        ArgumentCaptor<BiConsumer<Long, Set<String>>> captor = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(reserveMirrorService).addReserveListener(captor.capture());
+        return captor.getValue();
+    }
+
+    private void addDirectPool(String reserveIn, String reserveOut) {
+        addPool(DIRECT_PAIR, TOKEN_IN, TOKEN_OUT, reserveIn, reserveOut);
+    }
+
+    private void addPool(String pair, String tokenA, String tokenB, String reserveA, String reserveB) {
+        boolean aIsToken0 = tokenA.compareTo(tokenB) < 0;
+        poolGraphService.upsertPool(pair,
+            aIsToken0 ? tokenA : tokenB, aIsToken0 ? tokenB : tokenA,
+            new BigInteger(aIsToken0 ? reserveA : reserveB), new BigInteger(aIsToken0 ? reserveB : reserveA), 1);
+    }
+
+    private int bucketOf(BigInteger amount) {
+        Integer bucket = ReflectionTestUtils.invokeMethod(hotRouteService, "bucketOf", amount);
+        return bucket;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> traffic() {
+        return (Map<String, ?>) ReflectionTestUtils.getField(hotRouteService, "traffic");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Integer, HotRouteService.HotRoute> hotRoutes() {
+        Map<String, ?> hotPairs = (Map<String, ?>) ReflectionTestUtils.getField(hotRouteService, "hotPairs");
+        return (Map<Integer, HotRouteService.HotRoute>) ReflectionTestUtils.getField(hotPairs.values().iterator().next(), "buckets");
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition not met within 5s");
+            Thread.sleep(10);
+        }
+    }
+
+    private static String token(int index) {
+        return String.format("0x%040x", index + 1);
+    }
+
+    private static String pair(int index) {
+        return String.format("0x%040x", 0x1000 + index);
+    }
+}
@@ -0,0 +1,276 @@
+package com.novaswap.service;
+
+import com.novaswap.model.MulticallResult;
+import org.junit.jupiter.api.Test;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.DynamicBytes;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.Uint256;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MulticallDecoderTest {
+
+    /**
+     * aggregate3返回的Result[]，按Multicall3的返回布局逐字记录：
+     * 0 getReserves()成功；1 Router.getAmountsOut(0, path)以Error(string)回滚；
+     * 2 调用EOA成功但returnData为空；3 bytes32形式的symbol()（MKR）；4 自定义错误回滚
+     */
+    private static final String AGGREGATE3_PAYLOAD = "0x"
+        + "0000000000000000000000000000000000000000000000000000000000000020"
+        + "0000000000000000000000000000000000000000000000000000000000000005"
+        + "00000000000000000000000000000000000000000000000000000000000000a0"
+        + "0000000000000000000000000000000000000000000000000000000000000160"
+        + "0000000000000000000000000000000000000000000000000000000000000260"
+        + "00000000000000000000000000000000000000000000000000000000000002c0"
+        + "0000000000000000000000000000000000000000000000000000000000000340"
+        + "0000000000000000000000000000000000000000000000000000000000000001"
+        + "0000000000000000000000000000000000000000000000000000000000000040"
+        + "0000000000000000000000000000000000000000000000000000000000000060"
+        + "00000000000000000000000000000000000000000000000000002b0f3a6e1c9d"
+        + "000000000000000000000000000000000000000000003f1c2e8a1b6d5e4f9a21"
+        + "0000000000000000000000000000000000000000000000000000000066669980"
+        + "0000000000000000000000000000000000000000000000000000000000000000"
+        + "0000000000000000000000000000000000000000000000000000000000000040"
+        + "0000000000000000000000000000000000000000000000000000000000000084"
+        + "08c379a000000000000000000000000000000000000000000000000000000000"
+        + "0000002000000000000000000000000000000000000000000000000000000000"
+        + "0000002b556e697377617056324c6962726172793a20494e5355464649434945"
+        + "4e545f494e5055545f414d4f554e540000000000000000000000000000000000"
+        + "0000000000000000000000000000000000000000000000000000000000000000"
+        + "0000000000000000000000000000000000000000000000000000000000000001"
+        + "0000000000000000000000000000000000000000000000000000000000000040"
+        + "0000000000000000000000000000000000000000000000000000000000000000"
+        + "0000000000000000000000000000000000000000000000000000000000000001"
+        + "0000000000000000000000000000000000000000000000000000000000000040"
+        + "0000000000000000000000000000000000000000000000000000000000000020"
+        + "4d4b520000000000000000000000000000000000000000000000000000000000"
+        + "0000000000000000000000000000000000000000000000000000000000000000"
+        + "0000000000000000000000000000000000000000000000000000000000000040"
+        + "0000000000000000000000000000000000000000000000000000000000000024"
+        + "fb8f41b200000000000000000000000000000000000000000000000000000000"
+        + "0000123400000000000000000000000000000000000000000000000000000000";
+
+    /**
+     * aggregate返回的(uint256 blockNumber, bytes[] returnData)：decimals()和string形式的name()
+     */
+    private static final String AGGREGATE_PAYLOAD = "0x"
+        + "0000000000000000000000000000000000000000000000000000000001312d00"
+        + "0000000000000000000000000000000000000000000000000000000000000040"
+        + "0000000000000000000000000000000000000000000000000000000000000002"
+        + "0000000000000000000000000000000000000000000000000000000000000040"
+        + "0000000000000000000000000000000000000000000000000000000000000080"
+        + "0000000000000000000000000000000000000000000000000000000000000020"
+        + "0000000000000000000000000000000000000000000000000000000000000012"
+        + "0000000000000000000000000000000000000000000000000000000000000060"
+        + "0000000000000000000000000000000000000000000000000000000000000020"
+        + "000000000000000000000000000000000000000000000000000000000000000d"
+        + "5772617070656420457468657200000000000000000000000000000000000000";
+
+    @Test
+    void decodesAggregate3Results() {
+        List<MulticallResult> results = MulticallDecoder.decodeAggregate3(AGGREGATE3_PAYLOAD);
+
+        assertEquals(5, results.size());
+
+        MulticallResult reserves = results.get(0);
+        assertTrue(reserves.isSuccess());
+        assertNull(reserves.getError());
+        assertEquals(96, reserves.getReturnData().length);
+        assertEquals(new BigInteger("2b0f3a6e1c9d", 16), MulticallDecoder.decodeUint256(reserves.getReturnData(), 0));
+        assertEquals(new BigInteger("3f1c2e8a1b6d5e4f9a21", 16), MulticallDecoder.decodeUint256(reserves.getReturnData(), 1));
+        assertEquals(BigInteger.valueOf(1718000000L), MulticallDecoder.decodeUint256(reserves.getReturnData(), 2));
+        assertNull(MulticallDecoder.decodeUint256(reserves.getReturnData(), 3));
+
+        assertEquals("MKR", MulticallDecoder.decodeString(results.get(3).getReturnData()));
+    }
+
+    @Test
+    void decodesErrorStringRevertReason() {
+        MulticallResult reverted = MulticallDecoder.decodeAggregate3(AGGREGATE3_PAYLOAD).get(1);
+
+        assertFalse(reverted.isSuccess());
+        assertEquals("UniswapV2Library: INSUFFICIENT_INPUT_AMOUNT", reverted.getError());
+    }
+
+    @Test
+    void keepsRawDataForCustomErrorRevert() {
+        MulticallResult reverted = MulticallDecoder.decodeAggregate3(AGGREGATE3_PAYLOAD).get(4);
+
+        assertFalse(reverted.isSuccess());
+        assertEquals("0xfb8f41b20000000000000000000000000000000000000000000000000000000000001234", reverted.getError());
+    }
+
+    @Test
+    void decodesEmptyReturnData() {
+        MulticallResult empty = MulticallDecoder.decodeAggregate3(AGGREGATE3_PAYLOAD).get(2);
+
+        assertTrue(empty.isSuccess());
+        assertEquals(0, empty.getReturnData().length);
+        assertNull(MulticallDecoder.decodeUint256(empty.getReturnData(), 0));
+        assertNull(MulticallDecoder.decodeAddress(empty.getReturnData(), 0));
+        assertNull(MulticallDecoder.decodeString(empty.getReturnData()));
+        assertEquals("execution reverted", MulticallDecoder.decodeRevertReason(empty.getReturnData()));
+    }
+
+    @Test
+    void decodesEmptyResultArray() {
+        String payload = "0x"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "0000000000000000000000000000000000000000000000000000000000000000";
+
+        assertTrue(MulticallDecoder.decodeAggregate3(payload).isEmpty());
+    }
+
+    @Test
+    void decodesAggregateResultsLikeWeb3j() {
+        List<byte[]> results = MulticallDecoder.decodeAggregate(AGGREGATE_PAYLOAD);
+        byte[] data = MulticallDecoder.hexToBytes(AGGREGATE_PAYLOAD);
+
+        assertEquals(BigInteger.valueOf(20_000_000L), MulticallDecoder.decodeAggregateBlockNumber(data));
+        assertEquals(2, results.size());
+        assertEquals(BigInteger.valueOf(18), MulticallDecoder.decodeUint256(results.get(0), 0));
+        assertEquals("Wrapped Ether", MulticallDecoder.decodeString(results.get(1)));
+
+        // 与Web3j反射式解码的结果逐字节一致
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        List<Type> expected = FunctionReturnDecoder.decode(AGGREGATE_PAYLOAD, Arrays.asList(
+            (TypeReference) new TypeReference<Uint256>() {},
+            (TypeReference) new TypeReference<DynamicArray<DynamicBytes>>() {}
+        ));
+        assertEquals(expected.get(0).getValue(), MulticallDecoder.decodeAggregateBlockNumber(data));
+        @SuppressWarnings("unchecked")
+        List<DynamicBytes> expectedData = ((DynamicArray<DynamicBytes>) expected.get(1)).getValue();
+        assertEquals(expectedData.size(), results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertArrayEquals(expectedData.get(i).getValue(), results.get(i));
+        }
+    }
+
+    @Test
+    void rejectsTruncatedPayloadsWithoutIndexErrors() {
+        byte[] data = MulticallDecoder.hexToBytes(AGGREGATE3_PAYLOAD);
+        for (int length = 0; length < data.length; length++) {
+            byte[] truncated = Arrays.copyOf(data, length);
+            assertDecodesOrRejects(() -> MulticallDecoder.decodeAggregate3(truncated));
+        }
+
+        byte[] aggregate = MulticallDecoder.hexToBytes(AGGREGATE_PAYLOAD);
+        for (int length = 0; length < aggregate.length; length++) {
+            byte[] truncated = Arrays.copyOf(aggregate, length);
+            assertDecodesOrRejects(() -> MulticallDecoder.decodeAggregate(truncated));
+        }
+    }
+
+    @Test
+    void rejectsOutOfRangeOffsets() {
+        byte[] data = MulticallDecoder.hexToBytes(AGGREGATE3_PAYLOAD);
+
+        // 数组偏移指向数据之外
+        byte[] badArrayOffset = data.clone();
+        badArrayOffset[31] = (byte) 0xff;
+        assertThrows(IllegalArgumentException.class, () -> MulticallDecoder.decodeAggregate3(badArrayOffset));
+
+        // 数组长度远大于数据
+        byte[] badLength = data.clone();
+        badLength[63] = (byte) 0x7f;
+        assertThrows(IllegalArgumentException.class, () -> MulticallDecoder.decodeAggregate3(badLength));
+
+        // 第一个元素的偏移超过int范围
+        byte[] hugeOffset = data.clone();
+        hugeOffset[64] = 1;
+        assertThrows(IllegalArgumentException.class, () -> MulticallDecoder.decodeAggregate3(hugeOffset));
+
+        // 第一个元素returnData的长度超出数据
+        byte[] badBytesLength = data.clone();
+        badBytesLength[9 * 32 + 29] = 0x10;
+        assertThrows(IllegalArgumentException.class, () -> MulticallDecoder.decodeAggregate3(badBytesLength));
+    }
+
+    @Test
+    void randomCorruptionNeverEscapesAsIndexError() {
+        byte[] data = MulticallDecoder.hexToBytes(AGGREGATE3_PAYLOAD);
+        Random random = new Random(42);
+        for (int round = 0; round < 10_000; round++) {
+            byte[] corrupted = data.clone();
+            int flips = 1 + random.nextInt(4);
+            for (int i = 0; i < flips; i++) {
+                corrupted[random.nextInt(corrupted.length)] = (byte) random.nextInt(256);
+            }
+            assertDecodesOrRejects(() -> MulticallDecoder.decodeAggregate3(corrupted));
+        }
+    }
+
+    @Test
+    void decodesBytes32String() {
+        byte[] data = new byte[32];
+        System.arraycopy("MKR".getBytes(), 0, data, 0, 3);
+
+        assertEquals("MKR", MulticallDecoder.decodeString(data));
+        assertEquals("", MulticallDecoder.decodeString(new byte[32]));
+    }
+
+    @Test
+    void decodesDynamicString() {
+        byte[] data = MulticallDecoder.hexToBytes("0x"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "0000000000000000000000000000000000000000000000000000000000000004"
+            + "5745544800000000000000000000000000000000000000000000000000000000");
+
+        assertEquals("WETH", MulticallDecoder.decodeString(data));
+    }
+
+    @Test
+    void returnsNullForMalformedString() {
+        // 偏移越界
+        byte[] badOffset = MulticallDecoder.hexToBytes("0x"
+            + "00000000000000000000000000000000000000000000000000000000000000a0"
+            + "0000000000000000000000000000000000000000000000000000000000000004");
+        assertNull(MulticallDecoder.decodeString(badOffset));
+
+        // 长度超出数据
+        byte[] badLength = MulticallDecoder.hexToBytes("0x"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "0000000000000000000000000000000000000000000000000000000000000040"
+            + "5745544800000000000000000000000000000000000000000000000000000000");
+        assertNull(MulticallDecoder.decodeString(badLength));
+
+        assertNull(MulticallDecoder.decodeString(null));
+        assertNull(MulticallDecoder.decodeString(new byte[31]));
+    }
+
+    @Test
+    void fallsBackToHexForTruncatedErrorString() {
+        byte[] truncated = MulticallDecoder.hexToBytes("0x08c379a0"
+            + "0000000000000000000000000000000000000000000000000000000000000020"
+            + "00000000000000000000000000000000000000000000000000000000000000ff");
+
+        String reason = MulticallDecoder.decodeRevertReason(truncated);
+        assertTrue(reason.startsWith("0x08c379a0"));
+        assertEquals(2 + truncated.length * 2, reason.length());
+    }
+
+    @Test
+    void rejectsInvalidHex() {
+        assertThrows(IllegalArgumentException.class, () -> MulticallDecoder.hexToBytes(null));
+        assertThrows(IllegalArgumentException.class, () -> MulticallDecoder.hexToBytes("0x123"));
+        assertThrows(IllegalArgumentException.class, () -> MulticallDecoder.hexToBytes("0xzz"));
+    }
+
+    private static void assertDecodesOrRejects(Runnable decode) {
+        try {
+            decode.run();
+        } catch (IllegalArgumentException e) {
+            // 预期：格式错误以IllegalArgumentException报告
+        } catch (RuntimeException e) {
+            fail("Unexpected " + e.getClass().getSimpleName() + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.novaswap.service;
+
+import com.novaswap.contract.RouterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PoolGraphServiceTest {
+
+    private static final int MAX_HOPS = 3;
+
+    private PoolGraphService poolGraphService;
+    private final Map<String, BigInteger[]> reserves = new HashMap<>();
+    private final Map<String, List<String>> neighbours = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        poolGraphService = new PoolGraphService();
+        ReflectionTestUtils.setField(poolGraphService, "maxHops", MAX_HOPS);
+    }
+
+    @Test
+    void prefersMultiHopPathWithMoreOutput() {
+        addPool(token(0), token(3), "1000000", "1000000");
+        addPool(token(0), token(1), "1000000000", "1000000000");
+        addPool(token(1), token(3), "1000000000", "1000000000");
+
+        GraphPathResult best = search(token(0), token(3), new BigInteger("100000"));
+
+        assertEquals(List.of(token(0), token(1), token(3)), best.tokens());
+        assertEquals(bruteForceAmountOut(token(0), token(3), new BigInteger("100000")), best.amountOut());
+    }
+
+    @Test
+    void matchesExhaustiveSearchOnRandomGraph() {
+        Random random = new Random(3000L);
+        buildRandomGraph(random, 40, 160);
+
+        for (int i = 0; i < 300; i++) {
+            String tokenIn = token(random.nextInt(40));
+            String tokenOut = token(random.nextInt(40));
+            if (tokenIn.equals(tokenOut)) {
+                continue;
+            }
+            BigInteger amountIn = new BigInteger(1 + random.nextInt(80), random).add(BigInteger.ONE);
+            BigInteger expected = bruteForceAmountOut(tokenIn, tokenOut, amountIn);
+
+            Optional<PoolGraphService.GraphPath> found = poolGraphService.findBestPath(tokenIn, tokenOut, amountIn);
+            if (expected == null) {
+                assertTrue(found.isEmpty());
+                continue;
+            }
+            assertTrue(found.isPresent());
+            assertEquals(expected, found.get().amountOut(), () -> tokenIn + " -> " + tokenOut + " amountIn=" + amountIn);
+            assertEquals(expected, replay(found.get().hopReserves(), amountIn));
+        }
+    }
+
+    @Test
+    void exactOutputMatchesExhaustiveSearchOnRandomGraph() {
+        Random random = new Random(4000L);
+        buildRandomGraph(random, 40, 160);
+
+        for (int i = 0; i < 300; i++) {
+            String tokenIn = token(random.nextInt(40));
+            String tokenOut = token(random.nextInt(40));
+            if (tokenIn.equals(tokenOut)) {
+                continue;
+            }
+            BigInteger amountOut = new BigInteger(1 + random.nextInt(60), random).add(BigInteger.ONE);
+            BigInteger expected = bruteForceAmountIn(tokenIn, tokenOut, amountOut);
+
+            Optional<PoolGraphService.GraphPath> found = poolGraphService.findBestPathExactOut(tokenIn, tokenOut, amountOut);
+            if (expected == null) {
+                assertTrue(found.isEmpty());
+                continue;
+            }
+            assertTrue(found.isPresent());
+            List<BigInteger[]> hops = found.get().hopReserves();
+            BigInteger amountIn = amountOut;
+            for (int h = hops.size() - 1; h >= 0; h--) {
+                amountIn = RouterService.getAmountIn(amountIn, hops.get(h)[0], hops.get(h)[1]);
+            }
+            assertEquals(expected, amountIn, () -> tokenIn + " -> " + tokenOut + " amountOut=" + amountOut);
+        }
+    }
+
+    @Test
+    void keepsSearchingCorrectlyAsTokensAreAdded() {
+        Random random = new Random(5000L);
+        buildRandomGraph(random, 10, 30);
+        BigInteger amountIn = BigInteger.valueOf(1_000_000);
+        assertEquals(bruteForceAmountOut(token(0), token(1), amountIn),
+            poolGraphService.findBestPath(token(0), token(1), amountIn).map(PoolGraphService.GraphPath::amountOut).orElse(null));
+
+        // 新代币使搜索工作区扩容
+        for (int i = 10; i < 200; i++) {
+            addPool(token(i), token(random.nextInt(i)), randomReserve(random), randomReserve(random));
+        }
+        for (int i = 0; i < 100; i++) {
+            String tokenIn = token(random.nextInt(200));
+            String tokenOut = token(random.nextInt(200));
+            if (tokenIn.equals(tokenOut)) {
+                continue;
+            }
+            assertEquals(bruteForceAmountOut(tokenIn, tokenOut, amountIn),
+                poolGraphService.findBestPath(tokenIn, tokenOut, amountIn).map(PoolGraphService.GraphPath::amountOut).orElse(null));
+        }
+    }
+
+    private record GraphPathResult(List<String> tokens, BigInteger amountOut) {}
+
+    private GraphPathResult search(String tokenIn, String tokenOut, BigInteger amountIn) {
+        PoolGraphService.GraphPath path = poolGraphService.findBestPath(tokenIn, tokenOut, amountIn).orElseThrow();
+        return new GraphPathResult(path.tokens(), path.amountOut());
+    }
+
+    @Test
+    void usesMirroredPoolsOnlyWhileMirrorIsLive() throws InterruptedException {
+        ReflectionTestUtils.setField(poolGraphService, "maxReserveAgeMs", 60_000L);
+        BigInteger amountIn = new BigInteger("1000");
+        poolGraphService.upsertMirroredPool("0xmirrored", token(0), token(1), new BigInteger("1000000"), new BigInteger("1000000"), 1);
+        addPool(token(0), token(2), "1000000", "1000000");
+
+        // 未注册镜像状态时被镜像的池子不参与搜索，普通池子仍按maxReserveAgeMs判断
+        assertTrue(poolGraphService.findBestPath(token(0), token(1), amountIn).isEmpty());
+        assertTrue(poolGraphService.findBestPath(token(0), token(2), amountIn).isPresent());
+
+        AtomicBoolean live = new AtomicBoolean(true);
+        poolGraphService.setMirrorLiveness(live::get);
+        ReflectionTestUtils.setField(poolGraphService, "maxReserveAgeMs", 1L);
+        Thread.sleep(5);
+        // 镜像跟上链头时不论储备多久没有变化都可用
+        assertTrue(poolGraphService.findBestPath(token(0), token(1), amountIn).isPresent());
+        assertTrue(poolGraphService.evaluatePath(List.of(token(0), token(1)), List.of("0xmirrored"), amountIn).isPresent());
+        assertTrue(poolGraphService.findBestPath(token(0), token(2), amountIn).isEmpty());
+
+        // 镜像落后或正在回滚重组时即使刚刚写入也不可用
+        live.set(false);
+        poolGraphService.upsertMirroredPool("0xmirrored", token(0), token(1), new BigInteger("1000000"), new BigInteger("2000000"), 2);
+        assertTrue(poolGraphService.findBestPath(token(0), token(1), amountIn).isEmpty());
+        assertTrue(poolGraphService.findBestPathExactOut(token(0), token(1), amountIn).isEmpty());
+        assertTrue(poolGraphService.evaluatePath(List.of(token(0), token(1)), List.of("0xmirrored"), amountIn).isEmpty());
+    }
+
+    private void buildRandomGraph(Random random, int tokenCount, int poolCount) {
+        for (int i = 0; i < poolCount; i++) {
+            int a = random.nextInt(tokenCount);
+            int b = random.nextInt(tokenCount);
+            if (a != b && !reserves.containsKey(key(token(a), token(b)))) {
+                addPool(token(a), token(b), randomReserve(random), randomReserve(random));
+            }
+        }
+    }
+
+    private static String randomReserve(Random random) {
+        return new BigInteger(20 + random.nextInt(80), random).add(BigInteger.ONE).toString();
+    }
+
+    private void addPool(String token0, String token1, String reserve0, String reserve1) {
+        BigInteger r0 = new BigInteger(reserve0);
+        BigInteger r1 = new BigInteger(reserve1);
+        String pair = "0xpair" + reserves.size();
+        poolGraphService.upsertPool(pair, token0, token1, r0, r1, 1);
+        reserves.put(key(token0, token1), new BigInteger[]{r0, r1});
+        reserves.put(key(token1, token0), new BigInteger[]{r1, r0});
+        neighbours.computeIfAbsent(token0, t -> new ArrayList<>()).add(token1);
+        neighbours.computeIfAbsent(token1, t -> new ArrayList<>()).add(token0);
+    }
+
+    /**
+     * 枚举全部不重复经过代币、不超过MAX_HOPS跳的路径，取最大输出
+     */
+    private BigInteger bruteForceAmountOut(String tokenIn, String tokenOut, BigInteger amountIn) {
+        List<String> path = new ArrayList<>(List.of(tokenIn));
+        BigInteger[] best = new BigInteger[1];
+        enumerate(path, tokenOut, candidate -> {
+            BigInteger out = amountIn;
+            for (int i = 0; i + 1 < candidate.size(); i++) {
+                BigInteger[] r = reserves.get(key(candidate.get(i), candidate.get(i + 1)));
+                out = RouterService.getAmountOut(out, r[0], r[1]);
+                if (out.signum() == 0) {
+                    return;
+                }
+            }
+            if (best[0] == null || out.compareTo(best[0]) > 0) {
+                best[0] = out;
+            }
+        });
+        return best[0];
+    }
+
+    private BigInteger bruteForceAmountIn(String tokenIn, String tokenOut, BigInteger amountOut) {
+        List<String> path = new ArrayList<>(List.of(tokenIn));
+        BigInteger[] best = new BigInteger[1];
+        enumerate(path, tokenOut, candidate -> {
+            BigInteger in = amountOut;
+            for (int i = candidate.size() - 2; i >= 0; i--) {
+                BigInteger[] r = reserves.get(key(candidate.get(i), candidate.get(i + 1)));
+                if (in.compareTo(r[1]) >= 0) {
+                    return;
+                }
+                in = RouterService.getAmountIn(in, r[0], r[1]);
+            }
+            if (best[0] == null || in.compareTo(best[0]) < 0) {
+                best[0] = in;
+            }
+        });
+        return best[0];
+    }
+
+    private void enumerate(List<String> path, String target, Consumer<List<String>> visitor) {
+        String last = path.get(path.size() - 1);
+        for (String next : neighbours.getOrDefault(last, List.of())) {
+            if (path.contains(next)) {
+                continue;
+            }
+            path.add(next);
+            if (next.equals(target)) {
+                visitor.accept(path);
+            } else if (path.size() <= MAX_HOPS) {
+                enumerate(path, target, visitor);
+            }
+            path.remove(path.size() - 1);
+        }
+    }
+
+    private static BigInteger replay(List<BigInteger[]> hops, BigInteger amountIn) {
+        BigInteger amount = amountIn;
+        for (BigInteger[] hop : hops) {
+            amount = RouterService.getAmountOut(amount, hop[0], hop[1]);
+        }
+        return amount;
+    }
+
+    private static String key(String tokenA, String tokenB) {
+        return tokenA + ">" + tokenB;
+    }
+
+    private static String token(int index) {
+        return String.format("0x%040x", index + 1);
+    }
+}
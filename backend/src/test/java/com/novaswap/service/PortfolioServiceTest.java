@@ -0,0 +1,95 @@
+package com.novaswap.service;
+
+import com.novaswap.config.MulticallProperties;
+import com.novaswap.model.ChainPortfolio;
+import com.novaswap.model.MulticallResult;
+import com.novaswap.model.Portfolio;
+import com.novaswap.model.TokenBalance;
+import com.novaswap.rpc.ChainClient;
+import com.novaswap.rpc.ChainClientRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.web3j.utils.Numeric;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * 跨链余额：Multicall失败时整条链报错，单个balanceOf失败时该代币标记失败而不是显示为0
+ */
+class PortfolioServiceTest {
+
+    private static final long CHAIN_ID = 1L;
+    private static final String USER = "0x00000000000000000000000000000000000000aa";
+    private static final String GOOD_TOKEN = "0x0000000000000000000000000000000000000001";
+    private static final String BAD_TOKEN = "0x0000000000000000000000000000000000000002";
+
+    private MulticallService multicallService;
+    private PortfolioService portfolioService;
+
+    @BeforeEach
+    void setUp() {
+        multicallService = spy(new MulticallService(null, (String) null, new MulticallProperties()));
+        ChainClient client = mock(ChainClient.class);
+        when(client.getChainId()).thenReturn(CHAIN_ID);
+        when(client.getName()).thenReturn("ethereum");
+        when(client.getMulticallService()).thenReturn(multicallService);
+        ChainClientRegistry chainClientRegistry = mock(ChainClientRegistry.class);
+        when(chainClientRegistry.getClient(CHAIN_ID)).thenReturn(client);
+        TokenMetadataService tokenMetadataService = mock(TokenMetadataService.class);
+        when(tokenMetadataService.getMetadataAsync(anyLong(), anyList())).thenReturn(CompletableFuture.completedFuture(Map.of()));
+
+        BalanceService balanceService = new BalanceService(null, multicallService, null, tokenMetadataService, chainClientRegistry);
+        portfolioService = new PortfolioService(chainClientRegistry, balanceService, tokenMetadataService);
+    }
+
+    @Test
+    void failsChainWhenMulticallReturnsNoResults() {
+        doReturn(CompletableFuture.completedFuture(List.of())).when(multicallService).aggregate3(anyList());
+
+        ChainPortfolio chain = query(List.of(GOOD_TOKEN));
+
+        assertEquals("error", chain.getStatus());
+        assertTrue(chain.getError().startsWith("Multicall balance query failed"), chain.getError());
+        assertTrue(chain.getTokens().isEmpty());
+    }
+
+    @Test
+    void marksFailedBalanceOfInsteadOfReportingZero() {
+        doReturn(CompletableFuture.completedFuture(List.of(
+            new MulticallResult(true, uint(5), null),
+            new MulticallResult(true, uint(42), null),
+            new MulticallResult(false, new byte[0], null)
+        ))).when(multicallService).aggregate3(anyList());
+
+        ChainPortfolio chain = query(List.of(GOOD_TOKEN, BAD_TOKEN));
+
+        assertEquals("ok", chain.getStatus());
+        assertEquals(BigInteger.valueOf(5), chain.getNativeBalance());
+        TokenBalance good = chain.getTokens().get(0);
+        assertEquals(BigInteger.valueOf(42), good.getBalance());
+        assertNull(good.getError());
+        TokenBalance bad = chain.getTokens().get(1);
+        assertEquals(BAD_TOKEN, bad.getTokenAddress());
+        assertNull(bad.getBalance());
+        assertNull(bad.getFormattedBalance());
+        assertEquals("balanceOf call failed", bad.getError());
+    }
+
+    private ChainPortfolio query(List<String> tokens) {
+        Portfolio portfolio = portfolioService.getPortfolioAsync(USER, Map.of(CHAIN_ID, tokens), List.of(CHAIN_ID), 1_000L).join();
+        assertEquals(1, portfolio.getChains().size());
+        return portfolio.getChains().get(0);
+    }
+
+    private static byte[] uint(long value) {
+        return Numeric.toBytesPadded(BigInteger.valueOf(value), 32);
+    }
+}
@@ -0,0 +1,107 @@
+package com.novaswap.service;
+
+import com.novaswap.config.CacheConfig;
+import com.novaswap.config.CacheSpecProperties;
+import com.novaswap.config.Web3Config;
+import com.novaswap.model.RouteInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * 报价缓存在链重组回滚后失效：回滚把储备改回分叉点，区块号比缓存条目的version更低
+ */
+class QuoteCacheServiceTest {
+
+    private static final String TOKEN_IN = "0x0000000000000000000000000000000000000001";
+    private static final String TOKEN_OUT = "0x0000000000000000000000000000000000000002";
+    private static final String PAIR = "0x0000000000000000000000000000000000001000";
+    private static final BigInteger AMOUNT_IN = BigInteger.valueOf(1000);
+
+    private ReserveMirrorService reserveMirrorService;
+    private QuoteCacheService quoteCacheService;
+    private BiConsumer<Long, Set<String>> reserveListener;
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        reserveMirrorService = mock(ReserveMirrorService.class);
+        when(reserveMirrorService.isLive()).thenReturn(true);
+        when(reserveMirrorService.getMirroredBlock()).thenReturn(100L);
+        when(reserveMirrorService.getReserves(anyString()))
+            .thenReturn(Optional.of(new ReserveMirrorService.MirroredReserves(BigInteger.TEN, BigInteger.TEN, 100L)));
+        PoolGraphService poolGraphService = new PoolGraphService();
+        poolGraphService.upsertPool(PAIR, TOKEN_IN, TOKEN_OUT, BigInteger.TEN, BigInteger.TEN, 100L);
+        Web3Config web3Config = mock(Web3Config.class);
+        when(web3Config.getChainId()).thenReturn(1L);
+
+        quoteCacheService = new QuoteCacheService(new CacheConfig().cacheManager(new CacheSpecProperties()),
+            reserveMirrorService, mock(ChainHeadService.class), poolGraphService, web3Config);
+        ReflectionTestUtils.setField(quoteCacheService, "enabled", true);
+        quoteCacheService.start();
+        ArgumentCaptor<BiConsumer<Long, Set<String>>> captor = ArgumentCaptor.forClass(BiConsumer.class);
+        verify(reserveMirrorService).addReserveListener(captor.capture());
+        reserveListener = captor.getValue();
+    }
+
+    @Test
+    void invalidatesEntriesAfterRewind() {
+        quote(CompletableFuture.completedFuture(route()));
+        quote(CompletableFuture.completedFuture(route()));
+        assertEquals(1, computations.get());
+
+        // 回滚到分叉点95：变化区块低于条目的version 100，只能靠回滚计数发现
+        when(reserveMirrorService.getRewindEpoch()).thenReturn(2L);
+        reserveListener.accept(95L, Set.of(PAIR));
+        quote(CompletableFuture.completedFuture(route()));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void doesNotStoreQuoteComputedAcrossRewind() {
+        CompletableFuture<RouteInfo> pending = new CompletableFuture<>();
+        quote(pending);
+        when(reserveMirrorService.getRewindEpoch()).thenReturn(1L);
+        reserveListener.accept(95L, Set.of(PAIR));
+        pending.complete(route());
+        when(reserveMirrorService.getRewindEpoch()).thenReturn(2L);
+
+        quote(CompletableFuture.completedFuture(route()));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void doesNotStoreQuoteStartedDuringRewind() {
+        when(reserveMirrorService.getRewindEpoch()).thenReturn(1L);
+        quote(CompletableFuture.completedFuture(route()));
+        quote(CompletableFuture.completedFuture(route()));
+        assertEquals(2, computations.get());
+    }
+
+    private void quote(CompletableFuture<RouteInfo> result) {
+        quoteCacheService.getOrComputeAsync(TOKEN_IN, TOKEN_OUT, AMOUNT_IN, 0.005, List.of(), () -> {
+            computations.incrementAndGet();
+            return result;
+        });
+    }
+
+    private static RouteInfo route() {
+        return new RouteInfo(List.of(TOKEN_IN, TOKEN_OUT), BigInteger.valueOf(900), BigInteger.valueOf(895),
+            new BigDecimal("0.1"), new BigInteger[]{BigInteger.TEN, BigInteger.TEN}, true, 1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.novaswap.service;
+
+import com.novaswap.model.RouteSplit;
+import com.novaswap.model.SplitRouteInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 拆单路由：候选路径全部来自内存池子图，不涉及链上读取
+ */
+class RouteSearchServiceTest {
+
+    private static final String TOKEN_IN = token(0);
+    private static final String TOKEN_OUT = token(1);
+
+    private PoolGraphService poolGraphService;
+    private RouteSearchService routeSearchService;
+    private int pairCount;
+
+    @BeforeEach
+    void setUp() {
+        poolGraphService = new PoolGraphService();
+        ReflectionTestUtils.setField(poolGraphService, "maxHops", 3);
+        routeSearchService = new RouteSearchService(null, null, poolGraphService, null, null, null, null, null);
+        ReflectionTestUtils.setField(routeSearchService, "splitMaxPaths", 20);
+        ReflectionTestUtils.setField(routeSearchService, "splitChunks", 50);
+        ReflectionTestUtils.setField(routeSearchService, "splitTimeBudgetMs", 50L);
+    }
+
+    @Test
+    void singleCandidateDegradesToPlainRoute() {
+        addPool(TOKEN_IN, TOKEN_OUT, "1000000000000", "2000000000000");
+        BigInteger amountIn = new BigInteger("1000000000");
+
+        SplitRouteInfo split = routeSearchService.findSplitRoute(TOKEN_IN, TOKEN_OUT, amountIn, 0.005, List.of());
+
+        assertEquals(1, split.getSplits().size());
+        RouteSplit only = split.getSplits().get(0);
+        assertEquals(amountIn, only.getAmountIn());
+        assertEquals(List.of(TOKEN_IN, TOKEN_OUT), only.getRoute().getPath());
+        assertEquals(split.getSingleRouteAmountOut(), split.getAmountOut());
+        assertEquals(only.getRoute().getAmountOut(), split.getAmountOut());
+        assertTrue(split.isComplete());
+    }
+
+    @Test
+    void splitOutputIsNeverBelowBestSinglePath() {
+        Random random = new Random(77L);
+        for (int round = 0; round < 50; round++) {
+            setUp();
+            int intermediates = 1 + random.nextInt(10);
+            addPool(TOKEN_IN, TOKEN_OUT, randomReserve(random), randomReserve(random));
+            for (int i = 0; i < intermediates; i++) {
+                String mid = token(2 + i);
+                addPool(TOKEN_IN, mid, randomReserve(random), randomReserve(random));
+                addPool(mid, TOKEN_OUT, randomReserve(random), randomReserve(random));
+            }
+            BigInteger amountIn = new BigInteger(30 + random.nextInt(50), random).add(BigInteger.ONE);
+
+            SplitRouteInfo split = routeSearchService.findSplitRoute(TOKEN_IN, TOKEN_OUT, amountIn, 0.005, List.of());
+
+            assertTrue(split.getAmountOut().compareTo(split.getSingleRouteAmountOut()) >= 0,
+                () -> "split " + split.getAmountOut() + " below single route " + split.getSingleRouteAmountOut());
+            BigInteger allocated = split.getSplits().stream().map(RouteSplit::getAmountIn).reduce(BigInteger.ZERO, BigInteger::add);
+            assertEquals(amountIn, allocated);
+        }
+    }
+
+    @Test
+    void respectsSplitTimeBudget() {
+        Random random = new Random(88L);
+        addPool(TOKEN_IN, TOKEN_OUT, randomReserve(random), randomReserve(random));
+        for (int i = 0; i < 19; i++) {
+            String mid = token(2 + i);
+            addPool(TOKEN_IN, mid, randomReserve(random), randomReserve(random));
+            addPool(mid, TOKEN_OUT, randomReserve(random), randomReserve(random));
+        }
+        // 足够多的份数，不受预算限制时需要数秒
+        ReflectionTestUtils.setField(routeSearchService, "splitChunks", 5_000_000);
+        ReflectionTestUtils.setField(routeSearchService, "splitTimeBudgetMs", 5L);
+        BigInteger amountIn = new BigInteger("1000000000000000000000");
+
+        long start = System.nanoTime();
+        SplitRouteInfo split = routeSearchService.findSplitRoute(TOKEN_IN, TOKEN_OUT, amountIn, 0.005, List.of());
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 5 + 200, "split route took " + elapsedMs + "ms with a 5ms budget");
+        assertTrue(split.getAmountOut().compareTo(split.getSingleRouteAmountOut()) >= 0);
+        assertFalse(split.isComplete());
+    }
+
+    private void addPool(String tokenA, String tokenB, String reserveA, String reserveB) {
+        boolean aIsToken0 = tokenA.compareTo(tokenB) < 0;
+        poolGraphService.upsertPool("0xpair" + pairCount++,
+            aIsToken0 ? tokenA : tokenB, aIsToken0 ? tokenB : tokenA,
+            new BigInteger(aIsToken0 ? reserveA : reserveB), new BigInteger(aIsToken0 ? reserveB : reserveA), 1);
+    }
+
+    private static String randomReserve(Random random) {
+        // 储备量级相差不超过2^10，保证每条候选路径都有正输出
+        return BigInteger.ONE.shiftLeft(80 + random.nextInt(10)).add(new BigInteger(80, random)).toString();
+    }
+
+    private static String token(int index) {
+        return String.format("0x%040x", index + 1);
+    }
+}
@@ -0,0 +1,176 @@
+package com.novaswap.service;
+
+import com.novaswap.contract.RouterService;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SplitAllocatorTest {
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    @Test
+    void singlePathTakesTheWholeAmount() {
+        List<BigInteger[]> path = List.<BigInteger[]>of(hop("1000000000000", "2000000000000"), hop("5000000000", "7000000000"));
+        BigInteger amountIn = new BigInteger("123456789");
+
+        SplitAllocator.Allocation allocation = SplitAllocator.allocate(List.of(path), amountIn, 50, deadlineIn(1_000));
+
+        assertTrue(allocation.complete());
+        assertEquals(amountIn, allocation.allocations()[0]);
+        assertEquals(SplitAllocator.pathOutput(path, amountIn), allocation.amountOut());
+    }
+
+    @Test
+    void splitsEquallyAcrossIdenticalPools() {
+        List<BigInteger[]> path = List.<BigInteger[]>of(hop("1000000000", "1000000000"));
+        BigInteger amountIn = BigInteger.valueOf(100_000_000);
+
+        SplitAllocator.Allocation allocation = SplitAllocator.allocate(List.of(path, path), amountIn, 100, NO_DEADLINE);
+
+        assertEquals(BigInteger.valueOf(50_000_000), allocation.allocations()[0]);
+        assertEquals(BigInteger.valueOf(50_000_000), allocation.allocations()[1]);
+        assertTrue(allocation.amountOut().compareTo(SplitAllocator.pathOutput(path, amountIn)) > 0);
+    }
+
+    @Test
+    void allocatesTheWholeAmount() {
+        Random random = new Random(12L);
+        for (int round = 0; round < 200; round++) {
+            List<List<BigInteger[]>> paths = randomPaths(random, 1 + random.nextInt(8));
+            BigInteger amountIn = new BigInteger(1 + random.nextInt(70), random).add(BigInteger.ONE);
+            int chunks = 1 + random.nextInt(100);
+
+            SplitAllocator.Allocation allocation = SplitAllocator.allocate(paths, amountIn, chunks, NO_DEADLINE);
+
+            BigInteger allocated = BigInteger.ZERO;
+            BigInteger output = BigInteger.ZERO;
+            for (int i = 0; i < paths.size(); i++) {
+                allocated = allocated.add(allocation.allocations()[i]);
+                assertEquals(SplitAllocator.pathOutput(paths.get(i), allocation.allocations()[i]), allocation.outputs()[i]);
+                output = output.add(allocation.outputs()[i]);
+            }
+            assertEquals(amountIn, allocated);
+            assertEquals(output, allocation.amountOut());
+        }
+    }
+
+    @Test
+    void greedyMatchesExhaustiveSplitAtChunkGranularity() {
+        Random random = new Random(34L);
+        int chunks = 20;
+        for (int round = 0; round < 200; round++) {
+            List<List<BigInteger[]>> paths = balancedPaths(random, 2);
+            BigInteger amountIn = BigInteger.valueOf(chunks).multiply(new BigInteger(20 + random.nextInt(50), random).add(BigInteger.ONE));
+            BigInteger chunk = amountIn.divide(BigInteger.valueOf(chunks));
+
+            BigInteger exhaustive = BigInteger.ZERO;
+            for (int k = 0; k <= chunks; k++) {
+                BigInteger first = chunk.multiply(BigInteger.valueOf(k));
+                BigInteger output = SplitAllocator.pathOutput(paths.get(0), first)
+                    .add(SplitAllocator.pathOutput(paths.get(1), amountIn.subtract(first)));
+                exhaustive = exhaustive.max(output);
+            }
+            BigInteger best = exhaustive;
+
+            SplitAllocator.Allocation allocation = SplitAllocator.allocate(paths, amountIn, chunks, NO_DEADLINE);
+            assertTrue(allocation.complete());
+            // 整数取整使凹性只近似成立，允许每份差1 wei
+            assertTrue(allocation.amountOut().add(BigInteger.valueOf(chunks)).compareTo(best) >= 0,
+                () -> "greedy " + allocation.amountOut() + " below exhaustive " + best);
+        }
+    }
+
+    @Test
+    void stopsAtDeadlineAndAllocatesTheRemainder() {
+        List<List<BigInteger[]>> paths = randomPaths(new Random(56L), 20);
+        BigInteger amountIn = new BigInteger("1000000000000000000000");
+        long budgetMs = 5;
+
+        long start = System.nanoTime();
+        SplitAllocator.Allocation allocation = SplitAllocator.allocate(paths, amountIn, 5_000_000, deadlineIn(budgetMs));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertFalse(allocation.complete());
+        assertTrue(elapsedMs < budgetMs + 100, "allocation took " + elapsedMs + "ms with a " + budgetMs + "ms budget");
+        BigInteger allocated = BigInteger.ZERO;
+        for (BigInteger value : allocation.allocations()) {
+            allocated = allocated.add(value);
+        }
+        assertEquals(amountIn, allocated);
+    }
+
+    @Test
+    void expiredDeadlineDegradesToBestSinglePath() {
+        List<BigInteger[]> small = List.<BigInteger[]>of(hop("1000000", "1000000"));
+        List<BigInteger[]> large = List.<BigInteger[]>of(hop("1000000000", "1000000000"));
+        BigInteger amountIn = BigInteger.valueOf(500_000);
+
+        SplitAllocator.Allocation allocation = SplitAllocator.allocate(List.of(small, large), amountIn, 50, System.nanoTime() - 1);
+
+        assertFalse(allocation.complete());
+        assertEquals(BigInteger.ZERO, allocation.allocations()[0]);
+        assertEquals(amountIn, allocation.allocations()[1]);
+        assertEquals(RouterService.getAmountOut(amountIn, large.get(0)[0], large.get(0)[1]), allocation.amountOut());
+    }
+
+    @Test
+    void handlesAmountSmallerThanChunkCount() {
+        List<BigInteger[]> path = List.<BigInteger[]>of(hop("1000000", "1000000"));
+
+        SplitAllocator.Allocation allocation = SplitAllocator.allocate(List.of(path, path), BigInteger.valueOf(3), 50, NO_DEADLINE);
+
+        assertEquals(BigInteger.valueOf(3), allocation.allocations()[0].add(allocation.allocations()[1]));
+        assertTrue(allocation.complete());
+    }
+
+    static List<List<BigInteger[]>> randomPaths(Random random, int count) {
+        List<List<BigInteger[]>> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<BigInteger[]> hops = new ArrayList<>();
+            int hopCount = 1 + random.nextInt(3);
+            for (int h = 0; h < hopCount; h++) {
+                hops.add(new BigInteger[]{
+                    new BigInteger(30 + random.nextInt(60), random).add(BigInteger.ONE),
+                    new BigInteger(30 + random.nextInt(60), random).add(BigInteger.ONE)
+                });
+            }
+            paths.add(hops);
+        }
+        return paths;
+    }
+
+    /**
+     * 各跳储备量级相近的路径；量级悬殊时中间数量被取整成个位数wei，输出退化为阶梯函数，不再是凹函数
+     */
+    static List<List<BigInteger[]>> balancedPaths(Random random, int count) {
+        List<List<BigInteger[]>> paths = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<BigInteger[]> hops = new ArrayList<>();
+            int hopCount = 1 + random.nextInt(3);
+            for (int h = 0; h < hopCount; h++) {
+                BigInteger base = BigInteger.ONE.shiftLeft(80 + random.nextInt(10));
+                hops.add(new BigInteger[]{
+                    base.add(new BigInteger(80, random)),
+                    base.add(new BigInteger(80, random))
+                });
+            }
+            paths.add(hops);
+        }
+        return paths;
+    }
+
+    private static BigInteger[] hop(String reserveIn, String reserveOut) {
+        return new BigInteger[]{new BigInteger(reserveIn), new BigInteger(reserveOut)};
+    }
+
+    private static long deadlineIn(long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
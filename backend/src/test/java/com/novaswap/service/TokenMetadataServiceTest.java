@@ -0,0 +1,156 @@
+package com.novaswap.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.novaswap.config.ContractProperties;
+import com.novaswap.model.MulticallResult;
+import com.novaswap.rpc.ChainClient;
+import com.novaswap.rpc.ChainClientRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * 只有name和symbol都读取成功的元数据写入文件，占位值只保存在内存中；multicall失败时不抛异常
+ */
+class TokenMetadataServiceTest {
+
+    private static final long CHAIN_ID = 1L;
+    private static final String USDC = "0xa0b86991c6218b36c1d19d4a2e9eb0ce3606eb48";
+    private static final String NO_NAME = "0x0000000000000000000000000000000000000001";
+    private static final String BAD_SYMBOL = "0x0000000000000000000000000000000000000002";
+
+    @TempDir
+    Path dataDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MulticallService multicallService;
+    private ChainClientRegistry chainClientRegistry;
+
+    @BeforeEach
+    void setUp() {
+        multicallService = mock(MulticallService.class);
+        ChainClient client = mock(ChainClient.class);
+        when(client.getMulticallService()).thenReturn(multicallService);
+        chainClientRegistry = mock(ChainClientRegistry.class);
+        when(chainClientRegistry.getPrimaryChainId()).thenReturn(CHAIN_ID);
+        when(chainClientRegistry.getClient(CHAIN_ID)).thenReturn(client);
+    }
+
+    @Test
+    void persistsOnlyFullyDecodedMetadata() throws IOException {
+        when(multicallService.aggregate3(anyList())).thenReturn(CompletableFuture.completedFuture(results(
+            success(string("USD Coin")), success(string("USDC")), success(uint(6)),
+            failure(), success(string("NONAME")), success(uint(18)),
+            success(string("Bad Symbol")), success(new byte[0]), success(uint(8))
+        )));
+        TokenMetadataService service = create();
+
+        Map<String, TokenMetadataService.TokenMetadata> metadata = service.getMetadata(List.of(USDC, NO_NAME, BAD_SYMBOL));
+
+        assertEquals(new TokenMetadataService.TokenMetadata(USDC, "USD Coin", "USDC", 6), metadata.get(USDC));
+        assertEquals(new TokenMetadataService.TokenMetadata(NO_NAME, "Unknown", "NONAME", 18), metadata.get(NO_NAME));
+        assertEquals(new TokenMetadataService.TokenMetadata(BAD_SYMBOL, "Bad Symbol", "???", 8), metadata.get(BAD_SYMBOL));
+
+        List<String> lines = Files.readAllLines(metadataFile(), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertEquals(USDC, objectMapper.readValue(lines.get(0), TokenMetadataService.TokenMetadata.class).address());
+
+        // 占位值在本进程内仍命中缓存，不重复读取
+        assertEquals("Unknown", service.getMetadata(NO_NAME).orElseThrow().name());
+        verify(multicallService, times(1)).aggregate3(anyList());
+    }
+
+    @Test
+    void refetchesPlaceholdersAfterRestart() {
+        when(multicallService.aggregate3(anyList())).thenReturn(
+            CompletableFuture.completedFuture(results(failure(), success(string("NONAME")), success(uint(18)))),
+            CompletableFuture.completedFuture(results(success(string("No Name")), success(string("NONAME")), success(uint(18))))
+        );
+
+        assertEquals("Unknown", create().getMetadata(NO_NAME).orElseThrow().name());
+        assertEquals("No Name", create().getMetadata(NO_NAME).orElseThrow().name());
+        verify(multicallService, times(2)).aggregate3(anyList());
+    }
+
+    @Test
+    void loadsPersistedTokensWhoseNameLooksLikePlaceholder() throws IOException {
+        Files.write(metadataFile(), List.of(
+            objectMapper.writeValueAsString(new TokenMetadataService.TokenMetadata(USDC, "USD Coin", "USDC", 6)),
+            objectMapper.writeValueAsString(new TokenMetadataService.TokenMetadata(NO_NAME, "Unknown", "???", 18))
+        ), StandardCharsets.UTF_8);
+        TokenMetadataService service = create();
+
+        assertEquals(2, service.getCachedCount());
+        assertEquals("???", service.getMetadata(NO_NAME).orElseThrow().symbol());
+        verifyNoInteractions(multicallService);
+    }
+
+    @Test
+    void returnsCachedTokensWhenMulticallFails() throws IOException {
+        Files.write(metadataFile(), List.of(
+            objectMapper.writeValueAsString(new TokenMetadataService.TokenMetadata(USDC, "USD Coin", "USDC", 6))
+        ), StandardCharsets.UTF_8);
+        // aggregate3失败时返回空列表
+        when(multicallService.aggregate3(anyList())).thenReturn(CompletableFuture.completedFuture(results()));
+        TokenMetadataService service = create();
+
+        Map<String, TokenMetadataService.TokenMetadata> metadata = service.getMetadata(List.of(USDC, NO_NAME, BAD_SYMBOL));
+
+        assertEquals(Map.of(USDC, new TokenMetadataService.TokenMetadata(USDC, "USD Coin", "USDC", 6)), metadata);
+        assertEquals(1, service.getCachedCount());
+    }
+
+    private TokenMetadataService create() {
+        TokenMetadataService service = new TokenMetadataService(chainClientRegistry, new ContractProperties(), objectMapper);
+        ReflectionTestUtils.setField(service, "dataDir", dataDir.toString());
+        return service;
+    }
+
+    private Path metadataFile() {
+        return dataDir.resolve("token-metadata-" + CHAIN_ID + ".jsonl");
+    }
+
+    private static List<MulticallResult> results(MulticallResult... results) {
+        return new ArrayList<>(List.of(results));
+    }
+
+    private static MulticallResult success(byte[] returnData) {
+        return MulticallResult.builder().success(true).returnData(returnData).build();
+    }
+
+    private static MulticallResult failure() {
+        return MulticallResult.builder().success(false).returnData(new byte[0]).build();
+    }
+
+    private static byte[] uint(long value) {
+        return Numeric.toBytesPadded(BigInteger.valueOf(value), 32);
+    }
+
+    /**
+     * ABI编码的动态string：偏移、长度、按32字节补齐的内容
+     */
+    private static byte[] string(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = new byte[64 + (bytes.length + 31) / 32 * 32];
+        System.arraycopy(uint(32), 0, encoded, 0, 32);
+        System.arraycopy(uint(bytes.length), 0, encoded, 32, 32);
+        System.arraycopy(bytes, 0, encoded, 64, bytes.length);
+        return encoded;
+    }
+}